@@ -445,7 +445,7 @@ public class SymbolTable {
          * reference.
          */
         public Entry(String symbol, Entry next) {
-            this.symbol = symbol.intern();
+            this.symbol = StringInterner.getDefault().intern(symbol);
             characters = new char[symbol.length()];
             symbol.getChars(0, characters.length, characters, 0);
             this.next = next;
@@ -458,7 +458,7 @@ public class SymbolTable {
         public Entry(char[] ch, int offset, int length, Entry next) {
             characters = new char[length];
             System.arraycopy(ch, offset, characters, 0, length);
-            symbol = new String(characters).intern();
+            symbol = StringInterner.getDefault().intern(ch, offset, length);
             this.next = next;
         }
 
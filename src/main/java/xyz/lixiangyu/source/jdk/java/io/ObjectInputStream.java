@@ -35,6 +35,7 @@ import java.security.AccessController;
 import java.security.PrivilegedAction;
 import java.security.PrivilegedActionException;
 import java.security.PrivilegedExceptionAction;
+import java.util.ArrayDeque;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Objects;
@@ -220,6 +221,9 @@ public class ObjectInputStream
     /** marker for unshared objects in internal handle table */
     private static final Object unsharedMarker = new Object();
 
+    /** marker returned for objects left to the enclosing frame loop */
+    private static final Object deferredMarker = new Object();
+
     /** table mapping primitive type names to corresponding class objects */
     private static final HashMap<String, Class<?>> primClasses
         = new HashMap<>(8, 1.0F);
@@ -295,6 +299,12 @@ public class ObjectInputStream
     private long depth;
     /** Total number of references to any type of object, class, enum, proxy, etc. */
     private long totalObjectRefs;
+    /** whether streaming mode is enabled */
+    private boolean streaming;
+    /** objects and arrays whose contents are being read iteratively */
+    private ArrayDeque<ReadFrame> frames;
+    /** if true, the next object read may be left to the enclosing frame */
+    private boolean deferFrame;
     /** whether stream is closed */
     private boolean closed;
 
@@ -326,6 +336,25 @@ public class ObjectInputStream
      */
     private ObjectInputFilter serialFilter;
 
+    // limits applied to each object graph; see setLimits()
+    private long maxDepth = Long.MAX_VALUE;
+    private long maxReferences = Long.MAX_VALUE;
+    private int maxArrayLength = Integer.MAX_VALUE;
+    private long maxBytes = Long.MAX_VALUE;
+    /** reference count at start of current top-level read */
+    private long graphRefs;
+    /** bytes consumed at start of current top-level read */
+    private long graphBytes;
+    /** greatest depth reached so far */
+    private long maxDepthReached;
+    /** total length of arrays allocated so far */
+    private long arrayElements;
+
+    /** classes resolved by resolveClass, by name, for resolvedLoader */
+    private HashMap<String, Class<?>> resolvedClasses;
+    /** loader used to resolve the classes in resolvedClasses */
+    private ClassLoader resolvedLoader;
+
     /**
      * Creates an ObjectInputStream that reads from the specified InputStream.
      * A serialization stream header is read from the stream and verified.
@@ -388,6 +417,127 @@ public class ObjectInputStream
         enableOverride = true;
     }
 
+    /**
+     * Enables or disables streaming mode, for reading very deep object graphs
+     * without exhausting the thread stack.
+     *
+     * <p>In streaming mode the fields of objects deserialized by default
+     * serialization, and the elements of object arrays, are read from an
+     * explicit work stack instead of by recursion, so that a long chain of
+     * such objects (for example, the nodes of a linked list) is read in
+     * constant stack space.  Objects with class-defined readObject or
+     * readExternal methods are still handed to those methods as usual, and
+     * the object graph reconstructed is the same as outside streaming mode.
+     * Streaming mode does not change the stream format, and may be
+     * used to read any stream, including those written by an
+     * ObjectOutputStream in {@link ObjectOutputStream#useStreamingMode
+     * streaming mode}, whose back-references are bounded by resets.
+     *
+     * @param   enable <code>true</code> to enable streaming mode,
+     *          <code>false</code> to disable it
+     * @throws  IllegalStateException if called while an object is being
+     *          deserialized
+     */
+    public void useStreamingMode(boolean enable) {
+        if (depth != 0) {
+            throw new IllegalStateException("stream active");
+        }
+        if (enable && frames == null) {
+            frames = new ArrayDeque<>();
+        }
+        streaming = enable;
+    }
+
+    /**
+     * Sets limits on each object graph read from this stream, that is, on
+     * the objects read by each call to readObject or readUnshared which is
+     * not itself nested in another such call.  The limits are checked before
+     * each object and each array is allocated; if any is exceeded, the
+     * active readObject or readUnshared throws InvalidClassException.
+     *
+     * <p>The depth is the number of nested calls to readObject or
+     * readUnshared, including those made internally for the fields of an
+     * object and the elements of an array, starting at <code>1</code>.  The
+     * number of references counts every object, array, class, class
+     * descriptor, enum constant, string and back-reference read, and the
+     * number of bytes counts the bytes consumed from the underlying stream.
+     * The array length limit also applies to arrays that classes allocate
+     * while reading their own data, as <code>java.util.ArrayList</code> and
+     * <code>java.util.HashMap</code> do.  Unlike those of a serialization
+     * filter, these limits are checked without allocation, and the reference
+     * and byte counts start again for each object graph, so that they may be
+     * used on long-lived streams.
+     *
+     * <p>By default, there are no limits.
+     *
+     * @param   maxDepth the maximum depth
+     * @param   maxReferences the maximum number of references per graph
+     * @param   maxArrayLength the maximum length of any array
+     * @param   maxBytes the maximum number of bytes per graph
+     * @throws  IllegalArgumentException if any limit is negative
+     * @see     #getMaxDepthReached()
+     * @see     #getReferenceCount()
+     * @see     #getArrayElementCount()
+     * @see     #getBytesRead()
+     */
+    public void setLimits(long maxDepth, long maxReferences,
+                          int maxArrayLength, long maxBytes)
+    {
+        if (maxDepth < 0 || maxReferences < 0 ||
+            maxArrayLength < 0 || maxBytes < 0)
+        {
+            throw new IllegalArgumentException("negative limit");
+        }
+        this.maxDepth = maxDepth;
+        this.maxReferences = maxReferences;
+        this.maxArrayLength = maxArrayLength;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Returns the greatest depth of nested objects reached so far by this
+     * stream.
+     *
+     * @return  the greatest depth reached
+     * @see     #setLimits(long, long, int, long)
+     */
+    public long getMaxDepthReached() {
+        return maxDepthReached;
+    }
+
+    /**
+     * Returns the total number of references read so far by this stream.
+     *
+     * @return  the number of references read
+     * @see     #setLimits(long, long, int, long)
+     */
+    public long getReferenceCount() {
+        return totalObjectRefs;
+    }
+
+    /**
+     * Returns the total length of the arrays allocated so far by this
+     * stream, including those allocated by classes while reading their own
+     * data.
+     *
+     * @return  the total number of array elements allocated
+     * @see     #setLimits(long, long, int, long)
+     */
+    public long getArrayElementCount() {
+        return arrayElements;
+    }
+
+    /**
+     * Returns the number of bytes consumed so far from the underlying
+     * stream.
+     *
+     * @return  the number of bytes read
+     * @see     #setLimits(long, long, int, long)
+     */
+    public long getBytesRead() {
+        return (bin == null) ? 0 : bin.getBytesRead();
+    }
+
     /**
      * Read an object from the ObjectInputStream.  The class of the object, the
      * signature of the class, and the values of the non-transient and
@@ -427,6 +577,9 @@ public class ObjectInputStream
 
         // if nested read, passHandle contains handle of enclosing object
         int outerHandle = passHandle;
+        if (depth == 0) {
+            startGraph();
+        }
         try {
             Object obj = readObject0(false);
             handles.markDependency(outerHandle, passHandle);
@@ -517,6 +670,9 @@ public class ObjectInputStream
     public Object readUnshared() throws IOException, ClassNotFoundException {
         // if nested read, passHandle contains handle of enclosing object
         int outerHandle = passHandle;
+        if (depth == 0) {
+            startGraph();
+        }
         try {
             Object obj = readObject0(true);
             handles.markDependency(outerHandle, passHandle);
@@ -670,7 +826,10 @@ public class ObjectInputStream
      * (e.g., an <code>ObjectStreamClass</code> with the name
      * <code>"int"</code> will be resolved to <code>Integer.TYPE</code>).
      * Otherwise, the <code>ClassNotFoundException</code> will be thrown to
-     * the caller of this method.
+     * the caller of this method.  Classes resolved by the default
+     * implementation are remembered by name and loader for the lifetime of
+     * the stream, so that a class whose descriptor appears again (for
+     * example, after a reset) is not looked up a second time.
      *
      * @param   desc an instance of class <code>ObjectStreamClass</code>
      * @return  a <code>Class</code> object corresponding to <code>desc</code>
@@ -682,16 +841,35 @@ public class ObjectInputStream
         throws IOException, ClassNotFoundException
     {
         String name = desc.getName();
-        try {
-            return Class.forName(name, false, latestUserDefinedLoader());
-        } catch (ClassNotFoundException ex) {
-            Class<?> cl = primClasses.get(name);
-            if (cl != null) {
-                return cl;
-            } else {
-                throw ex;
+        if (resolvedClasses == null) {
+            resolvedClasses = new HashMap<>();
+        }
+        Class<?> cl = resolvedClasses.get(name);
+        if (cl != null && cl.getClassLoader() == null &&
+            name.startsWith("java."))
+        {
+            // only the bootstrap loader may define classes in java.*, so the
+            // result does not depend on the loader; skip the stack walk
+            return cl;
+        }
+        ClassLoader loader = latestUserDefinedLoader();
+        if (loader != resolvedLoader) {
+            resolvedClasses.clear();
+            resolvedLoader = loader;
+            cl = null;
+        }
+        if (cl == null) {
+            try {
+                cl = Class.forName(name, false, loader);
+            } catch (ClassNotFoundException ex) {
+                cl = primClasses.get(name);
+                if (cl == null) {
+                    throw ex;
+                }
             }
+            resolvedClasses.put(name, cl);
         }
+        return cl;
     }
 
     /**
@@ -1267,6 +1445,45 @@ public class ObjectInputStream
         }
     }
 
+    /**
+     * Records the start of a top-level read, from which the reference and
+     * byte limits are counted.
+     */
+    private void startGraph() {
+        graphRefs = totalObjectRefs;
+        graphBytes = (bin == null) ? 0 : bin.getBytesRead();
+    }
+
+    /**
+     * Checks the limits set by setLimits before an object or array is
+     * allocated, and updates the depth and array counters.
+     *
+     * @param arrayLength the array length requested; use {@code -1} if not
+     *        creating an array
+     * @throws InvalidClassException if a limit is exceeded
+     */
+    private void checkLimits(int arrayLength) throws InvalidClassException {
+        if (depth > maxDepthReached) {
+            maxDepthReached = depth;
+        }
+        String limit = null;
+        if (depth > maxDepth) {
+            limit = "depth " + depth;
+        } else if (totalObjectRefs - graphRefs > maxReferences) {
+            limit = "references " + (totalObjectRefs - graphRefs);
+        } else if (arrayLength > maxArrayLength) {
+            limit = "array length " + arrayLength;
+        } else if (bin != null && bin.getBytesRead() - graphBytes > maxBytes) {
+            limit = "bytes " + (bin.getBytesRead() - graphBytes);
+        }
+        if (limit != null) {
+            throw new InvalidClassException("limit exceeded: " + limit);
+        }
+        if (arrayLength > 0) {
+            arrayElements += arrayLength;
+        }
+    }
+
     /**
      * Checks the given array type and length to ensure that creation of such
      * an array is permitted by this ObjectInputStream. The arrayType argument
@@ -1292,6 +1509,7 @@ public class ObjectInputStream
         }
 
         filterCheck(arrayType, arrayLength);
+        checkLimits(arrayLength);
     }
 
     /**
@@ -1519,6 +1737,8 @@ public class ObjectInputStream
      * Underlying readObject implementation.
      */
     private Object readObject0(boolean unshared) throws IOException {
+        boolean defer = deferFrame;
+        deferFrame = false;
         boolean oldMode = bin.getBlockDataMode();
         if (oldMode) {
             int remain = bin.currentBlockRemaining();
@@ -1564,13 +1784,17 @@ public class ObjectInputStream
                     return checkResolve(readString(unshared));
 
                 case TC_ARRAY:
-                    return checkResolve(readArray(unshared));
+                    Object array = readArray(unshared, defer);
+                    return (array == deferredMarker) ?
+                        array : checkResolve(array);
 
                 case TC_ENUM:
                     return checkResolve(readEnum(unshared));
 
                 case TC_OBJECT:
-                    return checkResolve(readOrdinaryObject(unshared));
+                    Object obj = readOrdinaryObject(unshared, defer);
+                    return (obj == deferredMarker) ?
+                        obj : checkResolve(obj);
 
                 case TC_EXCEPTION:
                     IOException ex = readFatalException();
@@ -1882,7 +2106,16 @@ public class ObjectInputStream
         try {
             totalObjectRefs++;
             depth++;
-            desc.initNonProxy(readDesc, cl, resolveEx, readClassDesc(false));
+            ObjectStreamClass superDesc = readClassDesc(false);
+            if (resolveEx == null) {
+                // shared by the streams that read the same descriptor
+                desc = ObjectStreamClass.forStream(readDesc, cl, superDesc);
+                if (!unshared) {
+                    handles.setObject(descHandle, desc);
+                }
+            } else {
+                desc.initNonProxy(readDesc, cl, resolveEx, superDesc);
+            }
         } finally {
             depth--;
         }
@@ -1920,9 +2153,13 @@ public class ObjectInputStream
 
     /**
      * Reads in and returns array object, or null if array class is
-     * unresolvable.  Sets passHandle to array's assigned handle.
+     * unresolvable.  Sets passHandle to array's assigned handle.  If defer
+     * is true, the elements of an object array may instead be left to the
+     * enclosing frame loop, in which case deferredMarker is returned.
      */
-    private Object readArray(boolean unshared) throws IOException {
+    private Object readArray(boolean unshared, boolean defer)
+        throws IOException
+    {
         if (bin.readByte() != TC_ARRAY) {
             throw new InternalError();
         }
@@ -1931,6 +2168,7 @@ public class ObjectInputStream
         int len = bin.readInt();
 
         filterCheck(desc.forClass(), len);
+        checkLimits(len);
 
         Object array = null;
         Class<?> cl, ccl = null;
@@ -1945,6 +2183,9 @@ public class ObjectInputStream
             handles.markException(arrayHandle, resolveEx);
         }
 
+        if (streaming && (ccl == null || !ccl.isPrimitive())) {
+            return pushFrame(new ReadFrame(array, arrayHandle, len, defer));
+        }
         if (ccl == null) {
             for (int i = 0; i < len; i++) {
                 readObject0(false);
@@ -2030,9 +2271,11 @@ public class ObjectInputStream
      * ObjectStreamClass, array, or enum constant) object, or null if object's
      * class is unresolvable (in which case a ClassNotFoundException will be
      * associated with object's handle).  Sets passHandle to object's assigned
-     * handle.
+     * handle.  If defer is true, the serial data of the object may instead be
+     * left to the enclosing frame loop, in which case deferredMarker is
+     * returned.
      */
-    private Object readOrdinaryObject(boolean unshared)
+    private Object readOrdinaryObject(boolean unshared, boolean defer)
         throws IOException
     {
         if (bin.readByte() != TC_OBJECT) {
@@ -2047,6 +2290,7 @@ public class ObjectInputStream
                 || cl == ObjectStreamClass.class) {
             throw new InvalidClassException("invalid class descriptor");
         }
+        checkLimits(-1);
 
         Object obj;
         try {
@@ -2065,10 +2309,25 @@ public class ObjectInputStream
 
         if (desc.isExternalizable()) {
             readExternalData((Externalizable) obj, desc);
+        } else if (streaming) {
+            return pushFrame(new ReadFrame(obj, desc,
+                desc.getClassDataLayout(), passHandle, unshared, defer));
         } else {
             readSerialData(obj, desc);
         }
+        return finishOrdinaryObject(obj, desc, unshared);
+    }
 
+    /**
+     * Completes the reading of an ordinary object whose data has been read
+     * in full, substituting the result of its readResolve method if it has
+     * one.  passHandle must contain the object's handle.
+     */
+    private Object finishOrdinaryObject(Object obj,
+                                        ObjectStreamClass desc,
+                                        boolean unshared)
+        throws IOException
+    {
         handles.finish(passHandle);
 
         if (obj != null &&
@@ -2166,56 +2425,12 @@ public class ObjectInputStream
                 if (obj == null || handles.lookupException(passHandle) != null) {
                     defaultReadFields(null, slotDesc); // skip field values
                 } else if (slotDesc.hasReadObjectMethod()) {
-                    ThreadDeath t = null;
-                    boolean reset = false;
-                    SerialCallbackContext oldContext = curContext;
-                    if (oldContext != null)
-                        oldContext.check();
-                    try {
-                        curContext = new SerialCallbackContext(obj, slotDesc);
-
-                        bin.setBlockDataMode(true);
-                        slotDesc.invokeReadObject(obj, this);
-                    } catch (ClassNotFoundException ex) {
-                        /*
-                         * In most cases, the handle table has already
-                         * propagated a CNFException to passHandle at this
-                         * point; this mark call is included to address cases
-                         * where the custom readObject method has cons'ed and
-                         * thrown a new CNFException of its own.
-                         */
-                        handles.markException(passHandle, ex);
-                    } finally {
-                        do {
-                            try {
-                                curContext.setUsed();
-                                if (oldContext!= null)
-                                    oldContext.check();
-                                curContext = oldContext;
-                                reset = true;
-                            } catch (ThreadDeath x) {
-                                t = x;  // defer until reset is true
-                            }
-                        } while (!reset);
-                        if (t != null)
-                            throw t;
-                    }
-
-                    /*
-                     * defaultDataEnd may have been set indirectly by custom
-                     * readObject() method when calling defaultReadObject() or
-                     * readFields(); clear it to restore normal read behavior.
-                     */
-                    defaultDataEnd = false;
+                    readCustomData(obj, slotDesc);
                 } else {
                     defaultReadFields(obj, slotDesc);
                     }
 
-                if (slotDesc.hasWriteObjectData()) {
-                    skipCustomData();
-                } else {
-                    bin.setBlockDataMode(false);
-                }
+                endSlotData(slotDesc);
             } else {
                 if (obj != null &&
                     slotDesc.hasReadObjectNoDataMethod() &&
@@ -2227,6 +2442,69 @@ public class ObjectInputStream
         }
             }
 
+    /**
+     * Reads instance data for the class described by the given descriptor by
+     * invoking its class-defined readObject method.  passHandle must contain
+     * the handle of the object being read.
+     */
+    private void readCustomData(Object obj, ObjectStreamClass slotDesc)
+        throws IOException
+    {
+        ThreadDeath t = null;
+        boolean reset = false;
+        SerialCallbackContext oldContext = curContext;
+        if (oldContext != null)
+            oldContext.check();
+        try {
+            curContext = new SerialCallbackContext(obj, slotDesc);
+
+            bin.setBlockDataMode(true);
+            slotDesc.invokeReadObject(obj, this);
+        } catch (ClassNotFoundException ex) {
+            /*
+             * In most cases, the handle table has already propagated a
+             * CNFException to passHandle at this point; this mark call is
+             * included to address cases where the custom readObject method
+             * has cons'ed and thrown a new CNFException of its own.
+             */
+            handles.markException(passHandle, ex);
+        } finally {
+            do {
+                try {
+                    curContext.setUsed();
+                    if (oldContext!= null)
+                        oldContext.check();
+                    curContext = oldContext;
+                    reset = true;
+                } catch (ThreadDeath x) {
+                    t = x;  // defer until reset is true
+                }
+            } while (!reset);
+            if (t != null)
+                throw t;
+        }
+
+        /*
+         * defaultDataEnd may have been set indirectly by custom readObject()
+         * method when calling defaultReadObject() or readFields(); clear it
+         * to restore normal read behavior.
+         */
+        defaultDataEnd = false;
+    }
+
+    /**
+     * Completes the reading of instance data for the class described by the
+     * given descriptor, skipping any custom data that the class did not
+     * consume.
+     */
+    private void endSlotData(ObjectStreamClass slotDesc) throws IOException {
+        if (slotDesc.hasWriteObjectData()) {
+            skipCustomData();
+        } else {
+            bin.setBlockDataMode(false);
+        }
+    }
+
     /**
      * Skips over all block data and objects until TC_ENDBLOCKDATA is
      * encountered.
@@ -2263,6 +2541,32 @@ public class ObjectInputStream
      */
     private void defaultReadFields(Object obj, ObjectStreamClass desc)
         throws IOException
+    {
+        defaultReadPrimFields(obj, desc);
+
+        int objHandle = passHandle;
+        ObjectStreamField[] fields = desc.getFields(false);
+        Object[] objVals = new Object[desc.getNumObjFields()];
+        int numPrimFields = fields.length - objVals.length;
+        for (int i = 0; i < objVals.length; i++) {
+            ObjectStreamField f = fields[numPrimFields + i];
+            objVals[i] = readObject0(f.isUnshared());
+            if (f.getField() != null) {
+                handles.markDependency(objHandle, passHandle);
+            }
+        }
+        if (obj != null) {
+            desc.setObjFieldValues(obj, objVals);
+        }
+        passHandle = objHandle;
+    }
+
+    /**
+     * Reads in values of primitive serializable fields declared by given
+     * class descriptor.  If obj is non-null, sets field values in obj.
+     */
+    private void defaultReadPrimFields(Object obj, ObjectStreamClass desc)
+        throws IOException
     {
         Class<?> cl = desc.forClass();
         if (cl != null && obj != null && !cl.isInstance(obj)) {
@@ -2277,22 +2581,136 @@ public class ObjectInputStream
         if (obj != null) {
             desc.setPrimFieldValues(obj, primVals);
         }
+    }
 
-        int objHandle = passHandle;
-        ObjectStreamField[] fields = desc.getFields(false);
-        Object[] objVals = new Object[desc.getNumObjFields()];
-        int numPrimFields = fields.length - objVals.length;
-        for (int i = 0; i < objVals.length; i++) {
-            ObjectStreamField f = fields[numPrimFields + i];
-            objVals[i] = readObject0(f.isUnshared());
-            if (f.getField() != null) {
-                handles.markDependency(objHandle, passHandle);
+    /**
+     * Pushes the given frame in streaming mode.  A deferred frame is left to
+     * the frame loop already running below it, and deferredMarker is
+     * returned; otherwise the frame, and any frames pushed while reading its
+     * contents, are read in full, and the resulting object is returned with
+     * passHandle set to its handle.
+     */
+    private Object pushFrame(ReadFrame f) throws IOException {
+        frames.push(f);
+        if (f.deferred) {
+            depth++;
+            return deferredMarker;
+        }
+        readFrames(frames.size() - 1);
+        return f.result;
+    }
+
+    /**
+     * Reads the contents of the frames above the given stack size, in the
+     * same order in which readSerialData and readArray would read them
+     * recursively.  Each object value is read with deferFrame set, so that a
+     * default-serializable object or an object array it refers to is pushed
+     * as a new frame rather than read by a nested call; the value is stored
+     * into its enclosing frame when that frame is complete.
+     */
+    private void readFrames(int base) throws IOException {
+        try {
+            while (frames.size() > base) {
+                ReadFrame f = frames.peek();
+                passHandle = f.handle;
+                if (f.next < f.len) {
+                    int i = f.next++;
+                    deferFrame = true;
+                    Object val = readObject0(f.fields != null &&
+                        f.fields[f.numPrimFields + i].isUnshared());
+                    if (val != deferredMarker) {
+                        setFrameValue(f, val);
+                    }
+                } else if (f.slotDesc != null) {
+                    if (f.target != null) {
+                        f.slotDesc.setObjFieldValues(f.target, f.vals);
+                    }
+                    endSlotData(f.slotDesc);
+                    f.slotDesc = null;
+                    f.len = 0;
+                } else if (f.slots != null && f.slot < f.slots.length) {
+                    readFrameSlot(f, f.slots[f.slot++]);
+                } else {
+                    Object obj;
+                    if (f.desc != null) {
+                        obj = finishOrdinaryObject(f.obj, f.desc, f.unshared);
+                    } else {
+                        handles.finish(f.handle);
+                        obj = f.obj;
+                    }
+                    if (f.deferred) {
+                        obj = checkResolve(obj);
+                    }
+                    frames.pop();
+                    passHandle = f.handle;
+                    if (f.deferred) {
+                        depth--;
+                        setFrameValue(frames.peek(), obj);
+                    } else {
+                        f.result = obj;
+                    }
+                }
+            }
+        } finally {
+            while (frames.size() > base) {
+                if (frames.pop().deferred) {
+                    depth--;
+                }
             }
         }
-        if (obj != null) {
-            desc.setObjFieldValues(obj, objVals);
+    }
+
+    /**
+     * Starts reading the instance data of the given class data slot of the
+     * frame's object, as readSerialData would.  Data read by a class-defined
+     * readObject method is read in full; for default serializable fields,
+     * only primitive values are read, leaving object values to the frame
+     * loop.
+     */
+    private void readFrameSlot(ReadFrame f, ObjectStreamClass.ClassDataSlot slot)
+        throws IOException
+    {
+        ObjectStreamClass slotDesc = slot.desc;
+        if (slot.hasData) {
+            boolean skip = (f.obj == null ||
+                            handles.lookupException(passHandle) != null);
+            if (!skip && slotDesc.hasReadObjectMethod()) {
+                readCustomData(f.obj, slotDesc);
+                endSlotData(slotDesc);
+            } else {
+                Object target = skip ? null : f.obj;   // skip field values
+                defaultReadPrimFields(target, slotDesc);
+                f.target = target;
+                f.slotDesc = slotDesc;
+                f.fields = slotDesc.getFields(false);
+                f.vals = new Object[slotDesc.getNumObjFields()];
+                f.numPrimFields = f.fields.length - f.vals.length;
+                f.len = f.vals.length;
+                f.next = 0;
+            }
+        } else if (f.obj != null &&
+                   slotDesc.hasReadObjectNoDataMethod() &&
+                   handles.lookupException(passHandle) == null)
+        {
+            slotDesc.invokeReadObjectNoData(f.obj);
+        }
+    }
+
+    /**
+     * Stores the value just read into the given frame, recording the
+     * dependency of the frame's object on it.  passHandle must contain the
+     * value's handle.
+     */
+    private void setFrameValue(ReadFrame f, Object val) {
+        if (f.vals != null) {
+            int i = f.next - 1;
+            f.vals[i] = val;
+            if (f.fields == null ||
+                f.fields[f.numPrimFields + i].getField() != null)
+            {
+                handles.markDependency(f.handle, passHandle);
+            }
         }
-        passHandle = objHandle;
     }
 
     /**
@@ -3575,6 +3993,67 @@ public class ObjectInputStream
         }
     }
 
+    /**
+     * Object or object array whose contents are being read by readFrames in
+     * streaming mode.
+     */
+    private static final class ReadFrame {
+
+        /** object or array being read */
+        final Object obj;
+        /** class descriptor of obj, or null for arrays */
+        final ObjectStreamClass desc;
+        /** handle of obj */
+        final int handle;
+        /** true if obj is being read as unshared */
+        final boolean unshared;
+        /** true if the frame was pushed by an enclosing frame loop */
+        final boolean deferred;
+        /** class data slots of obj, or null for arrays */
+        final ObjectStreamClass.ClassDataSlot[] slots;
+        /** index of next slot to read */
+        int slot;
+        /** descriptor of slot whose fields are being read, or null */
+        ObjectStreamClass slotDesc;
+        /** object to set field values of current slot in, or null to skip */
+        Object target;
+        /** serializable fields of current slot, or null for arrays */
+        ObjectStreamField[] fields;
+        /** number of primitive fields of current slot */
+        int numPrimFields;
+        /** object values read so far, or null if discarded */
+        Object[] vals;
+        /** number of object values to read */
+        int len;
+        /** index of next object value to read */
+        int next;
+        /** object read, for frames that are not deferred */
+        Object result;
+
+        ReadFrame(Object obj, ObjectStreamClass desc,
+                  ObjectStreamClass.ClassDataSlot[] slots, int handle,
+                  boolean unshared, boolean deferred)
+        {
+            this.obj = obj;
+            this.desc = desc;
+            this.slots = slots;
+            this.handle = handle;
+            this.unshared = unshared;
+            this.deferred = deferred;
+        }
+
+        ReadFrame(Object array, int handle, int len, boolean deferred) {
+            obj = array;
+            desc = null;
+            this.handle = handle;
+            unshared = false;
+            this.deferred = deferred;
+            slots = null;
+            vals = (Object[]) array;
+            this.len = len;
+        }
+    }
+
     /**
      * Unsynchronized table which tracks wire handle to object mappings, as
      * well as ClassNotFoundExceptions associated with deserialized objects.
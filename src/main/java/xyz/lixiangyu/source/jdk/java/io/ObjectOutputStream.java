@@ -29,6 +29,7 @@ import java.io.ObjectStreamClass.WeakClassKey;
 import java.lang.ref.ReferenceQueue;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -184,6 +185,13 @@ public class ObjectOutputStream
     /** recursion depth */
     private int depth;
 
+    /** handle window in streaming mode, or 0 if streaming mode is off */
+    private int streamWindow;
+    /** objects and arrays whose contents are being written iteratively */
+    private ArrayDeque<WriteFrame> frames;
+    /** if true, the next object written may be left to the enclosing frame */
+    private boolean deferFrame;
+
     /** buffer for writing primitive field values */
     private byte[] primVals;
 
@@ -318,6 +326,53 @@ public class ObjectOutputStream
         }
     }
 
+    /**
+     * Enables or disables streaming mode, for writing long sequences of
+     * objects or very deep object graphs in bounded memory.
+     *
+     * <p>In streaming mode the fields of objects serialized by default
+     * serialization, and the elements of object arrays, are written from an
+     * explicit work stack instead of by recursion, so that a long chain of
+     * such objects (for example, the nodes of a linked list) does not
+     * exhaust the thread stack.  Objects with class-defined writeObject or
+     * writeExternal methods are still handed to those methods as usual.  The
+     * bytes written are identical to those written outside streaming mode.
+     *
+     * <p>In addition, the table of objects already written to the stream is
+     * bounded by the given window: after each call to writeObject or
+     * writeUnshared that leaves more than <code>window</code> objects and
+     * class descriptors in the table, the stream is {@link #reset reset} and
+     * flushed.  Back-references therefore never span more than one window;
+     * an object written again after a reset is written as a new object, and
+     * is read back as a distinct copy.  The window is only applied between
+     * top-level objects, so a single object graph is always written
+     * completely before it is discarded from the table.
+     *
+     * <p>The corresponding ObjectInputStream can read streams written in
+     * streaming mode without any special configuration, but should enable
+     * {@link ObjectInputStream#useStreamingMode its own streaming mode} to
+     * read deep object graphs without recursion.
+     *
+     * @param   window the maximum number of handles to retain between
+     *          top-level objects, or <code>0</code> to disable streaming mode
+     * @throws  IllegalArgumentException if <code>window</code> is negative
+     * @throws  IllegalStateException if called while an object is being
+     *          serialized
+     * @see #reset()
+     */
+    public void useStreamingMode(int window) {
+        if (window < 0) {
+            throw new IllegalArgumentException("negative window: " + window);
+        }
+        if (depth != 0) {
+            throw new IllegalStateException("stream active");
+        }
+        if (window > 0 && frames == null) {
+            frames = new ArrayDeque<>();
+        }
+        streamWindow = window;
+    }
+
     /**
      * Write the specified object to the ObjectOutputStream.  The class of the
      * object, the signature of the class, and the values of the non-transient
@@ -346,6 +401,9 @@ public class ObjectOutputStream
         }
         try {
             writeObject0(obj, false);
+            if (streamWindow > 0 && depth == 0) {
+                endWindow();
+            }
         } catch (IOException ex) {
             if (depth == 0) {
                 writeFatalException(ex);
@@ -413,6 +471,9 @@ public class ObjectOutputStream
     public void writeUnshared(Object obj) throws IOException {
         try {
             writeObject0(obj, true);
+            if (streamWindow > 0 && depth == 0) {
+                endWindow();
+            }
         } catch (IOException ex) {
             if (depth == 0) {
                 writeFatalException(ex);
@@ -1105,6 +1166,8 @@ public class ObjectOutputStream
     private void writeObject0(Object obj, boolean unshared)
         throws IOException
     {
+        boolean defer = deferFrame;
+        deferFrame = false;
         boolean oldMode = bout.setBlockDataMode(false);
         depth++;
         try {
@@ -1171,11 +1234,11 @@ public class ObjectOutputStream
             if (obj instanceof String) {
                 writeString((String) obj, unshared);
             } else if (cl.isArray()) {
-                writeArray(obj, desc, unshared);
+                writeArray(obj, desc, unshared, defer);
             } else if (obj instanceof Enum) {
                 writeEnum((Enum<?>) obj, desc, unshared);
             } else if (obj instanceof Serializable) {
-                writeOrdinaryObject(obj, desc, unshared);
+                writeOrdinaryObject(obj, desc, unshared, defer);
             } else {
                 if (extendedDebugInfo) {
                     throw new NotSerializableException(
@@ -1315,7 +1378,8 @@ public class ObjectOutputStream
      */
     private void writeArray(Object array,
                             ObjectStreamClass desc,
-                            boolean unshared)
+                            boolean unshared,
+                            boolean defer)
         throws IOException
     {
         bout.writeByte(TC_ARRAY);
@@ -1363,6 +1427,10 @@ public class ObjectOutputStream
             Object[] objs = (Object[]) array;
             int len = objs.length;
             bout.writeInt(len);
+            if (streamWindow > 0 && !extendedDebugInfo) {
+                pushFrame(new WriteFrame(objs, defer));
+                return;
+            }
             if (extendedDebugInfo) {
                 debugInfoStack.push(
                     "array (class \"" + array.getClass().getName() +
@@ -1412,7 +1480,8 @@ public class ObjectOutputStream
      */
     private void writeOrdinaryObject(Object obj,
                                      ObjectStreamClass desc,
-                                     boolean unshared)
+                                     boolean unshared,
+                                     boolean defer)
         throws IOException
     {
         if (extendedDebugInfo) {
@@ -1428,6 +1497,8 @@ public class ObjectOutputStream
             handles.assign(unshared ? null : obj);
             if (desc.isExternalizable() && !desc.isProxy()) {
                 writeExternalData((Externalizable) obj);
+            } else if (streamWindow > 0 && !extendedDebugInfo) {
+                pushFrame(new WriteFrame(obj, desc.getClassDataLayout(), defer));
             } else {
                 writeSerialData(obj, desc);
             }
@@ -1481,36 +1552,46 @@ public class ObjectOutputStream
         for (int i = 0; i < slots.length; i++) {
             ObjectStreamClass slotDesc = slots[i].desc;
             if (slotDesc.hasWriteObjectMethod()) {
-                PutFieldImpl oldPut = curPut;
-                curPut = null;
-                SerialCallbackContext oldContext = curContext;
-
-                if (extendedDebugInfo) {
-                    debugInfoStack.push(
-                        "custom writeObject data (class \"" +
-                        slotDesc.getName() + "\")");
-                }
-                try {
-                    curContext = new SerialCallbackContext(obj, slotDesc);
-                    bout.setBlockDataMode(true);
-                    slotDesc.invokeWriteObject(obj, this);
-                    bout.setBlockDataMode(false);
-                    bout.writeByte(TC_ENDBLOCKDATA);
-                } finally {
-                    curContext.setUsed();
-                    curContext = oldContext;
-                    if (extendedDebugInfo) {
-                        debugInfoStack.pop();
-                    }
-                }
-
-                curPut = oldPut;
+                writeCustomData(obj, slotDesc);
             } else {
                 defaultWriteFields(obj, slotDesc);
             }
         }
     }
 
+    /**
+     * Writes instance data for the class described by the given descriptor
+     * by invoking its class-defined writeObject method.
+     */
+    private void writeCustomData(Object obj, ObjectStreamClass slotDesc)
+        throws IOException
+    {
+        PutFieldImpl oldPut = curPut;
+        curPut = null;
+        SerialCallbackContext oldContext = curContext;
+
+        if (extendedDebugInfo) {
+            debugInfoStack.push(
+                "custom writeObject data (class \"" +
+                slotDesc.getName() + "\")");
+        }
+        try {
+            curContext = new SerialCallbackContext(obj, slotDesc);
+            bout.setBlockDataMode(true);
+            slotDesc.invokeWriteObject(obj, this);
+            bout.setBlockDataMode(false);
+            bout.writeByte(TC_ENDBLOCKDATA);
+        } finally {
+            curContext.setUsed();
+            curContext = oldContext;
+            if (extendedDebugInfo) {
+                debugInfoStack.pop();
+            }
+        }
+
+        curPut = oldPut;
+    }
+
     /**
      * Fetches and writes values of serializable fields of given object to
      * stream.  The given class descriptor specifies which field values to
@@ -1518,6 +1599,35 @@ public class ObjectOutputStream
      */
     private void defaultWriteFields(Object obj, ObjectStreamClass desc)
         throws IOException
+    {
+        Object[] objVals = defaultWritePrimFields(obj, desc);
+        ObjectStreamField[] fields = desc.getFields(false);
+        int numPrimFields = fields.length - objVals.length;
+        for (int i = 0; i < objVals.length; i++) {
+            if (extendedDebugInfo) {
+                debugInfoStack.push(
+                    "field (class \"" + desc.getName() + "\", name: \"" +
+                    fields[numPrimFields + i].getName() + "\", type: \"" +
+                    fields[numPrimFields + i].getType() + "\")");
+            }
+            try {
+                writeObject0(objVals[i],
+                             fields[numPrimFields + i].isUnshared());
+            } finally {
+                if (extendedDebugInfo) {
+                    debugInfoStack.pop();
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes values of primitive serializable fields of given object to
+     * stream, and returns the values of its object fields, which the caller
+     * is responsible for writing.
+     */
+    private Object[] defaultWritePrimFields(Object obj, ObjectStreamClass desc)
+        throws IOException
     {
         Class<?> cl = desc.forClass();
         if (cl != null && obj != null && !cl.isInstance(obj)) {
@@ -1533,28 +1643,80 @@ public class ObjectOutputStream
         desc.getPrimFieldValues(obj, primVals);
         bout.write(primVals, 0, primDataSize, false);
 
-        ObjectStreamField[] fields = desc.getFields(false);
         Object[] objVals = new Object[desc.getNumObjFields()];
-        int numPrimFields = fields.length - objVals.length;
         desc.getObjFieldValues(obj, objVals);
-        for (int i = 0; i < objVals.length; i++) {
-            if (extendedDebugInfo) {
-                debugInfoStack.push(
-                    "field (class \"" + desc.getName() + "\", name: \"" +
-                    fields[numPrimFields + i].getName() + "\", type: \"" +
-                    fields[numPrimFields + i].getType() + "\")");
+        return objVals;
+    }
+
+    /**
+     * Pushes the given frame in streaming mode.  A deferred frame is left to
+     * the frame loop already running below it; otherwise the frame, and any
+     * frames pushed while writing its contents, are written before
+     * returning.
+     */
+    private void pushFrame(WriteFrame f) throws IOException {
+        frames.push(f);
+        if (f.deferred) {
+            depth++;
+        } else {
+            writeFrames(frames.size() - 1);
+        }
+    }
+
+    /**
+     * Writes the contents of the frames above the given stack size, in the
+     * same order in which writeSerialData and writeArray would write them
+     * recursively.  Each object value is written with deferFrame set, so
+     * that a default-serializable object or an object array it refers to is
+     * pushed as a new frame rather than written by a nested call.
+     */
+    private void writeFrames(int base) throws IOException {
+        try {
+            while (frames.size() > base) {
+                WriteFrame f = frames.peek();
+                if (f.next < f.vals.length) {
+                    int i = f.next++;
+                    deferFrame = true;
+                    writeObject0(f.vals[i], f.fields != null &&
+                                 f.fields[f.numPrimFields + i].isUnshared());
+                } else if (f.slots != null && f.slot < f.slots.length) {
+                    ObjectStreamClass slotDesc = f.slots[f.slot++].desc;
+                    if (slotDesc.hasWriteObjectMethod()) {
+                        writeCustomData(f.obj, slotDesc);
+                    } else {
+                        f.vals = defaultWritePrimFields(f.obj, slotDesc);
+                        f.fields = slotDesc.getFields(false);
+                        f.numPrimFields = f.fields.length - f.vals.length;
+                        f.next = 0;
+                    }
+                } else {
+                    frames.pop();
+                    if (f.deferred) {
+                        depth--;
+                    }
+                }
             }
-            try {
-                writeObject0(objVals[i],
-                             fields[numPrimFields + i].isUnshared());
-            } finally {
-                if (extendedDebugInfo) {
-                    debugInfoStack.pop();
+        } finally {
+            while (frames.size() > base) {
+                if (frames.pop().deferred) {
+                    depth--;
                 }
             }
         }
     }
 
+    /**
+     * Called in streaming mode after each top-level object has been written.
+     * Resets the stream once the handle table has outgrown the window, and
+     * flushes the window to the underlying stream.
+     */
+    private void endWindow() throws IOException {
+        if (handles.size() > streamWindow) {
+            reset();
+            bout.flush();
+        }
+    }
+
     /**
      * Attempts to write to stream fatal IOException that has caused
      * serialization to abort.
@@ -2236,6 +2398,48 @@ public class ObjectOutputStream
         }
     }
 
+    /**
+     * Object or object array whose contents are being written by
+     * writeFrames in streaming mode.
+     */
+    private static final class WriteFrame {
+
+        private static final Object[] NO_VALUES = new Object[0];
+
+        /** object whose serial data is being written, or null for arrays */
+        final Object obj;
+        /** class data slots of obj, or null for arrays */
+        final ObjectStreamClass.ClassDataSlot[] slots;
+        /** true if the frame was pushed by an enclosing frame loop */
+        final boolean deferred;
+        /** index of next slot to write */
+        int slot;
+        /** serializable fields of current slot, or null for arrays */
+        ObjectStreamField[] fields;
+        /** number of primitive fields of current slot */
+        int numPrimFields;
+        /** object values remaining to be written */
+        Object[] vals;
+        /** index of next object value to write */
+        int next;
+
+        WriteFrame(Object obj, ObjectStreamClass.ClassDataSlot[] slots,
+                   boolean deferred)
+        {
+            this.obj = obj;
+            this.slots = slots;
+            this.deferred = deferred;
+            vals = NO_VALUES;
+        }
+
+        WriteFrame(Object[] array, boolean deferred) {
+            obj = null;
+            slots = null;
+            this.deferred = deferred;
+            vals = array;
+        }
+    }
+
     /**
      * Lightweight identity hash table which maps objects to integer handles,
      * assigned in ascending order.
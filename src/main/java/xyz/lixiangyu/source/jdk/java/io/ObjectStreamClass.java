@@ -118,6 +118,14 @@ public class ObjectStreamClass implements Serializable {
         /** queue for WeakReferences to field reflectors keys */
         private static final ReferenceQueue<Class<?>> reflectorsQueue =
             new ReferenceQueue<>();
+
+        /** cache mapping stream descriptors -> initialized descriptors */
+        static final ConcurrentMap<StreamDescKey,Reference<?>> streamDescs =
+            new ConcurrentHashMap<>();
+
+        /** queue for WeakReferences to stream descriptor keys */
+        private static final ReferenceQueue<Class<?>> streamDescsQueue =
+            new ReferenceQueue<>();
     }
 
     /** class associated with this descriptor (if any) */
@@ -756,6 +764,34 @@ public class ObjectStreamClass implements Serializable {
         initialized = true;
     }
 
+    /**
+     * Returns a class descriptor representing a non-proxy class, initialized
+     * as by initNonProxy from the given class descriptor read from a stream,
+     * the class it resolved to and the superclass descriptor.  Descriptors
+     * are shared by the streams that read equal class descriptors, so that
+     * the local class is matched against the stream class, and the data
+     * layout is found, once for all the streams.
+     */
+    static ObjectStreamClass forStream(ObjectStreamClass model,
+                                       Class<?> cl,
+                                       ObjectStreamClass superDesc)
+        throws InvalidClassException
+    {
+        processQueue(Caches.streamDescsQueue, Caches.streamDescs);
+        StreamDescKey key = new StreamDescKey(model, cl,
+                                              Caches.streamDescsQueue);
+        Reference<?> ref = Caches.streamDescs.get(key);
+        ObjectStreamClass desc = (ref != null) ?
+            (ObjectStreamClass) ref.get() : null;
+        if (desc != null && desc.superDesc == superDesc) {
+            return desc;
+        }
+        desc = new ObjectStreamClass();
+        desc.initNonProxy(model, cl, null, superDesc);
+        Caches.streamDescs.put(key, new SoftReference<Object>(desc));
+        return desc;
+    }
+
     /**
      * Reads non-proxy class descriptor information from given input stream.
      * The resulting class descriptor is not fully functional; it can only be
@@ -2411,6 +2447,74 @@ public class ObjectStreamClass implements Serializable {
         }
     }
 
+    /**
+     * Weak key for class descriptors read from streams: the class a
+     * descriptor resolved to, and the name, serialVersionUID, flags and
+     * fields of the descriptor.
+     */
+    private static class StreamDescKey extends WeakReference<Class<?>> {
+
+        private final String name;
+        private final long suid;
+        private final int flags;
+        private final ObjectStreamField[] fields;
+        private final int hash;
+
+        StreamDescKey(ObjectStreamClass model, Class<?> cl,
+                      ReferenceQueue<Class<?>> queue)
+        {
+            super(cl, queue);
+            name = model.name;
+            suid = model.getSerialVersionUID();
+            flags = (model.isEnum ? 1 : 0) |
+                    (model.serializable ? 2 : 0) |
+                    (model.externalizable ? 4 : 0) |
+                    (model.hasWriteObjectData ? 8 : 0) |
+                    (model.hasBlockExternalData ? 16 : 0);
+            fields = model.fields;
+            int h = System.identityHashCode(cl) + name.hashCode() +
+                    (int) (suid ^ (suid >>> 32));
+            for (int i = 0; i < fields.length; i++) {
+                h = 31 * h + fields[i].getName().hashCode();
+            }
+            hash = h;
+        }
+
+        public int hashCode() {
+            return hash;
+        }
+
+        public boolean equals(Object obj) {
+            if (obj == this) {
+                return true;
+            }
+
+            if (obj instanceof StreamDescKey) {
+                StreamDescKey other = (StreamDescKey) obj;
+                Class<?> referent;
+                if (((referent = get()) == null) ||
+                    (referent != other.get()) ||
+                    !name.equals(other.name) ||
+                    suid != other.suid ||
+                    flags != other.flags ||
+                    fields.length != other.fields.length) {
+                    return false;
+                }
+                for (int i = 0; i < fields.length; i++) {
+                    ObjectStreamField f = fields[i];
+                    ObjectStreamField g = other.fields[i];
+                    if (!f.getName().equals(g.getName()) ||
+                        !f.getSignature().equals(g.getSignature())) {
+                        return false;
+                    }
+                }
+                return true;
+            } else {
+                return false;
+            }
+        }
+    }
+
     /**
      * Matches given set of serializable fields with serializable fields
      * obtained from the given local class descriptor (which contain bindings
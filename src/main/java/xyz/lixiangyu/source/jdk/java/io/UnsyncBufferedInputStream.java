@@ -0,0 +1,369 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.io;
+
+/**
+ * A <code>UnsyncBufferedInputStream</code> adds buffering to another input
+ * stream, like {@link BufferedInputStream}, for use by a single thread.
+ *
+ * <p> Unlike <code>BufferedInputStream</code>, this class does no locking,
+ * so that reading single bytes from it costs little more than an array
+ * access; it must not be used by several threads at once without external
+ * synchronization.  It also provides {@link #readFully readFully}, which
+ * reads an exact number of bytes.  Like <code>BufferedInputStream</code>,
+ * it supports {@link #mark mark} and {@link #reset reset}.
+ *
+ * @see BufferedInputStream
+ * @see UnsyncBufferedReader
+ */
+public final class UnsyncBufferedInputStream extends InputStream {
+
+    private static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    /**
+     * The underlying input stream.
+     */
+    private final InputStream in;
+
+    /**
+     * The internal buffer, or null once the stream has been closed.
+     */
+    private byte[] buf;
+
+    /**
+     * The index of the next byte to be read from the buffer.
+     */
+    private int pos;
+
+    /**
+     * One greater than the index of the last valid byte in the buffer.
+     */
+    private int count;
+
+    /**
+     * The value of <code>pos</code> when the <code>mark</code> method was
+     * last called, or -1 if there is no valid mark.
+     */
+    private int markpos = -1;
+
+    /**
+     * The maximum read ahead allowed after a call to the <code>mark</code>
+     * method before subsequent calls to the <code>reset</code> method fail.
+     */
+    private int marklimit;
+
+    /**
+     * Creates a <code>UnsyncBufferedInputStream</code> with a default-sized
+     * buffer.
+     *
+     * @param   in   the underlying input stream.
+     */
+    public UnsyncBufferedInputStream(InputStream in) {
+        this(in, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Creates a <code>UnsyncBufferedInputStream</code> with the specified
+     * buffer size.
+     *
+     * @param   in     the underlying input stream.
+     * @param   size   the buffer size.
+     * @exception IllegalArgumentException if {@code size <= 0}.
+     */
+    public UnsyncBufferedInputStream(InputStream in, int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Buffer size <= 0");
+        }
+        this.in = in;
+        buf = new byte[size];
+    }
+
+    /**
+     * Refills the empty buffer from the underlying stream.  Returns the
+     * number of bytes read, or -1 at end of stream.  As in
+     * <code>BufferedInputStream</code>, the bytes from the mark on are
+     * kept, and the buffer grows up to <code>marklimit</code> to hold
+     * them; beyond that, the mark is dropped.
+     */
+    private int fill() throws IOException {
+        byte[] buffer = buf;
+        if (buffer == null) {
+            throw new IOException("Stream closed");
+        }
+        if (markpos < 0) {
+            pos = 0;            /* no mark: throw away the buffer */
+        } else if (pos >= buffer.length) {  /* no room left in buffer */
+            if (markpos > 0) {  /* can throw away early part of the buffer */
+                int sz = pos - markpos;
+                System.arraycopy(buffer, markpos, buffer, 0, sz);
+                pos = sz;
+                markpos = 0;
+            } else if (buffer.length >= marklimit) {
+                markpos = -1;   /* buffer got too big, invalidate mark */
+                pos = 0;        /* drop buffer contents */
+            } else {            /* grow buffer */
+                int nsz = (pos <= marklimit - pos) ? pos * 2 : marklimit;
+                byte[] nbuf = new byte[nsz];
+                System.arraycopy(buffer, 0, nbuf, 0, pos);
+                buf = buffer = nbuf;
+            }
+        }
+        count = pos;
+        int n = in.read(buffer, pos, buffer.length - pos);
+        if (n > 0) {
+            count = n + pos;
+        }
+        return n;
+    }
+
+    /**
+     * See the general contract of the <code>read</code> method of
+     * <code>InputStream</code>.
+     *
+     * @return     the next byte of data, or <code>-1</code> if the end of the
+     *             stream is reached.
+     * @exception  IOException  if this input stream has been closed by
+     *                          invoking its {@link #close()} method,
+     *                          or an I/O error occurs.
+     */
+    public int read() throws IOException {
+        if (pos >= count && fill() <= 0) {
+            return -1;
+        }
+        return buf[pos++] & 0xff;
+    }
+
+    /**
+     * Reads bytes from this stream into the specified byte array, starting
+     * at the given offset.  Buffered bytes are returned first; requests for
+     * at least as many bytes as the buffer holds are read directly into the
+     * array.  Like {@link BufferedInputStream#read(byte[], int, int)}, this
+     * method keeps reading while the underlying stream has bytes
+     * {@link InputStream#available available}.
+     *
+     * @param      b     destination buffer.
+     * @param      off   offset at which to start storing bytes.
+     * @param      len   maximum number of bytes to read.
+     * @return     the number of bytes read, or <code>-1</code> if the end of
+     *             the stream has been reached.
+     * @exception  IOException  if this input stream has been closed by
+     *                          invoking its {@link #close()} method,
+     *                          or an I/O error occurs.
+     */
+    public int read(byte b[], int off, int len) throws IOException {
+        if ((off | len | (off + len) | (b.length - (off + len))) < 0) {
+            throw new IndexOutOfBoundsException();
+        } else if (len == 0) {
+            return 0;
+        }
+        int n = 0;
+        for (;;) {
+            int nread = read1(b, off + n, len - n);
+            if (nread <= 0) {
+                return (n == 0) ? nread : n;
+            }
+            n += nread;
+            if (n >= len || in.available() <= 0) {
+                return n;
+            }
+        }
+    }
+
+    /**
+     * Reads bytes into a portion of an array, reading from the underlying
+     * stream at most once.
+     */
+    private int read1(byte[] b, int off, int len) throws IOException {
+        int avail = count - pos;
+        if (avail <= 0) {
+            if (buf == null) {
+                throw new IOException("Stream closed");
+            }
+            // large reads bypass the buffer, unless a mark must be kept
+            if (len >= buf.length && markpos < 0) {
+                return in.read(b, off, len);
+            }
+            avail = fill();
+            if (avail <= 0) {
+                return avail;
+            }
+        }
+        int cnt = (avail < len) ? avail : len;
+        System.arraycopy(buf, pos, b, off, cnt);
+        pos += cnt;
+        return cnt;
+    }
+
+    /**
+     * Reads exactly <code>len</code> bytes from this stream into the
+     * specified byte array, starting at the given offset, blocking until
+     * they are all available.
+     *
+     * @param      b     destination buffer.
+     * @param      off   offset at which to start storing bytes.
+     * @param      len   number of bytes to read.
+     * @exception  EOFException  if the end of the stream is reached before
+     *                           <code>len</code> bytes have been read.
+     * @exception  IOException   if this input stream has been closed by
+     *                           invoking its {@link #close()} method,
+     *                           or an I/O error occurs.
+     * @see        DataInputStream#readFully(byte[], int, int)
+     */
+    public void readFully(byte b[], int off, int len) throws IOException {
+        if ((off | len | (off + len) | (b.length - (off + len))) < 0) {
+            throw new IndexOutOfBoundsException();
+        }
+        while (len > 0) {
+            int n = read1(b, off, len);
+            if (n < 0) {
+                throw new EOFException();
+            }
+            off += n;
+            len -= n;
+        }
+    }
+
+    /**
+     * See the general contract of the <code>skip</code> method of
+     * <code>InputStream</code>.  Buffered bytes are skipped first; the
+     * remainder is skipped by the underlying stream, or, if a mark is set,
+     * read into the buffer.
+     *
+     * @exception  IOException  if this input stream has been closed by
+     *                          invoking its {@link #close()} method,
+     *                          {@code in.skip(n)} throws an IOException,
+     *                          or an I/O error occurs.
+     */
+    public long skip(long n) throws IOException {
+        if (buf == null) {
+            throw new IOException("Stream closed");
+        }
+        if (n <= 0) {
+            return 0;
+        }
+        long avail = count - pos;
+        if (avail <= 0) {
+            // If no mark position set then don't keep in buffer
+            if (markpos < 0) {
+                return in.skip(n);
+            }
+            // Fill in buffer to save bytes for reset
+            fill();
+            avail = count - pos;
+            if (avail <= 0) {
+                return 0;
+            }
+        }
+        long skipped = (avail < n) ? avail : n;
+        pos += (int) skipped;
+        return skipped;
+    }
+
+    /**
+     * Returns an estimate of the number of bytes that can be read (or
+     * skipped over) from this input stream without blocking: the number of
+     * bytes remaining in the buffer plus those
+     * {@link InputStream#available available} from the underlying stream.
+     *
+     * @return     an estimate of the number of bytes that can be read (or
+     *             skipped over) from this input stream without blocking.
+     * @exception  IOException  if this input stream has been closed by
+     *                          invoking its {@link #close()} method,
+     *                          or an I/O error occurs.
+     */
+    public int available() throws IOException {
+        if (buf == null) {
+            throw new IOException("Stream closed");
+        }
+        int n = count - pos;
+        int avail = in.available();
+        return n > (Integer.MAX_VALUE - avail)
+                    ? Integer.MAX_VALUE
+                    : n + avail;
+    }
+
+    /**
+     * See the general contract of the <code>mark</code> method of
+     * <code>InputStream</code>.
+     *
+     * @param   readlimit   the maximum limit of bytes that can be read before
+     *                      the mark position becomes invalid.
+     * @see     #reset()
+     */
+    public void mark(int readlimit) {
+        marklimit = readlimit;
+        markpos = pos;
+    }
+
+    /**
+     * See the general contract of the <code>reset</code> method of
+     * <code>InputStream</code>.
+     *
+     * @exception  IOException  if this stream has not been marked, if the
+     *                          mark has been invalidated, or if the stream
+     *                          has been closed by invoking its
+     *                          {@link #close()} method.
+     * @see        #mark(int)
+     */
+    public void reset() throws IOException {
+        if (buf == null) {
+            throw new IOException("Stream closed");
+        }
+        if (markpos < 0) {
+            throw new IOException("Resetting to invalid mark");
+        }
+        pos = markpos;
+    }
+
+    /**
+     * Tests if this input stream supports the <code>mark</code> and
+     * <code>reset</code> methods, which it does.
+     *
+     * @return  <code>true</code>.
+     * @see     #mark(int)
+     * @see     #reset()
+     */
+    public boolean markSupported() {
+        return true;
+    }
+
+    /**
+     * Closes this input stream and the underlying stream, and releases the
+     * buffer.  Once the stream has been closed, further read(), available()
+     * or skip() invocations will throw an IOException.  Closing a
+     * previously closed stream has no effect.
+     *
+     * @exception  IOException  if an I/O error occurs.
+     */
+    public void close() throws IOException {
+        if (buf != null) {
+            buf = null;
+            pos = count = 0;
+            markpos = -1;
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.io;
+
+/**
+ * A <code>UnsyncBufferedOutputStream</code> adds buffering to another
+ * output stream, like {@link BufferedOutputStream}, for use by a single
+ * thread.
+ *
+ * <p> Unlike <code>BufferedOutputStream</code>, this class does no locking,
+ * so that writing single bytes to it costs little more than an array store;
+ * it must not be used by several threads at once without external
+ * synchronization.
+ *
+ * @see BufferedOutputStream
+ * @see UnsyncBufferedWriter
+ */
+public final class UnsyncBufferedOutputStream extends OutputStream {
+
+    private static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    /**
+     * The buffer of a closed stream, which is always full.
+     */
+    private static final byte[] CLOSED = new byte[0];
+
+    /**
+     * The underlying output stream.
+     */
+    private final OutputStream out;
+
+    /**
+     * The internal buffer, or CLOSED once the stream has been closed.
+     */
+    private byte[] buf;
+
+    /**
+     * The number of valid bytes in the buffer.
+     */
+    private int count;
+
+    /**
+     * Creates a <code>UnsyncBufferedOutputStream</code> with a default-sized
+     * buffer.
+     *
+     * @param   out   the underlying output stream.
+     */
+    public UnsyncBufferedOutputStream(OutputStream out) {
+        this(out, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Creates a <code>UnsyncBufferedOutputStream</code> with the specified
+     * buffer size.
+     *
+     * @param   out    the underlying output stream.
+     * @param   size   the buffer size.
+     * @exception IllegalArgumentException if {@code size <= 0}.
+     */
+    public UnsyncBufferedOutputStream(OutputStream out, int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Buffer size <= 0");
+        }
+        this.out = out;
+        buf = new byte[size];
+    }
+
+    /**
+     * Writes the buffered bytes to the underlying stream.
+     */
+    private void flushBuffer() throws IOException {
+        if (buf == CLOSED) {
+            throw new IOException("Stream closed");
+        }
+        if (count > 0) {
+            out.write(buf, 0, count);
+            count = 0;
+        }
+    }
+
+    /**
+     * Writes the specified byte to this buffered output stream.
+     *
+     * @param      b   the byte to be written.
+     * @exception  IOException  if this stream has been closed, or an I/O
+     *                          error occurs.
+     */
+    public void write(int b) throws IOException {
+        if (count >= buf.length) {
+            flushBuffer();
+        }
+        buf[count++] = (byte) b;
+    }
+
+    /**
+     * Writes <code>len</code> bytes from the specified byte array starting
+     * at offset <code>off</code> to this buffered output stream.  Requests
+     * for at least as many bytes as the buffer holds are written directly
+     * to the underlying stream, after the buffered bytes.
+     *
+     * @param      b     the data.
+     * @param      off   the start offset in the data.
+     * @param      len   the number of bytes to write.
+     * @exception  IOException  if this stream has been closed, or an I/O
+     *                          error occurs.
+     */
+    public void write(byte b[], int off, int len) throws IOException {
+        if ((off | len | (off + len) | (b.length - (off + len))) < 0) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (buf == CLOSED) {
+            throw new IOException("Stream closed");
+        }
+        if (len >= buf.length) {
+            flushBuffer();
+            out.write(b, off, len);
+            return;
+        }
+        if (len > buf.length - count) {
+            flushBuffer();
+        }
+        System.arraycopy(b, off, buf, count, len);
+        count += len;
+    }
+
+    /**
+     * Flushes this buffered output stream, and the underlying stream.
+     *
+     * @exception  IOException  if this stream has been closed, or an I/O
+     *                          error occurs.
+     */
+    public void flush() throws IOException {
+        flushBuffer();
+        out.flush();
+    }
+
+    /**
+     * Flushes this stream, closes the underlying stream, and releases the
+     * buffer.  Once the stream has been closed, further write() or flush()
+     * invocations will throw an IOException.  Closing a previously closed
+     * stream has no effect.
+     *
+     * @exception  IOException  if an I/O error occurs.
+     */
+    public void close() throws IOException {
+        if (buf != CLOSED) {
+            try {
+                flush();
+            } finally {
+                try {
+                    out.close();
+                } finally {
+                    buf = CLOSED;
+                    count = 0;
+                }
+            }
+        }
+    }
+}
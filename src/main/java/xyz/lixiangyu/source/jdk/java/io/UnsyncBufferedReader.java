@@ -0,0 +1,460 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.io;
+
+/**
+ * A <code>UnsyncBufferedReader</code> reads text from a character-input
+ * stream, buffering characters like {@link BufferedReader}, for use by a
+ * single thread.
+ *
+ * <p> Unlike <code>BufferedReader</code>, this class does no locking, so
+ * that reading single characters from it costs little more than an array
+ * access; it must not be used by several threads at once without external
+ * synchronization.  Besides {@link #readLine() readLine}, it provides
+ * {@link #readLine(StringBuilder)}, which appends the next line to a
+ * builder that the caller may reuse from line to line, so that lines can be
+ * parsed without allocating a string for each.  Like
+ * <code>BufferedReader</code>, it supports {@link #mark mark} and
+ * {@link #reset reset}.
+ *
+ * <p> A line is considered to be terminated by any one of a line feed
+ * ('\n'), a carriage return ('\r'), or a carriage return followed
+ * immediately by a linefeed.
+ *
+ * @see BufferedReader
+ * @see UnsyncBufferedInputStream
+ */
+public final class UnsyncBufferedReader extends Reader {
+
+    private static final int DEFAULT_CHAR_BUFFER_SIZE = 8192;
+
+    /** The underlying character-input stream */
+    private final Reader in;
+
+    /** The buffer, or null once the stream has been closed */
+    private char cb[];
+    private int nChars, nextChar;
+
+    private static final int INVALIDATED = -2;
+    private static final int UNMARKED = -1;
+    private int markedChar = UNMARKED;
+    private int readAheadLimit = 0; /* Valid only when markedChar > 0 */
+
+    /** If the next character is a line feed, skip it */
+    private boolean skipLF;
+
+    /** The skipLF flag when the mark was set */
+    private boolean markedSkipLF;
+
+    /** Builder reused by readLine() for lines that span buffer fills */
+    private StringBuilder lineBuf;
+
+    /**
+     * Creates a buffering character-input stream that uses a default-sized
+     * input buffer.
+     *
+     * @param  in   A Reader
+     */
+    public UnsyncBufferedReader(Reader in) {
+        this(in, DEFAULT_CHAR_BUFFER_SIZE);
+    }
+
+    /**
+     * Creates a buffering character-input stream that uses an input buffer
+     * of the specified size.
+     *
+     * @param  in   A Reader
+     * @param  sz   Input-buffer size
+     *
+     * @exception  IllegalArgumentException  If {@code sz <= 0}
+     */
+    public UnsyncBufferedReader(Reader in, int sz) {
+        if (sz <= 0) {
+            throw new IllegalArgumentException("Buffer size <= 0");
+        }
+        this.in = in;
+        cb = new char[sz];
+    }
+
+    /**
+     * Refills the empty buffer from the underlying stream, taking the mark
+     * into account if it is valid.  Returns the number of characters read,
+     * or -1 at end of stream.
+     */
+    private int fill() throws IOException {
+        if (cb == null) {
+            throw new IOException("Stream closed");
+        }
+        int dst;
+        if (markedChar <= UNMARKED) {
+            /* No mark */
+            dst = 0;
+        } else {
+            /* Marked */
+            int delta = nextChar - markedChar;
+            if (delta >= readAheadLimit) {
+                /* Gone past read-ahead limit: Invalidate mark */
+                markedChar = INVALIDATED;
+                readAheadLimit = 0;
+                dst = 0;
+            } else {
+                if (readAheadLimit <= cb.length) {
+                    /* Shuffle in the current buffer */
+                    System.arraycopy(cb, markedChar, cb, 0, delta);
+                } else {
+                    /* Reallocate buffer to accommodate read-ahead limit */
+                    char ncb[] = new char[readAheadLimit];
+                    System.arraycopy(cb, markedChar, ncb, 0, delta);
+                    cb = ncb;
+                }
+                markedChar = 0;
+                dst = delta;
+            }
+        }
+
+        int n;
+        do {
+            n = in.read(cb, dst, cb.length - dst);
+        } while (n == 0);
+        nextChar = dst;
+        nChars = (n > 0) ? dst + n : dst;
+        return n;
+    }
+
+    /**
+     * Reads a single character.
+     *
+     * @return The character read, as an integer in the range
+     *         0 to 65535 (<tt>0x00-0xffff</tt>), or -1 if the
+     *         end of the stream has been reached
+     * @exception  IOException  If an I/O error occurs
+     */
+    public int read() throws IOException {
+        for (;;) {
+            if (nextChar >= nChars && fill() < 0) {
+                return -1;
+            }
+            if (skipLF) {
+                skipLF = false;
+                if (cb[nextChar] == '\n') {
+                    nextChar++;
+                    continue;
+                }
+            }
+            return cb[nextChar++];
+        }
+    }
+
+    /**
+     * Reads characters into a portion of an array, reading from the
+     * underlying stream at most once.
+     */
+    private int read1(char[] cbuf, int off, int len) throws IOException {
+        if (nextChar >= nChars) {
+            if (cb == null) {
+                throw new IOException("Stream closed");
+            }
+            // large reads bypass the buffer, unless a mark must be kept or
+            // a line feed may need to be skipped
+            if (len >= cb.length && markedChar <= UNMARKED && !skipLF) {
+                return in.read(cbuf, off, len);
+            }
+            if (fill() < 0) {
+                return -1;
+            }
+        }
+        if (skipLF) {
+            skipLF = false;
+            if (cb[nextChar] == '\n') {
+                nextChar++;
+                if (nextChar >= nChars && fill() < 0) {
+                    return -1;
+                }
+            }
+        }
+        int n = Math.min(len, nChars - nextChar);
+        System.arraycopy(cb, nextChar, cbuf, off, n);
+        nextChar += n;
+        return n;
+    }
+
+    /**
+     * Reads characters into a portion of an array.  Buffered characters are
+     * returned first; like {@link BufferedReader#read(char[], int, int)},
+     * this method keeps reading while the underlying stream is
+     * {@link Reader#ready ready}.
+     *
+     * @param      cbuf  Destination buffer
+     * @param      off   Offset at which to start storing characters
+     * @param      len   Maximum number of characters to read
+     *
+     * @return     The number of characters read, or -1 if the end of the
+     *             stream has been reached
+     *
+     * @exception  IOException  If an I/O error occurs
+     */
+    public int read(char cbuf[], int off, int len) throws IOException {
+        if ((off < 0) || (off > cbuf.length) || (len < 0) ||
+            ((off + len) > cbuf.length) || ((off + len) < 0)) {
+            throw new IndexOutOfBoundsException();
+        } else if (len == 0) {
+            return 0;
+        }
+
+        int n = read1(cbuf, off, len);
+        if (n <= 0) return n;
+        while ((n < len) && in.ready()) {
+            int n1 = read1(cbuf, off + n, len - n);
+            if (n1 <= 0) break;
+            n += n1;
+        }
+        return n;
+    }
+
+    /**
+     * Reads a line of text, and appends it to the given builder, without
+     * any line-termination characters.  Unlike {@link #readLine()}, this
+     * method creates no string; the caller may reuse the builder by
+     * {@link StringBuilder#setLength clearing} it before each call.
+     *
+     * @param      sb  The builder to append the line to
+     *
+     * @return     <code>true</code> if a line was read, or
+     *             <code>false</code> if the end of the stream has been
+     *             reached without reading any characters
+     *
+     * @exception  IOException  If an I/O error occurs
+     */
+    public boolean readLine(StringBuilder sb) throws IOException {
+        boolean read = false;
+        for (;;) {
+            if (nextChar >= nChars && fill() < 0) {
+                return read;
+            }
+            if (skipLF) {
+                skipLF = false;
+                if (cb[nextChar] == '\n') {
+                    nextChar++;
+                    continue;
+                }
+            }
+            read = true;
+
+            char[] buf = cb;
+            int start = nextChar, end = nChars, i;
+            for (i = start; i < end; i++) {
+                char c = buf[i];
+                if ((c == '\n') || (c == '\r')) {
+                    break;
+                }
+            }
+            sb.append(buf, start, i - start);
+            if (i < end) {
+                nextChar = i + 1;
+                skipLF = (buf[i] == '\r');
+                return true;
+            }
+            nextChar = end;
+        }
+    }
+
+    /**
+     * Reads a line of text.  A line is considered to be terminated by any
+     * one of a line feed ('\n'), a carriage return ('\r'), or a carriage
+     * return followed immediately by a linefeed.
+     *
+     * @return     A String containing the contents of the line, not including
+     *             any line-termination characters, or null if the end of the
+     *             stream has been reached
+     *
+     * @exception  IOException  If an I/O error occurs
+     */
+    public String readLine() throws IOException {
+        // most lines lie within the buffer; create their strings directly
+        if (nextChar < nChars && !skipLF) {
+            char[] buf = cb;
+            int start = nextChar, end = nChars;
+            for (int i = start; i < end; i++) {
+                char c = buf[i];
+                if ((c == '\n') || (c == '\r')) {
+                    nextChar = i + 1;
+                    skipLF = (c == '\r');
+                    return new String(buf, start, i - start);
+                }
+            }
+        }
+        StringBuilder sb = lineBuf;
+        if (sb == null) {
+            lineBuf = sb = new StringBuilder(80);
+        }
+        sb.setLength(0);
+        return readLine(sb) ? sb.toString() : null;
+    }
+
+    /**
+     * Skips characters.
+     *
+     * @param  n  The number of characters to skip
+     *
+     * @return    The number of characters actually skipped
+     *
+     * @exception  IllegalArgumentException  If <code>n</code> is negative.
+     * @exception  IOException  If an I/O error occurs
+     */
+    public long skip(long n) throws IOException {
+        if (n < 0L) {
+            throw new IllegalArgumentException("skip value is negative");
+        }
+        long r = n;
+        while (r > 0) {
+            if (nextChar >= nChars && fill() < 0) {
+                break;
+            }
+            if (skipLF) {
+                skipLF = false;
+                if (cb[nextChar] == '\n') {
+                    nextChar++;
+                    continue;
+                }
+            }
+            long d = nChars - nextChar;
+            if (r <= d) {
+                nextChar += r;
+                r = 0;
+                break;
+            }
+            r -= d;
+            nextChar = nChars;
+        }
+        return n - r;
+    }
+
+    /**
+     * Tells whether this stream is ready to be read.  A buffered character
+     * stream is ready if the buffer is not empty, or if the underlying
+     * character stream is ready.
+     *
+     * @exception  IOException  If an I/O error occurs
+     */
+    public boolean ready() throws IOException {
+        if (cb == null) {
+            throw new IOException("Stream closed");
+        }
+
+        /*
+         * If newline needs to be skipped and the next char to be read
+         * is a newline character, then just skip it right away.
+         */
+        if (skipLF) {
+            /* Note that in.ready() will return true if and only if the next
+             * read on the stream will not block.
+             */
+            if (nextChar >= nChars && in.ready()) {
+                fill();
+            }
+            if (nextChar < nChars) {
+                if (cb[nextChar] == '\n')
+                    nextChar++;
+                skipLF = false;
+            }
+        }
+        return (nextChar < nChars) || in.ready();
+    }
+
+    /**
+     * Tells whether this stream supports the mark() operation, which it does.
+     */
+    public boolean markSupported() {
+        return true;
+    }
+
+    /**
+     * Marks the present position in the stream.  Subsequent calls to reset()
+     * will attempt to reposition the stream to this point.
+     *
+     * @param readAheadLimit   Limit on the number of characters that may be
+     *                         read while still preserving the mark. An attempt
+     *                         to reset the stream after reading characters
+     *                         up to this limit or beyond may fail.
+     *                         A limit value larger than the size of the input
+     *                         buffer will cause a new buffer to be allocated
+     *                         whose size is no smaller than limit.
+     *                         Therefore large values should be used with care.
+     *
+     * @exception  IllegalArgumentException  If {@code readAheadLimit < 0}
+     * @exception  IOException  If an I/O error occurs
+     */
+    public void mark(int readAheadLimit) throws IOException {
+        if (readAheadLimit < 0) {
+            throw new IllegalArgumentException("Read-ahead limit < 0");
+        }
+        if (cb == null) {
+            throw new IOException("Stream closed");
+        }
+        this.readAheadLimit = readAheadLimit;
+        markedChar = nextChar;
+        markedSkipLF = skipLF;
+    }
+
+    /**
+     * Resets the stream to the most recent mark.
+     *
+     * @exception  IOException  If the stream has never been marked,
+     *                          or if the mark has been invalidated
+     */
+    public void reset() throws IOException {
+        if (cb == null) {
+            throw new IOException("Stream closed");
+        }
+        if (markedChar < 0) {
+            throw new IOException((markedChar == INVALIDATED)
+                                  ? "Mark invalid"
+                                  : "Stream not marked");
+        }
+        nextChar = markedChar;
+        skipLF = markedSkipLF;
+    }
+
+    /**
+     * Closes the stream and releases any system resources associated with
+     * it.  Once the stream has been closed, further read(), ready(),
+     * readLine() or skip() invocations will throw an IOException.
+     * Closing a previously closed stream has no effect.
+     *
+     * @exception  IOException  If an I/O error occurs
+     */
+    public void close() throws IOException {
+        if (cb != null) {
+            try {
+                in.close();
+            } finally {
+                cb = null;
+                nChars = nextChar = 0;
+                lineBuf = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,221 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.io;
+
+/**
+ * A <code>UnsyncBufferedWriter</code> writes text to a character-output
+ * stream, buffering characters like {@link BufferedWriter}, for use by a
+ * single thread.
+ *
+ * <p> Unlike <code>BufferedWriter</code>, this class does no locking, so
+ * that writing single characters to it costs little more than an array
+ * store; it must not be used by several threads at once without external
+ * synchronization.  Strings are copied into the buffer directly, without an
+ * intermediate array.
+ *
+ * @see BufferedWriter
+ * @see UnsyncBufferedOutputStream
+ */
+public final class UnsyncBufferedWriter extends Writer {
+
+    private static final int defaultCharBufferSize = 8192;
+
+    /** The buffer of a closed stream, which is always full */
+    private static final char[] CLOSED = new char[0];
+
+    /** The underlying character-output stream */
+    private final Writer out;
+
+    /** The buffer, or CLOSED once the stream has been closed */
+    private char cb[];
+    private int nextChar;
+
+    /**
+     * Line separator string.  This is the value of the line.separator
+     * property at the moment that the stream was created.
+     */
+    private final String lineSeparator;
+
+    /**
+     * Creates a buffered character-output stream that uses a default-sized
+     * output buffer.
+     *
+     * @param  out  A Writer
+     */
+    public UnsyncBufferedWriter(Writer out) {
+        this(out, defaultCharBufferSize);
+    }
+
+    /**
+     * Creates a new buffered character-output stream that uses an output
+     * buffer of the given size.
+     *
+     * @param  out  A Writer
+     * @param  sz   Output-buffer size, a positive integer
+     *
+     * @exception  IllegalArgumentException  If {@code sz <= 0}
+     */
+    public UnsyncBufferedWriter(Writer out, int sz) {
+        if (sz <= 0) {
+            throw new IllegalArgumentException("Buffer size <= 0");
+        }
+        this.out = out;
+        cb = new char[sz];
+        lineSeparator = java.security.AccessController.doPrivileged(
+            new sun.security.action.GetPropertyAction("line.separator"));
+    }
+
+    /** Checks to make sure that the stream has not been closed */
+    private void ensureOpen() throws IOException {
+        if (cb == CLOSED) {
+            throw new IOException("Stream closed");
+        }
+    }
+
+    /**
+     * Writes the buffered characters to the underlying stream.
+     */
+    private void flushBuffer() throws IOException {
+        ensureOpen();
+        if (nextChar > 0) {
+            out.write(cb, 0, nextChar);
+            nextChar = 0;
+        }
+    }
+
+    /**
+     * Writes a single character.
+     *
+     * @exception  IOException  If an I/O error occurs
+     */
+    public void write(int c) throws IOException {
+        if (nextChar >= cb.length) {
+            flushBuffer();
+        }
+        cb[nextChar++] = (char) c;
+    }
+
+    /**
+     * Writes a portion of an array of characters.  Requests for at least as
+     * many characters as the buffer holds are written directly to the
+     * underlying stream, after the buffered characters.
+     *
+     * @param  cbuf  A character array
+     * @param  off   Offset from which to start reading characters
+     * @param  len   Number of characters to write
+     *
+     * @exception  IOException  If an I/O error occurs
+     */
+    public void write(char cbuf[], int off, int len) throws IOException {
+        if ((off < 0) || (off > cbuf.length) || (len < 0) ||
+            ((off + len) > cbuf.length) || ((off + len) < 0)) {
+            throw new IndexOutOfBoundsException();
+        }
+        ensureOpen();
+        if (len >= cb.length) {
+            flushBuffer();
+            out.write(cbuf, off, len);
+            return;
+        }
+        if (len > cb.length - nextChar) {
+            flushBuffer();
+        }
+        System.arraycopy(cbuf, off, cb, nextChar, len);
+        nextChar += len;
+    }
+
+    /**
+     * Writes a portion of a String.
+     *
+     * <p> If the value of the <tt>len</tt> parameter is negative then no
+     * characters are written.  This is contrary to the specification of this
+     * method in the {@linkplain java.io.Writer#write(java.lang.String,int,int)
+     * superclass}, which requires that an {@link IndexOutOfBoundsException} be
+     * thrown.
+     *
+     * @param  s     String to be written
+     * @param  off   Offset from which to start reading characters
+     * @param  len   Number of characters to be written
+     *
+     * @exception  IOException  If an I/O error occurs
+     */
+    public void write(String s, int off, int len) throws IOException {
+        ensureOpen();
+        while (len > 0) {
+            if (nextChar >= cb.length) {
+                flushBuffer();
+            }
+            int d = Math.min(cb.length - nextChar, len);
+            s.getChars(off, off + d, cb, nextChar);
+            nextChar += d;
+            off += d;
+            len -= d;
+        }
+    }
+
+    /**
+     * Writes a line separator.  The line separator string is defined by the
+     * system property <tt>line.separator</tt>, and is not necessarily a single
+     * newline ('\n') character.
+     *
+     * @exception  IOException  If an I/O error occurs
+     */
+    public void newLine() throws IOException {
+        write(lineSeparator, 0, lineSeparator.length());
+    }
+
+    /**
+     * Flushes the stream.
+     *
+     * @exception  IOException  If an I/O error occurs
+     */
+    public void flush() throws IOException {
+        flushBuffer();
+        out.flush();
+    }
+
+    /**
+     * Flushes and closes the stream.  Once the stream has been closed,
+     * further write() or flush() invocations will cause an IOException to
+     * be thrown.  Closing a previously closed stream has no effect.
+     *
+     * @exception  IOException  If an I/O error occurs
+     */
+    public void close() throws IOException {
+        if (cb != CLOSED) {
+            try {
+                flushBuffer();
+            } finally {
+                try {
+                    out.close();
+                } finally {
+                    cb = CLOSED;
+                    nextChar = 0;
+                }
+            }
+        }
+    }
+}
@@ -25,7 +25,7 @@
 
 package java.lang;
 
-import sun.misc.FloatingDecimal;
+import sun.misc.DoubleToDecimal;
 import java.util.Arrays;
 
 /**
@@ -46,10 +46,21 @@ import java.util.Arrays;
  */
 abstract class AbstractStringBuilder implements Appendable, CharSequence {
     /**
-     * The value is used for character storage.
+     * The value is used for character storage, unless all characters
+     * appended so far are in the ISO-8859-1 (Latin-1) range, in which
+     * case it is null and {@code latin1} is used instead.
      */
     char[] value;
 
+    /**
+     * The compact storage of the characters, one byte per character,
+     * while they are all in the Latin-1 range.  The builder switches
+     * to {@code value} for good, inflating the characters stored so far,
+     * when a character outside that range is stored; exactly one of
+     * {@code value} and {@code latin1} is non-null.
+     */
+    byte[] latin1;
+
     /**
      * The count is the number of characters used.
      */
@@ -65,7 +76,77 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
      * Creates an AbstractStringBuilder of the specified capacity.
      */
     AbstractStringBuilder(int capacity) {
-        value = new char[capacity];
+        latin1 = new byte[capacity];
+    }
+
+    /**
+     * Switches to the UTF-16 storage, keeping the capacity.
+     */
+    final void inflate() {
+        byte[] src = latin1;
+        if (src != null) {
+            // All of src, as characters may have been moved or stored
+            // beyond count by the operation in progress
+            char[] dst = new char[src.length];
+            for (int i = 0; i < dst.length; i++)
+                dst[i] = (char)(src[i] & 0xff);
+            value = dst;
+            latin1 = null;
+        }
+    }
+
+    /**
+     * Returns a new array holding the Latin-1 characters src[off, off+len)
+     * widened to chars.
+     */
+    static char[] inflate(byte[] src, int off, int len) {
+        char[] dst = new char[len];
+        for (int i = 0; i < len; i++)
+            dst[i] = (char)(src[off + i] & 0xff);
+        return dst;
+    }
+
+    /**
+     * Returns the array holding the characters, for moving them around.
+     */
+    private Object storage() {
+        return (latin1 != null) ? latin1 : value;
+    }
+
+    /**
+     * Stores character c at index, which must be within the capacity.
+     */
+    private void put(int index, char c) {
+        byte[] b = latin1;
+        if (b != null) {
+            if (c <= 0xff) {
+                b[index] = (byte)c;
+                return;
+            }
+            inflate();
+        }
+        value[index] = c;
+    }
+
+    /**
+     * Stores the characters src[off, end) from index on, which must be
+     * within the capacity, copying them as bytes as long as they all are
+     * in the Latin-1 range.
+     */
+    private void put(int index, char[] src, int off, int end) {
+        byte[] b = latin1;
+        if (b != null) {
+            for (; off < end; off++) {
+                char c = src[off];
+                if (c > 0xff)
+                    break;
+                b[index++] = (byte)c;
+            }
+            if (off == end)
+                return;
+            inflate();
+        }
+        System.arraycopy(src, off, value, index, end - off);
     }
 
     /**
@@ -87,7 +168,7 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
      * @return  the current capacity
      */
     public int capacity() {
-        return value.length;
+        return (latin1 != null) ? latin1.length : value.length;
     }
 
     /**
@@ -120,9 +201,11 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
      */
     private void ensureCapacityInternal(int minimumCapacity) {
         // overflow-conscious code
-        if (minimumCapacity - value.length > 0) {
-            value = Arrays.copyOf(value,
-                    newCapacity(minimumCapacity));
+        if (minimumCapacity - capacity() > 0) {
+            if (latin1 != null)
+                latin1 = Arrays.copyOf(latin1, newCapacity(minimumCapacity));
+            else
+                value = Arrays.copyOf(value, newCapacity(minimumCapacity));
         }
     }
 
@@ -147,7 +230,7 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
      */
     private int newCapacity(int minCapacity) {
         // overflow-conscious code
-        int newCapacity = (value.length << 1) + 2;
+        int newCapacity = (capacity() << 1) + 2;
         if (newCapacity - minCapacity < 0) {
             newCapacity = minCapacity;
         }
@@ -172,8 +255,11 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
      * returned by a subsequent call to the {@link #capacity()} method.
      */
     public void trimToSize() {
-        if (count < value.length) {
-            value = Arrays.copyOf(value, count);
+        if (count < capacity()) {
+            if (latin1 != null)
+                latin1 = Arrays.copyOf(latin1, count);
+            else
+                value = Arrays.copyOf(value, count);
         }
     }
 
@@ -208,7 +294,10 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
         ensureCapacityInternal(newLength);
 
         if (count < newLength) {
-            Arrays.fill(value, count, newLength, '\0');
+            if (latin1 != null)
+                Arrays.fill(latin1, count, newLength, (byte)0);
+            else
+                Arrays.fill(value, count, newLength, '\0');
         }
 
         count = newLength;
@@ -235,7 +324,7 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
     public char charAt(int index) {
         if ((index < 0) || (index >= count))
             throw new StringIndexOutOfBoundsException(index);
-        return value[index];
+        return (latin1 != null) ? (char)(latin1[index] & 0xff) : value[index];
     }
 
     /**
@@ -263,6 +352,8 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
         if ((index < 0) || (index >= count)) {
             throw new StringIndexOutOfBoundsException(index);
         }
+        if (latin1 != null)
+            return latin1[index] & 0xff;
         return Character.codePointAtImpl(value, index, count);
     }
 
@@ -292,6 +383,8 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
         if ((i < 0) || (i >= count)) {
             throw new StringIndexOutOfBoundsException(index);
         }
+        if (latin1 != null)
+            return latin1[i] & 0xff;
         return Character.codePointBeforeImpl(value, index, 0);
     }
 
@@ -319,6 +412,8 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
         if (beginIndex < 0 || endIndex > count || beginIndex > endIndex) {
             throw new IndexOutOfBoundsException();
         }
+        if (latin1 != null)
+            return endIndex - beginIndex;
         return Character.codePointCountImpl(value, beginIndex, endIndex-beginIndex);
     }
 
@@ -345,6 +440,12 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
         if (index < 0 || index > count) {
             throw new IndexOutOfBoundsException();
         }
+        if (latin1 != null) {
+            int result = index + codePointOffset;
+            if (result < 0 || result > count)
+                throw new IndexOutOfBoundsException();
+            return result;
+        }
         return Character.offsetByCodePointsImpl(value, 0, count,
                                                 index, codePointOffset);
     }
@@ -385,7 +486,16 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
             throw new StringIndexOutOfBoundsException(srcEnd);
         if (srcBegin > srcEnd)
             throw new StringIndexOutOfBoundsException("srcBegin > srcEnd");
-        System.arraycopy(value, srcBegin, dst, dstBegin, srcEnd - srcBegin);
+        byte[] b = latin1;
+        if (b != null) {
+            int len = srcEnd - srcBegin;
+            if (dstBegin < 0 || dstBegin > dst.length - len)
+                throw new ArrayIndexOutOfBoundsException(dstBegin);
+            for (int i = 0; i < len; i++)
+                dst[dstBegin + i] = (char)(b[srcBegin + i] & 0xff);
+        } else {
+            System.arraycopy(value, srcBegin, dst, dstBegin, srcEnd - srcBegin);
+        }
     }
 
     /**
@@ -405,7 +515,7 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
     public void setCharAt(int index, char ch) {
         if ((index < 0) || (index >= count))
             throw new StringIndexOutOfBoundsException(index);
-        value[index] = ch;
+        put(index, ch);
     }
 
     /**
@@ -444,9 +554,10 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
     public AbstractStringBuilder append(String str) {
         if (str == null)
             return appendNull();
-        int len = str.length();
+        char[] chars = str.value();
+        int len = chars.length;
         ensureCapacityInternal(count + len);
-        str.getChars(0, len, value, count);
+        put(count, chars, 0, len);
         count += len;
         return this;
     }
@@ -455,11 +566,9 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
     public AbstractStringBuilder append(StringBuffer sb) {
         if (sb == null)
             return appendNull();
-        int len = sb.length();
-        ensureCapacityInternal(count + len);
-        sb.getChars(0, len, value, count);
-        count += len;
-        return this;
+        synchronized (sb) {
+            return appendBuilder(sb);
+        }
     }
 
     /**
@@ -468,9 +577,29 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
     AbstractStringBuilder append(AbstractStringBuilder asb) {
         if (asb == null)
             return appendNull();
-        int len = asb.length();
+        if (asb instanceof StringBuffer) {
+            synchronized (asb) {
+                return appendBuilder(asb);
+            }
+        }
+        return appendBuilder(asb);
+    }
+
+    /**
+     * Appends the contents of asb, which is locked if needed.
+     */
+    private AbstractStringBuilder appendBuilder(AbstractStringBuilder asb) {
+        int len = asb.count;
         ensureCapacityInternal(count + len);
-        asb.getChars(0, len, value, count);
+        byte[] b = asb.latin1;
+        if (b == null) {
+            put(count, asb.value, 0, len);
+        } else if (latin1 != null) {
+            System.arraycopy(b, 0, latin1, count, len);
+        } else {
+            for (int i = 0, j = count; i < len; i++, j++)
+                value[j] = (char)(b[i] & 0xff);
+        }
         count += len;
         return this;
     }
@@ -491,11 +620,19 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
     private AbstractStringBuilder appendNull() {
         int c = count;
         ensureCapacityInternal(c + 4);
-        final char[] value = this.value;
-        value[c++] = 'n';
-        value[c++] = 'u';
-        value[c++] = 'l';
-        value[c++] = 'l';
+        final byte[] latin1 = this.latin1;
+        if (latin1 != null) {
+            latin1[c++] = 'n';
+            latin1[c++] = 'u';
+            latin1[c++] = 'l';
+            latin1[c++] = 'l';
+        } else {
+            final char[] value = this.value;
+            value[c++] = 'n';
+            value[c++] = 'u';
+            value[c++] = 'l';
+            value[c++] = 'l';
+        }
         count = c;
         return this;
     }
@@ -540,7 +677,7 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
         int len = end - start;
         ensureCapacityInternal(count + len);
         for (int i = start, j = count; i < end; i++, j++)
-            value[j] = s.charAt(i);
+            put(j, s.charAt(i));
         count += len;
         return this;
     }
@@ -564,7 +701,7 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
     public AbstractStringBuilder append(char[] str) {
         int len = str.length;
         ensureCapacityInternal(count + len);
-        System.arraycopy(str, 0, value, count, len);
+        put(count, str, 0, len);
         count += len;
         return this;
     }
@@ -592,9 +729,10 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
      *         or {@code offset+len > str.length}
      */
     public AbstractStringBuilder append(char str[], int offset, int len) {
-        if (len > 0)                // let arraycopy report AIOOBE for len < 0
-            ensureCapacityInternal(count + len);
-        System.arraycopy(str, offset, value, count, len);
+        if (offset < 0 || len < 0 || offset > str.length - len)
+            throw new ArrayIndexOutOfBoundsException();
+        ensureCapacityInternal(count + len);
+        put(count, str, offset, offset + len);
         count += len;
         return this;
     }
@@ -612,19 +750,36 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
      * @return  a reference to this object.
      */
     public AbstractStringBuilder append(boolean b) {
-        if (b) {
-            ensureCapacityInternal(count + 4);
-            value[count++] = 't';
-            value[count++] = 'r';
-            value[count++] = 'u';
-            value[count++] = 'e';
+        if (latin1 == null) {
+            if (b) {
+                ensureCapacityInternal(count + 4);
+                value[count++] = 't';
+                value[count++] = 'r';
+                value[count++] = 'u';
+                value[count++] = 'e';
+            } else {
+                ensureCapacityInternal(count + 5);
+                value[count++] = 'f';
+                value[count++] = 'a';
+                value[count++] = 'l';
+                value[count++] = 's';
+                value[count++] = 'e';
+            }
         } else {
-            ensureCapacityInternal(count + 5);
-            value[count++] = 'f';
-            value[count++] = 'a';
-            value[count++] = 'l';
-            value[count++] = 's';
-            value[count++] = 'e';
+            if (b) {
+                ensureCapacityInternal(count + 4);
+                latin1[count++] = 't';
+                latin1[count++] = 'r';
+                latin1[count++] = 'u';
+                latin1[count++] = 'e';
+            } else {
+                ensureCapacityInternal(count + 5);
+                latin1[count++] = 'f';
+                latin1[count++] = 'a';
+                latin1[count++] = 'l';
+                latin1[count++] = 's';
+                latin1[count++] = 'e';
+            }
         }
         return this;
     }
@@ -647,7 +802,7 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
     @Override
     public AbstractStringBuilder append(char c) {
         ensureCapacityInternal(count + 1);
-        value[count++] = c;
+        put(count++, c);
         return this;
     }
 
@@ -672,7 +827,10 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
                                      : Integer.stringSize(i);
         int spaceNeeded = count + appendedLength;
         ensureCapacityInternal(spaceNeeded);
-        Integer.getChars(i, spaceNeeded, value);
+        if (latin1 != null)
+            Integer.getChars(i, spaceNeeded, latin1);
+        else
+            Integer.getChars(i, spaceNeeded, value);
         count = spaceNeeded;
         return this;
     }
@@ -698,7 +856,10 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
                                      : Long.stringSize(l);
         int spaceNeeded = count + appendedLength;
         ensureCapacityInternal(spaceNeeded);
-        Long.getChars(l, spaceNeeded, value);
+        if (latin1 != null)
+            Long.getChars(l, spaceNeeded, latin1);
+        else
+            Long.getChars(l, spaceNeeded, value);
         count = spaceNeeded;
         return this;
     }
@@ -716,7 +877,7 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
      * @return  a reference to this object.
      */
     public AbstractStringBuilder append(float f) {
-        FloatingDecimal.appendTo(f,this);
+        DoubleToDecimal.appendTo(f,this);
         return this;
     }
 
@@ -733,7 +894,7 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
      * @return  a reference to this object.
      */
     public AbstractStringBuilder append(double d) {
-        FloatingDecimal.appendTo(d,this);
+        DoubleToDecimal.appendTo(d,this);
         return this;
     }
 
@@ -760,7 +921,8 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
             throw new StringIndexOutOfBoundsException();
         int len = end - start;
         if (len > 0) {
-            System.arraycopy(value, start+len, value, start, count-end);
+            Object storage = storage();
+            System.arraycopy(storage, start+len, storage, start, count-end);
             count -= len;
         }
         return this;
@@ -790,10 +952,11 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
 
         if (Character.isBmpCodePoint(codePoint)) {
             ensureCapacityInternal(count + 1);
-            value[count] = (char) codePoint;
+            put(count, (char) codePoint);
             this.count = count + 1;
         } else if (Character.isValidCodePoint(codePoint)) {
             ensureCapacityInternal(count + 2);
+            inflate();
             Character.toSurrogates(codePoint, value, count);
             this.count = count + 2;
         } else {
@@ -822,7 +985,8 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
     public AbstractStringBuilder deleteCharAt(int index) {
         if ((index < 0) || (index >= count))
             throw new StringIndexOutOfBoundsException(index);
-        System.arraycopy(value, index+1, value, index, count-index-1);
+        Object storage = storage();
+        System.arraycopy(storage, index+1, storage, index, count-index-1);
         count--;
         return this;
     }
@@ -860,8 +1024,9 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
         int newCount = count + len - (end - start);
         ensureCapacityInternal(newCount);
 
-        System.arraycopy(value, end, value, start + len, count - end);
-        str.getChars(value, start);
+        Object storage = storage();
+        System.arraycopy(storage, end, storage, start + len, count - end);
+        put(start, str.value(), 0, len);
         count = newCount;
         return this;
     }
@@ -933,6 +1098,8 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
             throw new StringIndexOutOfBoundsException(end);
         if (start > end)
             throw new StringIndexOutOfBoundsException(end - start);
+        if (latin1 != null)
+            return new String(inflate(latin1, start, end - start), true);
         return new String(value, start, end - start);
     }
 
@@ -967,8 +1134,9 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
                 "offset " + offset + ", len " + len + ", str.length "
                 + str.length);
         ensureCapacityInternal(count + len);
-        System.arraycopy(value, index, value, index + len, count - index);
-        System.arraycopy(str, offset, value, index, len);
+        Object storage = storage();
+        System.arraycopy(storage, index, storage, index + len, count - index);
+        put(index, str, offset, offset + len);
         count += len;
         return this;
     }
@@ -1032,10 +1200,12 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
             throw new StringIndexOutOfBoundsException(offset);
         if (str == null)
             str = "null";
-        int len = str.length();
+        char[] chars = str.value();
+        int len = chars.length;
         ensureCapacityInternal(count + len);
-        System.arraycopy(value, offset, value, offset + len, count - offset);
-        str.getChars(value, offset);
+        Object storage = storage();
+        System.arraycopy(storage, offset, storage, offset + len, count - offset);
+        put(offset, chars, 0, len);
         count += len;
         return this;
     }
@@ -1069,8 +1239,9 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
             throw new StringIndexOutOfBoundsException(offset);
         int len = str.length;
         ensureCapacityInternal(count + len);
-        System.arraycopy(value, offset, value, offset + len, count - offset);
-        System.arraycopy(str, 0, value, offset, len);
+        Object storage = storage();
+        System.arraycopy(storage, offset, storage, offset + len, count - offset);
+        put(offset, str, 0, len);
         count += len;
         return this;
     }
@@ -1160,10 +1331,11 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
                 + s.length());
         int len = end - start;
         ensureCapacityInternal(count + len);
-        System.arraycopy(value, dstOffset, value, dstOffset + len,
+        Object storage = storage();
+        System.arraycopy(storage, dstOffset, storage, dstOffset + len,
                          count - dstOffset);
         for (int i=start; i<end; i++)
-            value[dstOffset++] = s.charAt(i);
+            put(dstOffset++, s.charAt(i));
         count += len;
         return this;
     }
@@ -1212,8 +1384,9 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
      */
     public AbstractStringBuilder insert(int offset, char c) {
         ensureCapacityInternal(count + 1);
-        System.arraycopy(value, offset, value, offset + 1, count - offset);
-        value[offset] = c;
+        Object storage = storage();
+        System.arraycopy(storage, offset, storage, offset + 1, count - offset);
+        put(offset, c);
         count += 1;
         return this;
     }
@@ -1345,6 +1518,8 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
      *          specified substring, starting at the specified index.
      */
     public int indexOf(String str, int fromIndex) {
+        if (latin1 != null)
+            return indexOfLatin1(latin1, count, str.value(), fromIndex);
         return String.indexOf(value, 0, count, str, fromIndex);
     }
 
@@ -1384,9 +1559,54 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
      *          specified substring.
      */
     public int lastIndexOf(String str, int fromIndex) {
+        if (latin1 != null)
+            return lastIndexOfLatin1(latin1, count, str.value(), fromIndex);
         return String.lastIndexOf(value, 0, count, str, fromIndex);
     }
 
+    /**
+     * Returns true if the Latin-1 characters src[i, i+target.length) are
+     * those of target.
+     */
+    private static boolean matchesLatin1(byte[] src, int i, char[] target) {
+        for (int k = 0; k < target.length; k++) {
+            if ((src[i + k] & 0xff) != target[k])
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * String.indexOf for the first count Latin-1 characters of src.
+     */
+    private static int indexOfLatin1(byte[] src, int count, char[] target,
+                                     int fromIndex) {
+        if (fromIndex >= count)
+            return (target.length == 0 ? count : -1);
+        if (fromIndex < 0)
+            fromIndex = 0;
+        for (int i = fromIndex, max = count - target.length; i <= max; i++) {
+            if (matchesLatin1(src, i, target))
+                return i;
+        }
+        return -1;
+    }
+
+    /**
+     * String.lastIndexOf for the first count Latin-1 characters of src.
+     */
+    private static int lastIndexOfLatin1(byte[] src, int count,
+                                         char[] target, int fromIndex) {
+        int rightIndex = count - target.length;
+        if (fromIndex > rightIndex)
+            fromIndex = rightIndex;
+        for (int i = fromIndex; i >= 0; i--) {
+            if (matchesLatin1(src, i, target))
+                return i;
+        }
+        return -1;
+    }
+
     /**
      * Causes this character sequence to be replaced by the reverse of
      * the sequence. If there are any surrogate pairs included in the
@@ -1410,6 +1630,15 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
      * @return  a reference to this object.
      */
     public AbstractStringBuilder reverse() {
+        final byte[] latin1 = this.latin1;
+        if (latin1 != null) {
+            for (int j = 0, k = count - 1; j < k; j++, k--) {
+                byte bj = latin1[j];
+                latin1[j] = latin1[k];
+                latin1[k] = bj;
+            }
+            return this;
+        }
         boolean hasSurrogates = false;
         int n = count - 1;
         for (int j = (n-1) >> 1; j >= 0; j--) {
@@ -1457,10 +1686,12 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
     public abstract String toString();
 
     /**
-     * Needed by {@code String} for the contentEquals method.
+     * Returns a new array holding exactly the characters of this
+     * sequence, without changing its storage.
      */
-    final char[] getValue() {
-        return value;
+    final char[] copyOfChars() {
+        return (latin1 != null) ? inflate(latin1, 0, count)
+                                : Arrays.copyOf(value, count);
     }
 
 }
@@ -4556,14 +4556,45 @@ class Character implements java.io.Serializable, Comparable<Character> {
         this.value = value;
     }
 
+    /**
+     * Cache of boxed values.  The values from {@code '\u005Cu0000'} to
+     * {@code '\u005Cu007F'} are boxed when the cache is initialized, into
+     * the cache array.  The range may be widened with the
+     * java.lang.Character.CharacterCache.high property, saved in the
+     * private system properties in the sun.misc.VM class; the other
+     * values of the range are boxed on first request, into the lazy array.
+     */
     private static class CharacterCache {
         private CharacterCache(){}
 
         static final Character cache[] = new Character[127 + 1];
 
+        static final int high;
+        static final Character lazy[];
+        static final sun.misc.BoxingCache stats;
+
         static {
+            high = (int)sun.misc.BoxingCache.getLongProperty(
+                "java.lang.Character.CharacterCache.high", 127, 127, MAX_VALUE);
+            lazy = new Character[high + 1];
             for (int i = 0; i < cache.length; i++)
-                cache[i] = new Character((char)i);
+                lazy[i] = cache[i] = new Character((char)i);
+            stats = sun.misc.BoxingCache.register("Character", 0, high, lazy);
+        }
+
+        /*
+         * Boxes a value of the lazy range outside the eager one.
+         */
+        static Character box(char c) {
+            Character b = lazy[c];
+            if (b != null) {
+                if (sun.misc.BoxingCache.STATISTICS)
+                    stats.hit();
+                return b;
+            }
+            if (sun.misc.BoxingCache.STATISTICS)
+                stats.allocation();
+            return lazy[c] = new Character(c);
         }
     }
 
@@ -4586,8 +4617,14 @@ class Character implements java.io.Serializable, Comparable<Character> {
      */
     public static Character valueOf(char c) {
         if (c <= 127) { // must cache
+            if (sun.misc.BoxingCache.STATISTICS)
+                CharacterCache.stats.hit();
             return CharacterCache.cache[(int)c];
         }
+        if (c <= CharacterCache.high)
+            return CharacterCache.box(c);
+        if (sun.misc.BoxingCache.STATISTICS)
+            CharacterCache.stats.allocation();
         return new Character(c);
     }
 
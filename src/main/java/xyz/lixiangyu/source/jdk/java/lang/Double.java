@@ -25,7 +25,8 @@
 
 package java.lang;
 
-import sun.misc.FloatingDecimal;
+import sun.misc.DecimalToDouble;
+import sun.misc.DoubleToDecimal;
 import sun.misc.FpUtils;
 import sun.misc.DoubleConsts;
 
@@ -201,7 +202,7 @@ public final class Double extends Number implements Comparable<Double> {
      * @return a string representation of the argument.
      */
     public static String toString(double d) {
-        return FloatingDecimal.toJavaFormatString(d);
+        return DoubleToDecimal.toJavaFormatString(d);
     }
 
     /**
@@ -535,7 +536,55 @@ public final class Double extends Number implements Comparable<Double> {
      * @since 1.2
      */
     public static double parseDouble(String s) throws NumberFormatException {
-        return FloatingDecimal.parseDouble(s);
+        return DecimalToDouble.parseDouble(s);
+    }
+
+    /**
+     * Returns a new {@code double} initialized to the value represented by
+     * the characters of the specified {@code CharSequence} from index
+     * {@code beginIndex} to index {@code endIndex - 1}, as if by {@link
+     * #parseDouble(String) parseDouble(s.subSequence(beginIndex, endIndex).toString())},
+     * but without creating the substring.
+     *
+     * @param  s          the characters to be parsed.
+     * @param  beginIndex the index of the first character to be parsed.
+     * @param  endIndex   the index after the last character to be parsed.
+     * @return the {@code double} value represented by the characters.
+     * @throws NullPointerException  if {@code s} is null
+     * @throws IndexOutOfBoundsException if {@code beginIndex} is
+     *         negative, or greater than {@code endIndex}, or if
+     *         {@code endIndex} is greater than {@code s.length()}.
+     * @throws NumberFormatException if the characters do not form a
+     *         parsable {@code double}.
+     * @see    java.lang.Double#parseDouble(String)
+     */
+    public static double parseDouble(CharSequence s, int beginIndex, int endIndex)
+            throws NumberFormatException {
+        return DecimalToDouble.parseDouble(s, beginIndex, endIndex);
+    }
+
+    /**
+     * Returns a new {@code double} initialized to the value represented by
+     * {@code count} characters of the specified array, starting at index
+     * {@code offset}, as if by {@link #parseDouble(String)
+     * parseDouble(new String(a, offset, count))}, but without creating the
+     * string.
+     *
+     * @param  a      the characters to be parsed.
+     * @param  offset the index of the first character to be parsed.
+     * @param  count  the number of characters to be parsed.
+     * @return the {@code double} value represented by the characters.
+     * @throws NullPointerException  if {@code a} is null
+     * @throws IndexOutOfBoundsException if {@code offset} or
+     *         {@code count} is negative, or if {@code offset + count}
+     *         is greater than {@code a.length}.
+     * @throws NumberFormatException if the characters do not form a
+     *         parsable {@code double}.
+     * @see    java.lang.Double#parseDouble(String)
+     */
+    public static double parseDouble(char[] a, int offset, int count)
+            throws NumberFormatException {
+        return DecimalToDouble.parseDouble(a, offset, count);
     }
 
     /**
@@ -25,7 +25,8 @@
 
 package java.lang;
 
-import sun.misc.FloatingDecimal;
+import sun.misc.DecimalToDouble;
+import sun.misc.DoubleToDecimal;
 import sun.misc.FloatConsts;
 import sun.misc.DoubleConsts;
 
@@ -203,7 +204,7 @@ public final class Float extends Number implements Comparable<Float> {
      * @return a string representation of the argument.
      */
     public static String toString(float f) {
-        return FloatingDecimal.toJavaFormatString(f);
+        return DoubleToDecimal.toJavaFormatString(f);
     }
 
     /**
@@ -448,7 +449,55 @@ public final class Float extends Number implements Comparable<Float> {
      * @since 1.2
      */
     public static float parseFloat(String s) throws NumberFormatException {
-        return FloatingDecimal.parseFloat(s);
+        return DecimalToDouble.parseFloat(s);
+    }
+
+    /**
+     * Returns a new {@code float} initialized to the value represented by
+     * the characters of the specified {@code CharSequence} from index
+     * {@code beginIndex} to index {@code endIndex - 1}, as if by {@link
+     * #parseFloat(String) parseFloat(s.subSequence(beginIndex, endIndex).toString())},
+     * but without creating the substring.
+     *
+     * @param  s          the characters to be parsed.
+     * @param  beginIndex the index of the first character to be parsed.
+     * @param  endIndex   the index after the last character to be parsed.
+     * @return the {@code float} value represented by the characters.
+     * @throws NullPointerException  if {@code s} is null
+     * @throws IndexOutOfBoundsException if {@code beginIndex} is
+     *         negative, or greater than {@code endIndex}, or if
+     *         {@code endIndex} is greater than {@code s.length()}.
+     * @throws NumberFormatException if the characters do not form a
+     *         parsable {@code float}.
+     * @see    java.lang.Float#parseFloat(String)
+     */
+    public static float parseFloat(CharSequence s, int beginIndex, int endIndex)
+            throws NumberFormatException {
+        return DecimalToDouble.parseFloat(s, beginIndex, endIndex);
+    }
+
+    /**
+     * Returns a new {@code float} initialized to the value represented by
+     * {@code count} characters of the specified array, starting at index
+     * {@code offset}, as if by {@link #parseFloat(String)
+     * parseFloat(new String(a, offset, count))}, but without creating the
+     * string.
+     *
+     * @param  a      the characters to be parsed.
+     * @param  offset the index of the first character to be parsed.
+     * @param  count  the number of characters to be parsed.
+     * @return the {@code float} value represented by the characters.
+     * @throws NullPointerException  if {@code a} is null
+     * @throws IndexOutOfBoundsException if {@code offset} or
+     *         {@code count} is negative, or if {@code offset + count}
+     *         is greater than {@code a.length}.
+     * @throws NumberFormatException if the characters do not form a
+     *         parsable {@code float}.
+     * @see    java.lang.Float#parseFloat(String)
+     */
+    public static float parseFloat(char[] a, int offset, int count)
+            throws NumberFormatException {
+        return DecimalToDouble.parseFloat(a, offset, count);
     }
 
     /**
@@ -464,6 +464,44 @@ public final class Integer extends Number implements Comparable<Integer> {
         }
     }
 
+    /**
+     * Places the ISO-8859-1 characters representing the integer i into
+     * the byte array buf, as {@link #getChars(int, int, char[])} does.
+     */
+    static void getChars(int i, int index, byte[] buf) {
+        int q, r;
+        int charPos = index;
+        byte sign = 0;
+
+        if (i < 0) {
+            sign = '-';
+            i = -i;
+        }
+
+        // Generate two digits per iteration
+        while (i >= 65536) {
+            q = i / 100;
+        // really: r = i - (q * 100);
+            r = i - ((q << 6) + (q << 5) + (q << 2));
+            i = q;
+            buf [--charPos] = (byte)DigitOnes[r];
+            buf [--charPos] = (byte)DigitTens[r];
+        }
+
+        // Fall thru to fast mode for smaller numbers
+        // assert(i <= 65536, i);
+        for (;;) {
+            q = (i * 52429) >>> (16+3);
+            r = i - ((q << 3) + (q << 1));  // r = i-(q*10) ...
+            buf [--charPos] = (byte)digits [r];
+            i = q;
+            if (i == 0) break;
+        }
+        if (sign != 0) {
+            buf [--charPos] = sign;
+        }
+    }
+
     final static int [] sizeTable = { 9, 99, 999, 9999, 99999, 999999, 9999999,
                                       99999999, 999999999, Integer.MAX_VALUE };
 
@@ -774,13 +812,22 @@ public final class Integer extends Number implements Comparable<Integer> {
      * may be controlled by the {@code -XX:AutoBoxCacheMax=<size>} option.
      * During VM initialization, java.lang.Integer.IntegerCache.high property
      * may be set and saved in the private system properties in the
-     * sun.misc.VM class.
+     * sun.misc.VM class.  The java.lang.Integer.IntegerCache.low property
+     * may likewise extend the cache below -128.
+     *
+     * Only the values from -128 to 127 are boxed when the cache is
+     * initialized, into the cache array, which the compilers know to
+     * be fully populated; the others of the range are boxed on first
+     * request, into the lazy array, so that a large cache only holds the
+     * values actually used.
      */
 
     private static class IntegerCache {
-        static final int low = -128;
+        static final int low;
         static final int high;
         static final Integer cache[];
+        static final Integer lazy[];
+        static final sun.misc.BoxingCache stats;
 
         static {
             // high value may be configured by property
@@ -790,25 +837,56 @@ public final class Integer extends Number implements Comparable<Integer> {
             if (integerCacheHighPropValue != null) {
                 try {
                     int i = parseInt(integerCacheHighPropValue);
-                    i = Math.max(i, 127);
-                    // Maximum array size is Integer.MAX_VALUE
-                    h = Math.min(i, Integer.MAX_VALUE - (-low) -1);
+                    h = Math.max(i, 127);
                 } catch( NumberFormatException nfe) {
                     // If the property cannot be parsed into an int, ignore it.
                 }
             }
-            high = h;
-
-            cache = new Integer[(high - low) + 1];
-            int j = low;
-            for(int k = 0; k < cache.length; k++)
-                cache[k] = new Integer(j++);
+            // low value may be configured by property
+            int l = -128;
+            String integerCacheLowPropValue =
+                sun.misc.VM.getSavedProperty("java.lang.Integer.IntegerCache.low");
+            if (integerCacheLowPropValue != null) {
+                try {
+                    int i = parseInt(integerCacheLowPropValue);
+                    l = Math.min(i, -128);
+                } catch( NumberFormatException nfe) {
+                    // If the property cannot be parsed into an int, ignore it.
+                }
+            }
+            low = l;
+            // Maximum array size is Integer.MAX_VALUE
+            high = (int)Math.min(h, (long)low + Integer.MAX_VALUE - 1);
+
+            cache = new Integer[127 + 128 + 1];
+            lazy = new Integer[(high - low) + 1];
+            int j = -128;
+            for(int k = 0; k < cache.length; k++) {
+                cache[k] = new Integer(j);
+                lazy[j++ - low] = cache[k];
+            }
+            stats = sun.misc.BoxingCache.register("Integer", low, high, lazy);
 
             // range [-128, 127] must be interned (JLS7 5.1.7)
             assert IntegerCache.high >= 127;
         }
 
         private IntegerCache() {}
+
+        /*
+         * Boxes a value of the lazy range outside the eager one.
+         */
+        static Integer box(int i) {
+            Integer b = lazy[i - low];
+            if (b != null) {
+                if (sun.misc.BoxingCache.STATISTICS)
+                    stats.hit();
+                return b;
+            }
+            if (sun.misc.BoxingCache.STATISTICS)
+                stats.allocation();
+            return lazy[i - low] = new Integer(i);
+        }
     }
 
     /**
@@ -827,8 +905,15 @@ public final class Integer extends Number implements Comparable<Integer> {
      * @since  1.5
      */
     public static Integer valueOf(int i) {
+        if (i >= -128 && i <= 127) {
+            if (sun.misc.BoxingCache.STATISTICS)
+                IntegerCache.stats.hit();
+            return IntegerCache.cache[i + 128];
+        }
         if (i >= IntegerCache.low && i <= IntegerCache.high)
-            return IntegerCache.cache[i + (-IntegerCache.low)];
+            return IntegerCache.box(i);
+        if (sun.misc.BoxingCache.STATISTICS)
+            IntegerCache.stats.allocation();
         return new Integer(i);
     }
 
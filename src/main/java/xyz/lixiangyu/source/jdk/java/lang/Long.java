@@ -473,6 +473,57 @@ public final class Long extends Number implements Comparable<Long> {
         }
     }
 
+    /**
+     * Places the ISO-8859-1 characters representing the integer i into
+     * the byte array buf, as {@link #getChars(long, int, char[])} does.
+     */
+    static void getChars(long i, int index, byte[] buf) {
+        long q;
+        int r;
+        int charPos = index;
+        byte sign = 0;
+
+        if (i < 0) {
+            sign = '-';
+            i = -i;
+        }
+
+        // Get 2 digits/iteration using longs until quotient fits into an int
+        while (i > Integer.MAX_VALUE) {
+            q = i / 100;
+            // really: r = i - (q * 100);
+            r = (int)(i - ((q << 6) + (q << 5) + (q << 2)));
+            i = q;
+            buf[--charPos] = (byte)Integer.DigitOnes[r];
+            buf[--charPos] = (byte)Integer.DigitTens[r];
+        }
+
+        // Get 2 digits/iteration using ints
+        int q2;
+        int i2 = (int)i;
+        while (i2 >= 65536) {
+            q2 = i2 / 100;
+            // really: r = i2 - (q * 100);
+            r = i2 - ((q2 << 6) + (q2 << 5) + (q2 << 2));
+            i2 = q2;
+            buf[--charPos] = (byte)Integer.DigitOnes[r];
+            buf[--charPos] = (byte)Integer.DigitTens[r];
+        }
+
+        // Fall thru to fast mode for smaller numbers
+        // assert(i2 <= 65536, i2);
+        for (;;) {
+            q2 = (i2 * 52429) >>> (16+3);
+            r = i2 - ((q2 << 3) + (q2 << 1));  // r = i2-(q2*10) ...
+            buf[--charPos] = (byte)Integer.digits[r];
+            i2 = q2;
+            if (i2 == 0) break;
+        }
+        if (sign != 0) {
+            buf[--charPos] = sign;
+        }
+    }
+
     // Requires positive x
     static int stringSize(long x) {
         long p = 10;
@@ -803,14 +854,95 @@ public final class Long extends Number implements Comparable<Long> {
         return Long.valueOf(parseLong(s, 10));
     }
 
+    /**
+     * Cache of boxed values.  The values from -128 to 127 are boxed when
+     * the cache is initialized, into the cache array.  The range may be
+     * widened with the java.lang.Long.LongCache.low and
+     * java.lang.Long.LongCache.high properties, saved in the private
+     * system properties in the sun.misc.VM class; the other values of the
+     * range are boxed on first request, into the lazy array.
+     *
+     * Values outside the range may also be cached in a sparse cache, a
+     * table of java.lang.Long.LongCache.sparse entries (none by default,
+     * rounded up to a power of two) indexed by hash, which keeps the last
+     * box of the values hashed to each entry.  This suits values such as
+     * identifiers, which are scattered but boxed repeatedly.
+     */
     private static class LongCache {
         private LongCache(){}
 
         static final Long cache[] = new Long[-(-128) + 127 + 1];
 
+        static final long low;
+        static final long high;
+        static final Long lazy[];
+        static final sun.misc.BoxingCache stats;
+
+        static final Long sparse[];
+        static final int sparseShift;
+        static final sun.misc.BoxingCache sparseStats;
+
         static {
-            for(int i = 0; i < cache.length; i++)
+            low = sun.misc.BoxingCache.getLongProperty(
+                "java.lang.Long.LongCache.low", -128, Integer.MIN_VALUE, -128);
+            // Maximum array size is Integer.MAX_VALUE
+            high = Math.min(sun.misc.BoxingCache.getLongProperty(
+                "java.lang.Long.LongCache.high", 127, 127, Integer.MAX_VALUE),
+                low + Integer.MAX_VALUE - 1);
+            lazy = new Long[(int)(high - low) + 1];
+            for(int i = 0; i < cache.length; i++) {
                 cache[i] = new Long(i - 128);
+                lazy[(int)(i - 128 - low)] = cache[i];
+            }
+            stats = sun.misc.BoxingCache.register("Long", low, high, lazy);
+
+            int n = (int)sun.misc.BoxingCache.getLongProperty(
+                "java.lang.Long.LongCache.sparse", 0, 0, 1 << 30);
+            if (n > 0) {
+                n = (n == 1) ? 2 : Integer.highestOneBit(n - 1) << 1;
+                sparse = new Long[n];
+                sparseShift = 32 - Integer.numberOfTrailingZeros(n);
+                sparseStats = sun.misc.BoxingCache.register(
+                    "SparseLong", MIN_VALUE, MAX_VALUE, sparse);
+            } else {
+                sparse = null;
+                sparseShift = 0;
+                sparseStats = null;
+            }
+        }
+
+        /*
+         * Boxes a value of the lazy range outside the eager one.
+         */
+        static Long box(long l) {
+            int i = (int)(l - low);
+            Long b = lazy[i];
+            if (b != null) {
+                if (sun.misc.BoxingCache.STATISTICS)
+                    stats.hit();
+                return b;
+            }
+            if (sun.misc.BoxingCache.STATISTICS)
+                stats.allocation();
+            return lazy[i] = new Long(l);
+        }
+
+        /*
+         * Returns the box of a value outside the range, from the sparse
+         * cache if it holds it, and otherwise boxes it into the sparse
+         * cache, in place of the value of the same index.
+         */
+        static Long sparseBox(long l) {
+            int i = ((int)(l ^ (l >>> 32)) * 0x9E3779B9) >>> sparseShift;
+            Long b = sparse[i];
+            if (b != null && b.value == l) {
+                if (sun.misc.BoxingCache.STATISTICS)
+                    sparseStats.hit();
+                return b;
+            }
+            if (sun.misc.BoxingCache.STATISTICS)
+                sparseStats.allocation();
+            return sparse[i] = new Long(l);
         }
     }
 
@@ -835,8 +967,16 @@ public final class Long extends Number implements Comparable<Long> {
     public static Long valueOf(long l) {
         final int offset = 128;
         if (l >= -128 && l <= 127) { // will cache
+            if (sun.misc.BoxingCache.STATISTICS)
+                LongCache.stats.hit();
             return LongCache.cache[(int)l + offset];
         }
+        if (l >= LongCache.low && l <= LongCache.high)
+            return LongCache.box(l);
+        if (LongCache.sparse != null)
+            return LongCache.sparseBox(l);
+        if (sun.misc.BoxingCache.STATISTICS)
+            LongCache.stats.allocation();
         return new Long(l);
     }
 
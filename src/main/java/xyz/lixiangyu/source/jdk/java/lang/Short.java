@@ -200,14 +200,50 @@ public final class Short extends Number implements Comparable<Short> {
         return valueOf(s, 10);
     }
 
+    /**
+     * Cache of boxed values.  The values from -128 to 127 are boxed when
+     * the cache is initialized, into the cache array.  The range may be
+     * widened with the java.lang.Short.ShortCache.low and
+     * java.lang.Short.ShortCache.high properties, saved in the private
+     * system properties in the sun.misc.VM class; the other values of the
+     * range are boxed on first request, into the lazy array.
+     */
     private static class ShortCache {
         private ShortCache(){}
 
         static final Short cache[] = new Short[-(-128) + 127 + 1];
 
+        static final int low;
+        static final int high;
+        static final Short lazy[];
+        static final sun.misc.BoxingCache stats;
+
         static {
-            for(int i = 0; i < cache.length; i++)
+            low = (int)sun.misc.BoxingCache.getLongProperty(
+                "java.lang.Short.ShortCache.low", -128, MIN_VALUE, -128);
+            high = (int)sun.misc.BoxingCache.getLongProperty(
+                "java.lang.Short.ShortCache.high", 127, 127, MAX_VALUE);
+            lazy = new Short[high - low + 1];
+            for(int i = 0; i < cache.length; i++) {
                 cache[i] = new Short((short)(i - 128));
+                lazy[i - 128 - low] = cache[i];
+            }
+            stats = sun.misc.BoxingCache.register("Short", low, high, lazy);
+        }
+
+        /*
+         * Boxes a value of the lazy range outside the eager one.
+         */
+        static Short box(short s) {
+            Short b = lazy[s - low];
+            if (b != null) {
+                if (sun.misc.BoxingCache.STATISTICS)
+                    stats.hit();
+                return b;
+            }
+            if (sun.misc.BoxingCache.STATISTICS)
+                stats.allocation();
+            return lazy[s - low] = new Short(s);
         }
     }
 
@@ -231,8 +267,14 @@ public final class Short extends Number implements Comparable<Short> {
         final int offset = 128;
         int sAsInt = s;
         if (sAsInt >= -128 && sAsInt <= 127) { // must cache
+            if (sun.misc.BoxingCache.STATISTICS)
+                ShortCache.stats.hit();
             return ShortCache.cache[sAsInt + offset];
         }
+        if (sAsInt >= ShortCache.low && sAsInt <= ShortCache.high)
+            return ShortCache.box(s);
+        if (sun.misc.BoxingCache.STATISTICS)
+            ShortCache.stats.allocation();
         return new Short(s);
     }
 
@@ -35,6 +35,8 @@ import java.util.Formatter;
 import java.util.Locale;
 import java.util.Objects;
 import java.util.StringJoiner;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
@@ -577,7 +579,7 @@ public final class String
      */
     public String(StringBuffer buffer) {
         synchronized(buffer) {
-            this.value = Arrays.copyOf(buffer.getValue(), buffer.length());
+            this.value = buffer.copyOfChars();
         }
     }
 
@@ -597,7 +599,7 @@ public final class String
      * @since  1.5
      */
     public String(StringBuilder builder) {
-        this.value = Arrays.copyOf(builder.getValue(), builder.length());
+        this.value = builder.copyOfChars();
     }
 
     /*
@@ -783,6 +785,14 @@ public final class String
         System.arraycopy(value, 0, dst, dstBegin, value.length);
     }
 
+    /**
+     * Returns the characters of this string, without copying them, for
+     * StringSearcher.  They must not be modified.
+     */
+    char[] value() {
+        return value;
+    }
+
     /**
      * Copies characters from this string into the destination character
      * array.
@@ -1016,11 +1026,20 @@ public final class String
 
     private boolean nonSyncContentEquals(AbstractStringBuilder sb) {
         char v1[] = value;
-        char v2[] = sb.getValue();
         int n = v1.length;
         if (n != sb.length()) {
             return false;
         }
+        byte b2[] = sb.latin1;
+        if (b2 != null) {
+            for (int i = 0; i < n; i++) {
+                if (v1[i] != (b2[i] & 0xff)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        char v2[] = sb.value;
         for (int i = 0; i < n; i++) {
             if (v1[i] != v2[i]) {
                 return false;
@@ -1283,12 +1302,7 @@ public final class String
                 || (ooffset > (long)other.value.length - len)) {
             return false;
         }
-        while (len-- > 0) {
-            if (ta[to++] != pa[po++]) {
-                return false;
-            }
-        }
-        return true;
+        return StringSearcher.regionMatches(ta, to, pa, po, len);
     }
 
     /**
@@ -1353,33 +1367,10 @@ public final class String
                 || (ooffset > (long)other.value.length - len)) {
             return false;
         }
-        while (len-- > 0) {
-            char c1 = ta[to++];
-            char c2 = pa[po++];
-            if (c1 == c2) {
-                continue;
-            }
-            if (ignoreCase) {
-                // If characters don't match but case may be ignored,
-                // try converting both characters to uppercase.
-                // If the results match, then the comparison scan should
-                // continue.
-                char u1 = Character.toUpperCase(c1);
-                char u2 = Character.toUpperCase(c2);
-                if (u1 == u2) {
-                    continue;
-                }
-                // Unfortunately, conversion to uppercase does not work properly
-                // for the Georgian alphabet, which has strange rules about case
-                // conversion.  So we need to make one last check before
-                // exiting.
-                if (Character.toLowerCase(u1) == Character.toLowerCase(u2)) {
-                    continue;
-                }
-            }
-            return false;
+        if (!ignoreCase) {
+            return StringSearcher.regionMatches(ta, to, pa, po, len);
         }
-        return true;
+        return StringSearcher.regionMatchesIgnoreCase(ta, to, pa, po, len);
     }
 
     /**
@@ -1554,13 +1545,8 @@ public final class String
         if (ch < Character.MIN_SUPPLEMENTARY_CODE_POINT) {
             // handle most cases here (ch is a BMP code point or a
             // negative value (invalid code point))
-            final char[] value = this.value;
-            for (int i = fromIndex; i < max; i++) {
-                if (value[i] == ch) {
-                    return i;
-                }
-            }
-            return -1;
+            return (ch < 0) ? -1
+                : StringSearcher.indexOfChar(value, fromIndex, max, (char)ch);
         } else {
             return indexOfSupplementary(ch, fromIndex);
         }
@@ -1763,29 +1749,10 @@ public final class String
             return fromIndex;
         }
 
-        char first = target[targetOffset];
-        int max = sourceOffset + (sourceCount - targetCount);
-
-        for (int i = sourceOffset + fromIndex; i <= max; i++) {
-            /* Look for first character. */
-            if (source[i] != first) {
-                while (++i <= max && source[i] != first);
-            }
-
-            /* Found first character, now look at the rest of v2 */
-            if (i <= max) {
-                int j = i + 1;
-                int end = j + targetCount - 1;
-                for (int k = targetOffset + 1; j < end && source[j]
-                        == target[k]; j++, k++);
-
-                if (j == end) {
-                    /* Found whole string. */
-                    return i - sourceOffset;
-                }
-            }
-        }
-        return -1;
+        /* Look for first character a word at a time, or use Horspool. */
+        int i = StringSearcher.indexOf(source, sourceOffset + fromIndex,
+                sourceOffset + sourceCount, target, targetOffset, targetCount);
+        return (i < 0) ? -1 : i - sourceOffset;
     }
 
     /**
@@ -2090,6 +2057,53 @@ public final class String
         return this;
     }
 
+    /**
+     * The patterns of the regular expressions recently given to the regex
+     * methods of strings, each with a matcher not in use.  The expressions
+     * are most often constants, so the cache saves compiling them at each
+     * call, and the matchers are reset for each input instead of being
+     * created.
+     */
+    private static final class RegexCache {
+        private static final int SIZE = 32;     // a power of two
+
+        private static final AtomicReferenceArray<RegexCache> cache =
+            new AtomicReferenceArray<>(SIZE);
+
+        final String regex;
+        final Pattern pattern;
+        private final AtomicReference<Matcher> idle = new AtomicReference<>();
+
+        private RegexCache(String regex) {
+            this.regex = regex;
+            this.pattern = Pattern.compile(regex);
+        }
+
+        /**
+         * Returns the entry of the given expression, compiling it if it
+         * is not in the cache.
+         */
+        static RegexCache get(String regex) {
+            int i = regex.hashCode() & (SIZE - 1);
+            RegexCache entry = cache.get(i);
+            if (entry == null || !entry.regex.equals(regex)) {
+                entry = new RegexCache(regex);
+                cache.set(i, entry);
+            }
+            return entry;
+        }
+
+        /** Returns a matcher for the input, to be released when done. */
+        Matcher acquire(CharSequence input) {
+            Matcher m = idle.getAndSet(null);
+            return (m == null) ? pattern.matcher(input) : m.reset(input);
+        }
+
+        void release(Matcher m) {
+            idle.set(m.reset(""));
+        }
+    }
+
     /**
      * Tells whether or not this string matches the given <a
      * href="../util/regex/Pattern.html#sum">regular expression</a>.
@@ -2118,7 +2132,13 @@ public final class String
      * @spec JSR-51
      */
     public boolean matches(String regex) {
-        return Pattern.matches(regex, this);
+        RegexCache entry = RegexCache.get(regex);
+        Matcher m = entry.acquire(this);
+        try {
+            return m.matches();
+        } finally {
+            entry.release(m);
+        }
     }
 
     /**
@@ -2175,7 +2195,13 @@ public final class String
      * @spec JSR-51
      */
     public String replaceFirst(String regex, String replacement) {
-        return Pattern.compile(regex).matcher(this).replaceFirst(replacement);
+        RegexCache entry = RegexCache.get(regex);
+        Matcher m = entry.acquire(this);
+        try {
+            return m.replaceFirst(replacement);
+        } finally {
+            entry.release(m);
+        }
     }
 
     /**
@@ -2220,7 +2246,13 @@ public final class String
      * @spec JSR-51
      */
     public String replaceAll(String regex, String replacement) {
-        return Pattern.compile(regex).matcher(this).replaceAll(replacement);
+        RegexCache entry = RegexCache.get(regex);
+        Matcher m = entry.acquire(this);
+        try {
+            return m.replaceAll(replacement);
+        } finally {
+            entry.release(m);
+        }
     }
 
     /**
@@ -2377,7 +2409,7 @@ public final class String
             String[] result = new String[resultSize];
             return list.subList(0, resultSize).toArray(result);
         }
-        return Pattern.compile(regex).split(this, limit);
+        return RegexCache.get(regex).pattern.split(this, limit);
     }
 
     /**
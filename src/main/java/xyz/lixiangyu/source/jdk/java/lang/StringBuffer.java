@@ -25,8 +25,6 @@
 
 package java.lang;
 
-import java.util.Arrays;
-
 /**
  * A thread-safe, mutable sequence of characters.
  * A string buffer is like a {@link String}, but can be modified. At any
@@ -165,7 +163,7 @@ import java.util.Arrays;
 
     @Override
     public synchronized int capacity() {
-        return value.length;
+        return super.capacity();
     }
 
 
@@ -198,9 +196,7 @@ import java.util.Arrays;
      */
     @Override
     public synchronized char charAt(int index) {
-        if ((index < 0) || (index >= count))
-            throw new StringIndexOutOfBoundsException(index);
-        return value[index];
+        return super.charAt(index);
     }
 
     /**
@@ -254,7 +250,7 @@ import java.util.Arrays;
         if ((index < 0) || (index >= count))
             throw new StringIndexOutOfBoundsException(index);
         toStringCache = null;
-        value[index] = ch;
+        super.setCharAt(index, ch);
     }
 
     @Override
@@ -666,7 +662,7 @@ import java.util.Arrays;
     @Override
     public synchronized String toString() {
         if (toStringCache == null) {
-            toStringCache = Arrays.copyOfRange(value, 0, count);
+            toStringCache = copyOfChars();
         }
         return new String(toStringCache, true);
     }
@@ -696,7 +692,7 @@ import java.util.Arrays;
     private synchronized void writeObject(java.io.ObjectOutputStream s)
         throws java.io.IOException {
         java.io.ObjectOutputStream.PutField fields = s.putFields();
-        fields.put("value", value);
+        fields.put("value", (latin1 != null) ? copyOfChars() : value);
         fields.put("count", count);
         fields.put("shared", false);
         s.writeFields();
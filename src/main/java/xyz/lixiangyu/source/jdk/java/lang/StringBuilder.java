@@ -404,6 +404,8 @@ public final class StringBuilder
     @Override
     public String toString() {
         // Create a copy, don't share the array
+        if (latin1 != null)
+            return new String(inflate(latin1, 0, count), true);
         return new String(value, 0, count);
     }
 
@@ -422,7 +424,7 @@ public final class StringBuilder
         throws java.io.IOException {
         s.defaultWriteObject();
         s.writeInt(count);
-        s.writeObject(value);
+        s.writeObject((latin1 != null) ? copyOfChars() : value);
     }
 
     /**
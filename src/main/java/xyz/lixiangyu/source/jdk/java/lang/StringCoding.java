@@ -36,6 +36,7 @@ import java.nio.charset.CharacterCodingException;
 import java.nio.charset.CoderResult;
 import java.nio.charset.CodingErrorAction;
 import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.StandardCharsets;
 import java.nio.charset.UnsupportedCharsetException;
 import java.util.Arrays;
 import sun.misc.MessageUtils;
@@ -190,6 +191,9 @@ class StringCoding {
                 throw new UnsupportedEncodingException(csn);
             set(decoder, sd);
         }
+        char[] ca = decodeFast(sd.cs, ba, off, len);
+        if (ca != null)
+            return ca;
         return sd.decode(ba, off, len);
     }
 
@@ -210,6 +214,11 @@ class StringCoding {
         // check (... && (isTrusted || SM == null || getClassLoader0())) in trim
         // but it then can be argued that the SM is null when the opertaion
         // is started...
+        // (5)The standard charsets are handled without any decoder at all
+        // when the input is well-formed.
+        char[] fast = decodeFast(cs, ba, off, len);
+        if (fast != null)
+            return fast;
         CharsetDecoder cd = cs.newDecoder();
         int en = scale(len, cd.maxCharsPerByte());
         char[] ca = new char[en];
@@ -341,10 +350,16 @@ class StringCoding {
                 throw new UnsupportedEncodingException (csn);
             set(encoder, se);
         }
+        byte[] ba = encodeFast(se.cs, ca, off, len);
+        if (ba != null)
+            return ba;
         return se.encode(ca, off, len);
     }
 
     static byte[] encode(Charset cs, char[] ca, int off, int len) {
+        byte[] fast = encodeFast(cs, ca, off, len);
+        if (fast != null)
+            return fast;
         CharsetEncoder ce = cs.newEncoder();
         int en = scale(len, ce.maxBytesPerChar());
         byte[] ba = new byte[en];
@@ -401,4 +416,199 @@ class StringCoding {
             return null;
         }
     }
+
+    // -- Fast paths for the standard charsets --
+
+    // The loops below decode and encode UTF-8, ISO-8859-1 and US-ASCII
+    // directly into an exactly sized result array, scanning ASCII runs
+    // first.  Except for US-ASCII decoding, which replaces each byte
+    // above 0x7f, they only handle input that needs no replacement and
+    // return null otherwise, leaving the malformed and unmappable cases to
+    // the charset's own decoder or encoder, so that the substitutions made
+    // are exactly the same.
+
+    private static final Charset UTF_8 = StandardCharsets.UTF_8;
+    private static final Charset ISO_8859_1 = StandardCharsets.ISO_8859_1;
+    private static final Charset US_ASCII = StandardCharsets.US_ASCII;
+
+    private static char[] decodeFast(Charset cs, byte[] ba, int off, int len) {
+        if (cs == UTF_8)
+            return decodeUTF8(ba, off, len);
+        if (cs == ISO_8859_1)
+            return decodeLatin1(ba, off, len);
+        if (cs == US_ASCII)
+            return decodeASCII(ba, off, len);
+        return null;
+    }
+
+    private static byte[] encodeFast(Charset cs, char[] ca, int off, int len) {
+        if (cs == UTF_8)
+            return encodeUTF8(ca, off, len);
+        if (cs == ISO_8859_1)
+            return encodeLatin1(ca, off, len, 0xff);
+        if (cs == US_ASCII)
+            return encodeLatin1(ca, off, len, 0x7f);
+        return null;
+    }
+
+    private static char[] decodeLatin1(byte[] ba, int off, int len) {
+        char[] ca = new char[len];
+        for (int i = 0; i < len; i++)
+            ca[i] = (char)(ba[off + i] & 0xff);
+        return ca;
+    }
+
+    private static char[] decodeASCII(byte[] ba, int off, int len) {
+        char[] ca = new char[len];
+        for (int i = 0; i < len; i++) {
+            byte b = ba[off + i];
+            // the decoder replaces each non-ASCII byte
+            ca[i] = (b >= 0) ? (char)b : '\ufffd';
+        }
+        return ca;
+    }
+
+    /**
+     * Returns the chars of ca[off, off+len) as bytes if they are all up
+     * to max, or null.
+     */
+    private static byte[] encodeLatin1(char[] ca, int off, int len, int max) {
+        byte[] ba = new byte[len];
+        for (int i = 0; i < len; i++) {
+            char c = ca[off + i];
+            if (c > max)
+                return null;
+            ba[i] = (byte)c;
+        }
+        return ba;
+    }
+
+    /**
+     * Decodes ba[off, off+len) if it is well-formed UTF-8, or returns
+     * null.  The chars are decoded into an array sized for an all-ASCII
+     * input, which is exact in the common case and otherwise large
+     * enough, as no sequence of bytes decodes to more chars than bytes;
+     * it is trimmed at the end if needed.
+     */
+    private static char[] decodeUTF8(byte[] ba, int off, int len) {
+        int end = off + len;
+        char[] ca = new char[len];
+        int sp = off;
+        int dp = 0;
+        while (sp < end) {
+            byte b = ba[sp];
+            if (b < 0)
+                break;
+            ca[dp++] = (char)b;
+            sp++;
+        }
+        if (sp == end)
+            return ca;
+        while (sp < end) {
+            int b1 = ba[sp++];
+            if (b1 >= 0) {
+                ca[dp++] = (char)b1;
+            } else if ((b1 & 0xe0) == 0xc0) {
+                if (sp >= end)
+                    return null;
+                int b2 = ba[sp++];
+                if ((b2 & 0xc0) != 0x80)
+                    return null;
+                int c = ((b1 & 0x1f) << 6) | (b2 & 0x3f);
+                if (c < 0x80)
+                    return null;            // overlong
+                ca[dp++] = (char)c;
+            } else if ((b1 & 0xf0) == 0xe0) {
+                if (sp + 1 >= end)
+                    return null;
+                int b2 = ba[sp++];
+                int b3 = ba[sp++];
+                if ((b2 & 0xc0) != 0x80 || (b3 & 0xc0) != 0x80)
+                    return null;
+                int c = ((b1 & 0x0f) << 12) | ((b2 & 0x3f) << 6) | (b3 & 0x3f);
+                if (c < 0x800 || Character.isSurrogate((char)c))
+                    return null;            // overlong or surrogate
+                ca[dp++] = (char)c;
+            } else if ((b1 & 0xf8) == 0xf0) {
+                if (sp + 2 >= end)
+                    return null;
+                int b2 = ba[sp++];
+                int b3 = ba[sp++];
+                int b4 = ba[sp++];
+                if ((b2 & 0xc0) != 0x80 || (b3 & 0xc0) != 0x80 ||
+                    (b4 & 0xc0) != 0x80)
+                    return null;
+                int uc = ((b1 & 0x07) << 18) | ((b2 & 0x3f) << 12) |
+                         ((b3 & 0x3f) << 6) | (b4 & 0x3f);
+                if (!Character.isSupplementaryCodePoint(uc))
+                    return null;            // overlong or out of range
+                ca[dp++] = Character.highSurrogate(uc);
+                ca[dp++] = Character.lowSurrogate(uc);
+            } else {
+                return null;
+            }
+        }
+        return (dp == len) ? ca : Arrays.copyOf(ca, dp);
+    }
+
+    /**
+     * Encodes ca[off, off+len) to UTF-8 if it has no unpaired
+     * surrogates, or returns null.  The leading ASCII chars are copied to
+     * an array sized for an all-ASCII input; if there are others, the
+     * number of bytes is counted and the array resized before going on.
+     */
+    private static byte[] encodeUTF8(char[] ca, int off, int len) {
+        int end = off + len;
+        byte[] ba = new byte[len];
+        int sp = off;
+        int dp = 0;
+        while (sp < end) {
+            char c = ca[sp];
+            if (c >= 0x80)
+                break;
+            ba[dp++] = (byte)c;
+            sp++;
+        }
+        if (sp == end)
+            return ba;
+        int n = len;
+        for (int i = sp; i < end; i++) {
+            char c = ca[i];
+            if (c < 0x80) {
+                continue;
+            } else if (c < 0x800) {
+                n += 1;
+            } else if (Character.isSurrogate(c)) {
+                if (!Character.isHighSurrogate(c) || i + 1 >= end ||
+                    !Character.isLowSurrogate(ca[i + 1]))
+                    return null;            // malformed
+                n += 2;                     // 4 bytes for the pair
+                i++;
+            } else {
+                n += 2;
+            }
+        }
+        if (n != len)
+            ba = Arrays.copyOf(ba, n);
+        while (sp < end) {
+            char c = ca[sp++];
+            if (c < 0x80) {
+                ba[dp++] = (byte)c;
+            } else if (c < 0x800) {
+                ba[dp++] = (byte)(0xc0 | (c >> 6));
+                ba[dp++] = (byte)(0x80 | (c & 0x3f));
+            } else if (Character.isHighSurrogate(c)) {
+                int uc = Character.toCodePoint(c, ca[sp++]);
+                ba[dp++] = (byte)(0xf0 | (uc >> 18));
+                ba[dp++] = (byte)(0x80 | ((uc >> 12) & 0x3f));
+                ba[dp++] = (byte)(0x80 | ((uc >> 6) & 0x3f));
+                ba[dp++] = (byte)(0x80 | (uc & 0x3f));
+            } else {
+                ba[dp++] = (byte)(0xe0 | (c >> 12));
+                ba[dp++] = (byte)(0x80 | ((c >> 6) & 0x3f));
+                ba[dp++] = (byte)(0x80 | (c & 0x3f));
+            }
+        }
+        return ba;
+    }
 }
@@ -0,0 +1,392 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.lang;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A concurrent, weak and bounded table of canonical strings, in front of
+ * {@link String#intern()}.  For any string, {@link #intern(String)}
+ * returns the same instance as {@code String.intern()}, so that interned
+ * strings can still be compared with {@code ==} with one another and
+ * with string literals, but repeated requests for the same string are
+ * served from this table without calling into the virtual machine, and
+ * strings can be interned directly from a range of characters, without
+ * creating a string when the canonical one is already known.  This makes
+ * it suited to parsers, which intern the same element and attribute
+ * names over and over.
+ *
+ * <p>The table holds its strings weakly: a string that is no longer
+ * strongly reachable is discarded from the table, through a {@link
+ * ReferenceQueue}, once it has been reclaimed.  The number of strings in
+ * the table is bounded by a capacity set at construction time; when the
+ * table is full, strings are interned by {@code String.intern()} without
+ * being added to the table.
+ *
+ * <p>The numbers of requests answered from the table (hits) and not
+ * (misses) are counted, so that the capacity can be tuned.
+ *
+ * <p>Instances of this class are safe for use by multiple concurrent
+ * threads; lookups are not blocked by insertions, which lock one of
+ * several segments of the table.  The {@linkplain #getDefault() default
+ * interner} is shared by the class libraries; its capacity can be set
+ * with the {@code java.lang.StringInterner.capacity} system property.
+ *
+ * @see String#intern()
+ */
+public final class StringInterner {
+
+    /**
+     * A weak reference to a canonical string, chained in a bucket.
+     */
+    static final class Node extends WeakReference<String> {
+        final int hash;
+        volatile Node next;
+
+        Node(String s, int hash, Node next, ReferenceQueue<String> queue) {
+            super(s, queue);
+            this.hash = hash;
+            this.next = next;
+        }
+    }
+
+    /**
+     * A part of the table, with its own lock.  The buckets are read
+     * without locking: a concurrent change can only make a reader miss a
+     * string, in which case it looks again under the lock.
+     */
+    static final class Segment {
+        volatile Node[] table;
+        int count;
+        final int capacity;
+
+        Segment(int capacity) {
+            this.capacity = capacity;
+            this.table = new Node[MIN_SEGMENT_TABLE_SIZE];
+        }
+    }
+
+    /** The number of segments, a power of two. */
+    private static final int SEGMENTS = 16;
+
+    /** The initial number of buckets of a segment, a power of two. */
+    private static final int MIN_SEGMENT_TABLE_SIZE = 16;
+
+    /** The capacity of the default interner if not configured. */
+    private static final int DEFAULT_CAPACITY = 1 << 16;
+
+    private final Segment[] segments;
+    private final int capacity;
+    private final ReferenceQueue<String> queue = new ReferenceQueue<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Creates an interner holding at most about {@code capacity} strings.
+     *
+     * @param capacity the maximal number of strings in the table
+     * @throws IllegalArgumentException if {@code capacity} is negative
+     */
+    public StringInterner(int capacity) {
+        if (capacity < 0)
+            throw new IllegalArgumentException("Illegal capacity: " + capacity);
+        this.capacity = capacity;
+        segments = new Segment[SEGMENTS];
+        int per = (capacity + SEGMENTS - 1) / SEGMENTS;
+        for (int i = 0; i < SEGMENTS; i++)
+            segments[i] = new Segment(per);
+    }
+
+    private static final class DefaultHolder {
+        static final StringInterner DEFAULT;
+
+        static {
+            int capacity = DEFAULT_CAPACITY;
+            String prop = sun.misc.VM.getSavedProperty(
+                "java.lang.StringInterner.capacity");
+            if (prop != null) {
+                try {
+                    capacity = Math.max(Integer.parseInt(prop), 0);
+                } catch (NumberFormatException nfe) {
+                    // If the property cannot be parsed into an int, ignore it.
+                }
+            }
+            DEFAULT = new StringInterner(capacity);
+        }
+    }
+
+    /**
+     * Returns the interner shared by the class libraries.
+     *
+     * @return the default interner
+     */
+    public static StringInterner getDefault() {
+        return DefaultHolder.DEFAULT;
+    }
+
+    /**
+     * Returns the canonical representation of the given string, the same
+     * instance as {@code s.intern()}.
+     *
+     * @param s a string
+     * @return the canonical string equal to {@code s}
+     * @throws NullPointerException if {@code s} is null
+     */
+    public String intern(String s) {
+        int h = spread(s.hashCode());
+        char[] v = s.value();
+        String c = find(h, v, 0, v.length);
+        if (c != null) {
+            hits.increment();
+            return c;
+        }
+        misses.increment();
+        return add(h, s);
+    }
+
+    /**
+     * Returns the canonical string holding the given characters, the
+     * same instance as {@code new String(buf, offset, length).intern()}.
+     *
+     * @param buf the characters
+     * @param offset the index of the first character
+     * @param length the number of characters
+     * @return the canonical string of the characters
+     * @throws IndexOutOfBoundsException if {@code offset} or
+     *         {@code length} is negative, or {@code offset + length}
+     *         exceeds the length of {@code buf}
+     * @throws NullPointerException if {@code buf} is null
+     */
+    public String intern(char[] buf, int offset, int length) {
+        if (offset < 0 || length < 0 || offset > buf.length - length)
+            throw new IndexOutOfBoundsException(
+                "offset " + offset + ", length " + length
+                + ", buf.length " + buf.length);
+        int code = 0;
+        for (int i = offset, end = offset + length; i < end; i++)
+            code = 31 * code + buf[i];       // as String.hashCode
+        int h = spread(code);
+        String c = find(h, buf, offset, length);
+        if (c != null) {
+            hits.increment();
+            return c;
+        }
+        misses.increment();
+        return add(h, new String(buf, offset, length));
+    }
+
+    /**
+     * Returns the number of strings in the table, including some that
+     * may have been reclaimed but not yet discarded.
+     *
+     * @return the number of strings in the table
+     */
+    public int size() {
+        expunge();
+        int n = 0;
+        for (Segment seg : segments) {
+            synchronized (seg) {
+                n += seg.count;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Returns the maximal number of strings in the table.
+     *
+     * @return the capacity of this interner
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the number of requests answered from the table.
+     *
+     * @return the number of hits
+     */
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns the number of requests not answered from the table.
+     *
+     * @return the number of misses
+     */
+    public long missCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns the ratio of hits to requests, or {@code 1.0} if there
+     * have been none.
+     *
+     * @return the hit rate of this interner
+     */
+    public double hitRate() {
+        long h = hits.sum(), total = h + misses.sum();
+        return (total == 0) ? 1.0 : (double)h / total;
+    }
+
+    /**
+     * Discards all strings from the table and resets the statistics.
+     */
+    public void clear() {
+        for (Segment seg : segments) {
+            synchronized (seg) {
+                seg.table = new Node[MIN_SEGMENT_TABLE_SIZE];
+                seg.count = 0;
+            }
+        }
+        hits.reset();
+        misses.reset();
+    }
+
+    public String toString() {
+        return "StringInterner[size=" + size() + ", capacity=" + capacity
+            + ", hits=" + hitCount() + ", misses=" + missCount() + "]";
+    }
+
+    /**
+     * Spreads the hash code, as HashMap does, as both the segment and the
+     * bucket are selected by bits of it.
+     */
+    private static int spread(int h) {
+        return h ^ (h >>> 16);
+    }
+
+    private Segment segmentFor(int h) {
+        return segments[(h >>> 28) & (SEGMENTS - 1)];
+    }
+
+    /**
+     * Returns the canonical string of buf[off, off+len) if in the table.
+     */
+    private String find(int h, char[] buf, int off, int len) {
+        Node[] tab = segmentFor(h).table;
+        for (Node e = tab[h & (tab.length - 1)]; e != null; e = e.next) {
+            String s;
+            if (e.hash == h && (s = e.get()) != null &&
+                contentEquals(s.value(), buf, off, len))
+                return s;
+        }
+        return null;
+    }
+
+    private static boolean contentEquals(char[] v, char[] buf, int off,
+                                         int len) {
+        if (v.length != len)
+            return false;
+        for (int i = 0; i < len; i++) {
+            if (v[i] != buf[off + i])
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Adds the canonical string of s to the table, unless present or the
+     * segment is full, and returns it.  The string is interned before the
+     * segment is locked, as {@code String.intern()} may be slow; a string
+     * found in the table is the same instance.
+     */
+    private String add(int h, String s) {
+        String c = s.intern();
+        expunge();
+        Segment seg = segmentFor(h);
+        synchronized (seg) {
+            if (seg.count >= seg.capacity)
+                return c;
+            Node[] tab = seg.table;
+            int i = h & (tab.length - 1);
+            for (Node e = tab[i]; e != null; e = e.next) {
+                if (e.hash == h && e.get() == c)
+                    return c;
+            }
+            if (seg.count >= tab.length - (tab.length >>> 2)) {
+                tab = resize(seg);
+                i = h & (tab.length - 1);
+            }
+            tab[i] = new Node(c, h, tab[i], queue);
+            seg.count++;
+            return c;
+        }
+    }
+
+    /**
+     * Doubles the number of buckets of the segment, which is locked.
+     * The nodes are copied, so that concurrent readers of the old table
+     * are not misled.
+     */
+    private Node[] resize(Segment seg) {
+        Node[] old = seg.table;
+        Node[] tab = new Node[old.length << 1];
+        int n = 0;
+        for (Node e : old) {
+            for (; e != null; e = e.next) {
+                String s = e.get();
+                if (s != null) {
+                    int i = e.hash & (tab.length - 1);
+                    tab[i] = new Node(s, e.hash, tab[i], queue);
+                    n++;
+                }
+            }
+        }
+        seg.count = n;
+        seg.table = tab;
+        return tab;
+    }
+
+    /**
+     * Discards the nodes of reclaimed strings.  Called before locking a
+     * segment, as the nodes may belong to any segment.
+     */
+    private void expunge() {
+        for (Object r; (r = queue.poll()) != null; ) {
+            Node node = (Node)r;
+            Segment seg = segmentFor(node.hash);
+            synchronized (seg) {
+                Node[] tab = seg.table;
+                int i = node.hash & (tab.length - 1);
+                Node prev = null;
+                for (Node e = tab[i]; e != null; prev = e, e = e.next) {
+                    if (e == node) {
+                        if (prev == null)
+                            tab[i] = e.next;
+                        else
+                            prev.next = e.next;
+                        seg.count--;
+                        break;
+                    }
+                }
+            }
+        }
+    }
+}
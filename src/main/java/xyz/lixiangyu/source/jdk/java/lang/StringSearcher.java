@@ -0,0 +1,440 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.lang;
+
+import sun.misc.Unsafe;
+
+/**
+ * A precompiled searcher for occurrences of a fixed string.  A
+ * {@code StringSearcher} is created once for a pattern and can then be
+ * used to search any number of texts, amortizing the preprocessing of
+ * the pattern over the searches.  This is the preferred way to look
+ * for the same substring repeatedly, for example when scanning for a
+ * delimiter in protocol messages:
+ *
+ * <blockquote><pre>
+ *     StringSearcher crlf = StringSearcher.compile("\r\n\r\n");
+ *     int end = crlf.indexOf(buffer, start);
+ * </pre></blockquote>
+ *
+ * <p>The results of the searches are the same as those of {@link
+ * String#indexOf(String, int)}.  Instances of this class are immutable
+ * and are safe for use by multiple concurrent threads.
+ *
+ * @implNote Patterns of sixteen or more characters are searched with the
+ * Boyer-Moore-Horspool algorithm, using a shift table indexed by the
+ * low byte of each character, which skips up to the pattern length for
+ * each character examined.  Shorter patterns are searched for by
+ * scanning for their first character, several characters at a time.
+ *
+ * @see String#indexOf(String, int)
+ */
+public final class StringSearcher {
+
+    /** The pattern. */
+    private final String pattern;
+
+    /**
+     * The Horspool shift for each possible low byte of the text
+     * character aligned with the last pattern character, or null if
+     * the pattern is too short to use them.
+     */
+    private final int[] shifts;
+
+    /**
+     * The minimal pattern length for which the Horspool search is used
+     * by searchers.
+     */
+    private static final int HORSPOOL_THRESHOLD = 16;
+
+    private StringSearcher(String pattern) {
+        this.pattern = pattern;
+        char[] p = pattern.value();
+        this.shifts = (p.length >= HORSPOOL_THRESHOLD)
+            ? shifts(p, 0, p.length) : null;
+    }
+
+    /**
+     * Returns a searcher for the occurrences of the given string.
+     *
+     * @param  pattern the string to search for
+     * @return a searcher for {@code pattern}
+     * @throws NullPointerException if {@code pattern} is null
+     */
+    public static StringSearcher compile(String pattern) {
+        if (pattern == null)
+            throw new NullPointerException();
+        return new StringSearcher(pattern);
+    }
+
+    /**
+     * Returns the string searched for by this searcher.
+     *
+     * @return the pattern of this searcher
+     */
+    public String pattern() {
+        return pattern;
+    }
+
+    /**
+     * Returns the index within the given text of the first occurrence of
+     * the pattern of this searcher, as
+     * {@code text.toString().indexOf(pattern())} would.
+     *
+     * @param  text the text to search
+     * @return the index of the first occurrence of the pattern, or
+     *         {@code -1} if there is no such occurrence
+     * @throws NullPointerException if {@code text} is null
+     */
+    public int indexOf(CharSequence text) {
+        return indexOf(text, 0);
+    }
+
+    /**
+     * Returns the index within the given text of the first occurrence of
+     * the pattern of this searcher, starting at the specified index, as
+     * {@code text.toString().indexOf(pattern(), fromIndex)} would.
+     *
+     * @param  text the text to search
+     * @param  fromIndex the index from which to start the search
+     * @return the index of the first occurrence of the pattern, starting
+     *         at {@code fromIndex}, or {@code -1} if there is no such
+     *         occurrence
+     * @throws NullPointerException if {@code text} is null
+     */
+    public int indexOf(CharSequence text, int fromIndex) {
+        char[] t;
+        int count;
+        if (text instanceof String) {
+            t = ((String)text).value();
+            count = t.length;
+        } else if (text instanceof AbstractStringBuilder) {
+            AbstractStringBuilder sb = (AbstractStringBuilder)text;
+            synchronized (sb) { // as StringBuffer.indexOf does
+                if (sb.latin1 != null)
+                    return sb.indexOf(pattern, fromIndex);
+                return search(sb.value, sb.count, fromIndex);
+            }
+        } else {
+            t = text.toString().toCharArray();
+            count = t.length;
+        }
+        return search(t, count, fromIndex);
+    }
+
+    /**
+     * Returns the index within the given range of the array of the first
+     * occurrence of the pattern of this searcher.
+     *
+     * @param  a the characters to search
+     * @param  fromIndex the index of the first character to search
+     * @param  toIndex the index after the last character to search
+     * @return the index in {@code a} of the first occurrence of the
+     *         pattern within the range, or {@code -1} if there is no such
+     *         occurrence
+     * @throws IndexOutOfBoundsException if {@code fromIndex < 0} or
+     *         {@code toIndex > a.length} or {@code fromIndex > toIndex}
+     * @throws NullPointerException if {@code a} is null
+     */
+    public int indexOf(char[] a, int fromIndex, int toIndex) {
+        if (fromIndex < 0 || toIndex > a.length || fromIndex > toIndex)
+            throw new IndexOutOfBoundsException(
+                "fromIndex: " + fromIndex + ", toIndex: " + toIndex
+                + ", length: " + a.length);
+        char[] p = pattern.value();
+        return (shifts != null)
+            ? horspool(a, fromIndex, toIndex, p, 0, p.length, shifts)
+            : indexOf(a, fromIndex, toIndex, p, 0, p.length);
+    }
+
+    /**
+     * Returns {@code true} if the given text contains the pattern of this
+     * searcher.
+     *
+     * @param  text the text to search
+     * @return {@code true} if the text contains the pattern
+     * @throws NullPointerException if {@code text} is null
+     */
+    public boolean containedIn(CharSequence text) {
+        return indexOf(text, 0) >= 0;
+    }
+
+    /**
+     * Counts the non-overlapping occurrences of the pattern of this
+     * searcher in the given text, scanning from left to right.  The empty
+     * pattern occurs {@code text.length() + 1} times.
+     *
+     * @param  text the text to search
+     * @return the number of non-overlapping occurrences
+     * @throws NullPointerException if {@code text} is null
+     */
+    public int count(CharSequence text) {
+        int m = pattern.length();
+        if (m == 0)
+            return text.length() + 1;
+        char[] t = text.toString().value();
+        int n = 0;
+        for (int i = search(t, t.length, 0); i >= 0;
+             i = search(t, t.length, i + m))
+            n++;
+        return n;
+    }
+
+    public String toString() {
+        return "StringSearcher[" + pattern + "]";
+    }
+
+    /**
+     * Searches the first count characters of t, with the conventions of
+     * String.indexOf for fromIndex.
+     */
+    private int search(char[] t, int count, int fromIndex) {
+        char[] p = pattern.value();
+        if (fromIndex >= count)
+            return (p.length == 0 ? count : -1);
+        if (fromIndex < 0)
+            fromIndex = 0;
+        return (shifts != null)
+            ? horspool(t, fromIndex, count, p, 0, p.length, shifts)
+            : indexOf(t, fromIndex, count, p, 0, p.length);
+    }
+
+    // Word-at-a-time primitives, shared with String
+
+    private static final Unsafe U = Unsafe.getUnsafe();
+    private static final long BASE = U.arrayBaseOffset(char[].class);
+
+    /** Each of the four chars of a long set to one. */
+    private static final long LANES = 0x0001000100010001L;
+
+    /** The high bit of each of the four chars of a long. */
+    private static final long HIGHS = 0x8000800080008000L;
+
+    /** The non-ASCII bits of each of the four chars of a long. */
+    private static final long NON_ASCII = 0xff80ff80ff80ff80L;
+
+    /**
+     * The minimal number of characters to scan for the word-at-a-time
+     * loops to be used.
+     */
+    private static final int WORD_THRESHOLD = 16;
+
+    /**
+     * The minimal number of characters to search for String.indexOf to
+     * build a Horspool shift table.
+     */
+    private static final int HORSPOOL_TEXT_THRESHOLD = 1024;
+
+    /**
+     * The minimal pattern length for which String.indexOf builds a
+     * Horspool shift table.
+     */
+    private static final int HORSPOOL_PATTERN_THRESHOLD = 16;
+
+    /** Returns the offset of a[i] for Unsafe accesses. */
+    private static long offset(int i) {
+        return BASE + ((long)i << 1);
+    }
+
+    /** Returns true if a long can be read at a[i] without misalignment. */
+    private static boolean aligned(int i) {
+        return (offset(i) & 7) == 0;
+    }
+
+    /**
+     * Returns the index of the first occurrence of character c in
+     * a[from, to), or -1.  Unless the range is short, four characters are
+     * compared at a time once the index is aligned, by testing for a zero
+     * char in the exclusive or of four characters with four copies of c.
+     */
+    static int indexOfChar(char[] a, int from, int to, char c) {
+        int i = from;
+        if (to - from >= WORD_THRESHOLD) {
+            for (; !aligned(i); i++) {
+                if (a[i] == c)
+                    return i;
+            }
+            long pattern = c * LANES;
+            for (int limit = to - 4; i <= limit; i += 4) {
+                long x = U.getLong(a, offset(i)) ^ pattern;
+                if (((x - LANES) & ~x & HIGHS) != 0)
+                    break; // c is one of the next four characters
+            }
+        }
+        for (; i < to; i++) {
+            if (a[i] == c)
+                return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the index of the first occurrence of target[toff, toff+m)
+     * in source[from, to), or -1.  m must be positive.  Long searches for
+     * long targets use the Horspool algorithm; the others look for the
+     * first character with indexOfChar and compare the rest.
+     */
+    static int indexOf(char[] source, int from, int to,
+                       char[] target, int toff, int m) {
+        if (m >= HORSPOOL_PATTERN_THRESHOLD &&
+            to - from >= HORSPOOL_TEXT_THRESHOLD)
+            return horspool(source, from, to, target, toff, m,
+                            shifts(target, toff, m));
+        if (m == 0)
+            return from;
+        char first = target[toff];
+        int max = to - m;
+        for (int i = from; i <= max; i++) {
+            i = indexOfChar(source, i, max + 1, first);
+            if (i < 0)
+                return -1;
+            if (regionMatches(source, i + 1, target, toff + 1, m - 1))
+                return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Computes the Horspool shifts of target[toff, toff+m), indexed by the
+     * low byte of the characters: the distance from the rightmost
+     * occurrence of a character with that low byte, excluding the last
+     * one, to the end of the target.
+     */
+    private static int[] shifts(char[] target, int toff, int m) {
+        int[] shifts = new int[256];
+        java.util.Arrays.fill(shifts, m);
+        for (int j = 0, last = m - 1; j < last; j++)
+            shifts[target[toff + j] & 0xff] = last - j;
+        return shifts;
+    }
+
+    /**
+     * Horspool search of target[toff, toff+m) in source[from, to): the
+     * text character aligned with the last target character determines
+     * how far the target can be shifted.
+     */
+    private static int horspool(char[] source, int from, int to,
+                                char[] target, int toff, int m,
+                                int[] shifts) {
+        int last = m - 1;
+        char lastChar = target[toff + last];
+        for (int i = from + last; i < to; ) {
+            char c = source[i];
+            if (c == lastChar &&
+                regionMatches(source, i - last, target, toff, last))
+                return i - last;
+            i += shifts[c & 0xff];
+        }
+        return -1;
+    }
+
+    /**
+     * Returns true if a[ao, ao+len) equals b[bo, bo+len).  The bounds
+     * must have been checked.  When the two regions can both be aligned,
+     * four characters are compared at a time.
+     */
+    static boolean regionMatches(char[] a, int ao, char[] b, int bo,
+                                 int len) {
+        if (len >= WORD_THRESHOLD && ((ao ^ bo) & 3) == 0) {
+            for (; !aligned(ao); len--) {
+                if (a[ao++] != b[bo++])
+                    return false;
+            }
+            for (; len >= 4; len -= 4, ao += 4, bo += 4) {
+                if (U.getLong(a, offset(ao)) != U.getLong(b, offset(bo)))
+                    return false;
+            }
+        }
+        while (len-- > 0) {
+            if (a[ao++] != b[bo++])
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns true if a[ao, ao+len) equals b[bo, bo+len) ignoring case,
+     * as defined by String.regionMatches(boolean, ...). The bounds must
+     * have been checked.  When the two regions can both be aligned, four
+     * characters are compared at a time: words that are equal, or that
+     * are only made of ASCII characters and are equal once folded to
+     * lower case, are skipped without looking at their characters.
+     */
+    static boolean regionMatchesIgnoreCase(char[] a, int ao,
+                                           char[] b, int bo, int len) {
+        if (len >= WORD_THRESHOLD && ((ao ^ bo) & 3) == 0) {
+            for (; !aligned(ao); len--) {
+                if (!equalsIgnoreCase(a[ao++], b[bo++]))
+                    return false;
+            }
+            for (; len >= 4; len -= 4, ao += 4, bo += 4) {
+                long x = U.getLong(a, offset(ao));
+                long y = U.getLong(b, offset(bo));
+                if (x == y)
+                    continue;
+                if (((x | y) & NON_ASCII) == 0) {
+                    if (toLowerCase(x) != toLowerCase(y))
+                        return false;
+                } else {
+                    for (int k = 0; k < 4; k++) {
+                        if (!equalsIgnoreCase(a[ao + k], b[bo + k]))
+                            return false;
+                    }
+                }
+            }
+        }
+        while (len-- > 0) {
+            if (!equalsIgnoreCase(a[ao++], b[bo++]))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Folds the ASCII upper case letters among four ASCII characters to
+     * lower case: adding 0x3f to a character below 0x80 sets its 0x80 bit
+     * if it is at least 'A', and adding 0x25 if it is above 'Z'.
+     */
+    private static long toLowerCase(long x) {
+        long upper = (x + 0x3f * LANES) & ~(x + 0x25 * LANES)
+            & (0x80 * LANES);
+        return x | (upper >>> 2);
+    }
+
+    /**
+     * The character comparison of String.regionMatches(boolean, ...).
+     */
+    private static boolean equalsIgnoreCase(char c1, char c2) {
+        if (c1 == c2)
+            return true;
+        char u1 = Character.toUpperCase(c1);
+        char u2 = Character.toUpperCase(c2);
+        // Conversion to uppercase does not work properly for the Georgian
+        // alphabet, so the lower case forms are compared as well.
+        return u1 == u2 ||
+            Character.toLowerCase(u1) == Character.toLowerCase(u2);
+    }
+}
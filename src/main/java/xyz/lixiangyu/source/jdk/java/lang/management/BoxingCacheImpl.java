@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.lang.management;
+
+import java.util.ArrayList;
+import java.util.List;
+import javax.management.ObjectName;
+
+import sun.management.Util;
+import sun.misc.BoxingCache;
+
+/**
+ * The implementation of BoxingCacheMXBean, over the records the boxed
+ * types keep in sun.misc.BoxingCache.
+ */
+class BoxingCacheImpl implements BoxingCacheMXBean {
+
+    private final BoxingCache cache;
+
+    private BoxingCacheImpl(BoxingCache cache) {
+        this.cache = cache;
+    }
+
+    static List<BoxingCacheMXBean> getBoxingCacheMXBeans() {
+        // Initialize the caches, which register themselves
+        Integer.valueOf(0);
+        Long.valueOf(0L);
+        Short.valueOf((short)0);
+        Character.valueOf('\u0000');
+        List<BoxingCache> caches = BoxingCache.getCaches();
+        List<BoxingCacheMXBean> list = new ArrayList<>(caches.size());
+        for (BoxingCache c : caches)
+            list.add(new BoxingCacheImpl(c));
+        return list;
+    }
+
+    public String getName() {
+        return cache.getName();
+    }
+
+    public long getLow() {
+        return cache.getLow();
+    }
+
+    public long getHigh() {
+        return cache.getHigh();
+    }
+
+    public int getCapacity() {
+        return cache.getCapacity();
+    }
+
+    public int getCachedCount() {
+        return cache.getCachedCount();
+    }
+
+    public long getHitCount() {
+        return cache.getHitCount();
+    }
+
+    public long getAllocationCount() {
+        return cache.getAllocationCount();
+    }
+
+    public ObjectName getObjectName() {
+        return Util.newObjectName("java.lang:type=BoxingCache", cache.getName());
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.lang.management;
+
+/**
+ * The management interface for a cache of boxed values, such as the one
+ * used by {@link Integer#valueOf(int)}.
+ *
+ * <p> A class implementing this interface is an
+ * {@link javax.management.MXBean}. The {@link
+ * java.lang.management.ManagementFactory#getPlatformMXBeans getPlatformMXBeans}
+ * method can be used to obtain the list of {@code BoxingCacheMXBean} objects
+ * representing the management interfaces for the caches as follows:
+ * <pre>
+ *     List&lt;BoxingCacheMXBean&gt; caches = ManagementFactory.getPlatformMXBeans(BoxingCacheMXBean.class);
+ * </pre>
+ *
+ * <p> The management interfaces are also registered with the platform {@link
+ * javax.management.MBeanServer MBeanServer}. The {@link
+ * javax.management.ObjectName ObjectName} that uniquely identifies the
+ * management interface within the {@code MBeanServer} takes the form:
+ * <pre>
+ *     java.lang:type=BoxingCache,name=<i>cache name</i>
+ * </pre>
+ * where <em>cache name</em> is the {@link #getName name} of the cache.
+ *
+ * <p> The ranges of the caches are set by system properties, such as
+ * {@code java.lang.Long.LongCache.high}.  The hit and allocation counts
+ * are only maintained if the {@code java.lang.BoxingCache.statistics}
+ * system property is {@code true}.
+ */
+public interface BoxingCacheMXBean extends PlatformManagedObject {
+
+    /**
+     * Returns the name of this cache, the simple name of the boxed type,
+     * or {@code SparseLong} for the sparse cache of {@code Long} values.
+     *
+     * @return  The name of this cache.
+     */
+    String getName();
+
+    /**
+     * Returns the least value this cache holds.
+     *
+     * @return  The least value of the range of this cache
+     */
+    long getLow();
+
+    /**
+     * Returns the greatest value this cache holds.
+     *
+     * @return  The greatest value of the range of this cache
+     */
+    long getHigh();
+
+    /**
+     * Returns the number of boxes this cache can hold.
+     *
+     * @return  The capacity of this cache
+     */
+    int getCapacity();
+
+    /**
+     * Returns the number of boxes this cache holds; the caches box the
+     * values outside the range required by the language on first request.
+     *
+     * @return  The number of boxes in this cache
+     */
+    int getCachedCount();
+
+    /**
+     * Returns the number of requests for boxes answered from this cache.
+     *
+     * @return  The number of hits, or {@code -1L} if not counted
+     */
+    long getHitCount();
+
+    /**
+     * Returns the number of boxes allocated for requests made to this
+     * cache, including those for values outside its range.
+     *
+     * @return  The number of allocations, or {@code -1L} if not counted
+     */
+    long getAllocationCount();
+}
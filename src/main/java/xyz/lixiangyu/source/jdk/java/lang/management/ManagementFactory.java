@@ -220,6 +220,10 @@ import sun.management.ExtendedPlatformComponent;
  * <td> {@link BufferPoolMXBean} </td>
  * <td> {@code java.nio:type=BufferPool,name=}<i>pool name</i></td>
  * </tr>
+ * <tr>
+ * <td> {@link BoxingCacheMXBean} </td>
+ * <td> {@code java.lang:type=BoxingCache,name=}<i>cache name</i></td>
+ * </tr>
  * </table>
  * </blockquote>
  *
@@ -216,6 +216,19 @@ enum PlatformComponent {
             }
         }),
 
+    /**
+     * Caches of boxed values.
+     */
+    BOXING_CACHE(
+        "java.lang.management.BoxingCacheMXBean",
+        "java.lang", "BoxingCache", keyProperties("name"),
+        false, // zero or more instances
+        new MXBeanFetcher<BoxingCacheMXBean>() {
+            public List<BoxingCacheMXBean> getMXBeans() {
+                return BoxingCacheImpl.getBoxingCacheMXBeans();
+            }
+        }),
+
 
     // Sun Platform Extension
 
@@ -265,7 +265,7 @@ public class BigDecimal extends Number implements Comparable<BigDecimal> {
      * less than or equal to {@code Long.MAX_VALUE}, the value can be
      * compactly stored in this field and used in computations.
      */
-    private final transient long intCompact;
+    final transient long intCompact;
 
     // All 18-digit base ten strings fit into a long; not all 19-digit
     // strings will
@@ -1351,6 +1351,13 @@ public class BigDecimal extends Number implements Comparable<BigDecimal> {
             }
         }
 
+        if (lhs.intCompact != INFLATED && augend.intCompact != INFLATED) {
+            BigDecimal result = addAndRound(lhs.intCompact, lhs.scale,
+                                            augend.intCompact, augend.scale, mc);
+            if (result != null)
+                return result;
+        }
+
         long padding = (long) lhs.scale - augend.scale;
         if (padding != 0) { // scales differ; alignment needed
             BigDecimal arg[] = preAlign(lhs, augend, padding, mc);
@@ -1469,6 +1476,13 @@ public class BigDecimal extends Number implements Comparable<BigDecimal> {
     public BigDecimal subtract(BigDecimal subtrahend, MathContext mc) {
         if (mc.precision == 0)
             return subtract(subtrahend);
+        if (this.intCompact != INFLATED && this.intCompact != 0 &&
+            subtrahend.intCompact != INFLATED && subtrahend.intCompact != 0) {
+            BigDecimal result = addAndRound(this.intCompact, this.scale,
+                                            -subtrahend.intCompact, subtrahend.scale, mc);
+            if (result != null)
+                return result;
+        }
         // share the special rounding code in add()
         return add(subtrahend.negate(), mc);
     }
@@ -3559,7 +3573,7 @@ public class BigDecimal extends Number implements Comparable<BigDecimal> {
      * @param  n the power of ten to be returned (>=0)
      * @return a {@code BigInteger} with the value (10<sup>n</sup>)
      */
-    private static BigInteger bigTenToThe(int n) {
+    static BigInteger bigTenToThe(int n) {
         if (n < 0)
             return BigInteger.ZERO;
 
@@ -3605,7 +3619,7 @@ public class BigDecimal extends Number implements Comparable<BigDecimal> {
         }
     }
 
-    private static final long[] LONG_TEN_POWERS_TABLE = {
+    static final long[] LONG_TEN_POWERS_TABLE = {
         1,                     // 0 / 10^0
         10,                    // 1 / 10^1
         100,                   // 2 / 10^2
@@ -3713,7 +3727,7 @@ public class BigDecimal extends Number implements Comparable<BigDecimal> {
      * Returns appropriate BigInteger from intVal field if intVal is
      * null, i.e. the compact representation is in use.
      */
-    private BigInteger inflated() {
+    BigInteger inflated() {
         if (intVal == null) {
             return BigInteger.valueOf(intCompact);
         }
@@ -4470,6 +4484,8 @@ public class BigDecimal extends Number implements Comparable<BigDecimal> {
             long scaledX = longMultiplyPowerTen(xs, raise);
             if (scaledX != INFLATED) {
                 return add(scaledX, ys, scale2);
+            } else if (raise < LONG_TEN_POWERS_TABLE.length) {
+                return add128(xs, LONG_TEN_POWERS_TABLE[raise], ys, scale2);
             } else {
                 BigInteger bigsum = bigMultiplyPowerTen(xs,raise).add(ys);
                 return ((xs^ys)>=0) ? // same sign test
@@ -4481,6 +4497,8 @@ public class BigDecimal extends Number implements Comparable<BigDecimal> {
             long scaledY = longMultiplyPowerTen(ys, raise);
             if (scaledY != INFLATED) {
                 return add(xs, scaledY, scale1);
+            } else if (raise < LONG_TEN_POWERS_TABLE.length) {
+                return add128(ys, LONG_TEN_POWERS_TABLE[raise], xs, scale1);
             } else {
                 BigInteger bigsum = bigMultiplyPowerTen(ys,raise).add(xs);
                 return ((xs^ys)>=0) ?
@@ -4490,6 +4508,18 @@ public class BigDecimal extends Number implements Comparable<BigDecimal> {
         }
     }
 
+    /*
+     * Returns x * tenpower + y, with the given scale, computed in 128 bits.
+     */
+    private static BigDecimal add128(long x, long tenpower, long y, int scale) {
+        long lo = x * tenpower;
+        long hi = multiplyHigh(x, tenpower);
+        long sum = lo + y;
+        // |x * tenpower| < 2^126, so that the sum cannot overflow
+        hi += (y >> 63) + (unsignedLongCompare(lo, sum) ? 1 : 0);
+        return valueOf128(hi, sum, scale);
+    }
+
     private static BigDecimal add(final long xs, int scale1, BigInteger snd, int scale2) {
         int rscale = scale1;
         long sdiff = (long)rscale - scale2;
@@ -4533,6 +4563,28 @@ public class BigDecimal extends Number implements Comparable<BigDecimal> {
                 valueOf(sum, rscale, 0);
     }
 
+    /*
+     * Returns the sum of two nonzero compact values, rounded according to
+     * the context settings, or null if the exact sum, at the larger of the
+     * two scales, does not fit into a long.
+     */
+    private static BigDecimal addAndRound(long xs, int scale1, long ys, int scale2, MathContext mc) {
+        int rscale = scale1;
+        long sdiff = (long) scale1 - scale2;
+        if (sdiff < 0) {
+            rscale = scale2;
+            if (-sdiff >= LONG_TEN_POWERS_TABLE.length ||
+                (xs = longMultiplyPowerTen(xs, (int) -sdiff)) == INFLATED)
+                return null;
+        } else if (sdiff > 0) {
+            if (sdiff >= LONG_TEN_POWERS_TABLE.length ||
+                (ys = longMultiplyPowerTen(ys, (int) sdiff)) == INFLATED)
+                return null;
+        }
+        long sum = add(xs, ys);
+        return (sum != INFLATED) ? doRound(sum, rscale, mc) : null;
+    }
+
     private static BigInteger bigMultiplyPowerTen(long value, int n) {
         if (n <= 0)
             return BigInteger.valueOf(value);
@@ -4656,8 +4708,14 @@ public class BigDecimal extends Number implements Comparable<BigDecimal> {
             int raise = checkScaleNonZero((long) mcp + yscale - xscale);
             long scaledXs;
             if ((scaledXs = longMultiplyPowerTen(xs, raise)) == INFLATED) {
-                BigInteger rb = bigMultiplyPowerTen(xs,raise);
-                quotient = divideAndRound(rb, ys, scl, roundingMode, checkScaleNonZero(preferredScale));
+                quotient = null;
+                if (raise < LONG_TEN_POWERS_TABLE.length) {
+                    quotient = multiplyDivideAndRound(LONG_TEN_POWERS_TABLE[raise], xs, ys, scl, roundingMode, checkScaleNonZero(preferredScale));
+                }
+                if (quotient == null) {
+                    BigInteger rb = bigMultiplyPowerTen(xs,raise);
+                    quotient = divideAndRound(rb, ys, scl, roundingMode, checkScaleNonZero(preferredScale));
+                }
             } else {
                 quotient = divideAndRound(scaledXs, ys, scl, roundingMode, checkScaleNonZero(preferredScale));
             }
@@ -4853,9 +4911,8 @@ public class BigDecimal extends Number implements Comparable<BigDecimal> {
             q1 = tmp / v1;
             r_tmp = tmp - q1 * v1;
         } else {
-            long[] rq = divRemNegativeLong(tmp, v1);
-            q1 = rq[1];
-            r_tmp = rq[0];
+            q1 = divNegativeLong(tmp, v1);
+            r_tmp = tmp - q1 * v1;
         }
 
         while(q1 >= DIV_NUM_BASE || unsignedLongCompare(q1*v0, make64(r_tmp, u1))) {
@@ -4875,9 +4932,8 @@ public class BigDecimal extends Number implements Comparable<BigDecimal> {
             q0 = tmp / v1;
             r_tmp = tmp - q0 * v1;
         } else {
-            long[] rq = divRemNegativeLong(tmp, v1);
-            q0 = rq[1];
-            r_tmp = rq[0];
+            q0 = divNegativeLong(tmp, v1);
+            r_tmp = tmp - q0 * v1;
         }
 
         while(q0 >= DIV_NUM_BASE || unsignedLongCompare(q0*v0,make64(r_tmp,u0))) {
@@ -4959,15 +5015,14 @@ public class BigDecimal extends Number implements Comparable<BigDecimal> {
     }
 
     /**
-     * Calculate the quotient and remainder of dividing a negative long by
-     * another long.
+     * Calculate the quotient of dividing a negative long, taken as an
+     * unsigned value, by another long.  The remainder is {@code n - q * d}.
      *
      * @param n the numerator; must be negative
      * @param d the denominator; must not be unity
-     * @return a two-element {@long} array with the remainder and quotient in
-     *         the initial and final elements, respectively
+     * @return the quotient
      */
-    private static long[] divRemNegativeLong(long n, long d) {
+    private static long divNegativeLong(long n, long d) {
         assert n < 0 : "Non-negative numerator " + n;
         assert d != 1 : "Unity denominator";
 
@@ -4986,7 +5041,7 @@ public class BigDecimal extends Number implements Comparable<BigDecimal> {
         }
 
         // n - q*d == r && 0 <= r < d, hence we're done.
-        return new long[] {r, q};
+        return q;
     }
 
     private static long make64(long hi, long lo) {
@@ -5052,18 +5107,69 @@ public class BigDecimal extends Number implements Comparable<BigDecimal> {
                 long product = x * y;
         long ax = Math.abs(x);
         long ay = Math.abs(y);
-        if (((ax | ay) >>> 31 == 0) || (y == 0) || (product / y == x)){
+        if (((ax | ay) >>> 31 == 0) || (multiplyHigh(x, y) == (product >> 63))){
                         return product;
                 }
         return INFLATED;
     }
 
     private static BigDecimal multiply(long x, long y, int scale) {
-        long product = multiply(x, y);
-        if(product!=INFLATED) {
+        long product = x * y;
+        long high = multiplyHigh(x, y);
+        if (high == (product >> 63)) {
             return valueOf(product,scale);
         }
-        return new BigDecimal(BigInteger.valueOf(x).multiply(y),INFLATED,scale,0);
+        return new BigDecimal(bigValueOf128(high, product),INFLATED,scale,0);
+    }
+
+    /**
+     * Returns the most significant 64 bits of the 128-bit product of two
+     * signed longs (Hacker's Delight, section 8-2).
+     */
+    static long multiplyHigh(long x, long y) {
+        long x1 = x >> 32;
+        long x2 = x & LONG_MASK;
+        long y1 = y >> 32;
+        long y2 = y & LONG_MASK;
+        long z2 = x2 * y2;
+        long t = x1 * y2 + (z2 >>> 32);
+        long z1 = t & LONG_MASK;
+        long z0 = t >> 32;
+        z1 += x2 * y1;
+        return x1 * y1 + z0 + (z1 >> 32);
+    }
+
+    /**
+     * Returns a {@code BigInteger} whose value is the signed 128-bit
+     * value {@code hi:lo}.
+     */
+    static BigInteger bigValueOf128(long hi, long lo) {
+        if (hi == (lo >> 63))
+            return BigInteger.valueOf(lo);
+        int sign = 1;
+        if (hi < 0) {
+            sign = -1;
+            lo = -lo;
+            hi = (lo == 0) ? -hi : ~hi;
+        }
+        int[] mag;
+        if ((hi >>> 32) != 0)
+            mag = new int[] {(int) (hi >>> 32), (int) hi, (int) (lo >>> 32), (int) lo};
+        else if (hi != 0)
+            mag = new int[] {(int) hi, (int) (lo >>> 32), (int) lo};
+        else
+            mag = new int[] {(int) (lo >>> 32), (int) lo};
+        return new BigInteger(mag, sign);
+    }
+
+    /**
+     * Returns a {@code BigDecimal} whose unscaled value is the signed
+     * 128-bit value {@code hi:lo}.
+     */
+    static BigDecimal valueOf128(long hi, long lo, int scale) {
+        if (hi == (lo >> 63))
+            return valueOf(lo, scale);
+        return new BigDecimal(bigValueOf128(hi, lo), INFLATED, scale, 0);
     }
 
     private static BigDecimal multiply(long x, BigInteger y, int scale) {
@@ -5228,12 +5334,37 @@ public class BigDecimal extends Number implements Comparable<BigDecimal> {
                 if ((ys = longMultiplyPowerTen(ys, raise)) != INFLATED) {
                     return divideAndRound(dividend, ys, scale, roundingMode, scale);
                 }
+                return divideAndRoundByLarge(dividend, divisor, LONG_TEN_POWERS_TABLE[raise], scale, roundingMode);
             }
             BigInteger scaledDivisor = bigMultiplyPowerTen(divisor, raise);
             return divideAndRound(BigInteger.valueOf(dividend), scaledDivisor, scale, roundingMode, scale);
         }
     }
 
+    /*
+     * Divides dividend by divisor * tenpower, a product that does not fit
+     * into a long, so that the quotient, before rounding, is zero and the
+     * remainder is the dividend.  The product is compared in 128 bits.
+     */
+    private static BigDecimal divideAndRoundByLarge(long dividend, long divisor, long tenpower,
+                                                    int scale, int roundingMode) {
+        if (dividend == 0)
+            return zeroValueOf(scale);
+        long ad = Math.abs(divisor);
+        long hi = multiplyHigh(ad, tenpower);
+        long lo = ad * tenpower;
+        long twiceR = Math.abs(dividend) << 1; // unsigned, as |dividend| < 2^63
+        int cmpFracHalf;
+        if (hi != 0 || unsignedLongCompare(lo, twiceR))
+            cmpFracHalf = -1;
+        else
+            cmpFracHalf = (lo == twiceR) ? 0 : 1;
+        int qsign = ((dividend < 0) == (divisor < 0)) ? 1 : -1;
+        if (commonNeedIncrement(roundingMode, qsign, cmpFracHalf, false))
+            return valueOf(qsign, scale);
+        return zeroValueOf(scale);
+    }
+
     private static BigDecimal divide(BigInteger dividend, int dividendScale, long divisor, int divisorScale, int scale, int roundingMode) {
         if (checkScale(dividend,(long)scale + divisorScale) > dividendScale) {
             int newScale = scale + divisorScale;
@@ -35,6 +35,8 @@ import java.io.ObjectOutputStream;
 import java.io.ObjectStreamField;
 import java.util.Arrays;
 import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 import java.util.concurrent.ThreadLocalRandom;
 import sun.misc.DoubleConsts;
 import sun.misc.FloatConsts;
@@ -242,6 +244,23 @@ public class BigInteger extends Number implements Comparable<BigInteger> {
      */
     private static final int TOOM_COOK_SQUARE_THRESHOLD = 216;
 
+    /**
+     * The threshold value for using number-theoretic transform
+     * multiplication.  If the number of ints in both mag arrays are
+     * greater than this number, then the product will be computed by
+     * {@link NumberTheoreticTransform}.  This value is found
+     * experimentally to work well.
+     */
+    private static final int NTT_THRESHOLD = 28000;
+
+    /**
+     * The threshold value for using number-theoretic transform squaring.
+     * If the number of ints in the number are larger than this value,
+     * the square will be computed by {@link NumberTheoreticTransform}.
+     * This value is found experimentally to work well.
+     */
+    private static final int NTT_SQUARE_THRESHOLD = 28000;
+
     /**
      * The threshold value for using Burnikel-Ziegler division.  If the number
      * of ints in the divisor are larger than this value, Burnikel-Ziegler
@@ -268,6 +287,16 @@ public class BigInteger extends Number implements Comparable<BigInteger> {
      */
     private static final int SCHOENHAGE_BASE_CONVERSION_THRESHOLD = 20;
 
+    /**
+     * The threshold value for using recursive conversion from a String.
+     * If the number of digits of the String is larger than this value
+     * times the number of digits per int in its radix, the digits are
+     * split in two parts converted recursively, the higher part being then
+     * multiplied by a power of the radix.  As for the conversion to a
+     * String, the choice of this value has little effect on performance.
+     */
+    private static final int SCHOENHAGE_PARSE_THRESHOLD = 40;
+
     /**
      * The threshold value for using squaring code to perform multiplication
      * of a {@code BigInteger} instance by itself.  If the number of ints in
@@ -459,6 +488,17 @@ public class BigInteger extends Number implements Comparable<BigInteger> {
         if (numBits + 31 >= (1L << 32)) {
             reportOverflow();
         }
+
+        // Convert many digits by recursive splitting, as the loop below
+        // takes a time quadratic in their number.
+        if (numDigits > SCHOENHAGE_PARSE_THRESHOLD * digitsPerInt[radix]) {
+            mag = parse(val, cursor, len, radix).mag;
+            if (mag.length >= MAX_MAG_LENGTH) {
+                checkRange();
+            }
+            return;
+        }
+
         int numWords = (int) (numBits + 31) >>> 5;
         int[] magnitude = new int[numWords];
 
@@ -488,6 +528,31 @@ public class BigInteger extends Number implements Comparable<BigInteger> {
         }
     }
 
+    /**
+     * Converts the digits of {@code val} from {@code from} to {@code to},
+     * without sign, in the given radix.  This implements a recursive
+     * base conversion, the inverse of the one used by {@code toString}:
+     * the digits are split into a lower part of 2<sup>n</sup> digits and
+     * a higher part of at most as many, and the value of the higher part
+     * is multiplied by radix<sup>2<sup>n</sup></sup>, taken from the
+     * radix conversion cache, so that the time is that of a few large
+     * multiplications instead of being quadratic in the number of digits.
+     *
+     * @throws NumberFormatException if a digit is illegal in the radix.
+     */
+    private static BigInteger parse(String val, int from, int to, int radix) {
+        int numDigits = to - from;
+        if (numDigits <= SCHOENHAGE_PARSE_THRESHOLD * digitsPerInt[radix])
+            return new BigInteger(val.substring(from, to), radix);
+
+        // 2^n < numDigits <= 2^(n+1)
+        int n = 31 - Integer.numberOfLeadingZeros(numDigits - 1);
+        int mid = to - (1 << n);
+        BigInteger high = parse(val, from, mid, radix);
+        BigInteger low = parse(val, mid, to, radix);
+        return high.multiply(getRadixConversionCache(radix, n)).add(low);
+    }
+
     /*
      * Constructs a new BigInteger using a char array with radix=10.
      * Sign is precalculated outside and not allowed in the val.
@@ -1163,10 +1228,12 @@ public class BigInteger extends Number implements Comparable<BigInteger> {
     static {
         assert 0 < KARATSUBA_THRESHOLD
             && KARATSUBA_THRESHOLD < TOOM_COOK_THRESHOLD
-            && TOOM_COOK_THRESHOLD < Integer.MAX_VALUE
+            && TOOM_COOK_THRESHOLD < NTT_THRESHOLD
+            && NTT_THRESHOLD < Integer.MAX_VALUE
             && 0 < KARATSUBA_SQUARE_THRESHOLD
             && KARATSUBA_SQUARE_THRESHOLD < TOOM_COOK_SQUARE_THRESHOLD
-            && TOOM_COOK_SQUARE_THRESHOLD < Integer.MAX_VALUE :
+            && TOOM_COOK_SQUARE_THRESHOLD < NTT_SQUARE_THRESHOLD
+            && NTT_SQUARE_THRESHOLD < Integer.MAX_VALUE :
             "Algorithm thresholds are inconsistent";
 
         for (int i = 1; i <= MAX_CONSTANT; i++) {
@@ -1490,7 +1557,30 @@ public class BigInteger extends Number implements Comparable<BigInteger> {
      * @return {@code this * val}
      */
     public BigInteger multiply(BigInteger val) {
-        return multiply(val, false);
+        return multiply(val, false, false, 0);
+    }
+
+    /**
+     * Returns a BigInteger whose value is {@code (this * val)}.
+     * When both {@code this} and {@code val} are large, typically
+     * in the thousands of bits, parallel multiply might be used.
+     * This method returns the exact same mathematical result as
+     * {@link #multiply}.
+     *
+     * @implNote This implementation may offer better algorithmic
+     * performance when {@code val == this}.
+     *
+     * @implNote Compared to {@link #multiply}, an implementation's
+     * parallel multiplication algorithm would typically use more
+     * CPU resources to compute the result faster, and may do so
+     * with a slight increase in memory consumption.
+     *
+     * @param  val value to be multiplied by this BigInteger.
+     * @return {@code this * val}
+     * @see #multiply
+     */
+    public BigInteger parallelMultiply(BigInteger val) {
+        return multiply(val, false, true, 0);
     }
 
     /**
@@ -1499,16 +1589,19 @@ public class BigInteger extends Number implements Comparable<BigInteger> {
      *
      * @param  val value to be multiplied by this BigInteger.
      * @param  isRecursion whether this is a recursive invocation
+     * @param  parallel whether the multiply should be done in parallel
+     * @param  depth the depth of the recursion
      * @return {@code this * val}
      */
-    private BigInteger multiply(BigInteger val, boolean isRecursion) {
+    private BigInteger multiply(BigInteger val, boolean isRecursion,
+                                boolean parallel, int depth) {
         if (val.signum == 0 || signum == 0)
             return ZERO;
 
         int xlen = mag.length;
 
         if (val == this && xlen > MULTIPLY_SQUARE_THRESHOLD) {
-            return square();
+            return square(isRecursion, parallel, depth);
         }
 
         int ylen = val.mag.length;
@@ -1586,11 +1679,32 @@ public class BigInteger extends Number implements Comparable<BigInteger> {
                     }
                 }
 
-                return multiplyToomCook3(this, val);
+                if (xlen >= NTT_THRESHOLD && ylen >= NTT_THRESHOLD &&
+                    xlen + ylen <= NumberTheoreticTransform.MAX_LENGTH) {
+                    return multiplyNTT(this, val);
+                }
+
+                return multiplyToomCook3(this, val, parallel, depth);
             }
         }
     }
 
+    /**
+     * Multiplies two BigIntegers using a number-theoretic transform, a
+     * Fourier transform over a finite field, with an asymptotic complexity
+     * of O(n log n).  Due to its larger constant factor, it should only be
+     * used when both numbers are larger than a certain threshold (found
+     * experimentally), far above that of Toom-Cook multiplication.
+     *
+     * @see NumberTheoreticTransform
+     */
+    private static BigInteger multiplyNTT(BigInteger x, BigInteger y) {
+        int[] z = NumberTheoreticTransform.multiply(x.mag, x.mag.length,
+                                                    y.mag, y.mag.length);
+        return new BigInteger(trustedStripLeadingZeroInts(z),
+                              x.signum == y.signum ? 1 : -1);
+    }
+
     private static BigInteger multiplyByInt(int[] x, int y, int sign) {
         if (Integer.bitCount(y) == 1) {
             return new BigInteger(shiftLeft(x,Integer.numberOfTrailingZeros(y)), sign);
@@ -1762,7 +1876,8 @@ public class BigInteger extends Number implements Comparable<BigInteger> {
      * LNCS #4547. Springer, Madrid, Spain, June 21-22, 2007.
      *
      */
-    private static BigInteger multiplyToomCook3(BigInteger a, BigInteger b) {
+    private static BigInteger multiplyToomCook3(BigInteger a, BigInteger b,
+                                                boolean parallel, int depth) {
         int alen = a.mag.length;
         int blen = b.mag.length;
 
@@ -1786,16 +1901,20 @@ public class BigInteger extends Number implements Comparable<BigInteger> {
 
         BigInteger v0, v1, v2, vm1, vinf, t1, t2, tm1, da1, db1;
 
-        v0 = a0.multiply(b0, true);
+        depth++;
+        RecursiveTask<BigInteger> v0_task = RecursiveOp.multiply(a0, b0, parallel, depth);
         da1 = a2.add(a0);
         db1 = b2.add(b0);
-        vm1 = da1.subtract(a1).multiply(db1.subtract(b1), true);
+        RecursiveTask<BigInteger> vm1_task = RecursiveOp.multiply(da1.subtract(a1), db1.subtract(b1), parallel, depth);
         da1 = da1.add(a1);
         db1 = db1.add(b1);
-        v1 = da1.multiply(db1, true);
+        RecursiveTask<BigInteger> v1_task = RecursiveOp.multiply(da1, db1, parallel, depth);
         v2 = da1.add(a2).shiftLeft(1).subtract(a0).multiply(
-             db1.add(b2).shiftLeft(1).subtract(b0), true);
-        vinf = a2.multiply(b2, true);
+             db1.add(b2).shiftLeft(1).subtract(b0), true, parallel, depth);
+        vinf = a2.multiply(b2, true, parallel, depth);
+        v0 = v0_task.join();
+        vm1 = vm1_task.join();
+        v1 = v1_task.join();
 
         // The algorithm requires two divisions by 2 and one by 3.
         // All divisions are known to be exact, that is, they do not produce
@@ -1953,6 +2072,90 @@ public class BigInteger extends Number implements Comparable<BigInteger> {
         return new BigInteger(trustedStripLeadingZeroInts(upperInts), 1);
     }
 
+    @SuppressWarnings("serial")
+    private abstract static class RecursiveOp extends RecursiveTask<BigInteger> {
+        /**
+         * The threshold until when we should continue forking recursive ops
+         * if parallel is true. This threshold is only relevant for Toom Cook 3
+         * multiply and square.
+         */
+        private static final int PARALLEL_FORK_DEPTH_THRESHOLD =
+                calculateMaximumDepth(ForkJoinPool.getCommonPoolParallelism());
+
+        private static final int calculateMaximumDepth(int parallelism) {
+            return 32 - Integer.numberOfLeadingZeros(parallelism);
+        }
+
+        final boolean parallel;
+        /**
+         * The current recursing depth. Since it is a logarithmic algorithm,
+         * we do not need an int to hold the number.
+         */
+        final byte depth;
+
+        private RecursiveOp(boolean parallel, int depth) {
+            this.parallel = parallel;
+            this.depth = (byte) depth;
+        }
+
+        private static int getParallelForkDepthThreshold() {
+            if (inForkJoinPool()) {
+                return calculateMaximumDepth(getPool().getParallelism());
+            }
+            else {
+                return PARALLEL_FORK_DEPTH_THRESHOLD;
+            }
+        }
+
+        protected RecursiveTask<BigInteger> forkOrInvoke() {
+            if (parallel && depth <= getParallelForkDepthThreshold()) fork();
+            else invoke();
+            return this;
+        }
+
+        @SuppressWarnings("serial")
+        private static final class RecursiveMultiply extends RecursiveOp {
+            private final BigInteger a;
+            private final BigInteger b;
+
+            public RecursiveMultiply(BigInteger a, BigInteger b, boolean parallel, int depth) {
+                super(parallel, depth);
+                this.a = a;
+                this.b = b;
+            }
+
+            @Override
+            public BigInteger compute() {
+                return a.multiply(b, true, parallel, depth);
+            }
+        }
+
+        @SuppressWarnings("serial")
+        private static final class RecursiveSquare extends RecursiveOp {
+            private final BigInteger a;
+
+            public RecursiveSquare(BigInteger a, boolean parallel, int depth) {
+                super(parallel, depth);
+                this.a = a;
+            }
+
+            @Override
+            public BigInteger compute() {
+                return a.square(true, parallel, depth);
+            }
+        }
+
+        private static RecursiveTask<BigInteger> multiply(BigInteger a, BigInteger b,
+                                                          boolean parallel, int depth) {
+            return new RecursiveMultiply(a, b, parallel, depth).forkOrInvoke();
+        }
+
+        private static RecursiveTask<BigInteger> square(BigInteger a,
+                                                        boolean parallel, int depth) {
+            return new RecursiveSquare(a, parallel, depth).forkOrInvoke();
+        }
+    }
+
     // Squaring
 
     /**
@@ -1961,7 +2164,7 @@ public class BigInteger extends Number implements Comparable<BigInteger> {
      * @return {@code this<sup>2</sup>}
      */
     private BigInteger square() {
-        return square(false);
+        return square(false, false, 0);
     }
 
     /**
@@ -1969,9 +2172,11 @@ public class BigInteger extends Number implements Comparable<BigInteger> {
      * the invocation is recursive certain overflow checks are skipped.
      *
      * @param isRecursion whether this is a recursive invocation
+     * @param parallel whether the square should be done in parallel
+     * @param depth the depth of the recursion
      * @return {@code this<sup>2</sup>}
      */
-    private BigInteger square(boolean isRecursion) {
+    private BigInteger square(boolean isRecursion, boolean parallel, int depth) {
         if (signum == 0) {
             return ZERO;
         }
@@ -1993,7 +2198,13 @@ public class BigInteger extends Number implements Comparable<BigInteger> {
                     }
                 }
 
-                return squareToomCook3();
+                if (len >= NTT_SQUARE_THRESHOLD &&
+                    2 * len <= NumberTheoreticTransform.MAX_LENGTH) {
+                    int[] z = NumberTheoreticTransform.square(mag, len);
+                    return new BigInteger(trustedStripLeadingZeroInts(z), 1);
+                }
+
+                return squareToomCook3(parallel, depth);
             }
         }
     }
@@ -2126,7 +2337,7 @@ public class BigInteger extends Number implements Comparable<BigInteger> {
      * that has better asymptotic performance than the algorithm used in
      * squareToLen or squareKaratsuba.
      */
-    private BigInteger squareToomCook3() {
+    private BigInteger squareToomCook3(boolean parallel, int depth) {
         int len = mag.length;
 
         // k is the size (in ints) of the lower-order slices.
@@ -2143,13 +2354,17 @@ public class BigInteger extends Number implements Comparable<BigInteger> {
         a0 = getToomSlice(k, r, 2, len);
         BigInteger v0, v1, v2, vm1, vinf, t1, t2, tm1, da1;
 
-        v0 = a0.square(true);
+        depth++;
+        RecursiveTask<BigInteger> v0_fork = RecursiveOp.square(a0, parallel, depth);
         da1 = a2.add(a0);
-        vm1 = da1.subtract(a1).square(true);
+        RecursiveTask<BigInteger> vm1_fork = RecursiveOp.square(da1.subtract(a1), parallel, depth);
         da1 = da1.add(a1);
-        v1 = da1.square(true);
-        vinf = a2.square(true);
-        v2 = da1.add(a2).shiftLeft(1).subtract(a0).square(true);
+        RecursiveTask<BigInteger> v1_fork = RecursiveOp.square(da1, parallel, depth);
+        vinf = a2.square(true, parallel, depth);
+        v2 = da1.add(a2).shiftLeft(1).subtract(a0).square(true, parallel, depth);
+        v0 = v0_fork.join();
+        vm1 = vm1_fork.join();
+        v1 = v1_fork.join();
 
         // The algorithm requires two divisions by 2 and one by 3.
         // All divisions are known to be exact, that is, they do not produce
@@ -3799,10 +4014,13 @@ public class BigInteger extends Number implements Comparable<BigInteger> {
 
         // Otherwise use recursive toString, which requires positive arguments.
         // The results will be concatenated into this StringBuilder
-        StringBuilder sb = new StringBuilder();
+        // Size the buffer from the number of digits, and put the sign first
+        // rather than inserting it at the end.
+        StringBuilder sb = new StringBuilder(
+            (int) (bitLength() * LOG_TWO / logCache[radix]) + 2);
         if (signum < 0) {
+            sb.append('-');
             toString(this.negate(), sb, radix, 0);
-            sb.insert(0, '-');
         }
         else
             toString(this, sb, radix, 0);
@@ -3877,11 +4095,10 @@ public class BigInteger extends Number implements Comparable<BigInteger> {
             String s = u.smallToString(radix);
 
             // Pad with internal zeros if necessary.
-            // Don't pad if we're at the beginning of the string.
-            if ((s.length() < digits) && (sb.length() > 0)) {
-                for (int i=s.length(); i < digits; i++) { // May be a faster way to
-                    sb.append('0');                    // do this?
-                }
+            // Don't pad if we're at the beginning of the string, which
+            // is only reached with digits <= 0.
+            for (int pad = digits - s.length(); pad > 0; pad -= 63) {
+                sb.append(zeros[Math.min(pad, 63)]);
             }
 
             sb.append(s);
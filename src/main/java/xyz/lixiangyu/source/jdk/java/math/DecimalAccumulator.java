@@ -0,0 +1,292 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.math;
+
+import static java.math.BigDecimal.INFLATED;
+import static java.math.BigDecimal.LONG_TEN_POWERS_TABLE;
+
+/**
+ * A mutable sum of decimal numbers.  Adding a {@link BigDecimal} to an
+ * accumulator gives the same result as {@link BigDecimal#add(BigDecimal)}:
+ * the sum is exact and its scale is the largest of the scales of the
+ * numbers added, and of zero, the scale of an empty accumulator.  Unlike
+ * repeated additions of {@code BigDecimal}s, which create a new object
+ * for every partial sum, an accumulator keeps the unscaled value of the
+ * sum in a 128-bit integer, so that summing a series of numbers whose
+ * unscaled values fit into a {@code long}, as is common for monetary
+ * amounts, allocates no objects until the sum itself exceeds 128 bits,
+ * from which point on it is held in a {@link BigInteger}.  An accumulator
+ * can be {@linkplain #reset() reset} and reused.
+ *
+ * <p>For example, the total of the lines of an order could be computed
+ * as follows:
+ *
+ * <pre> {@code
+ * DecimalAccumulator total = new DecimalAccumulator();
+ * for (Line line : order.getLines())
+ *     total.addProduct(line.getPrice(), line.getQuantity());
+ * BigDecimal amount = total.toBigDecimal();
+ * }</pre>
+ *
+ * <p>This class is not safe for use by multiple threads without
+ * external synchronization.
+ *
+ * @see BigDecimal
+ */
+public final class DecimalAccumulator {
+
+    /**
+     * The unscaled value of the sum, as a 128-bit two's complement
+     * integer {@code hi:lo}, unless {@code big} is not null.
+     */
+    private long hi, lo;
+
+    /**
+     * The unscaled value of the sum, once it does not fit into 128 bits.
+     */
+    private BigInteger big;
+
+    /**
+     * The scale of the sum.
+     */
+    private int scale;
+
+    /**
+     * Creates an accumulator whose sum is zero, with a scale of zero.
+     */
+    public DecimalAccumulator() {
+    }
+
+    /**
+     * Adds a {@code BigDecimal} to the sum.
+     *
+     * @param  augend value to be added to the sum.
+     * @return this accumulator.
+     * @throws NullPointerException if {@code augend} is null.
+     */
+    public DecimalAccumulator add(BigDecimal augend) {
+        long v = augend.intCompact;
+        if (v != INFLATED)
+            return add(v, augend.scale());
+        return addBig(augend.inflated(), augend.scale());
+    }
+
+    /**
+     * Subtracts a {@code BigDecimal} from the sum.
+     *
+     * @param  subtrahend value to be subtracted from the sum.
+     * @return this accumulator.
+     * @throws NullPointerException if {@code subtrahend} is null.
+     */
+    public DecimalAccumulator subtract(BigDecimal subtrahend) {
+        long v = subtrahend.intCompact;
+        if (v != INFLATED)
+            return add(-v, subtrahend.scale());
+        return addBig(subtrahend.inflated().negate(), subtrahend.scale());
+    }
+
+    /**
+     * Adds <tt>(unscaledVal &times; 10<sup>-scale</sup>)</tt> to the sum.
+     *
+     * @param  unscaledVal unscaled value of the number to be added.
+     * @param  scale scale of the number to be added.
+     * @return this accumulator.
+     */
+    public DecimalAccumulator add(long unscaledVal, int scale) {
+        if (big == null && add128(unscaledVal >> 63, unscaledVal, scale))
+            return this;
+        return addBig(BigInteger.valueOf(unscaledVal), scale);
+    }
+
+    /**
+     * Adds the product of two {@code BigDecimal}s to the sum; the scale
+     * of the product is the sum of their scales, as for {@link
+     * BigDecimal#multiply(BigDecimal)}.
+     *
+     * @param  multiplicand a factor of the product.
+     * @param  multiplier the other factor of the product.
+     * @return this accumulator.
+     * @throws ArithmeticException if the scale of the product is out of
+     *         the range of an {@code int}.
+     * @throws NullPointerException if {@code multiplicand} or
+     *         {@code multiplier} is null.
+     */
+    public DecimalAccumulator addProduct(BigDecimal multiplicand, BigDecimal multiplier) {
+        long x = multiplicand.intCompact;
+        long y = multiplier.intCompact;
+        long s = (long) multiplicand.scale() + multiplier.scale();
+        if ((int) s != s) {
+            if (multiplicand.signum() == 0 || multiplier.signum() == 0)
+                return add(0L, s > Integer.MAX_VALUE ? Integer.MAX_VALUE : Integer.MIN_VALUE);
+            throw new ArithmeticException(s > Integer.MAX_VALUE ? "Underflow" : "Overflow");
+        }
+        if (x != INFLATED && y != INFLATED) {
+            if (big == null && add128(BigDecimal.multiplyHigh(x, y), x * y, (int) s))
+                return this;
+            return addBig(BigDecimal.bigValueOf128(BigDecimal.multiplyHigh(x, y), x * y), (int) s);
+        }
+        return addBig(multiplicand.inflated().multiply(multiplier.inflated()), (int) s);
+    }
+
+    /**
+     * Returns the scale of the sum.
+     *
+     * @return the scale of the sum.
+     */
+    public int scale() {
+        return scale;
+    }
+
+    /**
+     * Returns the signum function of the sum.
+     *
+     * @return -1, 0, or 1 as the sum is negative, zero, or positive.
+     */
+    public int signum() {
+        if (big != null)
+            return big.signum();
+        return (hi < 0) ? -1 : ((hi | lo) == 0) ? 0 : 1;
+    }
+
+    /**
+     * Resets the sum to zero, with a scale of zero.
+     *
+     * @return this accumulator.
+     */
+    public DecimalAccumulator reset() {
+        hi = lo = 0;
+        big = null;
+        scale = 0;
+        return this;
+    }
+
+    /**
+     * Returns the sum as a {@code BigDecimal}.
+     *
+     * @return the sum.
+     */
+    public BigDecimal toBigDecimal() {
+        if (big != null)
+            return new BigDecimal(big, scale);
+        return BigDecimal.valueOf128(hi, lo, scale);
+    }
+
+    /**
+     * Returns the string representation of the sum, as given by
+     * {@link BigDecimal#toString()}.
+     *
+     * @return the string representation of the sum.
+     */
+    public String toString() {
+        return toBigDecimal().toString();
+    }
+
+    /*
+     * Adds the 128-bit value yhi:ylo at scale s to the 128-bit sum, and
+     * returns true, or returns false, leaving the sum unchanged, if the
+     * result or the alignment of the scales overflows 128 bits.
+     */
+    private boolean add128(long yhi, long ylo, int s) {
+        long xhi = hi, xlo = lo;
+        if (s > scale) {
+            // raise the scale of the sum
+            long raise = (long) s - scale;
+            if (raise >= LONG_TEN_POWERS_TABLE.length)
+                return false;
+            long tenpower = LONG_TEN_POWERS_TABLE[(int) raise];
+            xhi = multiplyHigh128(xhi, xlo, tenpower);
+            if (xhi == INFLATED)
+                return false;
+            xlo *= tenpower;
+        } else if (s < scale) {
+            long raise = (long) scale - s;
+            if (raise >= LONG_TEN_POWERS_TABLE.length)
+                return false;
+            long tenpower = LONG_TEN_POWERS_TABLE[(int) raise];
+            if (yhi == (ylo >> 63)) {
+                // the usual case of an addend that fits into a long
+                yhi = BigDecimal.multiplyHigh(ylo, tenpower);
+            } else if ((yhi = multiplyHigh128(yhi, ylo, tenpower)) == INFLATED) {
+                return false;
+            }
+            ylo *= tenpower;
+        }
+        long sumLo = xlo + ylo;
+        long sumHi = xhi + yhi + (Long.compareUnsigned(sumLo, xlo) < 0 ? 1 : 0);
+        // See "Hacker's Delight" section 2-12 for the overflow test
+        if (((sumHi ^ xhi) & (sumHi ^ yhi)) < 0)
+            return false;
+        hi = sumHi;
+        lo = sumLo;
+        if (s > scale)
+            scale = s;
+        return true;
+    }
+
+    /*
+     * Returns the high 64 bits of the 128-bit value hi:lo multiplied by
+     * tenpower, a positive long; the low 64 bits are lo * tenpower.
+     * Returns INFLATED if the product does not fit into 128 bits, or
+     * would have INFLATED as its high part.
+     */
+    private static long multiplyHigh128(long hi, long lo, long tenpower) {
+        // hi:lo * t = (hi * t) 2^64 + (unsigned lo) * t, where the high
+        // part of the latter is the unsigned high product of lo and t
+        long carry = BigDecimal.multiplyHigh(lo, tenpower) + ((lo >> 63) & tenpower);
+        long m = hi * tenpower;
+        long t = m + carry;
+        long th = BigDecimal.multiplyHigh(hi, tenpower) + (Long.compareUnsigned(t, m) < 0 ? 1 : 0);
+        if (th != (t >> 63) || t == INFLATED)
+            return INFLATED;
+        return t;
+    }
+
+    /*
+     * Adds val at scale s to the sum, moving the sum to a BigInteger.
+     */
+    private DecimalAccumulator addBig(BigInteger val, int s) {
+        BigInteger sum = (big != null) ? big : BigDecimal.bigValueOf128(hi, lo);
+        if (s > scale) {
+            sum = sum.multiply(BigDecimal.bigTenToThe(checkRaise(sum, (long) s - scale)));
+        } else if (s < scale) {
+            val = val.multiply(BigDecimal.bigTenToThe(checkRaise(val, (long) scale - s)));
+        }
+        big = sum.add(val);
+        if (s > scale)
+            scale = s;
+        return this;
+    }
+
+    /*
+     * Returns the difference of two scales, by which a nonzero value is
+     * to be raised, if it fits into an int.
+     */
+    private static int checkRaise(BigInteger val, long raise) {
+        if (raise > Integer.MAX_VALUE && val.signum() != 0)
+            throw new ArithmeticException("Underflow");
+        return (int) Math.min(raise, Integer.MAX_VALUE);
+    }
+}
@@ -0,0 +1,282 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.math;
+
+/**
+ * Multiplication of very large magnitudes by number-theoretic transform.
+ * The magnitudes are split into 16-bit digits, taken as the coefficients
+ * of two polynomials whose product is computed as a cyclic convolution,
+ * by transforms over the field of integers modulo the prime
+ * p = 2<sup>64</sup> - 2<sup>32</sup> + 1.  The multiplicative group of
+ * this field has elements of order 2<sup>32</sup>, so that it has the
+ * roots of unity needed for transforms of any length used here, and
+ * reduction modulo p only needs shifts and additions.  A coefficient of
+ * the product is less than n 2<sup>32</sup> for a transform of length n,
+ * thus less than p, so it is computed exactly.
+ *
+ * <p>The complexity is O(n log n) for magnitudes of n ints, against
+ * O(n<sup>1.465</sup>) for 3-way Toom-Cook multiplication, but the
+ * constant factor is larger, so that this is only used for numbers of
+ * many thousands of ints.
+ *
+ * <p>The forward transform is a decimation in frequency, leaving its
+ * result in bit-reversed order, and the inverse transform a decimation in
+ * time, taking its input in bit-reversed order, so that no permutation is
+ * needed in between.
+ *
+ * See:  Pollard, J. M., "The fast Fourier transform in a finite field",
+ *       Mathematics of Computation 25 (1971), pp. 365-374.
+ *
+ * @see     BigInteger
+ */
+final class NumberTheoreticTransform {
+
+    // This class cannot be instantiated.
+    private NumberTheoreticTransform() {}
+
+    /** The prime modulus 2^64 - 2^32 + 1, as an unsigned long. */
+    private static final long P = 0xFFFFFFFF00000001L;
+
+    /** 2^64 mod P, that is 2^32 - 1; also the mask of the low 32 bits. */
+    private static final long EPSILON = 0xFFFFFFFFL;
+
+    /** A generator of the multiplicative group modulo P. */
+    private static final long GENERATOR = 7;
+
+    /**
+     * The base 2 logarithm of the longest transform.  2^32 divides P - 1,
+     * but the coefficients of longer transforms could exceed P.
+     */
+    private static final int MAX_LOG_LENGTH = 28;
+
+    /**
+     * The greatest length, in ints, of a product computed by this class,
+     * of two digits each.
+     */
+    static final int MAX_LENGTH = 1 << (MAX_LOG_LENGTH - 1);
+
+    /** ROOTS[k] is a primitive 2^k-th root of unity modulo P. */
+    private static final long[] ROOTS = new long[MAX_LOG_LENGTH + 1];
+
+    /** INVERSE_ROOTS[k] is the inverse of ROOTS[k] modulo P. */
+    private static final long[] INVERSE_ROOTS = new long[MAX_LOG_LENGTH + 1];
+
+    static {
+        // (P - 1) / 2^32 is 2^32 - 1
+        long root = pow(GENERATOR, EPSILON);
+        for (int k = 32; k > MAX_LOG_LENGTH; k--)
+            root = mul(root, root);
+        for (int k = MAX_LOG_LENGTH; k >= 0; k--) {
+            ROOTS[k] = root;
+            INVERSE_ROOTS[k] = pow(root, P - 2);
+            root = mul(root, root);
+        }
+    }
+
+    /**
+     * Returns the magnitude of the product of the magnitudes x[0..xlen-1]
+     * and y[0..ylen-1], of length xlen + ylen, possibly with leading zeros.
+     */
+    static int[] multiply(int[] x, int xlen, int[] y, int ylen) {
+        int logn = transformLog(xlen + ylen);
+        int n = 1 << logn;
+        long[] a = toDigits(x, xlen, n);
+        long[] b = toDigits(y, ylen, n);
+        long[] w = twiddles(n, ROOTS[logn]);
+        forward(a, w);
+        forward(b, w);
+        long scale = inverseOfLength(logn);
+        for (int i = 0; i < n; i++)
+            a[i] = mul(mul(a[i], b[i]), scale);
+        inverse(a, twiddles(n, INVERSE_ROOTS[logn]));
+        return fromDigits(a, xlen + ylen);
+    }
+
+    /**
+     * Returns the magnitude of the square of the magnitude x[0..len-1], of
+     * length 2 * len, possibly with leading zeros.
+     */
+    static int[] square(int[] x, int len) {
+        int logn = transformLog(2 * len);
+        int n = 1 << logn;
+        long[] a = toDigits(x, len, n);
+        forward(a, twiddles(n, ROOTS[logn]));
+        long scale = inverseOfLength(logn);
+        for (int i = 0; i < n; i++) {
+            long d = a[i];
+            a[i] = mul(mul(d, d), scale);
+        }
+        inverse(a, twiddles(n, INVERSE_ROOTS[logn]));
+        return fromDigits(a, 2 * len);
+    }
+
+    /**
+     * Returns the base 2 logarithm of the length of the transform of a
+     * product of len ints, two digits each.
+     */
+    private static int transformLog(int len) {
+        if (len > MAX_LENGTH)
+            throw new ArithmeticException("BigInteger would overflow supported range");
+        return 32 - Integer.numberOfLeadingZeros(2 * len - 1);
+    }
+
+    /**
+     * Returns the inverse of 2^logn modulo P, that is 2^(P - 1 - logn).
+     */
+    private static long inverseOfLength(int logn) {
+        return pow(2, P - 1 - logn);
+    }
+
+    /**
+     * Splits the magnitude mag[0..len-1] into 16-bit digits, least
+     * significant first, in an array of length n.
+     */
+    private static long[] toDigits(int[] mag, int len, int n) {
+        long[] a = new long[n];
+        for (int i = 0, j = len - 1; j >= 0; i += 2, j--) {
+            int word = mag[j];
+            a[i] = word & 0xFFFF;
+            a[i + 1] = word >>> 16;
+        }
+        return a;
+    }
+
+    /**
+     * Propagates the carries of the digits of a product into a magnitude
+     * of len ints.
+     */
+    private static int[] fromDigits(long[] a, int len) {
+        int[] mag = new int[len];
+        long carry = 0;
+        for (int i = 0, j = len - 1; j >= 0; i += 2, j--) {
+            long lo = a[i] + carry;
+            long hi = a[i + 1] + (lo >>> 16);
+            mag[j] = (int) ((lo & 0xFFFF) | (hi << 16));
+            carry = hi >>> 16;
+        }
+        return mag;
+    }
+
+    /**
+     * Returns the powers 0 to n/2 - 1 of the n-th root of unity w.
+     */
+    private static long[] twiddles(int n, long w) {
+        long[] t = new long[Math.max(n >>> 1, 1)];
+        t[0] = 1;
+        for (int i = 1; i < t.length; i++)
+            t[i] = mul(t[i - 1], w);
+        return t;
+    }
+
+    /**
+     * Transforms a in place by decimation in frequency, leaving the result
+     * in bit-reversed order.
+     */
+    private static void forward(long[] a, long[] w) {
+        int n = a.length;
+        for (int len = n, step = 1; len >= 2; len >>>= 1, step <<= 1) {
+            int half = len >>> 1;
+            for (int start = 0; start < n; start += len) {
+                for (int j = 0, k = 0; j < half; j++, k += step) {
+                    long u = a[start + j];
+                    long v = a[start + j + half];
+                    a[start + j] = add(u, v);
+                    a[start + j + half] = (k == 0) ? sub(u, v) : mul(sub(u, v), w[k]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Transforms a, in bit-reversed order, in place by decimation in
+     * time, leaving the result, not yet divided by the length, in natural
+     * order.
+     */
+    private static void inverse(long[] a, long[] w) {
+        int n = a.length;
+        for (int len = 2, step = n >>> 1; len <= n; len <<= 1, step >>>= 1) {
+            int half = len >>> 1;
+            for (int start = 0; start < n; start += len) {
+                for (int j = 0, k = 0; j < half; j++, k += step) {
+                    long u = a[start + j];
+                    long v = (k == 0) ? a[start + j + half] : mul(a[start + j + half], w[k]);
+                    a[start + j] = add(u, v);
+                    a[start + j + half] = sub(u, v);
+                }
+            }
+        }
+    }
+
+    // Arithmetic modulo P, on unsigned longs less than P.  The branches
+    // would be taken at random, so carries and borrows are computed as
+    // masks instead (Hacker's Delight, section 2-13).
+
+    private static long add(long a, long b) {
+        return sub(a, P - b);
+    }
+
+    private static long sub(long a, long b) {
+        long d = a - b;
+        long borrow = ((~a & b) | (~(a ^ b) & d)) >> 63;
+        return d - (borrow & EPSILON);          // d + P on borrow
+    }
+
+    private static long mul(long a, long b) {
+        // The 128-bit product hi:lo, from four 32-bit products
+        long a0 = a & EPSILON, a1 = a >>> 32;
+        long b0 = b & EPSILON, b1 = b >>> 32;
+        long p00 = a0 * b0, p01 = a0 * b1, p10 = a1 * b0;
+        long mid = (p00 >>> 32) + (p01 & EPSILON) + (p10 & EPSILON);
+        long lo = (mid << 32) | (p00 & EPSILON);
+        long hi = a1 * b1 + (p01 >>> 32) + (p10 >>> 32) + (mid >>> 32);
+
+        // hi:lo = lo + (hi & EPSILON) 2^64 + (hi >>> 32) 2^96, where
+        // 2^64 = 2^32 - 1 and 2^96 = -1 modulo P
+        long hh = hi >>> 32, hl = hi & EPSILON;
+        long t0 = lo - hh;
+        long borrow = ((~lo & hh) | (~(lo ^ hh) & t0)) >> 63;
+        t0 -= borrow & EPSILON;                 // t0 + P on borrow
+        long t1 = (hl << 32) - hl;
+        long r = t0 + t1;
+        long carry = ((t0 & t1) | ((t0 | t1) & ~r)) >> 63;
+        r += carry & EPSILON;                   // 2^64 = 2^32 - 1
+        // r - P = r + 2^32 - 1, if that carries
+        long q = r + EPSILON;
+        long ge = ((r & EPSILON) | ((r | EPSILON) & ~q)) >> 63;
+        return r ^ ((r ^ q) & ge);
+    }
+
+    private static long pow(long b, long e) {
+        long r = 1;
+        while (e != 0) {
+            if ((e & 1) != 0)
+                r = mul(r, b);
+            b = mul(b, b);
+            e >>>= 1;
+        }
+        return r;
+    }
+}
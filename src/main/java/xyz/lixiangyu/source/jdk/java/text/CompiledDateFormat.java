@@ -0,0 +1,761 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.text;
+
+import java.util.Calendar;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.Locale;
+import java.util.TimeZone;
+import sun.util.calendar.CalendarUtils;
+import static java.text.DateFormatSymbols.*;
+
+/**
+ * An immutable, thread-safe form of a {@link SimpleDateFormat}.  A
+ * {@code SimpleDateFormat} computes the fields of a date in its
+ * {@code Calendar}, so it cannot be shared by threads without
+ * synchronization, and is typically kept in a {@code ThreadLocal} or a
+ * pool.  A {@code CompiledDateFormat} copies the pattern, symbols, time
+ * zone and calendar of a {@code SimpleDateFormat} when it is created, and
+ * keeps no state between calls, so that a single instance, typically held
+ * in a static field, can be used by any number of threads:
+ *
+ * <pre> {@code
+ * static final CompiledDateFormat TIMESTAMP =
+ *     new CompiledDateFormat("yyyy-MM-dd HH:mm:ss.SSS", Locale.ROOT,
+ *                            TimeZone.getTimeZone("UTC"));
+ *
+ * StringBuilder sb = new StringBuilder();
+ * TIMESTAMP.format(System.currentTimeMillis(), sb);
+ * Date d = TIMESTAMP.parse("2014-03-18 12:00:00.000");
+ * }</pre>
+ *
+ * <p>The text produced and accepted is that of the
+ * {@code SimpleDateFormat} from which this format was compiled, at the
+ * time it was compiled.  The {@code format} methods append to a
+ * caller-supplied {@code StringBuilder}.  The {@code parse} methods accept
+ * any {@code CharSequence}, or a range of one, which must be parsed in
+ * full.
+ *
+ * <p>With a {@link GregorianCalendar}, a date from the year 1600 to the
+ * year 9999 is formatted without a {@code Calendar}, if the pattern uses
+ * only the letters {@code G y M d k H m s S E D F a h K Z u X}, and text
+ * of numeric fields and literals is parsed with a single
+ * {@code Calendar}, if the pattern uses only the letters
+ * {@code y M d H m s S}.  Other dates and patterns are handled by the
+ * compiled {@code SimpleDateFormat}.
+ *
+ * @see SimpleDateFormat
+ */
+public final class CompiledDateFormat {
+
+    /**
+     * A private copy of the format compiled, which is never modified
+     * except by formatting a date in its calendar, under its lock, and is
+     * cloned to parse text not handled by fastParse.
+     */
+    private final SimpleDateFormat format;
+
+    /**
+     * The pattern, as the pattern letter index or, for literal text, -1,
+     * and the count of the pattern letter or the literal text, of each
+     * of its fields.
+     */
+    private final int[] fields;
+    private final int[] counts;
+    private final String[] texts;
+
+    /**
+     * Whether dates in the range of the fast path are formatted without a
+     * calendar, and whether text is parsed without the format.
+     */
+    private final boolean fastFormat;
+    private final boolean fastParse;
+
+    /**
+     * A copy of the calendar of the format, which is never modified, and
+     * is cloned to compute the date of the fields parsed.
+     */
+    private final Calendar calendar;
+
+    private final TimeZone zone;
+    private final char zeroDigit;
+    private final String[] eras;
+    private final String[] months;
+    private final String[] shortMonths;
+    private final String[] weekdays;
+    private final String[] shortWeekdays;
+    private final String[] ampm;
+
+    // The local times of 1600-01-01T00:00 and 10000-01-01T00:00
+    private static final long MIN_FAST_LOCAL_MILLIS = -135140L * 86400000;
+    private static final long MAX_FAST_LOCAL_MILLIS = 2932897L * 86400000;
+
+    // The default Gregorian cutover of GregorianCalendar
+    private static final long GREGORIAN_CUTOVER = -12219292800000L;
+
+    // The days in a non-leap year before the first day of each month
+    private static final int[] DAYS_BEFORE_MONTH = {
+        0, 31, 59, 90, 120, 151, 181, 212, 243, 273, 304, 334
+    };
+
+    /**
+     * Compiles the current pattern, symbols, time zone and calendar of a
+     * {@code SimpleDateFormat}.  Later changes to {@code format} do not
+     * affect this format.
+     *
+     * @param format the format to compile
+     * @exception NullPointerException if {@code format} is null
+     */
+    public CompiledDateFormat(SimpleDateFormat format) {
+        this((SimpleDateFormat) format.clone(), true);
+    }
+
+    /**
+     * Compiles a pattern with the date format symbols of the default
+     * {@link java.util.Locale.Category#FORMAT FORMAT} locale, in the
+     * default time zone.
+     *
+     * @param pattern the pattern describing the date and time format
+     * @exception NullPointerException if the given pattern is null
+     * @exception IllegalArgumentException if the given pattern is invalid
+     */
+    public CompiledDateFormat(String pattern) {
+        this(new SimpleDateFormat(pattern), true);
+    }
+
+    /**
+     * Compiles a pattern with the date format symbols of the given
+     * locale, in the default time zone.
+     *
+     * @param pattern the pattern describing the date and time format
+     * @param locale the locale whose date format symbols should be used
+     * @exception NullPointerException if the given pattern or locale is null
+     * @exception IllegalArgumentException if the given pattern is invalid
+     */
+    public CompiledDateFormat(String pattern, Locale locale) {
+        this(new SimpleDateFormat(pattern, locale), true);
+    }
+
+    /**
+     * Compiles a pattern with the date format symbols of the given
+     * locale, in the given time zone.
+     *
+     * @param pattern the pattern describing the date and time format
+     * @param locale the locale whose date format symbols should be used
+     * @param zone the time zone of the dates formatted and parsed
+     * @exception NullPointerException if any argument is null
+     * @exception IllegalArgumentException if the given pattern is invalid
+     */
+    public CompiledDateFormat(String pattern, Locale locale, TimeZone zone) {
+        this(newSimpleDateFormat(pattern, locale, zone), true);
+    }
+
+    private static SimpleDateFormat newSimpleDateFormat(String pattern,
+                                                        Locale locale,
+                                                        TimeZone zone) {
+        SimpleDateFormat format = new SimpleDateFormat(pattern, locale);
+        format.setTimeZone(zone);
+        return format;
+    }
+
+    /*
+     * Compiles a format which is not shared with the caller.
+     */
+    private CompiledDateFormat(SimpleDateFormat format, boolean unshared) {
+        this.format = format;
+        calendar = (Calendar) format.calendar.clone();
+        zone = calendar.getTimeZone();
+
+        char[] compiledPattern = format.getCompiledPattern();
+        int n = 0;
+        for (int i = 0; i < compiledPattern.length; n++) {
+            i += fieldLength(compiledPattern, i);
+        }
+        fields = new int[n];
+        counts = new int[n];
+        texts = new String[n];
+        boolean formatLetters = true;
+        boolean parseLetters = true;
+        for (int i = 0, k = 0; i < compiledPattern.length; k++) {
+            int tag = compiledPattern[i] >>> 8;
+            int count = compiledPattern[i] & 0xff;
+            int j = i + 1;
+            if (count == 255) {
+                count = compiledPattern[j++] << 16;
+                count |= compiledPattern[j++];
+            }
+            if (tag == SimpleDateFormat.TAG_QUOTE_ASCII_CHAR) {
+                fields[k] = -1;
+                texts[k] = String.valueOf((char) count);
+            } else if (tag == SimpleDateFormat.TAG_QUOTE_CHARS) {
+                fields[k] = -1;
+                texts[k] = new String(compiledPattern, j, count);
+            } else {
+                fields[k] = tag;
+                counts[k] = count;
+                formatLetters &= isFastFormatField(tag);
+                parseLetters &= isFastParseField(tag, count);
+            }
+            i += fieldLength(compiledPattern, i);
+        }
+
+        // The numbers of the fields are formatted by zeroPaddingNumber
+        // with the number format of the date format.  They are formatted
+        // here as the number format does if it is a DecimalFormat that
+        // writes just the digits.  A negative suffix, or a negative prefix
+        // other than the plain minus sign, could match the literals around
+        // a field when SimpleDateFormat parses it, so it rules out the fast
+        // paths; a leading minus sign can never match where a digit is
+        // read.
+        boolean digitsOnly = false;
+        boolean integerOnly = false;
+        char zero = '0';
+        if (format.numberFormat instanceof DecimalFormat) {
+            DecimalFormat df = (DecimalFormat) format.numberFormat;
+            DecimalFormatSymbols symbols = df.getDecimalFormatSymbols();
+            String negativePrefix = df.getNegativePrefix();
+            digitsOnly = df.getPositivePrefix().isEmpty()
+                && df.getPositiveSuffix().isEmpty()
+                && df.getNegativeSuffix().isEmpty()
+                && (negativePrefix.isEmpty() || negativePrefix.equals(
+                        String.valueOf(symbols.getMinusSign())))
+                && df.getMultiplier() == 1
+                && (!df.isGroupingUsed() || df.getGroupingSize() == 0)
+                && !df.useExponentialNotation()
+                && !df.isDecimalSeparatorAlwaysShown()
+                && df.getDoubleMinimumFractionDigits() == 0;
+            integerOnly = df.isParseIntegerOnly();
+            zero = symbols.getZeroDigit();
+        }
+        zeroDigit = zero;
+
+        // Names are those of the format's symbols or, as by
+        // Calendar.getDisplayName, of the symbols of its locale.
+        boolean useDateFormatSymbols = format.useDateFormatSymbols();
+        DateFormatSymbols symbols = useDateFormatSymbols ?
+            format.getDateFormatSymbols() :
+            DateFormatSymbols.getInstance(format.getLocale());
+        eras = symbols.getEras();
+        months = symbols.getMonths();
+        shortMonths = symbols.getShortMonths();
+        weekdays = symbols.getWeekdays();
+        shortWeekdays = symbols.getShortWeekdays();
+        ampm = symbols.getAmPmStrings();
+
+        boolean gregorian = calendar.getClass() == GregorianCalendar.class
+            && ((GregorianCalendar) calendar).getGregorianChange().getTime()
+               == GREGORIAN_CUTOVER;
+        fastFormat = gregorian && digitsOnly && formatLetters
+            && (useDateFormatSymbols || !format.isForceStandaloneForm());
+        fastParse = gregorian && digitsOnly && integerOnly && parseLetters;
+    }
+
+    /**
+     * Returns the number of chars of the field of a compiled pattern at
+     * index i.
+     */
+    private static int fieldLength(char[] compiledPattern, int i) {
+        int tag = compiledPattern[i] >>> 8;
+        int count = compiledPattern[i] & 0xff;
+        int length = 1;
+        if (count == 255) {
+            count = compiledPattern[i + 1] << 16;
+            count |= compiledPattern[i + 2];
+            length += 2;
+        }
+        if (tag == SimpleDateFormat.TAG_QUOTE_CHARS) {
+            length += count;
+        }
+        return length;
+    }
+
+    private static boolean isFastFormatField(int patternCharIndex) {
+        switch (patternCharIndex) {
+        case PATTERN_ERA:
+        case PATTERN_YEAR:
+        case PATTERN_MONTH:
+        case PATTERN_DAY_OF_MONTH:
+        case PATTERN_HOUR_OF_DAY1:
+        case PATTERN_HOUR_OF_DAY0:
+        case PATTERN_MINUTE:
+        case PATTERN_SECOND:
+        case PATTERN_MILLISECOND:
+        case PATTERN_DAY_OF_WEEK:
+        case PATTERN_DAY_OF_YEAR:
+        case PATTERN_DAY_OF_WEEK_IN_MONTH:
+        case PATTERN_AM_PM:
+        case PATTERN_HOUR1:
+        case PATTERN_HOUR0:
+        case PATTERN_ZONE_VALUE:
+        case PATTERN_ISO_DAY_OF_WEEK:
+        case PATTERN_ISO_ZONE:
+            return true;
+        default:
+            return false;
+        }
+    }
+
+    private static boolean isFastParseField(int patternCharIndex, int count) {
+        switch (patternCharIndex) {
+        case PATTERN_YEAR:
+            // two-digit years are relative to the default century
+            return count > 2;
+        case PATTERN_MONTH:
+            // month names
+            return count < 3;
+        case PATTERN_DAY_OF_MONTH:
+        case PATTERN_HOUR_OF_DAY0:
+        case PATTERN_MINUTE:
+        case PATTERN_SECOND:
+        case PATTERN_MILLISECOND:
+            return true;
+        default:
+            return false;
+        }
+    }
+
+    /**
+     * Formats a date, given as milliseconds since the epoch, appending the
+     * text to a {@code StringBuilder}.
+     *
+     * @param date the milliseconds since January 1, 1970, 00:00:00 GMT
+     * @param result where the text is to be appended
+     * @return {@code result}
+     * @exception NullPointerException if {@code result} is null
+     */
+    public StringBuilder format(long date, StringBuilder result) {
+        if (fastFormat) {
+            int offset = zone.getOffset(date);
+            long local = date + offset;
+            if (local >= MIN_FAST_LOCAL_MILLIS && local < MAX_FAST_LOCAL_MILLIS) {
+                return format(local, offset, result);
+            }
+        }
+        StringBuffer sb = new StringBuffer();
+        synchronized (format) {
+            format.format(new Date(date), sb, DontCareFieldPosition.INSTANCE);
+        }
+        return result.append(sb);
+    }
+
+    /**
+     * Formats a {@code Date}, appending the text to a
+     * {@code StringBuilder}.
+     *
+     * @param date the date to format
+     * @param result where the text is to be appended
+     * @return {@code result}
+     * @exception NullPointerException if {@code date} or {@code result}
+     *            is null
+     */
+    public StringBuilder format(Date date, StringBuilder result) {
+        return format(date.getTime(), result);
+    }
+
+    /**
+     * Formats a date, given as milliseconds since the epoch, to produce a
+     * string.
+     *
+     * @param date the milliseconds since January 1, 1970, 00:00:00 GMT
+     * @return the formatted string
+     */
+    public String format(long date) {
+        return format(date, new StringBuilder()).toString();
+    }
+
+    /**
+     * Formats a {@code Date} to produce a string.
+     *
+     * @param date the date to format
+     * @return the formatted string
+     * @exception NullPointerException if {@code date} is null
+     */
+    public String format(Date date) {
+        return format(date.getTime(), new StringBuilder()).toString();
+    }
+
+    /*
+     * Formats a date of the fast path, given as its local time and the
+     * offset of its time zone, as SimpleDateFormat.subFormat does.
+     */
+    private StringBuilder format(long local, int offset, StringBuilder result) {
+        long days = Math.floorDiv(local, 86400000L);
+        int millisOfDay = (int) (local - days * 86400000L);
+
+        // The civil date of a day since the epoch, after "chrono-Compatible
+        // Low-Level Date Algorithms" by Howard Hinnant; days is after
+        // 0000-03-01, so the division rounds down.
+        long z = days + 719468;
+        int era = (int) (z / 146097);
+        int doe = (int) (z - era * 146097L);
+        int yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+        int doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+        int mp = (5 * doy + 2) / 153;
+        int dayOfMonth = doy - (153 * mp + 2) / 5 + 1;
+        int month = (mp < 10) ? mp + 2 : mp - 10;   // 0-based
+        int year = yoe + era * 400 + ((month < 2) ? 1 : 0);
+        int hour = millisOfDay / 3600000;
+        int dayOfWeek = (int) Math.floorMod(days + 4, 7L) + 1;
+
+        for (int k = 0; k < fields.length; k++) {
+            int count = counts[k];
+            switch (fields[k]) {
+            case -1:
+                result.append(texts[k]);
+                break;
+
+            case PATTERN_ERA: // 'G'
+                result.append(eras.length > GregorianCalendar.AD ?
+                              eras[GregorianCalendar.AD] : "");
+                break;
+
+            case PATTERN_YEAR: // 'y'
+                if (count != 2) {
+                    zeroPaddingNumber(year, count, result);
+                } else {
+                    zeroPaddingNumber(year % 100, 2, result);
+                } // clip 1996 to 96
+                break;
+
+            case PATTERN_MONTH: // 'M'
+                if (count >= 4) {
+                    result.append(months[month]);
+                } else if (count == 3) {
+                    result.append(shortMonths[month]);
+                } else {
+                    zeroPaddingNumber(month + 1, count, result);
+                }
+                break;
+
+            case PATTERN_DAY_OF_MONTH: // 'd'
+                zeroPaddingNumber(dayOfMonth, count, result);
+                break;
+
+            case PATTERN_HOUR_OF_DAY1: // 'k' 1-based
+                zeroPaddingNumber((hour == 0) ? 24 : hour, count, result);
+                break;
+
+            case PATTERN_HOUR_OF_DAY0: // 'H'
+                zeroPaddingNumber(hour, count, result);
+                break;
+
+            case PATTERN_MINUTE: // 'm'
+                zeroPaddingNumber(millisOfDay / 60000 % 60, count, result);
+                break;
+
+            case PATTERN_SECOND: // 's'
+                zeroPaddingNumber(millisOfDay / 1000 % 60, count, result);
+                break;
+
+            case PATTERN_MILLISECOND: // 'S'
+                zeroPaddingNumber(millisOfDay % 1000, count, result);
+                break;
+
+            case PATTERN_DAY_OF_WEEK: // 'E'
+                result.append((count >= 4) ? weekdays[dayOfWeek] :
+                              shortWeekdays[dayOfWeek]);
+                break;
+
+            case PATTERN_DAY_OF_YEAR: // 'D'
+                boolean leap = (year % 4 == 0) && (year % 100 != 0 || year % 400 == 0);
+                int dayOfYear = DAYS_BEFORE_MONTH[month] + dayOfMonth
+                    + ((leap && month > 1) ? 1 : 0);
+                zeroPaddingNumber(dayOfYear, count, result);
+                break;
+
+            case PATTERN_DAY_OF_WEEK_IN_MONTH: // 'F'
+                zeroPaddingNumber((dayOfMonth - 1) / 7 + 1, count, result);
+                break;
+
+            case PATTERN_AM_PM: // 'a'
+                result.append(ampm[(hour < 12) ? Calendar.AM : Calendar.PM]);
+                break;
+
+            case PATTERN_HOUR1: // 'h' 1-based
+                zeroPaddingNumber((hour % 12 == 0) ? 12 : hour % 12, count, result);
+                break;
+
+            case PATTERN_HOUR0: // 'K'
+                zeroPaddingNumber(hour % 12, count, result);
+                break;
+
+            case PATTERN_ZONE_VALUE: { // 'Z' ("-/+hhmm" form)
+                int value = offset / 60000;
+                int width = 4;
+                if (value >= 0) {
+                    result.append('+');
+                } else {
+                    width++;
+                }
+                int num = (value / 60) * 100 + (value % 60);
+                CalendarUtils.sprintf0d(result, num, width);
+                break;
+            }
+
+            case PATTERN_ISO_DAY_OF_WEEK: // 'u'
+                zeroPaddingNumber((dayOfWeek == Calendar.SUNDAY) ? 7 : dayOfWeek - 1,
+                                  count, result);
+                break;
+
+            case PATTERN_ISO_ZONE: { // 'X'
+                if (offset == 0) {
+                    result.append('Z');
+                    break;
+                }
+                int value = offset / 60000;
+                if (value >= 0) {
+                    result.append('+');
+                } else {
+                    result.append('-');
+                    value = -value;
+                }
+                CalendarUtils.sprintf0d(result, value / 60, 2);
+                if (count == 1) {
+                    break;
+                }
+                if (count == 3) {
+                    result.append(':');
+                }
+                CalendarUtils.sprintf0d(result, value % 60, 2);
+                break;
+            }
+
+            default:
+                throw new AssertionError(fields[k]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Appends a nonnegative number with at least the given number of
+     * digits, as SimpleDateFormat.zeroPaddingNumber does.
+     */
+    private void zeroPaddingNumber(int value, int minDigits, StringBuilder result) {
+        int digits = 1;
+        for (int v = value; v >= 10; v /= 10) {
+            digits++;
+        }
+        for (int i = Math.min(minDigits, DecimalFormat.DOUBLE_INTEGER_DIGITS);
+             i > digits; i--) {
+            result.append(zeroDigit);
+        }
+        int start = result.length();
+        result.setLength(start + digits);
+        for (int i = start + digits - 1; i >= start; i--) {
+            result.setCharAt(i, (char) (zeroDigit + value % 10));
+            value /= 10;
+        }
+    }
+
+    /**
+     * Parses a date from the whole of the given text.  The result is the
+     * date that {@link SimpleDateFormat#parse(String, ParsePosition)}
+     * would return for the text.
+     *
+     * @param text the text to parse
+     * @return the parsed date
+     * @exception ParseException if the text is not a date in full
+     * @exception NullPointerException if {@code text} is null
+     */
+    public Date parse(CharSequence text) throws ParseException {
+        return parse(text, 0, text.length());
+    }
+
+    /**
+     * Parses a date from the characters of the given text from
+     * {@code beginIndex} to {@code endIndex - 1}, all of which must be
+     * part of the date.  No characters outside of the range are read.
+     *
+     * @param text the text to parse
+     * @param beginIndex the index of the first character to parse
+     * @param endIndex the index after the last character to parse
+     * @return the parsed date
+     * @exception ParseException if the range is not a date in full
+     * @exception IndexOutOfBoundsException if {@code beginIndex} is
+     *            negative, or {@code endIndex} is greater than the length
+     *            of {@code text}, or {@code beginIndex} is greater than
+     *            {@code endIndex}
+     * @exception NullPointerException if {@code text} is null
+     */
+    public Date parse(CharSequence text, int beginIndex, int endIndex)
+        throws ParseException {
+        if (beginIndex < 0 || beginIndex > endIndex || endIndex > text.length()) {
+            throw new IndexOutOfBoundsException("begin " + beginIndex + ", end "
+                + endIndex + ", length " + text.length());
+        }
+        if (fastParse) {
+            Date date = fastParse(text, beginIndex, endIndex);
+            if (date != null) {
+                return date;
+            }
+        }
+
+        // Parse with a copy of the format, as parsing may change its time
+        // zone.
+        String source = text.subSequence(beginIndex, endIndex).toString();
+        ParsePosition pos = new ParsePosition(0);
+        SimpleDateFormat copy;
+        synchronized (format) {
+            copy = (SimpleDateFormat) format.clone();
+        }
+        Date date = copy.parse(source, pos);
+        if (date == null || pos.index != source.length()) {
+            int errorIndex = (date == null) ? pos.errorIndex : pos.index;
+            throw new ParseException("Unparseable date: \"" + source + "\"",
+                                     beginIndex + errorIndex);
+        }
+        return date;
+    }
+
+    /*
+     * Parses text of ASCII digits and the literals of the pattern, or
+     * returns null if the text is not such a date, or has digits which
+     * SimpleDateFormat might not read the same way.
+     */
+    private Date fastParse(CharSequence text, int start, int end) {
+        Calendar calendar = (Calendar) this.calendar.clone();
+        calendar.clear();
+        for (int k = 0; k < fields.length; k++) {
+            if (fields[k] == -1) {
+                String s = texts[k];
+                int len = s.length();
+                if (end - start < len) {
+                    return null;
+                }
+                for (int i = 0; i < len; i++) {
+                    if (text.charAt(start + i) != s.charAt(i)) {
+                        return null;
+                    }
+                }
+                start += len;
+                continue;
+            }
+
+            // A field followed by another field is read for exactly the
+            // count of its letters; any other one to the end of its digits.
+            boolean obeyCount = k + 1 < fields.length && fields[k + 1] != -1;
+            int limit = obeyCount ? Math.min(end, start + counts[k]) : end;
+            int value = 0;
+            int i = start;
+            for (; i < limit && i - start < 9; i++) {
+                char c = text.charAt(i);
+                if (c < '0' || c > '9') {
+                    break;
+                }
+                value = value * 10 + (c - '0');
+            }
+            if (i == start || (obeyCount && i - start != counts[k])
+                || (i < end && isDigitOrLetter(text.charAt(i), obeyCount))) {
+                return null;
+            }
+            start = i;
+
+            switch (fields[k]) {
+            case PATTERN_YEAR:
+                calendar.set(Calendar.YEAR, value);
+                break;
+            case PATTERN_MONTH:
+                calendar.set(Calendar.MONTH, value - 1);
+                break;
+            case PATTERN_DAY_OF_MONTH:
+                calendar.set(Calendar.DAY_OF_MONTH, value);
+                break;
+            case PATTERN_HOUR_OF_DAY0:
+                calendar.set(Calendar.HOUR_OF_DAY, value);
+                break;
+            case PATTERN_MINUTE:
+                calendar.set(Calendar.MINUTE, value);
+                break;
+            case PATTERN_SECOND:
+                calendar.set(Calendar.SECOND, value);
+                break;
+            case PATTERN_MILLISECOND:
+                calendar.set(Calendar.MILLISECOND, value);
+                break;
+            default:
+                throw new AssertionError(fields[k]);
+            }
+        }
+        if (start != end) {
+            return null;
+        }
+        try {
+            return calendar.getTime();
+        } catch (IllegalArgumentException e) {
+            // a field out of range of a non-lenient calendar
+            return null;
+        }
+    }
+
+    /*
+     * Tests whether a char after the digits of a field might have been
+     * read as part of its number.
+     */
+    private static boolean isDigitOrLetter(char c, boolean obeyCount) {
+        return !obeyCount && Character.isLetterOrDigit(c);
+    }
+
+    /**
+     * Returns the pattern of this format.
+     *
+     * @return the pattern, as returned by {@link SimpleDateFormat#toPattern()}
+     */
+    public String toPattern() {
+        return format.toPattern();
+    }
+
+    /**
+     * Returns the time zone of this format.
+     *
+     * @return a copy of the time zone
+     */
+    public TimeZone getTimeZone() {
+        return (TimeZone) zone.clone();
+    }
+
+    /**
+     * Returns a new {@code SimpleDateFormat} equal to the one compiled.
+     *
+     * @return a new {@code SimpleDateFormat}
+     */
+    public SimpleDateFormat toSimpleDateFormat() {
+        synchronized (format) {
+            return (SimpleDateFormat) format.clone();
+        }
+    }
+
+    /**
+     * Returns the pattern of this format.
+     *
+     * @return the pattern
+     */
+    @Override
+    public String toString() {
+        return toPattern();
+    }
+}
@@ -0,0 +1,512 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.text;
+
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.Locale;
+
+/**
+ * An immutable, thread-safe form of a {@link DecimalFormat}, for formatting
+ * and parsing {@code double} and {@code long} values.  A
+ * {@code DecimalFormat} keeps the digits of the number being formatted or
+ * parsed in the format itself, so it cannot be shared by threads without
+ * synchronization, and is typically kept in a {@code ThreadLocal} or a
+ * pool.  A {@code CompiledDecimalFormat} copies the pattern and symbols of
+ * a {@code DecimalFormat} when it is created, and keeps no state between
+ * calls, so that a single instance, typically held in a static field, can
+ * be used by any number of threads:
+ *
+ * <pre> {@code
+ * static final CompiledDecimalFormat PRICE =
+ *     new CompiledDecimalFormat("#,##0.00", Locale.US);
+ *
+ * StringBuilder sb = new StringBuilder();
+ * PRICE.format(1234.5, sb);                   // appends "1,234.50"
+ * Number n = PRICE.parse("1,234.50");         // 1234.5
+ * }</pre>
+ *
+ * <p>The text produced and accepted is that of the {@code DecimalFormat}
+ * from which this format was compiled, at the time it was compiled.  The
+ * {@code format} methods append to a caller-supplied {@code StringBuilder},
+ * rather than to a new {@code StringBuffer}.  The {@code parse} methods
+ * accept any {@code CharSequence}, or a range of one, which must be parsed
+ * in full.
+ *
+ * @see DecimalFormat
+ */
+public final class CompiledDecimalFormat {
+
+    /**
+     * A private copy of the format compiled, which is never modified, and
+     * is used for parsing and for {@link #toDecimalFormat()}.
+     */
+    private final DecimalFormat format;
+
+    private final String positivePrefix;
+    private final String positiveSuffix;
+    private final String negativePrefix;
+    private final String negativeSuffix;
+    private final int multiplier;
+    private final int groupingSize;
+    private final boolean groupingUsed;
+    private final boolean decimalSeparatorAlwaysShown;
+    private final boolean useExponentialNotation;
+    private final int minExponentDigits;
+    private final int maxIntDigits;
+    private final int minIntDigits;
+    private final int maxFraDigits;
+    private final int minFraDigits;
+    private final RoundingMode roundingMode;
+
+    // Symbols of the format
+    private final char zero;
+    private final char grouping;
+    private final char decimal;
+    private final char minus;
+    private final String exponentSeparator;
+    private final String nan;
+    private final String infinity;
+
+    /**
+     * Compiles the current pattern and symbols of a {@code DecimalFormat}.
+     * Later changes to {@code format} do not affect this format.
+     *
+     * @param format the format to compile
+     * @exception NullPointerException if {@code format} is null
+     */
+    public CompiledDecimalFormat(DecimalFormat format) {
+        this.format = (DecimalFormat) format.clone();
+        DecimalFormat f = this.format;
+        positivePrefix = f.getPositivePrefix();
+        positiveSuffix = f.getPositiveSuffix();
+        negativePrefix = f.getNegativePrefix();
+        negativeSuffix = f.getNegativeSuffix();
+        multiplier = f.getMultiplier();
+        groupingSize = f.getGroupingSize();
+        groupingUsed = f.isGroupingUsed();
+        decimalSeparatorAlwaysShown = f.isDecimalSeparatorAlwaysShown();
+        useExponentialNotation = f.useExponentialNotation();
+        minExponentDigits = f.getMinimumExponentDigits();
+        maxIntDigits = f.getDoubleMaximumIntegerDigits();
+        minIntDigits = f.getDoubleMinimumIntegerDigits();
+        maxFraDigits = f.getDoubleMaximumFractionDigits();
+        minFraDigits = f.getDoubleMinimumFractionDigits();
+        roundingMode = f.getRoundingMode();
+
+        DecimalFormatSymbols symbols = f.getDecimalFormatSymbols();
+        zero = symbols.getZeroDigit();
+        grouping = symbols.getGroupingSeparator();
+        decimal = f.isCurrencyFormat() ?
+            symbols.getMonetaryDecimalSeparator() :
+            symbols.getDecimalSeparator();
+        minus = symbols.getMinusSign();
+        exponentSeparator = symbols.getExponentSeparator();
+        nan = symbols.getNaN();
+        infinity = symbols.getInfinity();
+    }
+
+    /**
+     * Compiles a pattern, as given to {@link DecimalFormat#applyPattern},
+     * with the symbols of the given locale.
+     *
+     * @param pattern a non-localized pattern string
+     * @param locale the locale whose {@link DecimalFormatSymbols} are used
+     * @exception NullPointerException if {@code pattern} or {@code locale}
+     *            is null
+     * @exception IllegalArgumentException if the pattern is invalid
+     */
+    public CompiledDecimalFormat(String pattern, Locale locale) {
+        this(new DecimalFormat(pattern, DecimalFormatSymbols.getInstance(locale)));
+    }
+
+    /**
+     * Formats a double, appending the text to a {@code StringBuilder}.
+     *
+     * @param number the double to format
+     * @param result where the text is to be appended
+     * @return {@code result}
+     * @exception ArithmeticException if rounding is needed with rounding
+     *            mode being set to {@code RoundingMode.UNNECESSARY}
+     * @exception NullPointerException if {@code result} is null
+     */
+    public StringBuilder format(double number, StringBuilder result) {
+        if (Double.isNaN(number) ||
+           (Double.isInfinite(number) && multiplier == 0)) {
+            return result.append(nan);
+        }
+
+        // See DecimalFormat.format(double, StringBuffer, FieldDelegate)
+        // for the sign of -0.0.
+        boolean isNegative = ((number < 0.0) || (number == 0.0 && 1/number < 0.0)) ^ (multiplier < 0);
+
+        if (multiplier != 1) {
+            number *= multiplier;
+        }
+
+        if (Double.isInfinite(number)) {
+            result.append(isNegative ? negativePrefix : positivePrefix);
+            result.append(infinity);
+            return result.append(isNegative ? negativeSuffix : positiveSuffix);
+        }
+
+        if (isNegative) {
+            number = -number;
+        }
+
+        DigitList digitList = newDigitList();
+        digitList.set(isNegative, number, useExponentialNotation ?
+                      maxIntDigits + maxFraDigits : maxFraDigits,
+                      !useExponentialNotation);
+        return subformat(result, digitList, isNegative, false);
+    }
+
+    /**
+     * Formats a long, appending the text to a {@code StringBuilder}.
+     *
+     * @param number the long to format
+     * @param result where the text is to be appended
+     * @return {@code result}
+     * @exception ArithmeticException if rounding is needed with rounding
+     *            mode being set to {@code RoundingMode.UNNECESSARY}
+     * @exception NullPointerException if {@code result} is null
+     */
+    public StringBuilder format(long number, StringBuilder result) {
+        boolean isNegative = (number < 0);
+        if (isNegative) {
+            number = -number;
+        }
+
+        // As in DecimalFormat, a product which does not fit into a long is
+        // computed with BigInteger.
+        boolean useBigInteger = false;
+        if (number < 0) { // This can only happen if number == Long.MIN_VALUE.
+            if (multiplier != 0) {
+                useBigInteger = true;
+            }
+        } else if (multiplier != 1 && multiplier != 0) {
+            long cutoff = Long.MAX_VALUE / multiplier;
+            if (cutoff < 0) {
+                cutoff = -cutoff;
+            }
+            useBigInteger = (number > cutoff);
+        }
+
+        DigitList digitList = newDigitList();
+        if (useBigInteger) {
+            if (isNegative) {
+                number = -number;
+            }
+            BigInteger bigNumber = BigInteger.valueOf(number);
+            if (multiplier != 1) {
+                bigNumber = bigNumber.multiply(BigInteger.valueOf(multiplier));
+            }
+            isNegative = bigNumber.signum() == -1;
+            if (isNegative) {
+                bigNumber = bigNumber.negate();
+            }
+            digitList.set(isNegative, bigNumber,
+                          useExponentialNotation ? maxIntDigits + maxFraDigits : 0);
+            return subformat(result, digitList, isNegative, true);
+        }
+
+        number *= multiplier;
+        if (number == 0) {
+            isNegative = false;
+        } else {
+            if (multiplier < 0) {
+                number = -number;
+                isNegative = !isNegative;
+            }
+        }
+
+        digitList.set(isNegative, number,
+                      useExponentialNotation ? maxIntDigits + maxFraDigits : 0);
+        return subformat(result, digitList, isNegative, true);
+    }
+
+    /**
+     * Formats a double to produce a string.
+     *
+     * @param number the double to format
+     * @return the formatted string
+     * @exception ArithmeticException if rounding is needed with rounding
+     *            mode being set to {@code RoundingMode.UNNECESSARY}
+     */
+    public String format(double number) {
+        return format(number, new StringBuilder()).toString();
+    }
+
+    /**
+     * Formats a long to produce a string.
+     *
+     * @param number the long to format
+     * @return the formatted string
+     * @exception ArithmeticException if rounding is needed with rounding
+     *            mode being set to {@code RoundingMode.UNNECESSARY}
+     */
+    public String format(long number) {
+        return format(number, new StringBuilder()).toString();
+    }
+
+    /**
+     * Parses a number from the whole of the given text.  The result is the
+     * number that {@link DecimalFormat#parse(String, ParsePosition)} would
+     * return for the text.
+     *
+     * @param text the text to parse
+     * @return the parsed number
+     * @exception ParseException if the text is not a number in full
+     * @exception NullPointerException if {@code text} is null
+     */
+    public Number parse(CharSequence text) throws ParseException {
+        return parse(text, 0, text.length());
+    }
+
+    /**
+     * Parses a number from the characters of the given text from
+     * {@code beginIndex} to {@code endIndex - 1}, all of which must be
+     * part of the number.  No characters outside of the range are read.
+     *
+     * @param text the text to parse
+     * @param beginIndex the index of the first character to parse
+     * @param endIndex the index after the last character to parse
+     * @return the parsed number
+     * @exception ParseException if the range is not a number in full
+     * @exception IndexOutOfBoundsException if {@code beginIndex} is
+     *            negative, or {@code endIndex} is greater than the length
+     *            of {@code text}, or {@code beginIndex} is greater than
+     *            {@code endIndex}
+     * @exception NullPointerException if {@code text} is null
+     */
+    public Number parse(CharSequence text, int beginIndex, int endIndex)
+        throws ParseException {
+        if (beginIndex < 0 || beginIndex > endIndex || endIndex > text.length()) {
+            throw new IndexOutOfBoundsException("begin " + beginIndex + ", end "
+                + endIndex + ", length " + text.length());
+        }
+        ParsePosition pos = new ParsePosition(beginIndex);
+        Number result = format.parse(text, endIndex, pos, newDigitList());
+        if (result == null || pos.index != endIndex) {
+            int errorIndex = (result == null) ? pos.errorIndex : pos.index;
+            throw new ParseException("Unparseable number: \"" +
+                text.subSequence(beginIndex, endIndex) + "\"", errorIndex);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the pattern of this format.
+     *
+     * @return the pattern, as returned by {@link DecimalFormat#toPattern()}
+     */
+    public String toPattern() {
+        return format.toPattern();
+    }
+
+    /**
+     * Returns a copy of the decimal format symbols of this format.
+     *
+     * @return a copy of the symbols
+     */
+    public DecimalFormatSymbols getDecimalFormatSymbols() {
+        return format.getDecimalFormatSymbols();
+    }
+
+    /**
+     * Returns a new {@code DecimalFormat} equal to the one compiled.
+     *
+     * @return a new {@code DecimalFormat}
+     */
+    public DecimalFormat toDecimalFormat() {
+        return (DecimalFormat) format.clone();
+    }
+
+    /**
+     * Returns the pattern of this format.
+     *
+     * @return the pattern
+     */
+    @Override
+    public String toString() {
+        return toPattern();
+    }
+
+    private DigitList newDigitList() {
+        DigitList digitList = new DigitList();
+        digitList.setRoundingMode(roundingMode);
+        return digitList;
+    }
+
+    /**
+     * Completes the formatting of a finite number, as
+     * {@code DecimalFormat.subformat} does, without recording the fields.
+     * On entry, the digitList must be filled in with the correct digits.
+     */
+    private StringBuilder subformat(StringBuilder result, DigitList digitList,
+                                    boolean isNegative, boolean isInteger) {
+        int zeroDelta = zero - '0'; // '0' is the DigitList representation of zero
+
+        if (digitList.isZero()) {
+            digitList.decimalAt = 0; // Normalize
+        }
+
+        result.append(isNegative ? negativePrefix : positivePrefix);
+
+        if (useExponentialNotation) {
+            // See DecimalFormat.subformat for the choice of the exponent
+            // and of the number of integer digits.
+            int exponent = digitList.decimalAt;
+            int repeat = maxIntDigits;
+            int minimumIntegerDigits = minIntDigits;
+            if (repeat > 1 && repeat > minIntDigits) {
+                if (exponent >= 1) {
+                    exponent = ((exponent - 1) / repeat) * repeat;
+                } else {
+                    // integer division rounds towards 0
+                    exponent = ((exponent - repeat) / repeat) * repeat;
+                }
+                minimumIntegerDigits = 1;
+            } else {
+                exponent -= minimumIntegerDigits;
+            }
+
+            int minimumDigits = minIntDigits + minFraDigits;
+            if (minimumDigits < 0) {    // overflow?
+                minimumDigits = Integer.MAX_VALUE;
+            }
+
+            int integerDigits = digitList.isZero() ? minimumIntegerDigits :
+                    digitList.decimalAt - exponent;
+            if (minimumDigits < integerDigits) {
+                minimumDigits = integerDigits;
+            }
+            int totalDigits = digitList.count;
+            if (minimumDigits > totalDigits) {
+                totalDigits = minimumDigits;
+            }
+
+            for (int i=0; i<totalDigits; ++i) {
+                if (i == integerDigits) {
+                    result.append(decimal);
+                }
+                result.append((i < digitList.count) ?
+                              (char)(digitList.digits[i] + zeroDelta) :
+                              zero);
+            }
+
+            if (decimalSeparatorAlwaysShown && totalDigits == integerDigits) {
+                result.append(decimal);
+            }
+
+            result.append(exponentSeparator);
+
+            // For zero values, we force the exponent to zero.
+            if (digitList.isZero()) {
+                exponent = 0;
+            }
+
+            boolean negativeExponent = exponent < 0;
+            if (negativeExponent) {
+                exponent = -exponent;
+                result.append(minus);
+            }
+            digitList.set(negativeExponent, exponent);
+
+            for (int i=digitList.decimalAt; i<minExponentDigits; ++i) {
+                result.append(zero);
+            }
+            for (int i=0; i<digitList.decimalAt; ++i) {
+                result.append((i < digitList.count) ?
+                          (char)(digitList.digits[i] + zeroDelta) : zero);
+            }
+        } else {
+            // Output the integer portion, with leading zeros up to the
+            // minimum and only the least significant digits beyond the
+            // maximum.
+            int count = minIntDigits;
+            int digitIndex = 0; // Index into digitList.fDigits[]
+            if (digitList.decimalAt > 0 && count < digitList.decimalAt) {
+                count = digitList.decimalAt;
+            }
+
+            if (count > maxIntDigits) {
+                count = maxIntDigits;
+                digitIndex = digitList.decimalAt - count;
+            }
+
+            int sizeBeforeIntegerPart = result.length();
+            for (int i=count-1; i>=0; --i) {
+                if (i < digitList.decimalAt && digitIndex < digitList.count) {
+                    // Output a real digit
+                    result.append((char)(digitList.digits[digitIndex++] + zeroDelta));
+                } else {
+                    // Output a leading zero
+                    result.append(zero);
+                }
+
+                // Output grouping separator if necessary.
+                if (groupingUsed && i>0 && (groupingSize != 0) &&
+                    (i % groupingSize == 0)) {
+                    result.append(grouping);
+                }
+            }
+
+            boolean fractionPresent = (minFraDigits > 0) ||
+                (!isInteger && digitIndex < digitList.count);
+
+            // Print a zero rather than no digits at all.
+            if (!fractionPresent && result.length() == sizeBeforeIntegerPart) {
+                result.append(zero);
+            }
+
+            if (decimalSeparatorAlwaysShown || fractionPresent) {
+                result.append(decimal);
+            }
+
+            for (int i=0; i < maxFraDigits; ++i) {
+                if (i >= minFraDigits &&
+                    (isInteger || digitIndex >= digitList.count)) {
+                    break;
+                }
+
+                // Output leading fractional zeros.
+                if (-1-i > (digitList.decimalAt-1)) {
+                    result.append(zero);
+                    continue;
+                }
+
+                if (!isInteger && digitIndex < digitList.count) {
+                    result.append((char)(digitList.digits[digitIndex++] + zeroDelta));
+                } else {
+                    result.append(zero);
+                }
+            }
+        }
+
+        return result.append(isNegative ? negativeSuffix : positiveSuffix);
+    }
+}
@@ -2026,14 +2026,26 @@ public class DecimalFormat extends NumberFormat {
      */
     @Override
     public Number parse(String text, ParsePosition pos) {
+        return parse(text, text.length(), pos, digitList);
+    }
+
+    /**
+     * Parses the characters of <code>text</code> from <code>pos</code> up
+     * to <code>end</code>, as {@link #parse(String, ParsePosition)} does.
+     * The digits are collected into <code>digitList</code>, so that a
+     * caller which supplies its own <code>DigitList</code> does not modify
+     * this format.
+     */
+    Number parse(CharSequence text, int end, ParsePosition pos,
+                 DigitList digitList) {
         // special case NaN
-        if (text.regionMatches(pos.index, symbols.getNaN(), 0, symbols.getNaN().length())) {
+        if (regionMatches(text, end, pos.index, symbols.getNaN())) {
             pos.index = pos.index + symbols.getNaN().length();
             return new Double(Double.NaN);
         }
 
         boolean[] status = new boolean[STATUS_LENGTH];
-        if (!subparse(text, pos, positivePrefix, negativePrefix, digitList, false, status)) {
+        if (!subparse(text, end, pos, positivePrefix, negativePrefix, digitList, false, status)) {
             return null;
         }
 
@@ -2161,6 +2173,7 @@ public class DecimalFormat extends NumberFormat {
      * Parse the given text into a number.  The text is parsed beginning at
      * parsePosition, until an unparseable character is seen.
      * @param text The string to parse.
+     * @param end The index at which the text to parse ends.
      * @param parsePosition The position at which to being parsing.  Upon
      * return, the first unparseable character.
      * @param digits The DigitList to set to the parsed value.
@@ -2169,7 +2182,8 @@ public class DecimalFormat extends NumberFormat {
      * @param status Upon return contains boolean status flags indicating
      * whether the value was infinite and whether it was positive.
      */
-    private final boolean subparse(String text, ParsePosition parsePosition,
+    private final boolean subparse(CharSequence text, int end,
+                   ParsePosition parsePosition,
                    String positivePrefix, String negativePrefix,
                    DigitList digits, boolean isExponent,
                    boolean status[]) {
@@ -2179,10 +2193,8 @@ public class DecimalFormat extends NumberFormat {
         boolean gotPositive, gotNegative;
 
         // check for positivePrefix; take longest
-        gotPositive = text.regionMatches(position, positivePrefix, 0,
-                                         positivePrefix.length());
-        gotNegative = text.regionMatches(position, negativePrefix, 0,
-                                         negativePrefix.length());
+        gotPositive = regionMatches(text, end, position, positivePrefix);
+        gotNegative = regionMatches(text, end, position, negativePrefix);
 
         if (gotPositive && gotNegative) {
             if (positivePrefix.length() > negativePrefix.length()) {
@@ -2203,8 +2215,7 @@ public class DecimalFormat extends NumberFormat {
 
         // process digits or Inf, find decimal position
         status[STATUS_INFINITE] = false;
-        if (!isExponent && text.regionMatches(position,symbols.getInfinity(),0,
-                          symbols.getInfinity().length())) {
+        if (!isExponent && regionMatches(text, end, position, symbols.getInfinity())) {
             position += symbols.getInfinity().length();
             status[STATUS_INFINITE] = true;
         } else {
@@ -2232,7 +2243,7 @@ public class DecimalFormat extends NumberFormat {
             int digitCount = 0;
 
             backup = -1;
-            for (; position < text.length(); ++position) {
+            for (; position < end; ++position) {
                 char ch = text.charAt(position);
 
                 /* We recognize all digit ranges, not only the Latin digit range
@@ -2295,14 +2306,14 @@ public class DecimalFormat extends NumberFormat {
                     // require that they be followed by a digit.  Otherwise
                     // we backup and reprocess them.
                     backup = position;
-                } else if (!isExponent && text.regionMatches(position, exponentString, 0, exponentString.length())
+                } else if (!isExponent && regionMatches(text, end, position, exponentString)
                              && !sawExponent) {
                     // Process the exponent by recursively calling this method.
                      ParsePosition pos = new ParsePosition(position + exponentString.length());
                     boolean[] stat = new boolean[STATUS_LENGTH];
                     DigitList exponentDigits = new DigitList();
 
-                    if (subparse(text, pos, "", Character.toString(symbols.getMinusSign()), exponentDigits, true, stat) &&
+                    if (subparse(text, end, pos, "", Character.toString(symbols.getMinusSign()), exponentDigits, true, stat) &&
                         exponentDigits.fitsIntoLong(stat[STATUS_POSITIVE], true)) {
                         position = pos.index; // Advance past the exponent
                         exponent = (int)exponentDigits.getLong();
@@ -2343,12 +2354,10 @@ public class DecimalFormat extends NumberFormat {
         // check for suffix
         if (!isExponent) {
             if (gotPositive) {
-                gotPositive = text.regionMatches(position,positiveSuffix,0,
-                                                 positiveSuffix.length());
+                gotPositive = regionMatches(text, end, position, positiveSuffix);
             }
             if (gotNegative) {
-                gotNegative = text.regionMatches(position,negativeSuffix,0,
-                                                 negativeSuffix.length());
+                gotNegative = regionMatches(text, end, position, negativeSuffix);
             }
 
         // if both match, take longest
@@ -2380,6 +2389,25 @@ public class DecimalFormat extends NumberFormat {
         return true;
     }
 
+    /**
+     * Tests whether <code>str</code> occurs in <code>text</code> at
+     * <code>offset</code>, without extending past <code>end</code>; this is
+     * <code>String.regionMatches</code> for the whole of <code>str</code>.
+     */
+    private static boolean regionMatches(CharSequence text, int end,
+                                         int offset, String str) {
+        int len = str.length();
+        if (offset < 0 || offset > end - len) {
+            return false;
+        }
+        for (int i = 0; i < len; i++) {
+            if (text.charAt(offset + i) != str.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * Returns a copy of the decimal format symbols, which is generally not
      * changed by the programmer or user.
@@ -3703,6 +3731,41 @@ public class DecimalFormat extends NumberFormat {
         fastPathCheckNeeded = true;
     }
 
+    // Settings read by CompiledDecimalFormat, which copies them once
+    // instead of consulting this format on every call.
+
+    /**
+     * Returns the maximum number of integer digits of a double or long,
+     * which is at most <code>DOUBLE_INTEGER_DIGITS</code>.
+     */
+    int getDoubleMaximumIntegerDigits() {
+        return super.getMaximumIntegerDigits();
+    }
+
+    int getDoubleMinimumIntegerDigits() {
+        return super.getMinimumIntegerDigits();
+    }
+
+    int getDoubleMaximumFractionDigits() {
+        return super.getMaximumFractionDigits();
+    }
+
+    int getDoubleMinimumFractionDigits() {
+        return super.getMinimumFractionDigits();
+    }
+
+    boolean useExponentialNotation() {
+        return useExponentialNotation;
+    }
+
+    int getMinimumExponentDigits() {
+        return minExponentDigits;
+    }
+
+    boolean isCurrencyFormat() {
+        return isCurrencyFormat;
+    }
+
     /**
      * Reads the default serializable fields from the stream and performs
      * validations and adjustments for older serialized versions. The
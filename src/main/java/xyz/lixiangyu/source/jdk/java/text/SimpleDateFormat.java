@@ -483,8 +483,8 @@ public class SimpleDateFormat extends DateFormat {
     /**
      * Tags for the compiled pattern.
      */
-    private final static int TAG_QUOTE_ASCII_CHAR       = 100;
-    private final static int TAG_QUOTE_CHARS            = 101;
+    final static int TAG_QUOTE_ASCII_CHAR       = 100;
+    final static int TAG_QUOTE_CHARS            = 101;
 
     /**
      * Locale dependent digit zero.
@@ -2189,10 +2189,25 @@ public class SimpleDateFormat extends DateFormat {
      * Returns true if the DateFormatSymbols has been set explicitly or locale
      * is null.
      */
-    private boolean useDateFormatSymbols() {
+    boolean useDateFormatSymbols() {
         return useDateFormatSymbols || locale == null;
     }
 
+    // Settings read by CompiledDateFormat, which copies them once
+    // instead of consulting this format on every call.
+
+    char[] getCompiledPattern() {
+        return compiledPattern;
+    }
+
+    boolean isForceStandaloneForm() {
+        return forceStandaloneForm;
+    }
+
+    Locale getLocale() {
+        return locale;
+    }
+
     /**
      * Translates a pattern, mapping each character in the from string to the
      * corresponding character in the to string.
@@ -0,0 +1,567 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.time.format;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.chrono.Chronology;
+import java.time.chrono.IsoChronology;
+import java.time.format.DateTimeFormatterBuilder.CompositePrinterParser;
+import java.time.temporal.TemporalAccessor;
+import java.time.zone.ZoneRules;
+
+/**
+ * Direct printing and parsing of the fixed-width formats of the predefined
+ * formatters {@link DateTimeFormatter#ISO_LOCAL_DATE_TIME ISO_LOCAL_DATE_TIME},
+ * {@link DateTimeFormatter#ISO_INSTANT ISO_INSTANT} and
+ * {@link DateTimeFormatter#RFC_1123_DATE_TIME RFC_1123_DATE_TIME}, and of
+ * formatters derived from them with {@code withLocale} and the like.
+ * <p>
+ * The printer-parsers of these formatters create a {@code DateTimePrintContext}
+ * to print, and a {@code DateTimeParseContext} and a {@code Parsed} to parse.
+ * The methods of this class print the fields of the common date-time classes
+ * straight into a {@code StringBuilder}, and parse text into the milliseconds
+ * from the epoch with no intermediate objects.  They handle the years from 0000
+ * to 9999 and the text the formatter would print, the common case, and
+ * return a failure value otherwise, for the printer-parser to handle, so
+ * that its results, and its exceptions, are unchanged.
+ *
+ * @since 1.8
+ */
+enum CompiledFormat {
+
+    ISO_LOCAL_DATE_TIME,
+    ISO_INSTANT,
+    RFC_1123_DATE_TIME;
+
+    /**
+     * The value returned by {@link #parseEpochMilli} for text not handled.
+     */
+    static final long NOT_PARSED = Long.MIN_VALUE;
+
+    /** The epoch second of 0000-01-01T00:00:00Z. */
+    private static final long MIN_SECOND = -62167219200L;
+    /** The epoch second of 10000-01-01T00:00:00Z. */
+    private static final long MAX_SECOND = 253402300800L;
+
+    private static final String[] DAYS_OF_WEEK = {
+        "Mon", "Tue", "Wed", "Thu", "Fri", "Sat", "Sun"
+    };
+    private static final String[] MONTHS = {
+        "Jan", "Feb", "Mar", "Apr", "May", "Jun",
+        "Jul", "Aug", "Sep", "Oct", "Nov", "Dec"
+    };
+
+    private static final CompositePrinterParser ISO_LOCAL_DATE_TIME_PP =
+            DateTimeFormatter.ISO_LOCAL_DATE_TIME.toPrinterParser(false);
+    private static final CompositePrinterParser ISO_INSTANT_PP =
+            DateTimeFormatter.ISO_INSTANT.toPrinterParser(false);
+    private static final CompositePrinterParser RFC_1123_DATE_TIME_PP =
+            DateTimeFormatter.RFC_1123_DATE_TIME.toPrinterParser(false);
+
+    /**
+     * Obtains the compiled format of a formatter.
+     *
+     * @param formatter  the formatter, not null
+     * @return the compiled format, or null if the formatter has none
+     */
+    static CompiledFormat of(DateTimeFormatter formatter) {
+        CompositePrinterParser pp = formatter.toPrinterParser(false);
+        if (pp == ISO_LOCAL_DATE_TIME_PP) {
+            return ISO_LOCAL_DATE_TIME;
+        } else if (pp == ISO_INSTANT_PP) {
+            return ISO_INSTANT;
+        } else if (pp == RFC_1123_DATE_TIME_PP) {
+            return RFC_1123_DATE_TIME;
+        }
+        return null;
+    }
+
+    //-----------------------------------------------------------------------
+    /**
+     * Prints a date-time as the formatter would.
+     *
+     * @param formatter  the formatter of this format, not null
+     * @param temporal  the date-time to print, not null
+     * @param buf  the buffer to append to, not null
+     * @return true if printed, false if the date-time is not handled
+     */
+    boolean format(DateTimeFormatter formatter, TemporalAccessor temporal, StringBuilder buf) {
+        if (formatter.getZone() != null || !isIso(formatter.getChronology())) {
+            return false;
+        }
+        switch (this) {
+            case ISO_INSTANT:
+                if (temporal instanceof Instant) {
+                    Instant instant = (Instant) temporal;
+                    return formatInstant(instant.getEpochSecond(), instant.getNano(), buf);
+                }
+                return false;
+            case ISO_LOCAL_DATE_TIME:
+                if (!isStandard(formatter)) {
+                    return false;
+                }
+                if (temporal instanceof LocalDateTime) {
+                    LocalDateTime ldt = (LocalDateTime) temporal;
+                    return formatLocal(ldt.getYear(), ldt.getMonthValue(), ldt.getDayOfMonth(),
+                            ldt.getHour(), ldt.getMinute(), ldt.getSecond(), ldt.getNano(), buf);
+                } else if (temporal instanceof ZonedDateTime) {
+                    ZonedDateTime zdt = (ZonedDateTime) temporal;
+                    return formatLocal(zdt.getYear(), zdt.getMonthValue(), zdt.getDayOfMonth(),
+                            zdt.getHour(), zdt.getMinute(), zdt.getSecond(), zdt.getNano(), buf);
+                } else if (temporal instanceof OffsetDateTime) {
+                    OffsetDateTime odt = (OffsetDateTime) temporal;
+                    return formatLocal(odt.getYear(), odt.getMonthValue(), odt.getDayOfMonth(),
+                            odt.getHour(), odt.getMinute(), odt.getSecond(), odt.getNano(), buf);
+                }
+                return false;
+            default:
+                if (!isStandard(formatter)) {
+                    return false;
+                }
+                if (temporal instanceof ZonedDateTime) {
+                    ZonedDateTime zdt = (ZonedDateTime) temporal;
+                    return formatRfc(zdt.getYear(), zdt.getMonthValue(), zdt.getDayOfMonth(),
+                            zdt.getDayOfWeek().getValue(), zdt.getHour(), zdt.getMinute(),
+                            zdt.getSecond(), zdt.getOffset().getTotalSeconds(), buf);
+                } else if (temporal instanceof OffsetDateTime) {
+                    OffsetDateTime odt = (OffsetDateTime) temporal;
+                    return formatRfc(odt.getYear(), odt.getMonthValue(), odt.getDayOfMonth(),
+                            odt.getDayOfWeek().getValue(), odt.getHour(), odt.getMinute(),
+                            odt.getSecond(), odt.getOffset().getTotalSeconds(), buf);
+                }
+                return false;
+        }
+    }
+
+    /**
+     * Prints an instant, given as milliseconds from the epoch, as the
+     * formatter would print {@code Instant.ofEpochMilli(epochMilli)}.
+     *
+     * @param formatter  the formatter of this format, not null
+     * @param epochMilli  the milliseconds from 1970-01-01T00:00:00Z
+     * @param buf  the buffer to append to, not null
+     * @return true if printed, false if the instant is not handled
+     */
+    boolean formatEpochMilli(DateTimeFormatter formatter, long epochMilli, StringBuilder buf) {
+        long epochSecond = Math.floorDiv(epochMilli, 1000);
+        int nano = (int) Math.floorMod(epochMilli, 1000) * 1000_000;
+        ZoneId zone = formatter.getZone();
+        if (this == ISO_INSTANT) {
+            return zone == null && formatInstant(epochSecond, nano, buf);
+        }
+        // an instant is printed in the zone of the formatter
+        if (zone == null || !isIso(formatter.getChronology()) || !isStandard(formatter)
+                || epochSecond < MIN_SECOND + 86400 || epochSecond >= MAX_SECOND - 86400) {
+            return false;
+        }
+        int offset;
+        if (zone instanceof ZoneOffset) {
+            offset = ((ZoneOffset) zone).getTotalSeconds();
+        } else {
+            ZoneRules rules = zone.getRules();
+            offset = (rules.isFixedOffset() ? rules.getOffset(Instant.EPOCH) :
+                    rules.getOffset(Instant.ofEpochSecond(epochSecond))).getTotalSeconds();
+        }
+        long localSecond = epochSecond + offset;
+        long epochDay = Math.floorDiv(localSecond, 86400);
+        int secondOfDay = (int) Math.floorMod(localSecond, 86400);
+        int date = civilDate(epochDay);
+        int year = date >> 9;
+        int month = (date >> 5) & 15;
+        int day = date & 31;
+        int hour = secondOfDay / 3600;
+        int minute = secondOfDay / 60 % 60;
+        int second = secondOfDay % 60;
+        if (this == ISO_LOCAL_DATE_TIME) {
+            return formatLocal(year, month, day, hour, minute, second, nano, buf);
+        }
+        int dayOfWeek = (int) Math.floorMod(epochDay + 3, 7) + 1;
+        return formatRfc(year, month, day, dayOfWeek, hour, minute, second, offset, buf);
+    }
+
+    private static boolean formatInstant(long epochSecond, int nano, StringBuilder buf) {
+        if (epochSecond < MIN_SECOND || epochSecond >= MAX_SECOND) {
+            return false;
+        }
+        long epochDay = Math.floorDiv(epochSecond, 86400);
+        int secondOfDay = (int) Math.floorMod(epochSecond, 86400);
+        int date = civilDate(epochDay);
+        appendDate(date >> 9, (date >> 5) & 15, date & 31, buf);
+        buf.append('T');
+        appendTime(secondOfDay / 3600, secondOfDay / 60 % 60, secondOfDay % 60, buf);
+        if (nano > 0) {
+            // digits in groups of three, as InstantPrinterParser(-2)
+            buf.append('.');
+            int div = 100_000_000;
+            for (int i = 0; nano > 0 || (i % 3) != 0; i++) {
+                int digit = nano / div;
+                buf.append((char) (digit + '0'));
+                nano = nano - (digit * div);
+                div = div / 10;
+            }
+        }
+        buf.append('Z');
+        return true;
+    }
+
+    private static boolean formatLocal(int year, int month, int day,
+            int hour, int minute, int second, int nano, StringBuilder buf) {
+        if (year < 0 || year > 9999) {
+            return false;
+        }
+        appendDate(year, month, day, buf);
+        buf.append('T');
+        appendTime(hour, minute, second, buf);
+        if (nano > 0) {
+            // the fraction without trailing zeros, as FractionPrinterParser
+            buf.append('.');
+            int div = 100_000_000;
+            while (nano > 0) {
+                int digit = nano / div;
+                buf.append((char) (digit + '0'));
+                nano = nano - (digit * div);
+                div = div / 10;
+            }
+        }
+        return true;
+    }
+
+    private static boolean formatRfc(int year, int month, int day, int dayOfWeek,
+            int hour, int minute, int second, int offset, StringBuilder buf) {
+        if (year < 0 || year > 9999) {
+            return false;
+        }
+        buf.append(DAYS_OF_WEEK[dayOfWeek - 1]).append(", ");
+        if (day >= 10) {
+            buf.append((char) (day / 10 + '0'));
+        }
+        buf.append((char) (day % 10 + '0')).append(' ');
+        buf.append(MONTHS[month - 1]).append(' ');
+        append4(year, buf);
+        buf.append(' ');
+        appendTime(hour, minute, second, buf);
+        buf.append(' ');
+        int absHours = Math.abs((offset / 3600) % 100);
+        int absMinutes = Math.abs((offset / 60) % 60);
+        if (absHours == 0 && absMinutes == 0) {
+            buf.append("GMT");
+        } else {
+            buf.append(offset < 0 ? '-' : '+');
+            append2(absHours, buf);
+            append2(absMinutes, buf);
+        }
+        return true;
+    }
+
+    private static void appendDate(int year, int month, int day, StringBuilder buf) {
+        append4(year, buf);
+        buf.append('-');
+        append2(month, buf);
+        buf.append('-');
+        append2(day, buf);
+    }
+
+    private static void appendTime(int hour, int minute, int second, StringBuilder buf) {
+        append2(hour, buf);
+        buf.append(':');
+        append2(minute, buf);
+        buf.append(':');
+        append2(second, buf);
+    }
+
+    private static void append2(int value, StringBuilder buf) {
+        buf.append((char) (value / 10 + '0')).append((char) (value % 10 + '0'));
+    }
+
+    private static void append4(int value, StringBuilder buf) {
+        append2(value / 100, buf);
+        append2(value % 100, buf);
+    }
+
+    //-----------------------------------------------------------------------
+    /**
+     * Parses the whole of a range of text to the milliseconds from the epoch,
+     * as {@code formatter.parse(text, Instant::from).toEpochMilli()} would.
+     *
+     * @param formatter  the formatter of this format, not null
+     * @param text  the text to parse, not null
+     * @param beginIndex  the index of the first char of the range
+     * @param endIndex  the index after the last char of the range
+     * @return the milliseconds from 1970-01-01T00:00:00Z, or
+     *  {@link #NOT_PARSED} if the text is not handled
+     */
+    long parseEpochMilli(DateTimeFormatter formatter, CharSequence text, int beginIndex, int endIndex) {
+        if (formatter.getResolverFields() != null || !isIso(formatter.getChronology())
+                || !isStandard(formatter)) {
+            return NOT_PARSED;
+        }
+        ZoneId zone = formatter.getZone();
+        int offset = 0;
+        if (this == ISO_LOCAL_DATE_TIME) {
+            // the local date-time is resolved in the zone of the formatter
+            if (zone instanceof ZoneOffset) {
+                offset = ((ZoneOffset) zone).getTotalSeconds();
+            } else if (zone != null && zone.getRules().isFixedOffset()) {
+                offset = zone.getRules().getOffset(Instant.EPOCH).getTotalSeconds();
+            } else {
+                return NOT_PARSED;
+            }
+        } else if (zone != null) {
+            // the resolver may apply the zone of the formatter to the fields parsed
+            return NOT_PARSED;
+        }
+
+        int pos = beginIndex;
+        int dayOfWeek = 0;
+        int year, month, day;
+        if (this == RFC_1123_DATE_TIME) {
+            if (endIndex - pos >= 5 && text.charAt(pos + 3) == ',') {
+                dayOfWeek = matchName(text, pos, DAYS_OF_WEEK);
+                if (dayOfWeek == 0 || text.charAt(pos + 4) != ' ') {
+                    return NOT_PARSED;
+                }
+                pos += 5;
+            }
+            int digits = (endIndex - pos >= 2 && isDigit(text.charAt(pos + 1))) ? 2 : 1;
+            day = digits(text, pos, digits, endIndex);
+            pos += digits;
+            if (day < 0 || !isChar(text, pos, ' ', endIndex) || endIndex - pos < 5) {
+                return NOT_PARSED;
+            }
+            month = matchName(text, pos + 1, MONTHS);
+            pos += 4;
+            if (month == 0 || !isChar(text, pos, ' ', endIndex)) {
+                return NOT_PARSED;
+            }
+            year = digits(text, pos + 1, 4, endIndex);
+            pos += 5;
+            if (!isChar(text, pos, ' ', endIndex)) {
+                return NOT_PARSED;
+            }
+            pos++;
+        } else {
+            year = digits(text, pos, 4, endIndex);
+            month = digits(text, pos + 5, 2, endIndex);
+            day = digits(text, pos + 8, 2, endIndex);
+            if (!isChar(text, pos + 4, '-', endIndex) || !isChar(text, pos + 7, '-', endIndex)
+                    || !(isChar(text, pos + 10, 'T', endIndex) || isChar(text, pos + 10, 't', endIndex))) {
+                return NOT_PARSED;
+            }
+            pos += 11;
+        }
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)) {
+            return NOT_PARSED;
+        }
+
+        int hour = digits(text, pos, 2, endIndex);
+        int minute = digits(text, pos + 3, 2, endIndex);
+        if (hour < 0 || hour > 23 || minute < 0 || minute > 59 || !isChar(text, pos + 2, ':', endIndex)) {
+            return NOT_PARSED;
+        }
+        pos += 5;
+        int second = 0;
+        int nano = 0;
+        boolean hasSeconds = isChar(text, pos, ':', endIndex);
+        if (hasSeconds) {
+            second = digits(text, pos + 1, 2, endIndex);
+            if (second < 0 || second > 59) {
+                return NOT_PARSED;
+            }
+            pos += 3;
+        } else if (this == ISO_INSTANT) {
+            return NOT_PARSED;
+        }
+        // the fraction is optional, after the seconds
+        if (this != RFC_1123_DATE_TIME && hasSeconds && isChar(text, pos, '.', endIndex)) {
+            int start = ++pos;
+            while (pos < endIndex && pos - start < 9 && isDigit(text.charAt(pos))) {
+                nano = nano * 10 + (text.charAt(pos++) - '0');
+            }
+            if (pos == start) {
+                return NOT_PARSED;
+            }
+            for (int i = pos - start; i < 9; i++) {
+                nano *= 10;
+            }
+        }
+        if (this == ISO_INSTANT) {
+            if (!(isChar(text, pos, 'Z', endIndex) || isChar(text, pos, 'z', endIndex))) {
+                return NOT_PARSED;
+            }
+            pos++;
+        } else if (this == RFC_1123_DATE_TIME) {
+            if (!isChar(text, pos, ' ', endIndex)) {
+                return NOT_PARSED;
+            }
+            pos++;
+            if (endIndex - pos == 3 && matchIgnoreCase(text, pos, "GMT")) {
+                pos += 3;
+            } else {
+                char sign = (pos < endIndex ? text.charAt(pos) : ' ');
+                int offsetHours = digits(text, pos + 1, 2, endIndex);
+                int offsetMinutes = digits(text, pos + 3, 2, endIndex);
+                if ((sign != '+' && sign != '-') || offsetHours < 0 || offsetMinutes < 0
+                        || offsetMinutes > 59 || offsetHours * 60 + offsetMinutes > 18 * 60) {
+                    return NOT_PARSED;
+                }
+                offset = (offsetHours * 3600 + offsetMinutes * 60) * (sign == '-' ? -1 : 1);
+                pos += 5;
+            }
+        }
+        if (pos != endIndex) {
+            return NOT_PARSED;
+        }
+
+        long epochDay = epochDay(year, month, day);
+        if (dayOfWeek != 0 && Math.floorMod(epochDay + 3, 7) + 1 != dayOfWeek) {
+            // a conflict, reported by the resolver
+            return NOT_PARSED;
+        }
+        long epochSecond = epochDay * 86400 + hour * 3600 + minute * 60 + second - offset;
+        return epochSecond * 1000 + nano / 1000_000;
+    }
+
+    /**
+     * Returns the number of the name, case insensitively, of the three
+     * letter names at the position, from 1, or 0 if there is none.
+     */
+    private static int matchName(CharSequence text, int pos, String[] names) {
+        for (int i = 0; i < names.length; i++) {
+            if (matchIgnoreCase(text, pos, names[i])) {
+                return i + 1;
+            }
+        }
+        return 0;
+    }
+
+    private static boolean matchIgnoreCase(CharSequence text, int pos, String name) {
+        for (int i = 0; i < name.length(); i++) {
+            char ch = text.charAt(pos + i);
+            char c = name.charAt(i);
+            if (ch != c && Character.toUpperCase(ch) != Character.toUpperCase(c)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the value of the given number of ASCII digits at the
+     * position, or -1 if they are not all digits before the end.
+     */
+    private static int digits(CharSequence text, int pos, int count, int endIndex) {
+        if (pos < 0 || pos + count > endIndex) {
+            return -1;
+        }
+        int value = 0;
+        for (int i = 0; i < count; i++) {
+            char ch = text.charAt(pos + i);
+            if (!isDigit(ch)) {
+                return -1;
+            }
+            value = value * 10 + (ch - '0');
+        }
+        return value;
+    }
+
+    private static boolean isDigit(char ch) {
+        return ch >= '0' && ch <= '9';
+    }
+
+    private static boolean isChar(CharSequence text, int pos, char ch, int endIndex) {
+        return pos < endIndex && text.charAt(pos) == ch;
+    }
+
+    private static boolean isIso(Chronology chrono) {
+        return chrono == null || chrono == IsoChronology.INSTANCE;
+    }
+
+    private static boolean isStandard(DateTimeFormatter formatter) {
+        return formatter.getDecimalStyle().equals(DecimalStyle.STANDARD);
+    }
+
+    //-----------------------------------------------------------------------
+    private static int lengthOfMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                return (IsoChronology.INSTANCE.isLeapYear(year) ? 29 : 28);
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    /**
+     * Returns the epoch day of a date, as {@code LocalDate.toEpochDay}.
+     */
+    private static long epochDay(int year, int month, int day) {
+        long y = year;
+        long m = month;
+        long total = 365 * y;
+        total += (y + 3) / 4 - (y + 99) / 100 + (y + 399) / 400;
+        total += ((367 * m - 362) / 12);
+        total += day - 1;
+        if (m > 2) {
+            total--;
+            if (!IsoChronology.INSTANCE.isLeapYear(year)) {
+                total--;
+            }
+        }
+        return total - 719528;  // days from 0000-01-01 to 1970-01-01
+    }
+
+    /**
+     * Returns the date of an epoch day from 0000-01-01 to 9999-12-31,
+     * packed as {@code year << 9 | month << 5 | day}, after
+     * {@code LocalDate.ofEpochDay}.
+     */
+    private static int civilDate(long epochDay) {
+        // days from -0400-03-01, a whole cycle before, to keep the division positive
+        long zeroDay = epochDay + 719528 - 60 + 146097;
+        long yearEst = (400 * zeroDay + 591) / 146097;
+        long doyEst = zeroDay - (365 * yearEst + yearEst / 4 - yearEst / 100 + yearEst / 400);
+        if (doyEst < 0) {
+            yearEst--;
+            doyEst = zeroDay - (365 * yearEst + yearEst / 4 - yearEst / 100 + yearEst / 400);
+        }
+        yearEst -= 400;
+        int marchDoy0 = (int) doyEst;
+        int marchMonth0 = (marchDoy0 * 5 + 2) / 153;
+        int month = (marchMonth0 + 2) % 12 + 1;
+        int day = marchDoy0 - (marchMonth0 * 306 + 5) / 10 + 1;
+        int year = (int) (yearEst + marchMonth0 / 10);
+        return year << 9 | month << 5 | day;
+    }
+}
@@ -77,6 +77,7 @@ import java.text.Format;
 import java.text.ParseException;
 import java.text.ParsePosition;
 import java.time.DateTimeException;
+import java.time.Instant;
 import java.time.Period;
 import java.time.ZoneId;
 import java.time.ZoneOffset;
@@ -1741,13 +1742,18 @@ public final class DateTimeFormatter {
         Objects.requireNonNull(temporal, "temporal");
         Objects.requireNonNull(appendable, "appendable");
         try {
-            DateTimePrintContext context = new DateTimePrintContext(temporal, this);
+            CompiledFormat compiled = CompiledFormat.of(this);
             if (appendable instanceof StringBuilder) {
-                printerParser.format(context, (StringBuilder) appendable);
+                StringBuilder buf = (StringBuilder) appendable;
+                if (compiled == null || !compiled.format(this, temporal, buf)) {
+                    printerParser.format(new DateTimePrintContext(temporal, this), buf);
+                }
             } else {
                 // buffer output to avoid writing to appendable in case of error
                 StringBuilder buf = new StringBuilder(32);
-                printerParser.format(context, buf);
+                if (compiled == null || !compiled.format(this, temporal, buf)) {
+                    printerParser.format(new DateTimePrintContext(temporal, this), buf);
+                }
                 appendable.append(buf);
             }
         } catch (IOException ex) {
@@ -1755,6 +1761,42 @@ public final class DateTimeFormatter {
         }
     }
 
+    /**
+     * Formats an instant, given as milliseconds from the epoch, to an
+     * {@code Appendable} using this formatter.
+     * <p>
+     * This is equivalent to {@code formatTo(Instant.ofEpochMilli(epochMilli), appendable)}.
+     * For {@link #ISO_INSTANT}, and for {@link #ISO_LOCAL_DATE_TIME} and
+     * {@link #RFC_1123_DATE_TIME} with an override zone, the text is printed
+     * directly from the milliseconds, without creating intermediate objects.
+     *
+     * @param epochMilli  the milliseconds from 1970-01-01T00:00:00Z
+     * @param appendable  the appendable to format to, not null
+     * @throws DateTimeException if an error occurs during formatting
+     */
+    public void formatEpochMilliTo(long epochMilli, Appendable appendable) {
+        Objects.requireNonNull(appendable, "appendable");
+        CompiledFormat compiled = CompiledFormat.of(this);
+        if (compiled != null) {
+            try {
+                if (appendable instanceof StringBuilder) {
+                    if (compiled.formatEpochMilli(this, epochMilli, (StringBuilder) appendable)) {
+                        return;
+                    }
+                } else {
+                    StringBuilder buf = new StringBuilder(32);
+                    if (compiled.formatEpochMilli(this, epochMilli, buf)) {
+                        appendable.append(buf);
+                        return;
+                    }
+                }
+            } catch (IOException ex) {
+                throw new DateTimeException(ex.getMessage(), ex);
+            }
+        }
+        formatTo(Instant.ofEpochMilli(epochMilli), appendable);
+    }
+
     //-----------------------------------------------------------------------
     /**
      * Fully parses the text producing a temporal object.
@@ -1856,6 +1898,43 @@ public final class DateTimeFormatter {
         }
     }
 
+    /**
+     * Fully parses a range of the text producing the milliseconds from the epoch.
+     * <p>
+     * This is equivalent to
+     * {@code parse(text.subSequence(beginIndex, endIndex), Instant::from).toEpochMilli()}.
+     * For {@link #ISO_INSTANT} and {@link #RFC_1123_DATE_TIME} without an
+     * override zone, and {@link #ISO_LOCAL_DATE_TIME} with an override zone
+     * of a fixed offset,
+     * text in the format the formatter prints is parsed directly, without
+     * creating intermediate objects.
+     *
+     * @param text  the text to parse, not null
+     * @param beginIndex  the index of the first char to parse
+     * @param endIndex  the index after the last char to parse
+     * @return the milliseconds from 1970-01-01T00:00:00Z
+     * @throws DateTimeParseException if unable to parse the requested result
+     * @throws IndexOutOfBoundsException if the range is invalid
+     * @throws ArithmeticException if the instant is too large for a {@code long}
+     */
+    public long parseEpochMilli(CharSequence text, int beginIndex, int endIndex) {
+        Objects.requireNonNull(text, "text");
+        if (beginIndex < 0 || beginIndex > endIndex || endIndex > text.length()) {
+            throw new IndexOutOfBoundsException(
+                "begin " + beginIndex + ", end " + endIndex + ", length " + text.length());
+        }
+        CompiledFormat compiled = CompiledFormat.of(this);
+        if (compiled != null) {
+            long epochMilli = compiled.parseEpochMilli(this, text, beginIndex, endIndex);
+            if (epochMilli != CompiledFormat.NOT_PARSED) {
+                return epochMilli;
+            }
+        }
+        CharSequence range = (beginIndex == 0 && endIndex == text.length() ? text :
+                text.subSequence(beginIndex, endIndex));
+        return parse(range, Instant::from).toEpochMilli();
+    }
+
     /**
      * Fully parses the text producing an object of one of the specified types.
      * <p>
@@ -36,6 +36,9 @@ import java.util.function.IntToDoubleFunction;
 import java.util.function.IntToLongFunction;
 import java.util.function.IntUnaryOperator;
 import java.util.function.LongBinaryOperator;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
 import java.util.function.UnaryOperator;
 import java.util.stream.DoubleStream;
 import java.util.stream.IntStream;
@@ -78,6 +81,15 @@ public class Arrays {
      */
     private static final int MIN_ARRAY_SORT_GRAN = 1 << 13;
 
+    /**
+     * The minimum array length at which a parallel sort of int, long,
+     * float or double elements uses a parallel radix sort in preference
+     * to a parallel sort-merge. Radix sort performs a fixed number of
+     * passes over the elements, which for such large arrays is
+     * substantially cheaper than the comparisons of the merge phases.
+     */
+    private static final int MIN_ARRAY_RADIX_SORT_LENGTH = 1 << 20;
+
     // Suppresses default constructor, ensuring non-instantiability.
     private Arrays() {}
 
@@ -664,6 +676,8 @@ public class Arrays {
      * working space no greater than the size of the original array. The
      * {@link ForkJoinPool#commonPool() ForkJoin common pool} is used to
      * execute any parallel tasks.
+     * Arrays of at least a minimum length are instead sorted by a parallel
+     * radix sort, which requires a working space of the same size.
      *
      * @param a the array to be sorted
      *
@@ -674,6 +688,9 @@ public class Arrays {
         if (n <= MIN_ARRAY_SORT_GRAN ||
             (p = ForkJoinPool.getCommonPoolParallelism()) == 1)
             DualPivotQuicksort.sort(a, 0, n - 1, null, 0, 0);
+        else if (n >= MIN_ARRAY_RADIX_SORT_LENGTH)
+            new ArraysParallelSortHelpers.FJInt.RadixSorter
+                (a, new int[n], 0, n, 0, p << 2).invoke();
         else
             new ArraysParallelSortHelpers.FJInt.Sorter
                 (null, a, new int[n], 0, n, 0,
@@ -697,6 +714,8 @@ public class Arrays {
      * space no greater than the size of the specified range of the original
      * array. The {@link ForkJoinPool#commonPool() ForkJoin common pool} is
      * used to execute any parallel tasks.
+     * Arrays of at least a minimum length are instead sorted by a parallel
+     * radix sort, which requires a working space of the same size.
      *
      * @param a the array to be sorted
      * @param fromIndex the index of the first element, inclusive, to be sorted
@@ -714,6 +733,9 @@ public class Arrays {
         if (n <= MIN_ARRAY_SORT_GRAN ||
             (p = ForkJoinPool.getCommonPoolParallelism()) == 1)
             DualPivotQuicksort.sort(a, fromIndex, toIndex - 1, null, 0, 0);
+        else if (n >= MIN_ARRAY_RADIX_SORT_LENGTH)
+            new ArraysParallelSortHelpers.FJInt.RadixSorter
+                (a, new int[n], fromIndex, n, 0, p << 2).invoke();
         else
             new ArraysParallelSortHelpers.FJInt.Sorter
                 (null, a, new int[n], fromIndex, n, 0,
@@ -734,6 +756,8 @@ public class Arrays {
      * working space no greater than the size of the original array. The
      * {@link ForkJoinPool#commonPool() ForkJoin common pool} is used to
      * execute any parallel tasks.
+     * Arrays of at least a minimum length are instead sorted by a parallel
+     * radix sort, which requires a working space of the same size.
      *
      * @param a the array to be sorted
      *
@@ -744,6 +768,9 @@ public class Arrays {
         if (n <= MIN_ARRAY_SORT_GRAN ||
             (p = ForkJoinPool.getCommonPoolParallelism()) == 1)
             DualPivotQuicksort.sort(a, 0, n - 1, null, 0, 0);
+        else if (n >= MIN_ARRAY_RADIX_SORT_LENGTH)
+            new ArraysParallelSortHelpers.FJLong.RadixSorter
+                (a, new long[n], 0, n, 0, p << 2).invoke();
         else
             new ArraysParallelSortHelpers.FJLong.Sorter
                 (null, a, new long[n], 0, n, 0,
@@ -767,6 +794,8 @@ public class Arrays {
      * space no greater than the size of the specified range of the original
      * array. The {@link ForkJoinPool#commonPool() ForkJoin common pool} is
      * used to execute any parallel tasks.
+     * Arrays of at least a minimum length are instead sorted by a parallel
+     * radix sort, which requires a working space of the same size.
      *
      * @param a the array to be sorted
      * @param fromIndex the index of the first element, inclusive, to be sorted
@@ -784,6 +813,9 @@ public class Arrays {
         if (n <= MIN_ARRAY_SORT_GRAN ||
             (p = ForkJoinPool.getCommonPoolParallelism()) == 1)
             DualPivotQuicksort.sort(a, fromIndex, toIndex - 1, null, 0, 0);
+        else if (n >= MIN_ARRAY_RADIX_SORT_LENGTH)
+            new ArraysParallelSortHelpers.FJLong.RadixSorter
+                (a, new long[n], fromIndex, n, 0, p << 2).invoke();
         else
             new ArraysParallelSortHelpers.FJLong.Sorter
                 (null, a, new long[n], fromIndex, n, 0,
@@ -812,6 +844,8 @@ public class Arrays {
      * working space no greater than the size of the original array. The
      * {@link ForkJoinPool#commonPool() ForkJoin common pool} is used to
      * execute any parallel tasks.
+     * Arrays of at least a minimum length are instead sorted by a parallel
+     * radix sort, which requires a working space of the same size.
      *
      * @param a the array to be sorted
      *
@@ -822,6 +856,9 @@ public class Arrays {
         if (n <= MIN_ARRAY_SORT_GRAN ||
             (p = ForkJoinPool.getCommonPoolParallelism()) == 1)
             DualPivotQuicksort.sort(a, 0, n - 1, null, 0, 0);
+        else if (n >= MIN_ARRAY_RADIX_SORT_LENGTH)
+            new ArraysParallelSortHelpers.FJFloat.RadixSorter
+                (a, new float[n], 0, n, 0, p << 2).invoke();
         else
             new ArraysParallelSortHelpers.FJFloat.Sorter
                 (null, a, new float[n], 0, n, 0,
@@ -853,6 +890,8 @@ public class Arrays {
      * space no greater than the size of the specified range of the original
      * array. The {@link ForkJoinPool#commonPool() ForkJoin common pool} is
      * used to execute any parallel tasks.
+     * Arrays of at least a minimum length are instead sorted by a parallel
+     * radix sort, which requires a working space of the same size.
      *
      * @param a the array to be sorted
      * @param fromIndex the index of the first element, inclusive, to be sorted
@@ -870,6 +909,9 @@ public class Arrays {
         if (n <= MIN_ARRAY_SORT_GRAN ||
             (p = ForkJoinPool.getCommonPoolParallelism()) == 1)
             DualPivotQuicksort.sort(a, fromIndex, toIndex - 1, null, 0, 0);
+        else if (n >= MIN_ARRAY_RADIX_SORT_LENGTH)
+            new ArraysParallelSortHelpers.FJFloat.RadixSorter
+                (a, new float[n], fromIndex, n, 0, p << 2).invoke();
         else
             new ArraysParallelSortHelpers.FJFloat.Sorter
                 (null, a, new float[n], fromIndex, n, 0,
@@ -898,6 +940,8 @@ public class Arrays {
      * working space no greater than the size of the original array. The
      * {@link ForkJoinPool#commonPool() ForkJoin common pool} is used to
      * execute any parallel tasks.
+     * Arrays of at least a minimum length are instead sorted by a parallel
+     * radix sort, which requires a working space of the same size.
      *
      * @param a the array to be sorted
      *
@@ -908,6 +952,9 @@ public class Arrays {
         if (n <= MIN_ARRAY_SORT_GRAN ||
             (p = ForkJoinPool.getCommonPoolParallelism()) == 1)
             DualPivotQuicksort.sort(a, 0, n - 1, null, 0, 0);
+        else if (n >= MIN_ARRAY_RADIX_SORT_LENGTH)
+            new ArraysParallelSortHelpers.FJDouble.RadixSorter
+                (a, new double[n], 0, n, 0, p << 2).invoke();
         else
             new ArraysParallelSortHelpers.FJDouble.Sorter
                 (null, a, new double[n], 0, n, 0,
@@ -939,6 +986,8 @@ public class Arrays {
      * space no greater than the size of the specified range of the original
      * array. The {@link ForkJoinPool#commonPool() ForkJoin common pool} is
      * used to execute any parallel tasks.
+     * Arrays of at least a minimum length are instead sorted by a parallel
+     * radix sort, which requires a working space of the same size.
      *
      * @param a the array to be sorted
      * @param fromIndex the index of the first element, inclusive, to be sorted
@@ -956,6 +1005,9 @@ public class Arrays {
         if (n <= MIN_ARRAY_SORT_GRAN ||
             (p = ForkJoinPool.getCommonPoolParallelism()) == 1)
             DualPivotQuicksort.sort(a, fromIndex, toIndex - 1, null, 0, 0);
+        else if (n >= MIN_ARRAY_RADIX_SORT_LENGTH)
+            new ArraysParallelSortHelpers.FJDouble.RadixSorter
+                (a, new double[n], fromIndex, n, 0, p << 2).invoke();
         else
             new ArraysParallelSortHelpers.FJDouble.Sorter
                 (null, a, new double[n], fromIndex, n, 0,
@@ -1571,6 +1623,385 @@ public class Arrays {
         }
     }
 
+    // Sorting by primitive keys
+
+    /*
+     * The key-extracting sorts below call the key extractor exactly once
+     * per element and sort the keys together with the original positions
+     * of the elements, with the algorithms used for primitive arrays.
+     * Since the positions are part of the sorted data, equal keys keep
+     * their relative order. Int keys and positions are packed into one
+     * long (key in the high half) and sorted as a long array; long and
+     * double keys are sorted as separate (key, position) pairs. The
+     * elements are finally permuted in a single pass.
+     */
+
+    /**
+     * Sorts the specified array of objects into ascending order of the
+     * {@code int} keys extracted from its elements by the given function.
+     * The key of each element is extracted exactly once.
+     *
+     * <p>This sort is guaranteed to be <i>stable</i>:  elements with equal
+     * keys will not be reordered as a result of the sort.
+     *
+     * @implNote The keys are extracted into a primitive array along with
+     * the positions of their elements, sorted by the algorithm used for
+     * {@code long} arrays, and the elements are then moved into place in
+     * a single pass, so the sort performs no comparisons through method
+     * calls. The implementation requires working space for n {@code long}
+     * values and n object references.
+     *
+     * @param <T> the class of the objects to be sorted
+     * @param a the array to be sorted
+     * @param keyExtractor the function used to extract the sort key
+     * @throws NullPointerException if the key extractor is null
+     */
+    public static <T> void sortByInt(T[] a, ToIntFunction<? super T> keyExtractor) {
+        sortByInt0(a, 0, a.length, keyExtractor, false);
+    }
+
+    /**
+     * Sorts the specified range of the specified array of objects into
+     * ascending order of the {@code int} keys extracted from its elements
+     * by the given function. The range to be sorted extends from index
+     * {@code fromIndex}, inclusive, to index {@code toIndex}, exclusive.
+     * (If {@code fromIndex==toIndex}, the range to be sorted is empty.)
+     * The key of each element is extracted exactly once.
+     *
+     * <p>This sort is guaranteed to be <i>stable</i>:  elements with equal
+     * keys will not be reordered as a result of the sort.
+     *
+     * @implNote The keys are extracted into a primitive array along with
+     * the positions of their elements, sorted by the algorithm used for
+     * {@code long} arrays, and the elements are then moved into place in
+     * a single pass, so the sort performs no comparisons through method
+     * calls. The implementation requires working space for n {@code long}
+     * values and n object references.
+     *
+     * @param <T> the class of the objects to be sorted
+     * @param a the array to be sorted
+     * @param fromIndex the index of the first element (inclusive) to be
+     *        sorted
+     * @param toIndex the index of the last element (exclusive) to be sorted
+     * @param keyExtractor the function used to extract the sort key
+     * @throws NullPointerException if the key extractor is null
+     * @throws IllegalArgumentException if {@code fromIndex > toIndex}
+     * @throws ArrayIndexOutOfBoundsException if {@code fromIndex < 0} or
+     *         {@code toIndex > a.length}
+     */
+    public static <T> void sortByInt(T[] a, int fromIndex, int toIndex,
+                                     ToIntFunction<? super T> keyExtractor) {
+        rangeCheck(a.length, fromIndex, toIndex);
+        sortByInt0(a, fromIndex, toIndex, keyExtractor, false);
+    }
+
+    /**
+     * Sorts the specified array of objects, in parallel, into ascending
+     * order of the {@code int} keys extracted from its elements by the
+     * given function.
+     * The key of each element is extracted exactly once, in parallel.
+     *
+     * <p>This sort is guaranteed to be <i>stable</i>:  elements with equal
+     * keys will not be reordered as a result of the sort.
+     *
+     * @implNote Keys are extracted and elements are moved into place by
+     * parallel streams, and the keys are sorted by the parallel algorithm
+     * used by {@link #parallelSort(long[])}. The {@link
+     * ForkJoinPool#commonPool() ForkJoin common pool} is used to execute
+     * any parallel tasks.
+     *
+     * @param <T> the class of the objects to be sorted
+     * @param a the array to be sorted
+     * @param keyExtractor the function used to extract the sort key
+     * @throws NullPointerException if the key extractor is null
+     */
+    public static <T> void parallelSortByInt(T[] a,
+                                             ToIntFunction<? super T> keyExtractor) {
+        sortByInt0(a, 0, a.length, keyExtractor, true);
+    }
+
+    /**
+     * Sorts the specified array of objects into ascending order of the
+     * {@code long} keys extracted from its elements by the given function.
+     * The key of each element is extracted exactly once.
+     *
+     * <p>This sort is guaranteed to be <i>stable</i>:  elements with equal
+     * keys will not be reordered as a result of the sort.
+     *
+     * @implNote The keys are extracted into a primitive array along with
+     * the positions of their elements, sorted by the algorithm used for
+     * {@code long} arrays, and the elements are then moved into place in
+     * a single pass, so the sort performs no comparisons through method
+     * calls. The implementation requires working space for 2n {@code long}
+     * values, 2n {@code int} values and n object references.
+     *
+     * @param <T> the class of the objects to be sorted
+     * @param a the array to be sorted
+     * @param keyExtractor the function used to extract the sort key
+     * @throws NullPointerException if the key extractor is null
+     */
+    public static <T> void sortByLong(T[] a, ToLongFunction<? super T> keyExtractor) {
+        sortByLong0(a, 0, a.length, keyExtractor, false);
+    }
+
+    /**
+     * Sorts the specified range of the specified array of objects into
+     * ascending order of the {@code long} keys extracted from its elements
+     * by the given function. The range to be sorted extends from index
+     * {@code fromIndex}, inclusive, to index {@code toIndex}, exclusive.
+     * (If {@code fromIndex==toIndex}, the range to be sorted is empty.)
+     * The key of each element is extracted exactly once.
+     *
+     * <p>This sort is guaranteed to be <i>stable</i>:  elements with equal
+     * keys will not be reordered as a result of the sort.
+     *
+     * @implNote The keys are extracted into a primitive array along with
+     * the positions of their elements, sorted by the algorithm used for
+     * {@code long} arrays, and the elements are then moved into place in
+     * a single pass, so the sort performs no comparisons through method
+     * calls. The implementation requires working space for 2n {@code long}
+     * values, 2n {@code int} values and n object references.
+     *
+     * @param <T> the class of the objects to be sorted
+     * @param a the array to be sorted
+     * @param fromIndex the index of the first element (inclusive) to be
+     *        sorted
+     * @param toIndex the index of the last element (exclusive) to be sorted
+     * @param keyExtractor the function used to extract the sort key
+     * @throws NullPointerException if the key extractor is null
+     * @throws IllegalArgumentException if {@code fromIndex > toIndex}
+     * @throws ArrayIndexOutOfBoundsException if {@code fromIndex < 0} or
+     *         {@code toIndex > a.length}
+     */
+    public static <T> void sortByLong(T[] a, int fromIndex, int toIndex,
+                                      ToLongFunction<? super T> keyExtractor) {
+        rangeCheck(a.length, fromIndex, toIndex);
+        sortByLong0(a, fromIndex, toIndex, keyExtractor, false);
+    }
+
+    /**
+     * Sorts the specified array of objects, in parallel, into ascending
+     * order of the {@code long} keys extracted from its elements by the
+     * given function.
+     * The key of each element is extracted exactly once, in parallel.
+     *
+     * <p>This sort is guaranteed to be <i>stable</i>:  elements with equal
+     * keys will not be reordered as a result of the sort.
+     *
+     * @implNote Keys are extracted and elements are moved into place by
+     * parallel streams, and the keys are sorted by the parallel algorithm
+     * used by {@link #parallelSort(long[])}. The {@link
+     * ForkJoinPool#commonPool() ForkJoin common pool} is used to execute
+     * any parallel tasks.
+     *
+     * @param <T> the class of the objects to be sorted
+     * @param a the array to be sorted
+     * @param keyExtractor the function used to extract the sort key
+     * @throws NullPointerException if the key extractor is null
+     */
+    public static <T> void parallelSortByLong(T[] a,
+                                              ToLongFunction<? super T> keyExtractor) {
+        sortByLong0(a, 0, a.length, keyExtractor, true);
+    }
+
+    /**
+     * Sorts the specified array of objects into ascending order of the
+     * {@code double} keys extracted from its elements by the given function.
+     * The key of each element is extracted exactly once.
+     * Keys are ordered as by {@link Double#compare}: {@code -0.0d} is
+     * treated as less than {@code 0.0d} and {@code Double.NaN} is considered
+     * greater than any other value.
+     *
+     * <p>This sort is guaranteed to be <i>stable</i>:  elements with equal
+     * keys will not be reordered as a result of the sort.
+     *
+     * @implNote The keys are extracted into a primitive array along with
+     * the positions of their elements, sorted by the algorithm used for
+     * {@code long} arrays, and the elements are then moved into place in
+     * a single pass, so the sort performs no comparisons through method
+     * calls. The implementation requires working space for 2n {@code long}
+     * values, 2n {@code int} values and n object references.
+     *
+     * @param <T> the class of the objects to be sorted
+     * @param a the array to be sorted
+     * @param keyExtractor the function used to extract the sort key
+     * @throws NullPointerException if the key extractor is null
+     */
+    public static <T> void sortByDouble(T[] a, ToDoubleFunction<? super T> keyExtractor) {
+        sortByDouble0(a, 0, a.length, keyExtractor, false);
+    }
+
+    /**
+     * Sorts the specified range of the specified array of objects into
+     * ascending order of the {@code double} keys extracted from its elements
+     * by the given function. The range to be sorted extends from index
+     * {@code fromIndex}, inclusive, to index {@code toIndex}, exclusive.
+     * (If {@code fromIndex==toIndex}, the range to be sorted is empty.)
+     * The key of each element is extracted exactly once.
+     * Keys are ordered as by {@link Double#compare}: {@code -0.0d} is
+     * treated as less than {@code 0.0d} and {@code Double.NaN} is considered
+     * greater than any other value.
+     *
+     * <p>This sort is guaranteed to be <i>stable</i>:  elements with equal
+     * keys will not be reordered as a result of the sort.
+     *
+     * @implNote The keys are extracted into a primitive array along with
+     * the positions of their elements, sorted by the algorithm used for
+     * {@code long} arrays, and the elements are then moved into place in
+     * a single pass, so the sort performs no comparisons through method
+     * calls. The implementation requires working space for 2n {@code long}
+     * values, 2n {@code int} values and n object references.
+     *
+     * @param <T> the class of the objects to be sorted
+     * @param a the array to be sorted
+     * @param fromIndex the index of the first element (inclusive) to be
+     *        sorted
+     * @param toIndex the index of the last element (exclusive) to be sorted
+     * @param keyExtractor the function used to extract the sort key
+     * @throws NullPointerException if the key extractor is null
+     * @throws IllegalArgumentException if {@code fromIndex > toIndex}
+     * @throws ArrayIndexOutOfBoundsException if {@code fromIndex < 0} or
+     *         {@code toIndex > a.length}
+     */
+    public static <T> void sortByDouble(T[] a, int fromIndex, int toIndex,
+                                        ToDoubleFunction<? super T> keyExtractor) {
+        rangeCheck(a.length, fromIndex, toIndex);
+        sortByDouble0(a, fromIndex, toIndex, keyExtractor, false);
+    }
+
+    /**
+     * Sorts the specified array of objects, in parallel, into ascending
+     * order of the {@code double} keys extracted from its elements by the
+     * given function.
+     * The key of each element is extracted exactly once, in parallel.
+     * Keys are ordered as by {@link Double#compare}: {@code -0.0d} is
+     * treated as less than {@code 0.0d} and {@code Double.NaN} is considered
+     * greater than any other value.
+     *
+     * <p>This sort is guaranteed to be <i>stable</i>:  elements with equal
+     * keys will not be reordered as a result of the sort.
+     *
+     * @implNote Keys are extracted and elements are moved into place by
+     * parallel streams, and the keys are sorted by the parallel algorithm
+     * used by {@link #parallelSort(long[])}. The {@link
+     * ForkJoinPool#commonPool() ForkJoin common pool} is used to execute
+     * any parallel tasks.
+     *
+     * @param <T> the class of the objects to be sorted
+     * @param a the array to be sorted
+     * @param keyExtractor the function used to extract the sort key
+     * @throws NullPointerException if the key extractor is null
+     */
+    public static <T> void parallelSortByDouble(T[] a,
+                                                ToDoubleFunction<? super T> keyExtractor) {
+        sortByDouble0(a, 0, a.length, keyExtractor, true);
+    }
+
+    /** Sorts the range of the array by int keys, without range checks. */
+    private static <T> void sortByInt0(T[] a, int fromIndex, int toIndex,
+                                       ToIntFunction<? super T> keyExtractor,
+                                       boolean parallel) {
+        Objects.requireNonNull(keyExtractor);
+        int n = toIndex - fromIndex;
+        long[] packed = new long[n];
+        if (parallel) {
+            IntStream.range(0, n).parallel().forEach(i -> {
+                long key = keyExtractor.applyAsInt(a[fromIndex + i]);
+                packed[i] = (key << 32) | i;
+            });
+            parallelSort(packed);
+        } else {
+            for (int i = 0; i < n; i++) {
+                long key = keyExtractor.applyAsInt(a[fromIndex + i]);
+                packed[i] = (key << 32) | i;
+            }
+            DualPivotQuicksort.sort(packed, 0, n - 1, null, 0, 0);
+        }
+        Object[] elements = copyOfRange(a, fromIndex, toIndex, Object[].class);
+        permute(a, fromIndex, elements, i -> (int) packed[i], parallel);
+    }
+
+    /** Sorts the range of the array by long keys, without range checks. */
+    private static <T> void sortByLong0(T[] a, int fromIndex, int toIndex,
+                                        ToLongFunction<? super T> keyExtractor,
+                                        boolean parallel) {
+        Objects.requireNonNull(keyExtractor);
+        long[] keys = new long[toIndex - fromIndex];
+        if (parallel)
+            IntStream.range(0, keys.length).parallel().forEach(i -> {
+                keys[i] = keyExtractor.applyAsLong(a[fromIndex + i]);
+            });
+        else
+            for (int i = 0; i < keys.length; i++)
+                keys[i] = keyExtractor.applyAsLong(a[fromIndex + i]);
+        sortByKeys(a, fromIndex, keys, parallel);
+    }
+
+    /** Sorts the range of the array by double keys, without range checks. */
+    private static <T> void sortByDouble0(T[] a, int fromIndex, int toIndex,
+                                          ToDoubleFunction<? super T> keyExtractor,
+                                          boolean parallel) {
+        Objects.requireNonNull(keyExtractor);
+        long[] keys = new long[toIndex - fromIndex];
+        if (parallel)
+            IntStream.range(0, keys.length).parallel().forEach(i -> {
+                double key = keyExtractor.applyAsDouble(a[fromIndex + i]);
+                keys[i] = sortableBits(key);
+            });
+        else
+            for (int i = 0; i < keys.length; i++) {
+                double key = keyExtractor.applyAsDouble(a[fromIndex + i]);
+                keys[i] = sortableBits(key);
+            }
+        sortByKeys(a, fromIndex, keys, parallel);
+    }
+
+    /**
+     * Returns a long whose signed order is the total order of
+     * {@link Double#compare} on the given value.
+     */
+    private static long sortableBits(double d) {
+        long bits = Double.doubleToLongBits(d);
+        return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+    }
+
+    /**
+     * Sorts the elements of the array starting at the specified index by
+     * the given keys, one per element.
+     */
+    private static <T> void sortByKeys(T[] a, int fromIndex, long[] keys,
+                                       boolean parallel) {
+        int n = keys.length, p;
+        int[] positions = new int[n];
+        for (int i = 0; i < n; i++)
+            positions[i] = i;
+        if (!parallel || n <= MIN_ARRAY_SORT_GRAN ||
+            (p = ForkJoinPool.getCommonPoolParallelism()) == 1)
+            DualPivotQuicksort.sortPairs(keys, positions, n);
+        else
+            new ArraysParallelSortHelpers.FJLongIntPair.RadixSorter
+                (keys, positions, new long[n], new int[n], n, p << 2).invoke();
+        Object[] elements = copyOfRange(a, fromIndex, fromIndex + n,
+                                        Object[].class);
+        permute(a, fromIndex, elements, i -> positions[i], parallel);
+    }
+
+    /**
+     * Stores into each position i of the array, starting at the specified
+     * index, the element at the given source position of the elements.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> void permute(T[] a, int fromIndex, Object[] elements,
+                                    IntUnaryOperator source, boolean parallel) {
+        if (parallel)
+            IntStream.range(0, elements.length).parallel().forEach(i -> {
+                a[fromIndex + i] = (T) elements[source.applyAsInt(i)];
+            });
+        else
+            for (int i = 0; i < elements.length; i++)
+                a[fromIndex + i] = (T) elements[source.applyAsInt(i)];
+    }
+
     // Parallel prefix
 
     /**
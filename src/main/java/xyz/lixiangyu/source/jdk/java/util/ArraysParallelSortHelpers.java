@@ -108,6 +108,115 @@ import java.util.concurrent.CountedCompleter;
         }
     }
 
+    /**
+     * Base class of the parallel LSD radix sorts of int, long, float and
+     * double arrays, using the radix keys of DualPivotQuicksort. The
+     * range is split into a fixed number of chunks. For each digit, the
+     * histograms of all chunks are built in parallel; the starting
+     * position of the bucket of each (digit, chunk) pair is then computed
+     * sequentially, in digit-major order so that every pass is stable;
+     * finally, all chunks are scattered in parallel, alternating between
+     * the main and workspace arrays. Passes in which every element has
+     * the same digit are skipped.
+     */
+    static abstract class AbstractRadixSorter extends RecursiveAction {
+        static final long serialVersionUID = 2446542900576103244L;
+        final int base, size, wbase, chunks, keyBits;
+        int[][] counts; // histograms, then bucket positions, per chunk
+        int shift;      // shift of the digit of the current pass
+        boolean inWork; // true if the elements are in the workspace
+        AbstractRadixSorter(int base, int size, int wbase, int chunks,
+                            int keyBits) {
+            this.base = base; this.size = size; this.wbase = wbase;
+            this.chunks = chunks; this.keyBits = keyBits;
+        }
+
+        /**
+         * Adds the digits of the elements [lo, hi) of the current source,
+         * relative to its origin, to the given histogram.
+         */
+        abstract void count(int lo, int hi, int[] c);
+
+        /**
+         * Moves the elements [lo, hi) of the current source, relative to
+         * its origin, to the given bucket positions of the destination.
+         */
+        abstract void scatter(int lo, int hi, int[] c);
+
+        /**
+         * Copies the elements from the workspace to the main array.
+         */
+        abstract void copyBack();
+
+        public final void compute() {
+            int n = this.size, m = this.chunks;
+            if (n < 0 || m <= 0)
+                throw new IllegalStateException(); // hoist checks
+            int[][] cs = counts = new int[m][DualPivotQuicksort.RADIX_SIZE];
+            RadixPass[] tasks = new RadixPass[m];
+            for (shift = 0; shift < keyBits;
+                 shift += DualPivotQuicksort.RADIX_BITS) {
+                for (int j = 0; j < m; ++j) {
+                    Arrays.fill(cs[j], 0);
+                    tasks[j] = new RadixPass(this, j, false);
+                }
+                invokeAll(tasks);
+                if (isTrivialPass(cs, n))
+                    continue;
+                for (int d = 0, pos = 0; d < DualPivotQuicksort.RADIX_SIZE; ++d) {
+                    for (int j = 0; j < m; ++j) {
+                        int c = cs[j][d];
+                        cs[j][d] = pos;
+                        pos += c;
+                    }
+                }
+                for (int j = 0; j < m; ++j)
+                    tasks[j] = new RadixPass(this, j, true);
+                invokeAll(tasks);
+                inWork = !inWork;
+            }
+            if (inWork)
+                copyBack();
+        }
+
+        /**
+         * Returns true if all n elements have the same digit.
+         */
+        static boolean isTrivialPass(int[][] cs, int n) {
+            for (int d = 0; d < DualPivotQuicksort.RADIX_SIZE; ++d) {
+                int t = 0;
+                for (int[] c : cs)
+                    t += c[d];
+                if (t != 0)
+                    return t == n;
+            }
+            return true;
+        }
+    }
+
+    /**
+     * A counting or scattering pass of an AbstractRadixSorter over one
+     * of its chunks.
+     */
+    static final class RadixPass extends RecursiveAction {
+        static final long serialVersionUID = 2446542900576103244L;
+        final AbstractRadixSorter sorter;
+        final int chunk;
+        final boolean scatter;
+        RadixPass(AbstractRadixSorter sorter, int chunk, boolean scatter) {
+            this.sorter = sorter; this.chunk = chunk; this.scatter = scatter;
+        }
+        public final void compute() {
+            AbstractRadixSorter s = this.sorter;
+            int j = this.chunk, n = s.size, m = s.chunks;
+            int lo = (int)((long)n * j / m), hi = (int)((long)n * (j + 1) / m);
+            if (scatter)
+                s.scatter(lo, hi, s.counts[j]);
+            else
+                s.count(lo, hi, s.counts[j]);
+        }
+    }
+
     /** Object + Comparator support class */
     static final class FJObject {
         static final class Sorter<T> extends CountedCompleter<Void> {
@@ -672,6 +781,36 @@ import java.util.concurrent.CountedCompleter;
                 tryComplete();
             }
         }
+
+        static final class RadixSorter extends AbstractRadixSorter {
+            static final long serialVersionUID = 2446542900576103244L;
+            final int[] a, w; // main and workspace arrays
+            RadixSorter(int[] a, int[] w, int base, int size, int wbase,
+                        int chunks) {
+                super(base, size, wbase, chunks, 32);
+                this.a = a; this.w = w;
+            }
+            final void count(int lo, int hi, int[] c) {
+                int[] src = inWork ? w : a;
+                int o = inWork ? wbase : base;
+                int s = shift, mask = DualPivotQuicksort.RADIX_MASK;
+                for (int k = o + lo, end = o + hi; k < end; ++k)
+                    ++c[(DualPivotQuicksort.radixKey(src[k]) >>> s) & mask];
+            }
+            final void scatter(int lo, int hi, int[] c) {
+                int[] src = inWork ? w : a, dst = inWork ? a : w;
+                int o = inWork ? wbase : base, d = inWork ? base : wbase;
+                int s = shift, mask = DualPivotQuicksort.RADIX_MASK;
+                for (int k = o + lo, end = o + hi; k < end; ++k) {
+                    int t = src[k];
+                    int digit = (DualPivotQuicksort.radixKey(t) >>> s) & mask;
+                    dst[d + c[digit]++] = t;
+                }
+            }
+            final void copyBack() {
+                System.arraycopy(w, wbase, a, base, size);
+            }
+        }
     } // FJInt
 
     /** long support class */
@@ -783,6 +922,37 @@ import java.util.concurrent.CountedCompleter;
                 tryComplete();
             }
         }
+
+        static final class RadixSorter extends AbstractRadixSorter {
+            static final long serialVersionUID = 2446542900576103244L;
+            final long[] a, w; // main and workspace arrays
+            RadixSorter(long[] a, long[] w, int base, int size, int wbase,
+                        int chunks) {
+                super(base, size, wbase, chunks, 64);
+                this.a = a; this.w = w;
+            }
+            final void count(int lo, int hi, int[] c) {
+                long[] src = inWork ? w : a;
+                int o = inWork ? wbase : base;
+                int s = shift, mask = DualPivotQuicksort.RADIX_MASK;
+                for (int k = o + lo, end = o + hi; k < end; ++k)
+                    ++c[(int)(DualPivotQuicksort.radixKey(src[k]) >>> s) & mask];
+            }
+            final void scatter(int lo, int hi, int[] c) {
+                long[] src = inWork ? w : a, dst = inWork ? a : w;
+                int o = inWork ? wbase : base, d = inWork ? base : wbase;
+                int s = shift, mask = DualPivotQuicksort.RADIX_MASK;
+                for (int k = o + lo, end = o + hi; k < end; ++k) {
+                    long t = src[k];
+                    int digit =
+                        (int)(DualPivotQuicksort.radixKey(t) >>> s) & mask;
+                    dst[d + c[digit]++] = t;
+                }
+            }
+            final void copyBack() {
+                System.arraycopy(w, wbase, a, base, size);
+            }
+        }
     } // FJLong
 
     /** float support class */
@@ -894,6 +1064,36 @@ import java.util.concurrent.CountedCompleter;
                 tryComplete();
             }
         }
+
+        static final class RadixSorter extends AbstractRadixSorter {
+            static final long serialVersionUID = 2446542900576103244L;
+            final float[] a, w; // main and workspace arrays
+            RadixSorter(float[] a, float[] w, int base, int size, int wbase,
+                        int chunks) {
+                super(base, size, wbase, chunks, 32);
+                this.a = a; this.w = w;
+            }
+            final void count(int lo, int hi, int[] c) {
+                float[] src = inWork ? w : a;
+                int o = inWork ? wbase : base;
+                int s = shift, mask = DualPivotQuicksort.RADIX_MASK;
+                for (int k = o + lo, end = o + hi; k < end; ++k)
+                    ++c[(DualPivotQuicksort.radixKey(src[k]) >>> s) & mask];
+            }
+            final void scatter(int lo, int hi, int[] c) {
+                float[] src = inWork ? w : a, dst = inWork ? a : w;
+                int o = inWork ? wbase : base, d = inWork ? base : wbase;
+                int s = shift, mask = DualPivotQuicksort.RADIX_MASK;
+                for (int k = o + lo, end = o + hi; k < end; ++k) {
+                    float t = src[k];
+                    int digit = (DualPivotQuicksort.radixKey(t) >>> s) & mask;
+                    dst[d + c[digit]++] = t;
+                }
+            }
+            final void copyBack() {
+                System.arraycopy(w, wbase, a, base, size);
+            }
+        }
     } // FJFloat
 
     /** double support class */
@@ -1005,6 +1205,74 @@ import java.util.concurrent.CountedCompleter;
                 tryComplete();
             }
         }
+
+        static final class RadixSorter extends AbstractRadixSorter {
+            static final long serialVersionUID = 2446542900576103244L;
+            final double[] a, w; // main and workspace arrays
+            RadixSorter(double[] a, double[] w, int base, int size, int wbase,
+                        int chunks) {
+                super(base, size, wbase, chunks, 64);
+                this.a = a; this.w = w;
+            }
+            final void count(int lo, int hi, int[] c) {
+                double[] src = inWork ? w : a;
+                int o = inWork ? wbase : base;
+                int s = shift, mask = DualPivotQuicksort.RADIX_MASK;
+                for (int k = o + lo, end = o + hi; k < end; ++k)
+                    ++c[(int)(DualPivotQuicksort.radixKey(src[k]) >>> s) & mask];
+            }
+            final void scatter(int lo, int hi, int[] c) {
+                double[] src = inWork ? w : a, dst = inWork ? a : w;
+                int o = inWork ? wbase : base, d = inWork ? base : wbase;
+                int s = shift, mask = DualPivotQuicksort.RADIX_MASK;
+                for (int k = o + lo, end = o + hi; k < end; ++k) {
+                    double t = src[k];
+                    int digit =
+                        (int)(DualPivotQuicksort.radixKey(t) >>> s) & mask;
+                    dst[d + c[digit]++] = t;
+                }
+            }
+            final void copyBack() {
+                System.arraycopy(w, wbase, a, base, size);
+            }
+        }
     } // FJDouble
 
+    /** long key and int value pair support class */
+    static final class FJLongIntPair {
+        static final class RadixSorter extends AbstractRadixSorter {
+            static final long serialVersionUID = 2446542900576103244L;
+            final long[] a, w; // main and workspace key arrays
+            final int[] v, vw; // main and workspace value arrays
+            RadixSorter(long[] a, int[] v, long[] w, int[] vw, int size,
+                        int chunks) {
+                super(0, size, 0, chunks, 64);
+                this.a = a; this.v = v; this.w = w; this.vw = vw;
+            }
+            final void count(int lo, int hi, int[] c) {
+                long[] src = inWork ? w : a;
+                int s = shift, mask = DualPivotQuicksort.RADIX_MASK;
+                for (int k = lo; k < hi; ++k)
+                    ++c[(int)(DualPivotQuicksort.radixKey(src[k]) >>> s) & mask];
+            }
+            final void scatter(int lo, int hi, int[] c) {
+                long[] src = inWork ? w : a, dst = inWork ? a : w;
+                int[] vsrc = inWork ? vw : v, vdst = inWork ? v : vw;
+                int s = shift, mask = DualPivotQuicksort.RADIX_MASK;
+                for (int k = lo; k < hi; ++k) {
+                    long t = src[k];
+                    int digit =
+                        (int)(DualPivotQuicksort.radixKey(t) >>> s) & mask;
+                    int p = c[digit]++;
+                    dst[p] = t;
+                    vdst[p] = vsrc[k];
+                }
+            }
+            final void copyBack() {
+                System.arraycopy(w, 0, a, 0, size);
+                System.arraycopy(vw, 0, v, 0, size);
+            }
+        }
+    } // FJLongIntPair
+
 }
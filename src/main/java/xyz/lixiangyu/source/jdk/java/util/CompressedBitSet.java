@@ -0,0 +1,1858 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * This class implements a compressed set of bits, indexed by nonnegative
+ * integers, with the same operations as {@link BitSet}. Unlike a
+ * {@code BitSet}, whose storage is proportional to the index of its
+ * highest set bit, the storage of a {@code CompressedBitSet} is
+ * proportional to the number of its set bits, or of its runs of
+ * consecutive set bits, whichever is smaller.
+ *
+ * <p>The index space is partitioned into chunks of 2<sup>16</sup> bits
+ * that share the same high 16 bits. Only chunks containing set bits are
+ * stored, each in the most suitable of three containers: a sorted array
+ * of the low 16 bits of each set bit, for sparse chunks; a plain bitmap
+ * of 2<sup>16</sup> bits, for dense chunks; or a sorted array of runs of
+ * consecutive set bits. Array and bitmap containers are converted into
+ * each other as bits are set and cleared; run containers are produced by
+ * the operations on ranges of bits and by {@link #runOptimize()}. The
+ * logical operations combine chunks pairwise, so that their cost depends
+ * on the number and the contents of the chunks rather than on the
+ * highest index, and chunks missing from either operand are skipped.
+ *
+ * <p>The static {@link #parallelOr} and {@link #parallelAnd} methods
+ * combine any number of sets at once, processing the chunks in parallel.
+ * A set can be written to and read from a {@link ByteBuffer} in a
+ * portable, little-endian format.
+ *
+ * <p>Unless otherwise noted, passing a null parameter to any of the
+ * methods in a {@code CompressedBitSet} will result in a
+ * {@code NullPointerException}.
+ *
+ * <p>A {@code CompressedBitSet} is not safe for multithreaded use without
+ * external synchronization.
+ *
+ * @see     BitSet
+ */
+public class CompressedBitSet implements Cloneable {
+
+    /*
+     * The set is a sorted array of 16-bit keys, the high halves of the
+     * indices, and a parallel array of containers holding the low halves
+     * of the indices with that key. Containers are never empty.
+     *
+     * The format written by writeTo is, in little-endian order: the
+     * number of containers as an int; then, for each container, its key
+     * as a short, its type as a byte, its cardinality (array and bitmap
+     * containers) or number of runs (run containers) as an int, followed
+     * by its low halves as shorts, its 1024 words as longs, or its runs
+     * as pairs of shorts (start and length minus one), respectively.
+     */
+
+    /** The number of bits of the low half of an index. */
+    private static final int CHUNK_BITS = 16;
+
+    /** The number of bits of a chunk. */
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+
+    /** The largest low half of an index. */
+    private static final int MAX_LOW = CHUNK_SIZE - 1;
+
+    /** The maximum cardinality of an array container. */
+    private static final int ARRAY_MAX = 4096;
+
+    /** The number of words of a bitmap container. */
+    private static final int BITMAP_WORDS = CHUNK_SIZE >>> 6;
+
+    /* Container types of the serialized format */
+    private static final byte ARRAY = 0;
+    private static final byte BITMAP = 1;
+    private static final byte RUN = 2;
+
+    /** The keys of the containers, in ascending order. */
+    private char[] keys;
+
+    /** The containers, parallel to keys. */
+    private Container[] containers;
+
+    /** The number of containers in use. */
+    private int size;
+
+    /**
+     * Creates a new, empty compressed bit set.
+     */
+    public CompressedBitSet() {
+        keys = new char[4];
+        containers = new Container[4];
+    }
+
+    private CompressedBitSet(char[] keys, Container[] containers, int size) {
+        this.keys = keys;
+        this.containers = containers;
+        this.size = size;
+    }
+
+    /**
+     * Returns a new compressed bit set containing all the bits in the
+     * given bit set.
+     *
+     * @param bs a bit set
+     * @return a {@code CompressedBitSet} containing the bits of {@code bs}
+     */
+    public static CompressedBitSet valueOf(BitSet bs) {
+        CompressedBitSet set = new CompressedBitSet();
+        for (int i = bs.nextSetBit(0); i >= 0; ) {
+            int endOfRun = bs.nextClearBit(i);
+            set.set(i, endOfRun);
+            i = (endOfRun < 0) ? -1 : bs.nextSetBit(endOfRun);
+        }
+        set.runOptimize();
+        return set;
+    }
+
+    /**
+     * Returns a new bit set containing all the bits in this set.
+     *
+     * @return a {@code BitSet} containing the bits of this set
+     */
+    public BitSet toBitSet() {
+        BitSet bs = new BitSet(length());
+        for (int i = 0; i < size; i++) {
+            int base = keys[i] << CHUNK_BITS;
+            Container c = containers[i];
+            for (int s = c.nextSetBit(0); s >= 0; ) {
+                int e = c.nextClearBit(s);
+                bs.set(base + s, base + e);
+                s = c.nextSetBit(e);
+            }
+        }
+        return bs;
+    }
+
+    /**
+     * Checks that fromIndex ... toIndex is a valid range of bit indices.
+     */
+    private static void checkRange(int fromIndex, int toIndex) {
+        if (fromIndex < 0)
+            throw new IndexOutOfBoundsException("fromIndex < 0: " + fromIndex);
+        if (toIndex < 0)
+            throw new IndexOutOfBoundsException("toIndex < 0: " + toIndex);
+        if (fromIndex > toIndex)
+            throw new IndexOutOfBoundsException("fromIndex: " + fromIndex +
+                                                " > toIndex: " + toIndex);
+    }
+
+    /**
+     * Returns the index of the container with the given key, or
+     * {@code -(insertion point) - 1} if there is none.
+     */
+    private int indexOf(int key) {
+        return Arrays.binarySearch(keys, 0, size, (char) key);
+    }
+
+    /**
+     * Inserts a container with the given key at the given index.
+     */
+    private void insertAt(int i, int key, Container c) {
+        if (size == keys.length) {
+            int newCapacity = Math.max(4, size + (size >> 1));
+            keys = Arrays.copyOf(keys, newCapacity);
+            containers = Arrays.copyOf(containers, newCapacity);
+        }
+        System.arraycopy(keys, i, keys, i + 1, size - i);
+        System.arraycopy(containers, i, containers, i + 1, size - i);
+        keys[i] = (char) key;
+        containers[i] = c;
+        size++;
+    }
+
+    /**
+     * Replaces the container at the given index, removing it if the
+     * new container is empty. Returns the number of containers removed.
+     */
+    private int replaceAt(int i, Container c) {
+        if (c.cardinality() != 0) {
+            containers[i] = c;
+            return 0;
+        }
+        System.arraycopy(keys, i + 1, keys, i, size - i - 1);
+        System.arraycopy(containers, i + 1, containers, i, size - i - 1);
+        containers[--size] = null;
+        return 1;
+    }
+
+    /**
+     * Returns a new container holding the range [from, to) of low halves.
+     */
+    private static Container rangeContainer(int from, int to) {
+        if (to - from > ARRAY_MAX) {
+            return new RunContainer(new char[] {(char) from, (char) (to - from - 1)}, 1);
+        }
+        char[] values = new char[to - from];
+        for (int k = 0; k < values.length; k++)
+            values[k] = (char) (from + k);
+        return new ArrayContainer(values, values.length);
+    }
+
+    /**
+     * Sets the bit at the specified index to the complement of its
+     * current value.
+     *
+     * @param  bitIndex the index of the bit to flip
+     * @throws IndexOutOfBoundsException if the specified index is negative
+     */
+    public void flip(int bitIndex) {
+        if (get(bitIndex))
+            clear(bitIndex);
+        else
+            set(bitIndex);
+    }
+
+    /**
+     * Sets each bit from the specified {@code fromIndex} (inclusive) to the
+     * specified {@code toIndex} (exclusive) to the complement of its current
+     * value.
+     *
+     * @param  fromIndex index of the first bit to flip
+     * @param  toIndex index after the last bit to flip
+     * @throws IndexOutOfBoundsException if {@code fromIndex} is negative,
+     *         or {@code toIndex} is negative, or {@code fromIndex} is
+     *         larger than {@code toIndex}
+     */
+    public void flip(int fromIndex, int toIndex) {
+        checkRange(fromIndex, toIndex);
+        if (fromIndex == toIndex)
+            return;
+        int lastKey = (toIndex - 1) >>> CHUNK_BITS;
+        for (int key = fromIndex >>> CHUNK_BITS; key <= lastKey; key++) {
+            int from = (key == fromIndex >>> CHUNK_BITS) ? fromIndex & MAX_LOW : 0;
+            int to = (key == lastKey) ? ((toIndex - 1) & MAX_LOW) + 1 : CHUNK_SIZE;
+            int i = indexOf(key);
+            if (i >= 0)
+                replaceAt(i, containers[i].flipRange(from, to));
+            else
+                insertAt(-i - 1, key, rangeContainer(from, to));
+        }
+    }
+
+    /**
+     * Sets the bit at the specified index to {@code true}.
+     *
+     * @param  bitIndex a bit index
+     * @throws IndexOutOfBoundsException if the specified index is negative
+     */
+    public void set(int bitIndex) {
+        if (bitIndex < 0)
+            throw new IndexOutOfBoundsException("bitIndex < 0: " + bitIndex);
+        int key = bitIndex >>> CHUNK_BITS;
+        int i = indexOf(key);
+        if (i >= 0) {
+            containers[i] = containers[i].add(bitIndex & MAX_LOW);
+        } else {
+            ArrayContainer c = new ArrayContainer(new char[4], 0);
+            insertAt(-i - 1, key, c.add(bitIndex & MAX_LOW));
+        }
+    }
+
+    /**
+     * Sets the bit at the specified index to the specified value.
+     *
+     * @param  bitIndex a bit index
+     * @param  value a boolean value to set
+     * @throws IndexOutOfBoundsException if the specified index is negative
+     */
+    public void set(int bitIndex, boolean value) {
+        if (value)
+            set(bitIndex);
+        else
+            clear(bitIndex);
+    }
+
+    /**
+     * Sets the bits from the specified {@code fromIndex} (inclusive) to the
+     * specified {@code toIndex} (exclusive) to {@code true}.
+     *
+     * @param  fromIndex index of the first bit to be set
+     * @param  toIndex index after the last bit to be set
+     * @throws IndexOutOfBoundsException if {@code fromIndex} is negative,
+     *         or {@code toIndex} is negative, or {@code fromIndex} is
+     *         larger than {@code toIndex}
+     */
+    public void set(int fromIndex, int toIndex) {
+        checkRange(fromIndex, toIndex);
+        if (fromIndex == toIndex)
+            return;
+        int lastKey = (toIndex - 1) >>> CHUNK_BITS;
+        for (int key = fromIndex >>> CHUNK_BITS; key <= lastKey; key++) {
+            int from = (key == fromIndex >>> CHUNK_BITS) ? fromIndex & MAX_LOW : 0;
+            int to = (key == lastKey) ? ((toIndex - 1) & MAX_LOW) + 1 : CHUNK_SIZE;
+            int i = indexOf(key);
+            if (i >= 0)
+                containers[i] = containers[i].addRange(from, to);
+            else
+                insertAt(-i - 1, key, rangeContainer(from, to));
+        }
+    }
+
+    /**
+     * Sets the bits from the specified {@code fromIndex} (inclusive) to the
+     * specified {@code toIndex} (exclusive) to the specified value.
+     *
+     * @param  fromIndex index of the first bit to be set
+     * @param  toIndex index after the last bit to be set
+     * @param  value value to set the selected bits to
+     * @throws IndexOutOfBoundsException if {@code fromIndex} is negative,
+     *         or {@code toIndex} is negative, or {@code fromIndex} is
+     *         larger than {@code toIndex}
+     */
+    public void set(int fromIndex, int toIndex, boolean value) {
+        if (value)
+            set(fromIndex, toIndex);
+        else
+            clear(fromIndex, toIndex);
+    }
+
+    /**
+     * Sets the bit specified by the index to {@code false}.
+     *
+     * @param  bitIndex the index of the bit to be cleared
+     * @throws IndexOutOfBoundsException if the specified index is negative
+     */
+    public void clear(int bitIndex) {
+        if (bitIndex < 0)
+            throw new IndexOutOfBoundsException("bitIndex < 0: " + bitIndex);
+        int i = indexOf(bitIndex >>> CHUNK_BITS);
+        if (i >= 0)
+            replaceAt(i, containers[i].remove(bitIndex & MAX_LOW));
+    }
+
+    /**
+     * Sets the bits from the specified {@code fromIndex} (inclusive) to the
+     * specified {@code toIndex} (exclusive) to {@code false}.
+     *
+     * @param  fromIndex index of the first bit to be cleared
+     * @param  toIndex index after the last bit to be cleared
+     * @throws IndexOutOfBoundsException if {@code fromIndex} is negative,
+     *         or {@code toIndex} is negative, or {@code fromIndex} is
+     *         larger than {@code toIndex}
+     */
+    public void clear(int fromIndex, int toIndex) {
+        checkRange(fromIndex, toIndex);
+        if (fromIndex == toIndex)
+            return;
+        int firstKey = fromIndex >>> CHUNK_BITS;
+        int lastKey = (toIndex - 1) >>> CHUNK_BITS;
+        int i = indexOf(firstKey);
+        if (i < 0)
+            i = -i - 1;
+        while (i < size && keys[i] <= lastKey) {
+            int key = keys[i];
+            int from = (key == firstKey) ? fromIndex & MAX_LOW : 0;
+            int to = (key == lastKey) ? ((toIndex - 1) & MAX_LOW) + 1 : CHUNK_SIZE;
+            i += 1 - replaceAt(i, containers[i].removeRange(from, to));
+        }
+    }
+
+    /**
+     * Sets all of the bits in this set to {@code false}.
+     */
+    public void clear() {
+        Arrays.fill(containers, 0, size, null);
+        size = 0;
+    }
+
+    /**
+     * Returns the value of the bit with the specified index.
+     *
+     * @param  bitIndex the bit index
+     * @return the value of the bit with the specified index
+     * @throws IndexOutOfBoundsException if the specified index is negative
+     */
+    public boolean get(int bitIndex) {
+        if (bitIndex < 0)
+            throw new IndexOutOfBoundsException("bitIndex < 0: " + bitIndex);
+        int i = indexOf(bitIndex >>> CHUNK_BITS);
+        return i >= 0 && containers[i].contains(bitIndex & MAX_LOW);
+    }
+
+    /**
+     * Returns a new {@code CompressedBitSet} composed of bits from this set
+     * from {@code fromIndex} (inclusive) to {@code toIndex} (exclusive).
+     *
+     * @param  fromIndex index of the first bit to include
+     * @param  toIndex index after the last bit to include
+     * @return a new {@code CompressedBitSet} from a range of this set
+     * @throws IndexOutOfBoundsException if {@code fromIndex} is negative,
+     *         or {@code toIndex} is negative, or {@code fromIndex} is
+     *         larger than {@code toIndex}
+     */
+    public CompressedBitSet get(int fromIndex, int toIndex) {
+        checkRange(fromIndex, toIndex);
+        CompressedBitSet result = new CompressedBitSet();
+        for (int s = nextSetBit(fromIndex); s >= 0 && s < toIndex; ) {
+            int e = Math.min(nextClearBit(s), toIndex);
+            result.set(s - fromIndex, e - fromIndex);
+            s = (e < toIndex) ? nextSetBit(e) : -1;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the index of the first bit that is set to {@code true}
+     * that occurs on or after the specified starting index. If no such
+     * bit exists then {@code -1} is returned.
+     *
+     * @param  fromIndex the index to start checking from (inclusive)
+     * @return the index of the next set bit, or {@code -1} if there
+     *         is no such bit
+     * @throws IndexOutOfBoundsException if the specified index is negative
+     */
+    public int nextSetBit(int fromIndex) {
+        if (fromIndex < 0)
+            throw new IndexOutOfBoundsException("fromIndex < 0: " + fromIndex);
+        int i = indexOf(fromIndex >>> CHUNK_BITS);
+        if (i >= 0) {
+            int low = containers[i].nextSetBit(fromIndex & MAX_LOW);
+            if (low >= 0)
+                return (keys[i] << CHUNK_BITS) | low;
+            i++;
+        } else {
+            i = -i - 1;
+        }
+        return (i < size) ? (keys[i] << CHUNK_BITS) | containers[i].nextSetBit(0) : -1;
+    }
+
+    /**
+     * Returns the index of the first bit that is set to {@code false}
+     * that occurs on or after the specified starting index.
+     *
+     * @param  fromIndex the index to start checking from (inclusive)
+     * @return the index of the next clear bit
+     * @throws IndexOutOfBoundsException if the specified index is negative
+     */
+    public int nextClearBit(int fromIndex) {
+        if (fromIndex < 0)
+            throw new IndexOutOfBoundsException("fromIndex < 0: " + fromIndex);
+        int key = fromIndex >>> CHUNK_BITS, low = fromIndex & MAX_LOW;
+        for (int i = indexOf(key); i >= 0 && i < size && keys[i] == key; i++) {
+            low = containers[i].nextClearBit(low);
+            if (low < CHUNK_SIZE)
+                break;
+            key++;
+            low = 0;
+        }
+        return (key << CHUNK_BITS) | low;
+    }
+
+    /**
+     * Returns the index of the nearest bit that is set to {@code true}
+     * that occurs on or before the specified starting index.
+     * If no such bit exists, or if {@code -1} is given as the
+     * starting index, then {@code -1} is returned.
+     *
+     * @param  fromIndex the index to start checking from (inclusive)
+     * @return the index of the previous set bit, or {@code -1} if there
+     *         is no such bit
+     * @throws IndexOutOfBoundsException if the specified index is less
+     *         than {@code -1}
+     */
+    public int previousSetBit(int fromIndex) {
+        if (fromIndex < 0) {
+            if (fromIndex == -1)
+                return -1;
+            throw new IndexOutOfBoundsException(
+                "fromIndex < -1: " + fromIndex);
+        }
+        int i = indexOf(fromIndex >>> CHUNK_BITS);
+        if (i >= 0) {
+            int low = containers[i].previousSetBit(fromIndex & MAX_LOW);
+            if (low >= 0)
+                return (keys[i] << CHUNK_BITS) | low;
+            i--;
+        } else {
+            i = -i - 2;
+        }
+        return (i >= 0) ? (keys[i] << CHUNK_BITS) | containers[i].previousSetBit(MAX_LOW) : -1;
+    }
+
+    /**
+     * Returns the index of the nearest bit that is set to {@code false}
+     * that occurs on or before the specified starting index.
+     * If no such bit exists, or if {@code -1} is given as the
+     * starting index, then {@code -1} is returned.
+     *
+     * @param  fromIndex the index to start checking from (inclusive)
+     * @return the index of the previous clear bit, or {@code -1} if there
+     *         is no such bit
+     * @throws IndexOutOfBoundsException if the specified index is less
+     *         than {@code -1}
+     */
+    public int previousClearBit(int fromIndex) {
+        if (fromIndex < 0) {
+            if (fromIndex == -1)
+                return -1;
+            throw new IndexOutOfBoundsException(
+                "fromIndex < -1: " + fromIndex);
+        }
+        int key = fromIndex >>> CHUNK_BITS, low = fromIndex & MAX_LOW;
+        for (int i = indexOf(key); i >= 0 && keys[i] == key; i--) {
+            low = containers[i].previousClearBit(low);
+            if (low >= 0)
+                break;
+            if (key-- == 0)
+                return -1;
+            low = MAX_LOW;
+        }
+        return (key << CHUNK_BITS) | low;
+    }
+
+    /**
+     * Returns the "logical size" of this set: the index of the highest
+     * set bit in the set plus one. Returns zero if the set contains no
+     * set bits.
+     *
+     * @return the logical size of this set
+     */
+    public int length() {
+        if (size == 0)
+            return 0;
+        return ((keys[size - 1] << CHUNK_BITS) |
+                containers[size - 1].previousSetBit(MAX_LOW)) + 1;
+    }
+
+    /**
+     * Returns true if this set contains no bits that are set
+     * to {@code true}.
+     *
+     * @return boolean indicating whether this set is empty
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the number of bits set to {@code true} in this set.
+     *
+     * @return the number of bits set to {@code true} in this set
+     */
+    public int cardinality() {
+        int sum = 0;
+        for (int i = 0; i < size; i++)
+            sum += containers[i].cardinality();
+        return sum;
+    }
+
+    /**
+     * Returns true if the specified set has any bits set to {@code true}
+     * that are also set to {@code true} in this set.
+     *
+     * @param  set the set to intersect with
+     * @return boolean indicating whether this set intersects
+     *         the specified set
+     */
+    public boolean intersects(CompressedBitSet set) {
+        for (int i = 0, j = 0; i < size && j < set.size; ) {
+            if (keys[i] < set.keys[j]) {
+                i++;
+            } else if (keys[i] > set.keys[j]) {
+                j++;
+            } else {
+                if (intersects(containers[i], set.containers[j]))
+                    return true;
+                i++;
+                j++;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Performs a logical <b>AND</b> of this target set with the argument
+     * set. This set is modified so that each bit in it has the value
+     * {@code true} if and only if it both initially had the value
+     * {@code true} and the corresponding bit in the set argument also
+     * had the value {@code true}.
+     *
+     * @param set a compressed bit set
+     */
+    public void and(CompressedBitSet set) {
+        int n = 0;
+        for (int i = 0, j = 0; i < size && j < set.size; ) {
+            if (keys[i] < set.keys[j]) {
+                i++;
+            } else if (keys[i] > set.keys[j]) {
+                j++;
+            } else {
+                Container c = and(containers[i], set.containers[j]);
+                if (c.cardinality() != 0) {
+                    keys[n] = keys[i];
+                    containers[n++] = c;
+                }
+                i++;
+                j++;
+            }
+        }
+        Arrays.fill(containers, n, size, null);
+        size = n;
+    }
+
+    /**
+     * Performs a logical <b>OR</b> of this set with the set argument.
+     * This set is modified so that a bit in it has the value {@code true}
+     * if and only if it either already had the value {@code true} or the
+     * corresponding bit in the set argument has the value {@code true}.
+     *
+     * @param set a compressed bit set
+     */
+    public void or(CompressedBitSet set) {
+        merge(set, OR);
+    }
+
+    /**
+     * Performs a logical <b>XOR</b> of this set with the set argument.
+     * This set is modified so that a bit in it has the value {@code true}
+     * if and only if one of the following statements holds:
+     * <ul>
+     * <li>The bit initially has the value {@code true}, and the
+     *     corresponding bit in the argument has the value {@code false}.
+     * <li>The bit initially has the value {@code false}, and the
+     *     corresponding bit in the argument has the value {@code true}.
+     * </ul>
+     *
+     * @param set a compressed bit set
+     */
+    public void xor(CompressedBitSet set) {
+        merge(set, XOR);
+    }
+
+    /**
+     * Clears all of the bits in this set whose corresponding
+     * bit is set in the specified set.
+     *
+     * @param set the set with which to mask this set
+     */
+    public void andNot(CompressedBitSet set) {
+        int i = 0;
+        for (int j = 0; i < size && j < set.size; ) {
+            if (keys[i] < set.keys[j]) {
+                i++;
+            } else if (keys[i] > set.keys[j]) {
+                j++;
+            } else {
+                i += 1 - replaceAt(i, andNot(containers[i], set.containers[j]));
+                j++;
+            }
+        }
+    }
+
+    /* Operations of merge */
+    private static final int OR = 0;
+    private static final int XOR = 1;
+
+    /**
+     * Merges the containers of the given set into this set by OR or XOR.
+     */
+    private void merge(CompressedBitSet set, int op) {
+        int capacity = size + set.size;
+        char[] newKeys = new char[capacity];
+        Container[] newContainers = new Container[capacity];
+        int n = 0, i = 0, j = 0;
+        while (i < size || j < set.size) {
+            Container c;
+            int key;
+            if (j == set.size || (i < size && keys[i] < set.keys[j])) {
+                key = keys[i];
+                c = containers[i++];
+            } else if (i == size || keys[i] > set.keys[j]) {
+                key = set.keys[j];
+                c = set.containers[j++].copy();
+            } else {
+                key = keys[i];
+                c = (op == OR) ? or(containers[i++], set.containers[j++])
+                               : xor(containers[i++], set.containers[j++]);
+            }
+            if (c.cardinality() != 0) {
+                newKeys[n] = (char) key;
+                newContainers[n++] = c;
+            }
+        }
+        keys = newKeys;
+        containers = newContainers;
+        size = n;
+    }
+
+    /**
+     * Returns a new set that is the logical <b>OR</b> of the given sets,
+     * combining the chunks of the sets in parallel. None of the given
+     * sets is modified.
+     *
+     * <p>The {@link java.util.concurrent.ForkJoinPool#commonPool()
+     * ForkJoin common pool} is used to execute any parallel tasks.
+     *
+     * @param sets the sets to combine
+     * @return the union of the given sets
+     */
+    public static CompressedBitSet parallelOr(CompressedBitSet... sets) {
+        // Collect the distinct keys of all sets in a bitmap
+        long[] present = new long[BITMAP_WORDS];
+        for (CompressedBitSet set : sets)
+            for (int i = 0; i < set.size; i++)
+                present[set.keys[i] >>> 6] |= 1L << set.keys[i];
+        int n = 0;
+        for (long word : present)
+            n += Long.bitCount(word);
+        char[] keys = new char[n];
+        for (int u = 0, k = 0; u < BITMAP_WORDS; u++)
+            for (long word = present[u]; word != 0; word &= word - 1)
+                keys[k++] = (char) ((u << 6) + Long.numberOfTrailingZeros(word));
+
+        Container[] containers = new Container[n];
+        IntStream.range(0, n).parallel().forEach(k -> {
+            Container first = null;
+            BitmapContainer union = null;
+            boolean runs = false;
+            for (CompressedBitSet set : sets) {
+                int i = set.indexOf(keys[k]);
+                if (i < 0)
+                    continue;
+                Container c = set.containers[i];
+                runs |= c instanceof RunContainer;
+                if (first == null) {
+                    first = c;
+                } else {
+                    if (union == null)
+                        union = BitmapContainer.copyOf(first);
+                    union.or(c);
+                }
+            }
+            containers[k] = (union == null) ? first.copy()
+                : runs ? union.optimize() : union.normalize();
+        });
+        return new CompressedBitSet(keys, containers, n);
+    }
+
+    /**
+     * Returns a new set that is the logical <b>AND</b> of the given sets,
+     * combining the chunks of the sets in parallel. None of the given
+     * sets is modified.
+     *
+     * <p>The {@link java.util.concurrent.ForkJoinPool#commonPool()
+     * ForkJoin common pool} is used to execute any parallel tasks.
+     *
+     * @param sets the sets to combine
+     * @return the intersection of the given sets
+     * @throws IllegalArgumentException if no set is given
+     */
+    public static CompressedBitSet parallelAnd(CompressedBitSet... sets) {
+        if (sets.length == 0)
+            throw new IllegalArgumentException("no set to combine");
+        // Only the keys of the smallest set can be in the intersection
+        CompressedBitSet smallest = sets[0];
+        for (CompressedBitSet set : sets)
+            if (set.size < smallest.size)
+                smallest = set;
+        CompressedBitSet first = smallest;
+        Container[] containers = new Container[first.size];
+        IntStream.range(0, first.size).parallel().forEach(k -> {
+            Container result = first.containers[k];
+            for (CompressedBitSet set : sets) {
+                if (set == first)
+                    continue;
+                int i = set.indexOf(first.keys[k]);
+                if (i < 0)
+                    return;
+                result = and(result, set.containers[i]);
+                if (result.cardinality() == 0)
+                    return;
+            }
+            containers[k] = (result == first.containers[k]) ? result.copy() : result;
+        });
+        char[] keys = new char[first.size];
+        int n = 0;
+        for (int k = 0; k < first.size; k++) {
+            if (containers[k] != null) {
+                keys[n] = first.keys[k];
+                containers[n++] = containers[k];
+            }
+        }
+        return new CompressedBitSet(keys, containers, n);
+    }
+
+    /**
+     * Converts every chunk of this set to its most compact container, in
+     * particular to a run container if the chunk consists of few runs of
+     * consecutive set bits.
+     */
+    public void runOptimize() {
+        for (int i = 0; i < size; i++)
+            containers[i] = containers[i].optimize();
+    }
+
+    /**
+     * Returns the number of bytes written by {@link #writeTo(ByteBuffer)}.
+     *
+     * @return the serialized size of this set, in bytes
+     */
+    public int serializedSize() {
+        int bytes = 4;
+        for (int i = 0; i < size; i++)
+            bytes += 7 + containers[i].serializedLength();
+        return bytes;
+    }
+
+    /**
+     * Writes this set into the given buffer, starting at its current
+     * position, in a little-endian format that can be read by
+     * {@link #readFrom(ByteBuffer)}. The position of the buffer is advanced
+     * by {@link #serializedSize()} bytes; its byte order is not changed.
+     *
+     * @param bb a byte buffer
+     * @throws java.nio.BufferOverflowException if the buffer has less
+     *         than {@code serializedSize()} bytes remaining
+     * @throws java.nio.ReadOnlyBufferException if the buffer is read-only
+     */
+    public void writeTo(ByteBuffer bb) {
+        ByteOrder order = bb.order();
+        try {
+            bb.order(ByteOrder.LITTLE_ENDIAN);
+            bb.putInt(size);
+            for (int i = 0; i < size; i++) {
+                Container c = containers[i];
+                bb.putChar(keys[i]);
+                bb.put(c.type());
+                c.writeTo(bb);
+            }
+        } finally {
+            bb.order(order);
+        }
+    }
+
+    /**
+     * Reads a set written by {@link #writeTo(ByteBuffer)} from the given
+     * buffer, starting at its current position. The position of the buffer
+     * is advanced past the set; its byte order is not changed.
+     *
+     * @param bb a byte buffer
+     * @return the set read from the buffer
+     * @throws IllegalArgumentException if the buffer does not contain a
+     *         valid set at its current position
+     * @throws java.nio.BufferUnderflowException if the buffer ends before
+     *         the end of the set
+     */
+    public static CompressedBitSet readFrom(ByteBuffer bb) {
+        ByteOrder order = bb.order();
+        try {
+            bb.order(ByteOrder.LITTLE_ENDIAN);
+            int n = bb.getInt();
+            if (n < 0 || n > CHUNK_SIZE)
+                throw new IllegalArgumentException("invalid size: " + n);
+            char[] keys = new char[n];
+            Container[] containers = new Container[n];
+            for (int i = 0; i < n; i++) {
+                keys[i] = bb.getChar();
+                if ((i > 0 && keys[i] <= keys[i - 1]) || keys[i] > MAX_LOW >>> 1)
+                    throw new IllegalArgumentException("invalid key: " + (int) keys[i]);
+                byte type = bb.get();
+                int length = bb.getInt();
+                switch (type) {
+                case ARRAY:
+                    containers[i] = ArrayContainer.readFrom(bb, length);
+                    break;
+                case BITMAP:
+                    containers[i] = BitmapContainer.readFrom(bb, length);
+                    break;
+                case RUN:
+                    containers[i] = RunContainer.readFrom(bb, length);
+                    break;
+                default:
+                    throw new IllegalArgumentException("invalid type: " + type);
+                }
+            }
+            return new CompressedBitSet(keys, containers, n);
+        } finally {
+            bb.order(order);
+        }
+    }
+
+    /**
+     * Returns the hash code value for this set. The hash code depends
+     * only on which bits are set within this {@code CompressedBitSet}.
+     *
+     * @return the hash code value for this set
+     */
+    public int hashCode() {
+        int h = 1;
+        for (int i = 0; i < size; i++) {
+            h = 31 * h + keys[i];
+            Container c = containers[i];
+            for (int low = c.nextSetBit(0); low >= 0; low = c.nextSetBit(low + 1))
+                h = 31 * h + low;
+        }
+        return h;
+    }
+
+    /**
+     * Compares this object against the specified object.
+     * The result is {@code true} if and only if the argument is
+     * not {@code null} and is a {@code CompressedBitSet} object that has
+     * exactly the same set of bits set to {@code true} as this set.
+     *
+     * @param  obj the object to compare with
+     * @return {@code true} if the objects are the same;
+     *         {@code false} otherwise
+     */
+    public boolean equals(Object obj) {
+        if (!(obj instanceof CompressedBitSet))
+            return false;
+        if (this == obj)
+            return true;
+
+        CompressedBitSet set = (CompressedBitSet) obj;
+        if (size != set.size)
+            return false;
+        for (int i = 0; i < size; i++) {
+            if (keys[i] != set.keys[i])
+                return false;
+            Container a = containers[i], b = set.containers[i];
+            if (a.cardinality() != b.cardinality())
+                return false;
+            for (int low = a.nextSetBit(0); low >= 0; low = a.nextSetBit(low + 1))
+                if (!b.contains(low))
+                    return false;
+        }
+        return true;
+    }
+
+    /**
+     * Cloning this {@code CompressedBitSet} produces a new
+     * {@code CompressedBitSet} that is equal to it.
+     *
+     * @return a clone of this bit set
+     */
+    public Object clone() {
+        try {
+            CompressedBitSet result = (CompressedBitSet) super.clone();
+            result.keys = Arrays.copyOf(keys, Math.max(4, size));
+            result.containers = new Container[result.keys.length];
+            for (int i = 0; i < size; i++)
+                result.containers[i] = containers[i].copy();
+            return result;
+        } catch (CloneNotSupportedException e) {
+            throw new InternalError(e);
+        }
+    }
+
+    /**
+     * Returns a string representation of this bit set, in the same
+     * format as {@link BitSet#toString()}.
+     *
+     * @return a string representation of this bit set
+     */
+    public String toString() {
+        StringBuilder b = new StringBuilder("{");
+        for (PrimitiveIterator.OfInt it = iterator(); it.hasNext(); ) {
+            if (b.length() > 1)
+                b.append(", ");
+            b.append(it.nextInt());
+        }
+        return b.append('}').toString();
+    }
+
+    /**
+     * Returns an iterator over the set bits, walking the containers in
+     * order so that each step takes constant time.
+     */
+    private PrimitiveIterator.OfInt iterator() {
+        return new PrimitiveIterator.OfInt() {
+            int i = 0;
+            int low = (size == 0) ? -1 : containers[0].nextSetBit(0);
+
+            @Override
+            public boolean hasNext() {
+                return low >= 0;
+            }
+
+            @Override
+            public int nextInt() {
+                if (low < 0)
+                    throw new NoSuchElementException();
+                int ret = (keys[i] << CHUNK_BITS) | low;
+                low = containers[i].nextSetBit(low + 1);
+                if (low < 0 && ++i < size)
+                    low = containers[i].nextSetBit(0);
+                return ret;
+            }
+        };
+    }
+
+    /**
+     * Returns a stream of indices for which this {@code CompressedBitSet}
+     * contains a bit in the set state. The indices are returned
+     * in order, from lowest to highest. The size of the stream
+     * is the number of bits in the set state, equal to the value
+     * returned by the {@link #cardinality()} method.
+     *
+     * <p>The bit set must remain constant during the execution of the
+     * terminal stream operation.  Otherwise, the result of the terminal
+     * stream operation is undefined.
+     *
+     * @return a stream of integers representing set indices
+     */
+    public IntStream stream() {
+        return StreamSupport.intStream(
+                () -> Spliterators.spliterator(
+                        iterator(), cardinality(),
+                        Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.SORTED),
+                Spliterator.SIZED | Spliterator.SUBSIZED |
+                        Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.SORTED,
+                false);
+    }
+
+    /*
+     * Binary operations on containers. The results never share state
+     * with the operands, except that a container may be returned as is
+     * by the in-place operations of BitmapContainer.
+     */
+
+    private static Container and(Container a, Container b) {
+        if (a instanceof ArrayContainer && b instanceof ArrayContainer)
+            return ((ArrayContainer) a).and((ArrayContainer) b);
+        if (a instanceof ArrayContainer)
+            return ((ArrayContainer) a).filter(b, true);
+        if (b instanceof ArrayContainer)
+            return ((ArrayContainer) b).filter(a, true);
+        Container c = BitmapContainer.copyOf(a).and(b);
+        return (a instanceof RunContainer || b instanceof RunContainer)
+            ? c.optimize() : c.normalize();
+    }
+
+    private static Container or(Container a, Container b) {
+        if (a instanceof ArrayContainer && b instanceof ArrayContainer)
+            return ((ArrayContainer) a).or((ArrayContainer) b);
+        Container c = BitmapContainer.copyOf(a).or(b);
+        return (a instanceof RunContainer || b instanceof RunContainer)
+            ? c.optimize() : c.normalize();
+    }
+
+    private static Container xor(Container a, Container b) {
+        if (a instanceof ArrayContainer && b instanceof ArrayContainer)
+            return ((ArrayContainer) a).xor((ArrayContainer) b);
+        Container c = BitmapContainer.copyOf(a).xor(b);
+        return (a instanceof RunContainer || b instanceof RunContainer)
+            ? c.optimize() : c.normalize();
+    }
+
+    private static Container andNot(Container a, Container b) {
+        if (a instanceof ArrayContainer)
+            return ((ArrayContainer) a).filter(b, false);
+        Container c = BitmapContainer.copyOf(a).andNot(b);
+        return (a instanceof RunContainer || b instanceof RunContainer)
+            ? c.optimize() : c.normalize();
+    }
+
+    private static boolean intersects(Container a, Container b) {
+        if (a instanceof ArrayContainer || b instanceof ArrayContainer) {
+            Container c = (a instanceof ArrayContainer) ? b : a;
+            ArrayContainer array = (ArrayContainer) ((c == a) ? b : a);
+            for (int k = 0; k < array.card; k++)
+                if (c.contains(array.values[k]))
+                    return true;
+            return false;
+        }
+        long[] wa = a.toBitmap().words, wb = b.toBitmap().words;
+        for (int u = 0; u < BITMAP_WORDS; u++)
+            if ((wa[u] & wb[u]) != 0)
+                return true;
+        return false;
+    }
+
+    /**
+     * A set of low halves of indices, in [0, CHUNK_SIZE). The methods
+     * accepting a low half also accept CHUNK_SIZE where that denotes the
+     * end of the chunk. The updating methods return the updated
+     * container, which may be this container or a new one.
+     */
+    private abstract static class Container {
+        /** Returns the number of elements. */
+        abstract int cardinality();
+
+        /** Returns true if the element is present. */
+        abstract boolean contains(int x);
+
+        /** Adds the element. */
+        abstract Container add(int x);
+
+        /** Removes the element. */
+        abstract Container remove(int x);
+
+        /** Adds the elements [from, to). */
+        abstract Container addRange(int from, int to);
+
+        /** Removes the elements [from, to). */
+        abstract Container removeRange(int from, int to);
+
+        /** Complements the elements [from, to). */
+        abstract Container flipRange(int from, int to);
+
+        /** Returns the smallest element >= x, or -1. */
+        abstract int nextSetBit(int x);
+
+        /** Returns the smallest absent value >= x, or CHUNK_SIZE. */
+        abstract int nextClearBit(int x);
+
+        /** Returns the largest element <= x, or -1. */
+        abstract int previousSetBit(int x);
+
+        /** Returns the largest absent value <= x, or -1. */
+        abstract int previousClearBit(int x);
+
+        /** Returns the number of runs of consecutive elements. */
+        abstract int numberOfRuns();
+
+        /** Returns a bitmap container, possibly this one, with the same elements. */
+        abstract BitmapContainer toBitmap();
+
+        /** Returns an independent copy of this container. */
+        abstract Container copy();
+
+        /** Returns the type of this container in the serialized format. */
+        abstract byte type();
+
+        /** Returns the number of bytes written by writeTo. */
+        abstract int serializedLength();
+
+        /** Writes the length field and the data of this container. */
+        abstract void writeTo(ByteBuffer bb);
+
+        /**
+         * Returns an array or bitmap container, possibly this one, with
+         * the same elements, depending on the cardinality.
+         */
+        Container normalize() {
+            int card = cardinality();
+            if (card <= ARRAY_MAX)
+                return (this instanceof ArrayContainer) ? this : toArray(card);
+            return toBitmap();
+        }
+
+        /**
+         * Returns the smallest container, possibly this one, with the
+         * same elements.
+         */
+        Container optimize() {
+            int card = cardinality(), runs = numberOfRuns();
+            int arrayBytes = 2 * card, runBytes = 4 * runs;
+            if (runBytes < Math.min(arrayBytes, BITMAP_WORDS * 8)) {
+                if (this instanceof RunContainer)
+                    return this;
+                char[] r = new char[2 * runs];
+                int n = 0;
+                for (int s = nextSetBit(0); s >= 0; ) {
+                    int e = nextClearBit(s);
+                    r[n++] = (char) s;
+                    r[n++] = (char) (e - s - 1);
+                    s = nextSetBit(e);
+                }
+                return new RunContainer(r, runs);
+            }
+            return normalize();
+        }
+
+        /** Returns an array container with the given number of elements. */
+        ArrayContainer toArray(int card) {
+            char[] values = new char[card];
+            int n = 0;
+            for (int x = nextSetBit(0); x >= 0; x = nextSetBit(x + 1))
+                values[n++] = (char) x;
+            return new ArrayContainer(values, n);
+        }
+    }
+
+    /**
+     * A container of up to ARRAY_MAX elements stored as a sorted array.
+     */
+    private static final class ArrayContainer extends Container {
+        char[] values;
+        int card;
+
+        ArrayContainer(char[] values, int card) {
+            this.values = values;
+            this.card = card;
+        }
+
+        static ArrayContainer readFrom(ByteBuffer bb, int card) {
+            if (card <= 0 || card > ARRAY_MAX)
+                throw new IllegalArgumentException("invalid cardinality: " + card);
+            char[] values = new char[card];
+            for (int k = 0; k < card; k++) {
+                values[k] = bb.getChar();
+                if (k > 0 && values[k] <= values[k - 1])
+                    throw new IllegalArgumentException("unsorted values");
+            }
+            return new ArrayContainer(values, card);
+        }
+
+        /** Returns the index of the first element >= x. */
+        private int lowerBound(int x) {
+            if (x > MAX_LOW)
+                return card;
+            int i = Arrays.binarySearch(values, 0, card, (char) x);
+            return (i >= 0) ? i : -i - 1;
+        }
+
+        /** Ensures room for the given number of elements. */
+        private void ensureCapacity(int capacity) {
+            if (capacity > values.length) {
+                int newCapacity = Math.min(ARRAY_MAX,
+                        Math.max(capacity, values.length + (values.length >> 1)));
+                values = Arrays.copyOf(values, newCapacity);
+            }
+        }
+
+        int cardinality() {
+            return card;
+        }
+
+        boolean contains(int x) {
+            return Arrays.binarySearch(values, 0, card, (char) x) >= 0;
+        }
+
+        Container add(int x) {
+            int i = Arrays.binarySearch(values, 0, card, (char) x);
+            if (i >= 0)
+                return this;
+            if (card == ARRAY_MAX)
+                return toBitmap().add(x);
+            i = -i - 1;
+            ensureCapacity(card + 1);
+            System.arraycopy(values, i, values, i + 1, card - i);
+            values[i] = (char) x;
+            card++;
+            return this;
+        }
+
+        Container remove(int x) {
+            int i = Arrays.binarySearch(values, 0, card, (char) x);
+            if (i >= 0) {
+                System.arraycopy(values, i + 1, values, i, card - i - 1);
+                card--;
+            }
+            return this;
+        }
+
+        Container addRange(int from, int to) {
+            int lo = lowerBound(from), hi = lowerBound(to);
+            int newCard = lo + (to - from) + (card - hi);
+            if (newCard > ARRAY_MAX)
+                return toBitmap().addRange(from, to);
+            ensureCapacity(newCard);
+            System.arraycopy(values, hi, values, lo + (to - from), card - hi);
+            for (int k = from; k < to; k++)
+                values[lo++] = (char) k;
+            card = newCard;
+            return this;
+        }
+
+        Container removeRange(int from, int to) {
+            int lo = lowerBound(from), hi = lowerBound(to);
+            System.arraycopy(values, hi, values, lo, card - hi);
+            card -= hi - lo;
+            return this;
+        }
+
+        Container flipRange(int from, int to) {
+            return toBitmap().flipRange(from, to);
+        }
+
+        int nextSetBit(int x) {
+            int i = lowerBound(x);
+            return (i < card) ? values[i] : -1;
+        }
+
+        int nextClearBit(int x) {
+            for (int i = lowerBound(x); i < card && values[i] == x; i++)
+                x++;
+            return x;
+        }
+
+        int previousSetBit(int x) {
+            int i = lowerBound(x + 1) - 1;
+            return (i >= 0) ? values[i] : -1;
+        }
+
+        int previousClearBit(int x) {
+            for (int i = lowerBound(x + 1) - 1; i >= 0 && values[i] == x; i--)
+                x--;
+            return x;
+        }
+
+        int numberOfRuns() {
+            int runs = (card == 0) ? 0 : 1;
+            for (int k = 1; k < card; k++)
+                if (values[k] != values[k - 1] + 1)
+                    runs++;
+            return runs;
+        }
+
+        BitmapContainer toBitmap() {
+            BitmapContainer b = new BitmapContainer(new long[BITMAP_WORDS], card);
+            for (int k = 0; k < card; k++)
+                b.words[values[k] >>> 6] |= 1L << values[k];
+            return b;
+        }
+
+        Container copy() {
+            return new ArrayContainer(Arrays.copyOf(values, card), card);
+        }
+
+        /** Returns the elements that are (or are not) in the given container. */
+        Container filter(Container c, boolean present) {
+            char[] v = new char[card];
+            int n = 0;
+            for (int k = 0; k < card; k++)
+                if (c.contains(values[k]) == present)
+                    v[n++] = values[k];
+            return new ArrayContainer(v, n);
+        }
+
+        Container and(ArrayContainer c) {
+            char[] v = new char[Math.min(card, c.card)];
+            int n = 0;
+            for (int i = 0, j = 0; i < card && j < c.card; ) {
+                if (values[i] < c.values[j])
+                    i++;
+                else if (values[i] > c.values[j])
+                    j++;
+                else {
+                    v[n++] = values[i++];
+                    j++;
+                }
+            }
+            return new ArrayContainer(v, n);
+        }
+
+        Container or(ArrayContainer c) {
+            char[] v = new char[card + c.card];
+            int n = 0, i = 0, j = 0;
+            while (i < card && j < c.card) {
+                if (values[i] < c.values[j])
+                    v[n++] = values[i++];
+                else if (values[i] > c.values[j])
+                    v[n++] = c.values[j++];
+                else {
+                    v[n++] = values[i++];
+                    j++;
+                }
+            }
+            while (i < card)
+                v[n++] = values[i++];
+            while (j < c.card)
+                v[n++] = c.values[j++];
+            return new ArrayContainer(v, n).normalize();
+        }
+
+        Container xor(ArrayContainer c) {
+            char[] v = new char[card + c.card];
+            int n = 0, i = 0, j = 0;
+            while (i < card && j < c.card) {
+                if (values[i] < c.values[j])
+                    v[n++] = values[i++];
+                else if (values[i] > c.values[j])
+                    v[n++] = c.values[j++];
+                else {
+                    i++;
+                    j++;
+                }
+            }
+            while (i < card)
+                v[n++] = values[i++];
+            while (j < c.card)
+                v[n++] = c.values[j++];
+            return new ArrayContainer(v, n).normalize();
+        }
+
+        byte type() {
+            return ARRAY;
+        }
+
+        int serializedLength() {
+            return 2 * card;
+        }
+
+        void writeTo(ByteBuffer bb) {
+            bb.putInt(card);
+            for (int k = 0; k < card; k++)
+                bb.putChar(values[k]);
+        }
+    }
+
+    /**
+     * A container stored as a plain bitmap of CHUNK_SIZE bits.
+     */
+    private static final class BitmapContainer extends Container {
+        final long[] words;
+        int card;
+
+        BitmapContainer(long[] words, int card) {
+            this.words = words;
+            this.card = card;
+        }
+
+        /** Returns a new bitmap container with the elements of the given one. */
+        static BitmapContainer copyOf(Container c) {
+            return (c instanceof BitmapContainer)
+                ? (BitmapContainer) c.copy() : c.toBitmap();
+        }
+
+        static BitmapContainer readFrom(ByteBuffer bb, int card) {
+            long[] words = new long[BITMAP_WORDS];
+            int count = 0;
+            for (int u = 0; u < BITMAP_WORDS; u++)
+                count += Long.bitCount(words[u] = bb.getLong());
+            if (card != count || card == 0)
+                throw new IllegalArgumentException("invalid cardinality: " + card);
+            return new BitmapContainer(words, card);
+        }
+
+        /* Operations of updateRange */
+        static final int SET = 0;
+        static final int CLEAR = 1;
+        static final int FLIP = 2;
+
+        /** Sets, clears or flips the bits [from, to). */
+        private Container updateRange(int from, int to, int op) {
+            updateBits(from, to, op);
+            return normalize();
+        }
+
+        /** Sets, clears or flips the bits [from, to), without normalizing. */
+        void updateBits(int from, int to, int op) {
+            if (from >= to)
+                return;
+            int startWord = from >>> 6, endWord = (to - 1) >>> 6;
+            long firstWordMask = -1L << from;
+            long lastWordMask  = -1L >>> -to;
+            for (int u = startWord; u <= endWord; u++) {
+                long mask = -1L;
+                if (u == startWord)
+                    mask &= firstWordMask;
+                if (u == endWord)
+                    mask &= lastWordMask;
+                long w = words[u];
+                long nw = (op == SET) ? w | mask : (op == CLEAR) ? w & ~mask : w ^ mask;
+                card += Long.bitCount(nw) - Long.bitCount(w);
+                words[u] = nw;
+            }
+        }
+
+        /** Recomputes the cardinality after a bulk update. */
+        private Container recount() {
+            int count = 0;
+            for (long w : words)
+                count += Long.bitCount(w);
+            card = count;
+            return this;
+        }
+
+        int cardinality() {
+            return card;
+        }
+
+        boolean contains(int x) {
+            return (words[x >>> 6] & (1L << x)) != 0;
+        }
+
+        Container add(int x) {
+            long w = words[x >>> 6], bit = 1L << x;
+            if ((w & bit) == 0) {
+                words[x >>> 6] = w | bit;
+                card++;
+            }
+            return this;
+        }
+
+        Container remove(int x) {
+            long w = words[x >>> 6], bit = 1L << x;
+            if ((w & bit) != 0) {
+                words[x >>> 6] = w & ~bit;
+                card--;
+            }
+            return normalize();
+        }
+
+        Container addRange(int from, int to) {
+            return updateRange(from, to, SET);
+        }
+
+        Container removeRange(int from, int to) {
+            return updateRange(from, to, CLEAR);
+        }
+
+        Container flipRange(int from, int to) {
+            return updateRange(from, to, FLIP);
+        }
+
+        int nextSetBit(int x) {
+            int u = x >>> 6;
+            if (u >= BITMAP_WORDS)
+                return -1;
+            long word = words[u] & (-1L << x);
+            while (true) {
+                if (word != 0)
+                    return (u << 6) + Long.numberOfTrailingZeros(word);
+                if (++u == BITMAP_WORDS)
+                    return -1;
+                word = words[u];
+            }
+        }
+
+        int nextClearBit(int x) {
+            int u = x >>> 6;
+            if (u >= BITMAP_WORDS)
+                return CHUNK_SIZE;
+            long word = ~words[u] & (-1L << x);
+            while (true) {
+                if (word != 0)
+                    return (u << 6) + Long.numberOfTrailingZeros(word);
+                if (++u == BITMAP_WORDS)
+                    return CHUNK_SIZE;
+                word = ~words[u];
+            }
+        }
+
+        int previousSetBit(int x) {
+            int u = x >>> 6;
+            long word = words[u] & (-1L >>> -(x + 1));
+            while (true) {
+                if (word != 0)
+                    return ((u + 1) << 6) - 1 - Long.numberOfLeadingZeros(word);
+                if (u-- == 0)
+                    return -1;
+                word = words[u];
+            }
+        }
+
+        int previousClearBit(int x) {
+            int u = x >>> 6;
+            long word = ~words[u] & (-1L >>> -(x + 1));
+            while (true) {
+                if (word != 0)
+                    return ((u + 1) << 6) - 1 - Long.numberOfLeadingZeros(word);
+                if (u-- == 0)
+                    return -1;
+                word = ~words[u];
+            }
+        }
+
+        int numberOfRuns() {
+            int runs = 0;
+            long carry = 0; // the highest bit of the previous word
+            for (long w : words) {
+                runs += Long.bitCount(w & ~((w << 1) | carry));
+                carry = w >>> 63;
+            }
+            return runs;
+        }
+
+        BitmapContainer toBitmap() {
+            return this;
+        }
+
+        Container copy() {
+            return new BitmapContainer(words.clone(), card);
+        }
+
+        Container and(Container c) {
+            long[] w = c.toBitmap().words;
+            for (int u = 0; u < BITMAP_WORDS; u++)
+                words[u] &= w[u];
+            return recount();
+        }
+
+        Container or(Container c) {
+            if (c instanceof ArrayContainer) {
+                ArrayContainer a = (ArrayContainer) c;
+                for (int k = 0; k < a.card; k++)
+                    add(a.values[k]);
+                return this;
+            }
+            long[] w = c.toBitmap().words;
+            for (int u = 0; u < BITMAP_WORDS; u++)
+                words[u] |= w[u];
+            return recount();
+        }
+
+        Container xor(Container c) {
+            long[] w = c.toBitmap().words;
+            for (int u = 0; u < BITMAP_WORDS; u++)
+                words[u] ^= w[u];
+            return recount();
+        }
+
+        Container andNot(Container c) {
+            long[] w = c.toBitmap().words;
+            for (int u = 0; u < BITMAP_WORDS; u++)
+                words[u] &= ~w[u];
+            return recount();
+        }
+
+        byte type() {
+            return BITMAP;
+        }
+
+        int serializedLength() {
+            return 8 * BITMAP_WORDS;
+        }
+
+        void writeTo(ByteBuffer bb) {
+            bb.putInt(card);
+            for (long w : words)
+                bb.putLong(w);
+        }
+    }
+
+    /**
+     * A container stored as a sorted array of runs of consecutive
+     * elements, each as a pair of its first element and its length minus
+     * one. Runs are neither empty nor adjacent.
+     */
+    private static final class RunContainer extends Container {
+        char[] runs;
+        int nruns;
+
+        RunContainer(char[] runs, int nruns) {
+            this.runs = runs;
+            this.nruns = nruns;
+        }
+
+        static RunContainer readFrom(ByteBuffer bb, int nruns) {
+            if (nruns <= 0 || nruns > CHUNK_SIZE / 2)
+                throw new IllegalArgumentException("invalid number of runs: " + nruns);
+            char[] runs = new char[2 * nruns];
+            int end = -1;
+            for (int k = 0; k < nruns; k++) {
+                int s = runs[2 * k] = bb.getChar();
+                runs[2 * k + 1] = bb.getChar();
+                if (s <= end || s + runs[2 * k + 1] > MAX_LOW)
+                    throw new IllegalArgumentException("invalid run: " + s);
+                end = s + runs[2 * k + 1] + 1;
+            }
+            return new RunContainer(runs, nruns);
+        }
+
+        private int start(int k) {
+            return runs[2 * k];
+        }
+
+        private int end(int k) {
+            return runs[2 * k] + runs[2 * k + 1] + 1;
+        }
+
+        /** Returns the index of the last run starting at or before x, or -1. */
+        private int find(int x) {
+            int lo = 0, hi = nruns - 1;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                if (start(mid) <= x)
+                    lo = mid + 1;
+                else
+                    hi = mid - 1;
+            }
+            return hi;
+        }
+
+        int cardinality() {
+            int card = 0;
+            for (int k = 0; k < nruns; k++)
+                card += runs[2 * k + 1] + 1;
+            return card;
+        }
+
+        boolean contains(int x) {
+            int k = find(x);
+            return k >= 0 && x < end(k);
+        }
+
+        Container add(int x) {
+            return addRange(x, x + 1);
+        }
+
+        Container remove(int x) {
+            return removeRange(x, x + 1);
+        }
+
+        Container addRange(int from, int to) {
+            // Merge [from, to) with all runs overlapping or adjacent to it
+            char[] r = new char[2 * (nruns + 1)];
+            int n = 0, k = 0;
+            for (; k < nruns && end(k) < from; k++) {
+                r[n++] = runs[2 * k];
+                r[n++] = runs[2 * k + 1];
+            }
+            int s = from, e = to;
+            for (; k < nruns && start(k) <= to; k++) {
+                s = Math.min(s, start(k));
+                e = Math.max(e, end(k));
+            }
+            r[n++] = (char) s;
+            r[n++] = (char) (e - s - 1);
+            for (; k < nruns; k++) {
+                r[n++] = runs[2 * k];
+                r[n++] = runs[2 * k + 1];
+            }
+            return new RunContainer(r, n / 2).limit();
+        }
+
+        Container removeRange(int from, int to) {
+            // Keep the parts of all runs outside of [from, to)
+            char[] r = new char[2 * (nruns + 1)];
+            int n = 0;
+            for (int k = 0; k < nruns; k++) {
+                int s = start(k), e = end(k);
+                if (s < from) {
+                    r[n++] = (char) s;
+                    r[n++] = (char) (Math.min(e, from) - s - 1);
+                }
+                if (e > to) {
+                    s = Math.max(s, to);
+                    r[n++] = (char) s;
+                    r[n++] = (char) (e - s - 1);
+                }
+            }
+            return new RunContainer(r, n / 2).limit();
+        }
+
+        Container flipRange(int from, int to) {
+            return symmetricDifference(from, to).limit();
+        }
+
+        /**
+         * Returns a bitmap container with the same elements if this
+         * container has grown larger than one, else this container.
+         */
+        private Container limit() {
+            return (4 * nruns > 8 * BITMAP_WORDS) ? toBitmap() : this;
+        }
+
+        /** Complements the elements [from, to). */
+        private RunContainer symmetricDifference(int from, int to) {
+            // Merge the sorted run boundaries with from and to; equal
+            // boundaries cancel out, and the rest alternate start and end
+            int[] bounds = new int[2 * nruns + 2];
+            int n = 0;
+            boolean fromDone = false, toDone = false;
+            for (int k = 0; k <= 2 * nruns; k++) {
+                int b = (k < 2 * nruns)
+                    ? ((k & 1) == 0 ? start(k >> 1) : end(k >> 1))
+                    : Integer.MAX_VALUE;
+                if (!fromDone && from <= b) {
+                    fromDone = true;
+                    n = pushBound(bounds, n, from);
+                }
+                if (!toDone && to <= b) {
+                    toDone = true;
+                    n = pushBound(bounds, n, to);
+                }
+                if (k < 2 * nruns)
+                    n = pushBound(bounds, n, b);
+            }
+            char[] r = new char[n];
+            for (int k = 0; k < n; k += 2) {
+                r[k] = (char) bounds[k];
+                r[k + 1] = (char) (bounds[k + 1] - bounds[k] - 1);
+            }
+            return new RunContainer(r, n / 2);
+        }
+
+        /** Appends a boundary, cancelling it with an equal last one. */
+        private static int pushBound(int[] bounds, int n, int b) {
+            if (n > 0 && bounds[n - 1] == b)
+                return n - 1;
+            bounds[n] = b;
+            return n + 1;
+        }
+
+        int nextSetBit(int x) {
+            int k = find(x);
+            if (k >= 0 && x < end(k))
+                return x;
+            return (k + 1 < nruns) ? start(k + 1) : -1;
+        }
+
+        int nextClearBit(int x) {
+            int k = find(x);
+            return (k >= 0 && x < end(k)) ? end(k) : x;
+        }
+
+        int previousSetBit(int x) {
+            int k = find(x);
+            if (k < 0)
+                return -1;
+            return (x < end(k)) ? x : end(k) - 1;
+        }
+
+        int previousClearBit(int x) {
+            int k = find(x);
+            return (k >= 0 && x < end(k)) ? start(k) - 1 : x;
+        }
+
+        int numberOfRuns() {
+            return nruns;
+        }
+
+        BitmapContainer toBitmap() {
+            BitmapContainer b = new BitmapContainer(new long[BITMAP_WORDS], 0);
+            for (int k = 0; k < nruns; k++)
+                b.updateBits(start(k), end(k), BitmapContainer.SET);
+            return b;
+        }
+
+        Container copy() {
+            return new RunContainer(Arrays.copyOf(runs, 2 * nruns), nruns);
+        }
+
+        byte type() {
+            return RUN;
+        }
+
+        int serializedLength() {
+            return 4 * nruns;
+        }
+
+        void writeTo(ByteBuffer bb) {
+            bb.putInt(nruns);
+            for (int k = 0; k < 2 * nruns; k++)
+                bb.putChar(runs[k]);
+        }
+    }
+}
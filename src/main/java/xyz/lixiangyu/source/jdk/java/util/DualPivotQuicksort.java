@@ -89,6 +89,28 @@ final class DualPivotQuicksort {
      */
     private static final int COUNTING_SORT_THRESHOLD_FOR_SHORT_OR_CHAR = 3200;
 
+    /**
+     * If the length of an int, long, float or double array to be sorted
+     * is not less than this constant, and the array is not highly
+     * structured, LSD radix sort is used in preference to Quicksort.
+     */
+    private static final int RADIX_SORT_THRESHOLD = 1 << 13;
+
+    /**
+     * The number of bits of the key consumed by each radix sort pass.
+     */
+    static final int RADIX_BITS = 8;
+
+    /**
+     * The number of buckets of each radix sort pass.
+     */
+    static final int RADIX_SIZE = 1 << RADIX_BITS;
+
+    /**
+     * The mask extracting the digit of each radix sort pass.
+     */
+    static final int RADIX_MASK = RADIX_SIZE - 1;
+
     /*
      * Sorting methods for seven primitive types.
      */
@@ -142,7 +164,11 @@ final class DualPivotQuicksort {
              * use Quicksort instead of merge sort.
              */
             if (++count == MAX_RUN_COUNT) {
-                sort(a, left, right, true);
+                if (right - left < RADIX_SORT_THRESHOLD) {
+                    sort(a, left, right, true);
+                } else {
+                    radixSort(a, left, right, work, workBase, workLen);
+                }
                 return;
             }
         }
@@ -590,7 +616,11 @@ final class DualPivotQuicksort {
              * use Quicksort instead of merge sort.
              */
             if (++count == MAX_RUN_COUNT) {
-                sort(a, left, right, true);
+                if (right - left < RADIX_SORT_THRESHOLD) {
+                    sort(a, left, right, true);
+                } else {
+                    radixSort(a, left, right, work, workBase, workLen);
+                }
                 return;
             }
         }
@@ -2138,7 +2168,11 @@ final class DualPivotQuicksort {
              * use Quicksort instead of merge sort.
              */
             if (++count == MAX_RUN_COUNT) {
-                sort(a, left, right, true);
+                if (right - left < RADIX_SORT_THRESHOLD) {
+                    sort(a, left, right, true);
+                } else {
+                    radixSort(a, left, right, work, workBase, workLen);
+                }
                 return;
             }
         }
@@ -2677,7 +2711,11 @@ final class DualPivotQuicksort {
              * use Quicksort instead of merge sort.
              */
             if (++count == MAX_RUN_COUNT) {
-                sort(a, left, right, true);
+                if (right - left < RADIX_SORT_THRESHOLD) {
+                    sort(a, left, right, true);
+                } else {
+                    radixSort(a, left, right, work, workBase, workLen);
+                }
                 return;
             }
         }
@@ -3075,4 +3113,339 @@ final class DualPivotQuicksort {
             sort(a, great + 1, right, false);
         }
     }
+
+    /*
+     * LSD radix sort for int, long, float and double.
+     *
+     * Each value is mapped to an unsigned key with the same order:
+     * the sign bit of integral values is flipped, and for floating-point
+     * values all bits of negative numbers are inverted as well, so that
+     * -0.0 precedes 0.0 and NaNs (canonicalized by floatToIntBits and
+     * doubleToLongBits) follow positive infinity. The keys are sorted
+     * one RADIX_BITS digit per pass, least significant digit first,
+     * scattering the elements back and forth between the array and a
+     * workspace. The histograms of all digits are built in one scan,
+     * and passes in which every element has the same digit are skipped.
+     */
+
+    /**
+     * Returns the unsigned radix key of the given int value.
+     */
+    static int radixKey(int value) {
+        return value ^ Integer.MIN_VALUE;
+    }
+
+    /**
+     * Returns the unsigned radix key of the given long value.
+     */
+    static long radixKey(long value) {
+        return value ^ Long.MIN_VALUE;
+    }
+
+    /**
+     * Returns the unsigned radix key of the given float value.
+     */
+    static int radixKey(float value) {
+        int bits = Float.floatToIntBits(value);
+        return bits ^ ((bits >> 31) | Integer.MIN_VALUE);
+    }
+
+    /**
+     * Returns the unsigned radix key of the given double value.
+     */
+    static long radixKey(double value) {
+        long bits = Double.doubleToLongBits(value);
+        return bits ^ ((bits >> 63) | Long.MIN_VALUE);
+    }
+
+    /**
+     * Prepares the radix sort pass whose histogram starts at the given
+     * offset: unless all n elements fall into the same bucket, turns
+     * the bucket counts into the starting positions of the buckets.
+     *
+     * @param count the histograms of all passes
+     * @param offset the offset of the histogram of this pass
+     * @param n the number of elements to be sorted
+     * @return false if the pass can be skipped
+     */
+    static boolean prepareRadixPass(int[] count, int offset, int n) {
+        for (int i = offset, end = offset + RADIX_SIZE; i < end; ++i) {
+            int c = count[i];
+            if (c == n) {
+                return false;
+            }
+            if (c != 0) {
+                break;
+            }
+        }
+        for (int i = offset, end = offset + RADIX_SIZE, sum = 0;
+             i < end; ++i) {
+            int c = count[i];
+            count[i] = sum;
+            sum += c;
+        }
+        return true;
+    }
+
+    /**
+     * Sorts the specified range of the array by LSD radix sort.
+     *
+     * @param a the array to be sorted
+     * @param left the index of the first element, inclusive, to be sorted
+     * @param right the index of the last element, inclusive, to be sorted
+     * @param work a workspace array (slice)
+     * @param workBase origin of usable space in work array
+     * @param workLen usable size of work array
+     */
+    private static void radixSort(int[] a, int left, int right,
+                                  int[] work, int workBase, int workLen) {
+        int n = right - left + 1;
+        if (work == null || workLen < n || workBase + n > work.length) {
+            work = new int[n];
+            workBase = 0;
+        }
+
+        // Build the histograms of all digits
+        int[] count = new int[(32 / RADIX_BITS) * RADIX_SIZE];
+        for (int k = left; k <= right; ++k) {
+            int key = radixKey(a[k]);
+            for (int shift = 0, c = 0; shift < 32;
+                 shift += RADIX_BITS, c += RADIX_SIZE) {
+                ++count[c + ((key >>> shift) & RADIX_MASK)];
+            }
+        }
+
+        // Scatter the elements by each digit in turn
+        int[] src = a, dst = work;
+        int so = left, dso = workBase;
+        for (int shift = 0, c = 0; shift < 32;
+             shift += RADIX_BITS, c += RADIX_SIZE) {
+            if (!prepareRadixPass(count, c, n)) {
+                continue;
+            }
+            for (int k = so, end = so + n; k < end; ++k) {
+                int ak = src[k];
+                int digit = (radixKey(ak) >>> shift) & RADIX_MASK;
+                dst[dso + count[c + digit]++] = ak;
+            }
+            int[] t = src; src = dst; dst = t;
+            int to = so; so = dso; dso = to;
+        }
+        if (src != a) {
+            System.arraycopy(src, so, a, left, n);
+        }
+    }
+
+    /**
+     * Sorts the specified range of the array by LSD radix sort.
+     *
+     * @param a the array to be sorted
+     * @param left the index of the first element, inclusive, to be sorted
+     * @param right the index of the last element, inclusive, to be sorted
+     * @param work a workspace array (slice)
+     * @param workBase origin of usable space in work array
+     * @param workLen usable size of work array
+     */
+    private static void radixSort(long[] a, int left, int right,
+                                  long[] work, int workBase, int workLen) {
+        int n = right - left + 1;
+        if (work == null || workLen < n || workBase + n > work.length) {
+            work = new long[n];
+            workBase = 0;
+        }
+
+        // Build the histograms of all digits
+        int[] count = new int[(64 / RADIX_BITS) * RADIX_SIZE];
+        for (int k = left; k <= right; ++k) {
+            long key = radixKey(a[k]);
+            for (int shift = 0, c = 0; shift < 64;
+                 shift += RADIX_BITS, c += RADIX_SIZE) {
+                ++count[c + ((int) (key >>> shift) & RADIX_MASK)];
+            }
+        }
+
+        // Scatter the elements by each digit in turn
+        long[] src = a, dst = work;
+        int so = left, dso = workBase;
+        for (int shift = 0, c = 0; shift < 64;
+             shift += RADIX_BITS, c += RADIX_SIZE) {
+            if (!prepareRadixPass(count, c, n)) {
+                continue;
+            }
+            for (int k = so, end = so + n; k < end; ++k) {
+                long ak = src[k];
+                int digit = (int) (radixKey(ak) >>> shift) & RADIX_MASK;
+                dst[dso + count[c + digit]++] = ak;
+            }
+            long[] t = src; src = dst; dst = t;
+            int to = so; so = dso; dso = to;
+        }
+        if (src != a) {
+            System.arraycopy(src, so, a, left, n);
+        }
+    }
+
+    /**
+     * Sorts the specified range of the array by LSD radix sort.
+     *
+     * @param a the array to be sorted
+     * @param left the index of the first element, inclusive, to be sorted
+     * @param right the index of the last element, inclusive, to be sorted
+     * @param work a workspace array (slice)
+     * @param workBase origin of usable space in work array
+     * @param workLen usable size of work array
+     */
+    private static void radixSort(float[] a, int left, int right,
+                                  float[] work, int workBase, int workLen) {
+        int n = right - left + 1;
+        if (work == null || workLen < n || workBase + n > work.length) {
+            work = new float[n];
+            workBase = 0;
+        }
+
+        // Build the histograms of all digits
+        int[] count = new int[(32 / RADIX_BITS) * RADIX_SIZE];
+        for (int k = left; k <= right; ++k) {
+            int key = radixKey(a[k]);
+            for (int shift = 0, c = 0; shift < 32;
+                 shift += RADIX_BITS, c += RADIX_SIZE) {
+                ++count[c + ((key >>> shift) & RADIX_MASK)];
+            }
+        }
+
+        // Scatter the elements by each digit in turn
+        float[] src = a, dst = work;
+        int so = left, dso = workBase;
+        for (int shift = 0, c = 0; shift < 32;
+             shift += RADIX_BITS, c += RADIX_SIZE) {
+            if (!prepareRadixPass(count, c, n)) {
+                continue;
+            }
+            for (int k = so, end = so + n; k < end; ++k) {
+                float ak = src[k];
+                int digit = (radixKey(ak) >>> shift) & RADIX_MASK;
+                dst[dso + count[c + digit]++] = ak;
+            }
+            float[] t = src; src = dst; dst = t;
+            int to = so; so = dso; dso = to;
+        }
+        if (src != a) {
+            System.arraycopy(src, so, a, left, n);
+        }
+    }
+
+    /**
+     * Sorts the specified range of the array by LSD radix sort.
+     *
+     * @param a the array to be sorted
+     * @param left the index of the first element, inclusive, to be sorted
+     * @param right the index of the last element, inclusive, to be sorted
+     * @param work a workspace array (slice)
+     * @param workBase origin of usable space in work array
+     * @param workLen usable size of work array
+     */
+    private static void radixSort(double[] a, int left, int right,
+                                  double[] work, int workBase, int workLen) {
+        int n = right - left + 1;
+        if (work == null || workLen < n || workBase + n > work.length) {
+            work = new double[n];
+            workBase = 0;
+        }
+
+        // Build the histograms of all digits
+        int[] count = new int[(64 / RADIX_BITS) * RADIX_SIZE];
+        for (int k = left; k <= right; ++k) {
+            long key = radixKey(a[k]);
+            for (int shift = 0, c = 0; shift < 64;
+                 shift += RADIX_BITS, c += RADIX_SIZE) {
+                ++count[c + ((int) (key >>> shift) & RADIX_MASK)];
+            }
+        }
+
+        // Scatter the elements by each digit in turn
+        double[] src = a, dst = work;
+        int so = left, dso = workBase;
+        for (int shift = 0, c = 0; shift < 64;
+             shift += RADIX_BITS, c += RADIX_SIZE) {
+            if (!prepareRadixPass(count, c, n)) {
+                continue;
+            }
+            for (int k = so, end = so + n; k < end; ++k) {
+                double ak = src[k];
+                int digit = (int) (radixKey(ak) >>> shift) & RADIX_MASK;
+                dst[dso + count[c + digit]++] = ak;
+            }
+            double[] t = src; src = dst; dst = t;
+            int to = so; so = dso; dso = to;
+        }
+        if (src != a) {
+            System.arraycopy(src, so, a, left, n);
+        }
+    }
+
+    /*
+     * Sorting of (long key, int value) pairs, used by the key-extracting
+     * object sorts in class Arrays. Pairs with equal keys keep their
+     * relative order, so the sort is stable.
+     */
+
+    /**
+     * Sorts the first n pairs of the given key and value arrays into
+     * ascending order of the keys.
+     *
+     * @param keys the keys to be sorted
+     * @param values the values moved along with the keys
+     * @param n the number of pairs to be sorted
+     */
+    static void sortPairs(long[] keys, int[] values, int n) {
+        // Use insertion sort on tiny arrays
+        if (n < INSERTION_SORT_THRESHOLD) {
+            for (int i = 1; i < n; ++i) {
+                long key = keys[i];
+                int value = values[i];
+                int j = i - 1;
+                while (j >= 0 && key < keys[j]) {
+                    keys[j + 1] = keys[j];
+                    values[j + 1] = values[j];
+                    --j;
+                }
+                keys[j + 1] = key;
+                values[j + 1] = value;
+            }
+            return;
+        }
+
+        // Build the histograms of all digits
+        int[] count = new int[(64 / RADIX_BITS) * RADIX_SIZE];
+        for (int k = 0; k < n; ++k) {
+            long key = radixKey(keys[k]);
+            for (int shift = 0, c = 0; shift < 64;
+                 shift += RADIX_BITS, c += RADIX_SIZE) {
+                ++count[c + ((int) (key >>> shift) & RADIX_MASK)];
+            }
+        }
+
+        // Scatter the pairs by each digit in turn
+        long[] src = keys, dst = new long[n];
+        int[] vsrc = values, vdst = new int[n];
+        for (int shift = 0, c = 0; shift < 64;
+             shift += RADIX_BITS, c += RADIX_SIZE) {
+            if (!prepareRadixPass(count, c, n)) {
+                continue;
+            }
+            for (int k = 0; k < n; ++k) {
+                long ak = src[k];
+                int digit = (int) (radixKey(ak) >>> shift) & RADIX_MASK;
+                int p = count[c + digit]++;
+                dst[p] = ak;
+                vdst[p] = vsrc[k];
+            }
+            long[] t = src; src = dst; dst = t;
+            int[] vt = vsrc; vsrc = vdst; vdst = vt;
+        }
+        if (src != keys) {
+            System.arraycopy(src, 0, keys, 0, n);
+            System.arraycopy(vsrc, 0, values, 0, n);
+        }
+    }
 }
@@ -0,0 +1,374 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util;
+
+/**
+ * A priority queue of {@code int} identifiers ordered by {@code double}
+ * priorities, based on a d-ary heap.  Each non-negative identifier may
+ * be queued at most once, and its priority can be changed or the
+ * identifier removed in logarithmic time, without the allocation of a
+ * node or handle per element.  This is the usual structure of graph
+ * algorithms such as Dijkstra's shortest paths or Prim's minimum
+ * spanning tree, where the identifiers are vertex numbers.
+ *
+ * <p>The <em>head</em> of the queue is the identifier with the least
+ * priority; ties are broken arbitrarily.  The queue grows as needed to
+ * hold identifiers larger than its initial identifier capacity.
+ * Priorities must not be NaN; {@code -0.0} and {@code 0.0} are
+ * considered equal.  The
+ * space used is proportional to the largest identifier ever inserted.
+ *
+ * <p><strong>Note that this implementation is not synchronized.</strong>
+ *
+ * <p>Implementation note: this implementation provides O(log(n)) time
+ * for {@code insert}, {@code update}, {@code poll} and {@code remove};
+ * and constant time for {@code contains}, {@code priority},
+ * {@code peek}, {@code peekPriority} and {@code size}.
+ *
+ * @see IndexedPriorityQueue
+ * @see IndexedLongPriorityQueue
+ */
+public class IndexedDoublePriorityQueue {
+
+    private static final int DEFAULT_ARITY = 4;
+
+    /**
+     * The heap of identifiers: the children of heap[n] are heap[d*n+1]
+     * to heap[d*n+d], and the priority of each is not less than the
+     * priority of heap[n].
+     */
+    private int[] heap;
+
+    /**
+     * The position of each identifier in the heap, or -1 if not queued.
+     */
+    private int[] pos;
+
+    /**
+     * The priority of each identifier, meaningful only while queued.
+     */
+    private double[] prio;
+
+    /**
+     * The number of identifiers in the queue.
+     */
+    private int size;
+
+    /**
+     * The arity of the heap.
+     */
+    private final int arity;
+
+    /**
+     * Creates an empty queue for identifiers up to
+     * {@code idCapacity - 1}, using a 4-ary heap.
+     *
+     * @param idCapacity the initial number of distinct identifiers
+     * @throws IllegalArgumentException if {@code idCapacity} is negative
+     */
+    public IndexedDoublePriorityQueue(int idCapacity) {
+        this(idCapacity, DEFAULT_ARITY);
+    }
+
+    /**
+     * Creates an empty queue for identifiers up to
+     * {@code idCapacity - 1}, using a heap of the given arity.
+     *
+     * @param idCapacity the initial number of distinct identifiers
+     * @param arity the number of children of each node of the heap
+     * @throws IllegalArgumentException if {@code idCapacity} is negative,
+     *         or {@code arity} is less than 2
+     */
+    public IndexedDoublePriorityQueue(int idCapacity, int arity) {
+        if (idCapacity < 0 || arity < 2)
+            throw new IllegalArgumentException();
+        this.heap = new int[idCapacity];
+        this.pos = new int[idCapacity];
+        this.prio = new double[idCapacity];
+        this.arity = arity;
+        Arrays.fill(pos, -1);
+    }
+
+    /**
+     * Makes room for the identifier id.
+     */
+    private void ensureCapacity(int id) {
+        int oldCapacity = pos.length;
+        if (id >= oldCapacity) {
+            int newCapacity =
+                Math.max(id + 1, oldCapacity + (oldCapacity >> 1));
+            if (newCapacity < 0) // overflow
+                newCapacity = Integer.MAX_VALUE - 8;
+            heap = Arrays.copyOf(heap, newCapacity);
+            pos = Arrays.copyOf(pos, newCapacity);
+            prio = Arrays.copyOf(prio, newCapacity);
+            Arrays.fill(pos, oldCapacity, newCapacity, -1);
+        }
+    }
+
+    /**
+     * Inserts the identifier with the given priority, or changes its
+     * priority if it is already queued.
+     *
+     * @param id the identifier
+     * @param priority its priority
+     * @return {@code true} if the identifier was not already queued
+     * @throws IllegalArgumentException if {@code id} is negative, or
+     *         {@code priority} is NaN
+     */
+    public boolean insert(int id, double priority) {
+        if (id < 0)
+            throw new IllegalArgumentException("Negative id: " + id);
+        checkPriority(priority);
+        ensureCapacity(id);
+        int i = pos[id];
+        prio[id] = priority;
+        if (i >= 0) {
+            reposition(id, i);
+            return false;
+        }
+        siftUp(size++, id);
+        return true;
+    }
+
+    /**
+     * Changes the priority of a queued identifier.
+     *
+     * @param id the identifier
+     * @param priority its new priority
+     * @throws NoSuchElementException if the identifier is not queued
+     * @throws IllegalArgumentException if {@code priority} is NaN
+     */
+    public void update(int id, double priority) {
+        int i = position(id);
+        checkPriority(priority);
+        prio[id] = priority;
+        reposition(id, i);
+    }
+
+    /**
+     * Lowers the priority of the identifier to the given priority,
+     * inserting the identifier if it is not queued.  Does nothing if
+     * the identifier is queued with a priority not greater than the
+     * given one. This is the relaxation step of shortest path
+     * algorithms.
+     *
+     * @param id the identifier
+     * @param priority the candidate priority
+     * @return {@code true} if the queue changed as a result of the call
+     * @throws IllegalArgumentException if {@code id} is negative, or
+     *         {@code priority} is NaN
+     */
+    public boolean decrease(int id, double priority) {
+        if (id < 0)
+            throw new IllegalArgumentException("Negative id: " + id);
+        checkPriority(priority);
+        if (id < pos.length && pos[id] >= 0) {
+            if (priority >= prio[id])
+                return false;
+            prio[id] = priority;
+            siftUp(pos[id], id);
+            return true;
+        }
+        return insert(id, priority);
+    }
+
+    /**
+     * Returns {@code true} if the identifier is queued.
+     *
+     * @param id the identifier
+     * @return {@code true} if the identifier is queued
+     */
+    public boolean contains(int id) {
+        return id >= 0 && id < pos.length && pos[id] >= 0;
+    }
+
+    /**
+     * Returns the priority of a queued identifier.
+     *
+     * @param id the identifier
+     * @return its priority
+     * @throws NoSuchElementException if the identifier is not queued
+     */
+    public double priority(int id) {
+        position(id);
+        return prio[id];
+    }
+
+    /**
+     * Returns the identifier at the head of the queue, without removing
+     * it.
+     *
+     * @return the identifier with the least priority, or -1 if the queue
+     *         is empty
+     */
+    public int peek() {
+        return (size == 0) ? -1 : heap[0];
+    }
+
+    /**
+     * Returns the priority of the head of the queue.
+     *
+     * @return the least priority in the queue
+     * @throws NoSuchElementException if the queue is empty
+     */
+    public double peekPriority() {
+        if (size == 0)
+            throw new NoSuchElementException();
+        return prio[heap[0]];
+    }
+
+    /**
+     * Removes and returns the identifier at the head of the queue.
+     *
+     * @return the identifier with the least priority, or -1 if the queue
+     *         is empty
+     */
+    public int poll() {
+        if (size == 0)
+            return -1;
+        int id = heap[0];
+        removeAt(0);
+        return id;
+    }
+
+    /**
+     * Removes the identifier from the queue, if it is present.
+     *
+     * @param id the identifier
+     * @return {@code true} if the identifier was queued
+     */
+    public boolean remove(int id) {
+        if (!contains(id))
+            return false;
+        removeAt(pos[id]);
+        return true;
+    }
+
+    /**
+     * Returns the number of identifiers in the queue.
+     *
+     * @return the number of identifiers in the queue
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns {@code true} if the queue is empty.
+     *
+     * @return {@code true} if the queue is empty
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes all identifiers from the queue.
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++)
+            pos[heap[i]] = -1;
+        size = 0;
+    }
+
+    private static void checkPriority(double priority) {
+        if (priority != priority)
+            throw new IllegalArgumentException("NaN priority");
+    }
+
+    private int position(int id) {
+        int i;
+        if (id < 0 || id >= pos.length || (i = pos[id]) < 0)
+            throw new NoSuchElementException("Not queued: " + id);
+        return i;
+    }
+
+    private void removeAt(int i) {
+        pos[heap[i]] = -1;
+        int s = --size;
+        if (s != i) {
+            int last = heap[s];
+            reposition(last, i);
+        }
+    }
+
+    /**
+     * Places id, whose priority may have changed either way, starting
+     * from position i.
+     */
+    private void reposition(int id, int i) {
+        if (i > 0 && prio[id] < prio[heap[(i - 1) / arity]])
+            siftUp(i, id);
+        else
+            siftDown(i, id);
+    }
+
+    private void siftUp(int k, int id) {
+        int[] heap = this.heap, pos = this.pos;
+        double key = prio[id];
+        while (k > 0) {
+            int parent = (k - 1) / arity;
+            int p = heap[parent];
+            if (key >= prio[p])
+                break;
+            heap[k] = p;
+            pos[p] = k;
+            k = parent;
+        }
+        heap[k] = id;
+        pos[id] = k;
+    }
+
+    private void siftDown(int k, int id) {
+        int[] heap = this.heap, pos = this.pos;
+        double[] prio = this.prio;
+        double key = prio[id];
+        int n = size, d = arity;
+        int firstLeaf = (n + d - 2) / d; // nodes before it have children
+        while (k < firstLeaf) {
+            int child = d * k + 1;    // find the least child
+            int end = Math.min(child + d, n);
+            int c = heap[child];
+            double cp = prio[c];
+            for (int j = child + 1; j < end; j++) {
+                int h = heap[j];
+                if (prio[h] < cp) {
+                    c = h;
+                    cp = prio[h];
+                    child = j;
+                }
+            }
+            if (key <= cp)
+                break;
+            heap[k] = c;
+            pos[c] = k;
+            k = child;
+        }
+        heap[k] = id;
+        pos[id] = k;
+    }
+}
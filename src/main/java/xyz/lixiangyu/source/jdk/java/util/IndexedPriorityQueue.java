@@ -0,0 +1,628 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util;
+
+import java.util.function.Consumer;
+
+/**
+ * An unbounded priority {@linkplain Queue queue} based on a d-ary heap,
+ * whose elements can be removed or repositioned in logarithmic time
+ * through the {@linkplain Handle handles} returned when inserting them.
+ * The elements of the queue are ordered according to their
+ * {@linkplain Comparable natural ordering}, or by a {@link Comparator}
+ * provided at queue construction time, depending on which constructor is
+ * used.  The queue does not permit {@code null} elements.
+ *
+ * <p>The <em>head</em> of this queue is the <em>least</em> element
+ * with respect to the specified ordering.  If multiple elements are
+ * tied for least value, the head is one of those elements -- ties are
+ * broken arbitrarily.
+ *
+ * <p>Unlike {@link PriorityQueue}, this queue supports changing the
+ * priority of an element while it is queued, as needed by algorithms
+ * such as Dijkstra's shortest paths: after the fields determining the
+ * ordering of an element have been changed, {@link #update(Handle)}
+ * restores the heap order; alternatively {@link #update(Handle, Object)}
+ * replaces the element associated with a handle. Both take time
+ * O(log(n)), as does {@link #remove(Handle)}. The ordering of a queued
+ * element must not be changed in any other way.
+ *
+ * <p>Each node of the heap has {@code d} children, the <i>arity</i> of
+ * the heap, 4 by default. Compared to a binary heap, a higher arity
+ * makes the heap shallower, reducing the cost of insertions and
+ * priority decreases, and places the children of a node next to each
+ * other in memory, at the price of more comparisons per level when
+ * removing the head.
+ *
+ * <p>This class and its iterator implement all of the
+ * <em>optional</em> methods of the {@link Collection} and {@link
+ * Iterator} interfaces.  The Iterator provided in method {@link
+ * #iterator()} is <em>not</em> guaranteed to traverse the elements of
+ * the priority queue in any particular order.
+ *
+ * <p><strong>Note that this implementation is not synchronized.</strong>
+ * Multiple threads should not access an {@code IndexedPriorityQueue}
+ * instance concurrently if any of the threads modifies the queue.
+ * Instead, use the thread-safe {@link
+ * java.util.concurrent.ConcurrentIndexedPriorityQueue} class.
+ *
+ * <p>Implementation note: this implementation provides
+ * O(log(n)) time for the enqueuing and dequeuing methods
+ * ({@code offer}, {@code insert}, {@code poll}, {@code remove()} and
+ * {@code add}) and for the methods taking a handle ({@code remove} and
+ * {@code update}); linear time for the {@code remove(Object)} and
+ * {@code contains(Object)} methods; and constant time for the retrieval
+ * methods ({@code peek}, {@code element}, and {@code size}).
+ *
+ * @see IndexedLongPriorityQueue
+ * @see IndexedDoublePriorityQueue
+ * @param <E> the type of elements held in this collection
+ */
+public class IndexedPriorityQueue<E> extends AbstractQueue<E> {
+
+    /**
+     * A reference to an element inserted into an indexed priority queue,
+     * used to remove the element or to change its priority.  A handle
+     * remains associated with its element after the element is removed
+     * from the queue, but can then no longer be used to update it.
+     *
+     * @param <E> the type of the element
+     */
+    public interface Handle<E> {
+        /**
+         * Returns the element associated with this handle.
+         *
+         * @return the element
+         */
+        E get();
+    }
+
+    /**
+     * The heap node of an element, which is also its handle.
+     */
+    static final class Node<E> implements Handle<E> {
+        E item;
+        int index; // the position in the heap, or -1 if not queued
+
+        Node(E item) {
+            this.item = item;
+        }
+
+        public E get() {
+            return item;
+        }
+
+        public String toString() {
+            return String.valueOf(item);
+        }
+    }
+
+    private static final int DEFAULT_INITIAL_CAPACITY = 16;
+
+    private static final int DEFAULT_ARITY = 4;
+
+    /**
+     * Priority queue represented as a balanced d-ary heap: the children
+     * of queue[n] are queue[d*n+1] to queue[d*n+d].  For each node n in
+     * the heap and each descendant c of n, n <= c.  The node with the
+     * lowest element is in queue[0], assuming the queue is nonempty.
+     * Each node records its own index in the heap.
+     */
+    private Node<E>[] queue;
+
+    /**
+     * The number of elements in the priority queue.
+     */
+    private int size;
+
+    /**
+     * The arity of the heap.
+     */
+    private final int arity;
+
+    /**
+     * The comparator, or null if priority queue uses elements'
+     * natural ordering.
+     */
+    private final Comparator<? super E> comparator;
+
+    /**
+     * The number of times this priority queue has been
+     * <i>structurally modified</i>.  See AbstractList for gory details.
+     */
+    transient int modCount; // non-private to simplify nested class access
+
+    /**
+     * Creates an {@code IndexedPriorityQueue} with the default initial
+     * capacity and arity that orders its elements according to their
+     * {@linkplain Comparable natural ordering}.
+     */
+    public IndexedPriorityQueue() {
+        this(DEFAULT_INITIAL_CAPACITY, DEFAULT_ARITY, null);
+    }
+
+    /**
+     * Creates an {@code IndexedPriorityQueue} with the default initial
+     * capacity and arity whose elements are ordered according to the
+     * specified comparator.
+     *
+     * @param  comparator the comparator that will be used to order this
+     *         priority queue.  If {@code null}, the {@linkplain Comparable
+     *         natural ordering} of the elements will be used.
+     */
+    public IndexedPriorityQueue(Comparator<? super E> comparator) {
+        this(DEFAULT_INITIAL_CAPACITY, DEFAULT_ARITY, comparator);
+    }
+
+    /**
+     * Creates an {@code IndexedPriorityQueue} with the specified initial
+     * capacity and arity whose elements are ordered according to the
+     * specified comparator.
+     *
+     * @param  initialCapacity the initial capacity for this priority queue
+     * @param  arity the number of children of each node of the heap
+     * @param  comparator the comparator that will be used to order this
+     *         priority queue.  If {@code null}, the {@linkplain Comparable
+     *         natural ordering} of the elements will be used.
+     * @throws IllegalArgumentException if {@code initialCapacity} is
+     *         less than 1, or {@code arity} is less than 2
+     */
+    @SuppressWarnings("unchecked")
+    public IndexedPriorityQueue(int initialCapacity, int arity,
+                                Comparator<? super E> comparator) {
+        if (initialCapacity < 1 || arity < 2)
+            throw new IllegalArgumentException();
+        this.queue = (Node<E>[]) new Node<?>[initialCapacity];
+        this.arity = arity;
+        this.comparator = comparator;
+    }
+
+    /**
+     * The maximum size of array to allocate.
+     * Some VMs reserve some header words in an array.
+     * Attempts to allocate larger arrays may result in
+     * OutOfMemoryError: Requested array size exceeds VM limit
+     */
+    private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+    /**
+     * Increases the capacity of the array.
+     *
+     * @param minCapacity the desired minimum capacity
+     */
+    private void grow(int minCapacity) {
+        int oldCapacity = queue.length;
+        // Double size if small; else grow by 50%
+        int newCapacity = oldCapacity + ((oldCapacity < 64) ?
+                                         (oldCapacity + 2) :
+                                         (oldCapacity >> 1));
+        if (newCapacity - MAX_ARRAY_SIZE > 0) {
+            if (minCapacity < 0) // overflow
+                throw new OutOfMemoryError();
+            newCapacity = (minCapacity > MAX_ARRAY_SIZE) ?
+                Integer.MAX_VALUE : MAX_ARRAY_SIZE;
+        }
+        queue = Arrays.copyOf(queue, newCapacity);
+    }
+
+    /**
+     * Inserts the specified element into this priority queue, and
+     * returns a handle to it.
+     *
+     * @param e the element to add
+     * @return a handle to the inserted element
+     * @throws ClassCastException if the specified element cannot be
+     *         compared with elements currently in this priority queue
+     *         according to the priority queue's ordering
+     * @throws NullPointerException if the specified element is null
+     */
+    public Handle<E> insert(E e) {
+        if (e == null)
+            throw new NullPointerException();
+        modCount++;
+        int i = size;
+        if (i >= queue.length)
+            grow(i + 1);
+        size = i + 1;
+        Node<E> node = new Node<>(e);
+        siftUp(i, node);
+        return node;
+    }
+
+    /**
+     * Inserts the specified element into this priority queue.
+     *
+     * @return {@code true} (as specified by {@link Queue#offer})
+     * @throws ClassCastException if the specified element cannot be
+     *         compared with elements currently in this priority queue
+     *         according to the priority queue's ordering
+     * @throws NullPointerException if the specified element is null
+     */
+    public boolean offer(E e) {
+        insert(e);
+        return true;
+    }
+
+    public E peek() {
+        return (size == 0) ? null : queue[0].item;
+    }
+
+    /**
+     * Retrieves, but does not remove, the handle of the head of this
+     * queue, or returns {@code null} if this queue is empty.
+     *
+     * @return the handle of the head of this queue, or {@code null} if
+     *         this queue is empty
+     */
+    public Handle<E> peekHandle() {
+        return (size == 0) ? null : queue[0];
+    }
+
+    public E poll() {
+        if (size == 0)
+            return null;
+        Node<E> result = queue[0];
+        removeAt(0);
+        return result.item;
+    }
+
+    /**
+     * Returns the queued node of the given handle, or null if the handle
+     * is not queued in this queue.
+     */
+    @SuppressWarnings("unchecked")
+    private Node<E> queued(Handle<E> handle) {
+        if (!(handle instanceof Node))
+            return null;
+        Node<E> node = (Node<E>) handle;
+        int i = node.index;
+        return (i >= 0 && i < size && queue[i] == node) ? node : null;
+    }
+
+    /**
+     * Returns {@code true} if the element of the specified handle is
+     * queued in this queue.
+     *
+     * @param handle a handle
+     * @return {@code true} if the element of the handle is in this queue
+     */
+    public boolean contains(Handle<E> handle) {
+        return queued(handle) != null;
+    }
+
+    /**
+     * Removes the element of the specified handle from this queue, if it
+     * is present.
+     *
+     * @param handle the handle of the element to be removed
+     * @return {@code true} if the element was removed from this queue
+     */
+    public boolean remove(Handle<E> handle) {
+        Node<E> node = queued(handle);
+        if (node == null)
+            return false;
+        removeAt(node.index);
+        return true;
+    }
+
+    /**
+     * Restores the position of the element of the specified handle in
+     * this queue after the ordering of the element has changed, either
+     * way.
+     *
+     * @param handle the handle of the element whose ordering changed
+     * @throws IllegalArgumentException if the element of the handle is
+     *         not in this queue
+     */
+    public void update(Handle<E> handle) {
+        Node<E> node = queued(handle);
+        if (node == null)
+            throw new IllegalArgumentException("Not queued: " + handle);
+        reposition(node);
+    }
+
+    /**
+     * Replaces the element of the specified handle in this queue with the
+     * specified element, and restores its position in the queue.
+     *
+     * @param handle the handle of the element to be replaced
+     * @param e the new element
+     * @return the element previously associated with the handle
+     * @throws IllegalArgumentException if the element of the handle is
+     *         not in this queue
+     * @throws ClassCastException if the specified element cannot be
+     *         compared with elements currently in this priority queue
+     *         according to the priority queue's ordering
+     * @throws NullPointerException if the specified element is null
+     */
+    public E update(Handle<E> handle, E e) {
+        if (e == null)
+            throw new NullPointerException();
+        Node<E> node = queued(handle);
+        if (node == null)
+            throw new IllegalArgumentException("Not queued: " + handle);
+        E old = node.item;
+        node.item = e;
+        reposition(node);
+        return old;
+    }
+
+    /**
+     * Moves the node up or down to its place in the heap.
+     */
+    private void reposition(Node<E> node) {
+        int i = node.index;
+        siftUp(i, node);
+        if (node.index == i)
+            siftDown(i, node);
+    }
+
+    private int indexOf(Object o) {
+        if (o != null) {
+            for (int i = 0; i < size; i++)
+                if (o.equals(queue[i].item))
+                    return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Removes a single instance of the specified element from this queue,
+     * if it is present.  More formally, removes an element {@code e} such
+     * that {@code o.equals(e)}, if this queue contains one or more such
+     * elements.  Returns {@code true} if and only if this queue contained
+     * the specified element (or equivalently, if this queue changed as a
+     * result of the call).
+     *
+     * @param o element to be removed from this queue, if present
+     * @return {@code true} if this queue changed as a result of the call
+     */
+    public boolean remove(Object o) {
+        int i = indexOf(o);
+        if (i == -1)
+            return false;
+        removeAt(i);
+        return true;
+    }
+
+    /**
+     * Returns {@code true} if this queue contains the specified element.
+     * More formally, returns {@code true} if and only if this queue contains
+     * at least one element {@code e} such that {@code o.equals(e)}.
+     *
+     * @param o object to be checked for containment in this queue
+     * @return {@code true} if this queue contains the specified element
+     */
+    public boolean contains(Object o) {
+        return indexOf(o) != -1;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Removes all of the elements from this priority queue.
+     * The queue will be empty after this call returns.
+     */
+    public void clear() {
+        modCount++;
+        for (int i = 0; i < size; i++) {
+            queue[i].index = -1;
+            queue[i] = null;
+        }
+        size = 0;
+    }
+
+    /**
+     * Returns the comparator used to order the elements in this
+     * queue, or {@code null} if this queue is sorted according to
+     * the {@linkplain Comparable natural ordering} of its elements.
+     *
+     * @return the comparator used to order this queue, or
+     *         {@code null} if this queue is sorted according to the
+     *         natural ordering of its elements
+     */
+    public Comparator<? super E> comparator() {
+        return comparator;
+    }
+
+    /**
+     * Returns an iterator over the elements in this queue. The iterator
+     * does not return the elements in any particular order.
+     *
+     * @return an iterator over the elements in this queue
+     */
+    public Iterator<E> iterator() {
+        return new Itr();
+    }
+
+    private final class Itr implements Iterator<E> {
+        /**
+         * Index (into queue array) of element to be returned by
+         * subsequent call to next.
+         */
+        private int cursor;
+
+        /**
+         * Node returned by the most recent call to next, unless that
+         * node has since been deleted by a call to remove.
+         */
+        private Node<E> lastRet;
+
+        /**
+         * A queue of nodes that were moved from the unvisited portion of
+         * the heap into the visited portion as a result of "unlucky"
+         * element removals during the iteration, as in PriorityQueue.
+         */
+        private ArrayDeque<Node<E>> forgetMeNot;
+
+        /**
+         * The modCount value that the iterator believes that the backing
+         * Queue should have.  If this expectation is violated, the iterator
+         * has detected concurrent modification.
+         */
+        private int expectedModCount = modCount;
+
+        public boolean hasNext() {
+            return cursor < size ||
+                (forgetMeNot != null && !forgetMeNot.isEmpty());
+        }
+
+        public E next() {
+            if (expectedModCount != modCount)
+                throw new ConcurrentModificationException();
+            if (cursor < size) {
+                lastRet = queue[cursor++];
+                return lastRet.item;
+            }
+            if (forgetMeNot != null) {
+                lastRet = forgetMeNot.poll();
+                if (lastRet != null)
+                    return lastRet.item;
+            }
+            throw new NoSuchElementException();
+        }
+
+        public void remove() {
+            if (expectedModCount != modCount)
+                throw new ConcurrentModificationException();
+            if (lastRet == null)
+                throw new IllegalStateException();
+            if (lastRet.index == cursor - 1) {
+                Node<E> moved = removeAt(cursor - 1);
+                if (moved == null)
+                    cursor--;
+                else {
+                    if (forgetMeNot == null)
+                        forgetMeNot = new ArrayDeque<>();
+                    forgetMeNot.add(moved);
+                }
+            } else if (lastRet.index >= 0) {
+                removeAt(lastRet.index); // returned from forgetMeNot
+            } else {
+                throw new IllegalStateException();
+            }
+            lastRet = null;
+            expectedModCount = modCount;
+        }
+    }
+
+    /**
+     * Removes the ith node from the queue.
+     *
+     * Normally this method leaves the nodes at up to i-1, inclusive,
+     * untouched.  Under these circumstances, it returns null.
+     * Occasionally, in order to maintain the heap invariant, it must
+     * swap a later node of the list with one earlier than i.  Under
+     * these circumstances, this method returns the node that was
+     * previously at the end of the list and is now at some position
+     * before i. This fact is used by iterator.remove so as to avoid
+     * missing traversing elements.
+     */
+    private Node<E> removeAt(int i) {
+        modCount++;
+        Node<E> removed = queue[i];
+        removed.index = -1;
+        int s = --size;
+        Node<E> last = queue[s];
+        queue[s] = null;
+        if (s == i)
+            return null;
+        siftUp(i, last);
+        if (last.index == i)
+            siftDown(i, last);
+        return (last.index < i) ? last : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private int compare(E a, E b) {
+        return (comparator != null) ? comparator.compare(a, b)
+            : ((Comparable<? super E>) a).compareTo(b);
+    }
+
+    /**
+     * Inserts node x at position k, maintaining heap invariant by
+     * promoting x up the tree until it is greater than or equal to
+     * its parent, or is the root.
+     *
+     * @param k the position to fill
+     * @param x the node to insert
+     */
+    private void siftUp(int k, Node<E> x) {
+        E key = x.item;
+        while (k > 0) {
+            int parent = (k - 1) / arity;
+            Node<E> p = queue[parent];
+            if (compare(key, p.item) >= 0)
+                break;
+            queue[k] = p;
+            p.index = k;
+            k = parent;
+        }
+        queue[k] = x;
+        x.index = k;
+    }
+
+    /**
+     * Inserts node x at position k, maintaining heap invariant by
+     * demoting x down the tree repeatedly until it is less than or
+     * equal to its children or is a leaf.
+     *
+     * @param k the position to fill
+     * @param x the node to insert
+     */
+    private void siftDown(int k, Node<E> x) {
+        E key = x.item;
+        int n = size, d = arity;
+        int firstLeaf = (n + d - 2) / d; // nodes before it have children
+        while (k < firstLeaf) {
+            int child = d * k + 1;    // find the least child
+            int end = Math.min(child + d, n);
+            Node<E> c = queue[child];
+            for (int j = child + 1; j < end; j++) {
+                if (compare(c.item, queue[j].item) > 0)
+                    c = queue[child = j];
+            }
+            if (compare(key, c.item) <= 0)
+                break;
+            queue[k] = c;
+            c.index = k;
+            k = child;
+        }
+        queue[k] = x;
+        x.index = k;
+    }
+
+    public void forEach(Consumer<? super E> action) {
+        Objects.requireNonNull(action);
+        final int expectedModCount = modCount;
+        for (int i = 0; expectedModCount == modCount && i < size; i++)
+            action.accept(queue[i].item);
+        if (expectedModCount != modCount)
+            throw new ConcurrentModificationException();
+    }
+}
@@ -25,6 +25,9 @@
 
 package java.util;
 
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
 import java.util.function.UnaryOperator;
 
 /**
@@ -483,6 +486,97 @@ public interface List<E> extends Collection<E> {
         }
     }
 
+    /**
+     * Sorts this list into ascending order of the {@code int} keys
+     * extracted from its elements by the given function. The key of each
+     * element is extracted exactly once.
+     *
+     * <p>This sort is guaranteed to be <i>stable</i>:  elements with equal
+     * keys will not be reordered as a result of the sort.
+     *
+     * @implSpec
+     * The default implementation obtains an array containing all elements in
+     * this list, sorts the array with {@link Arrays#sortByInt(Object[],
+     * ToIntFunction)}, and iterates over this list resetting each element
+     * from the corresponding position in the array.
+     *
+     * @param keyExtractor the function used to extract the sort key
+     * @throws NullPointerException if the key extractor is null
+     * @throws UnsupportedOperationException if the list's list-iterator does
+     *         not support the {@code set} operation
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    default void sortByInt(ToIntFunction<? super E> keyExtractor) {
+        Object[] a = this.toArray();
+        Arrays.sortByInt(a, (ToIntFunction) keyExtractor);
+        ListIterator<E> i = this.listIterator();
+        for (Object e : a) {
+            i.next();
+            i.set((E) e);
+        }
+    }
+
+    /**
+     * Sorts this list into ascending order of the {@code long} keys
+     * extracted from its elements by the given function. The key of each
+     * element is extracted exactly once.
+     *
+     * <p>This sort is guaranteed to be <i>stable</i>:  elements with equal
+     * keys will not be reordered as a result of the sort.
+     *
+     * @implSpec
+     * The default implementation obtains an array containing all elements in
+     * this list, sorts the array with {@link Arrays#sortByLong(Object[],
+     * ToLongFunction)}, and iterates over this list resetting each element
+     * from the corresponding position in the array.
+     *
+     * @param keyExtractor the function used to extract the sort key
+     * @throws NullPointerException if the key extractor is null
+     * @throws UnsupportedOperationException if the list's list-iterator does
+     *         not support the {@code set} operation
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    default void sortByLong(ToLongFunction<? super E> keyExtractor) {
+        Object[] a = this.toArray();
+        Arrays.sortByLong(a, (ToLongFunction) keyExtractor);
+        ListIterator<E> i = this.listIterator();
+        for (Object e : a) {
+            i.next();
+            i.set((E) e);
+        }
+    }
+
+    /**
+     * Sorts this list into ascending order of the {@code double} keys
+     * extracted from its elements by the given function. The key of each
+     * element is extracted exactly once.
+     * Keys are ordered as by {@link Double#compare}.
+     *
+     * <p>This sort is guaranteed to be <i>stable</i>:  elements with equal
+     * keys will not be reordered as a result of the sort.
+     *
+     * @implSpec
+     * The default implementation obtains an array containing all elements in
+     * this list, sorts the array with {@link Arrays#sortByDouble(Object[],
+     * ToDoubleFunction)}, and iterates over this list resetting each element
+     * from the corresponding position in the array.
+     *
+     * @param keyExtractor the function used to extract the sort key
+     * @throws NullPointerException if the key extractor is null
+     * @throws UnsupportedOperationException if the list's list-iterator does
+     *         not support the {@code set} operation
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    default void sortByDouble(ToDoubleFunction<? super E> keyExtractor) {
+        Object[] a = this.toArray();
+        Arrays.sortByDouble(a, (ToDoubleFunction) keyExtractor);
+        ListIterator<E> i = this.listIterator();
+        for (Object e : a) {
+            i.next();
+            i.set((E) e);
+        }
+    }
+
     /**
      * Removes all of the elements from this list (optional operation).
      * The list will be empty after this call returns.
@@ -381,10 +381,6 @@ public final class Scanner implements Iterator<String>, Closeable {
     // A pattern for any token
     private static Pattern FIND_ANY_PATTERN = Pattern.compile("(?s).*");
 
-    // A pattern for non-ASCII digits
-    private static Pattern NON_ASCII_DIGIT = Pattern.compile(
-        "[\\p{javaDigit}&&[^0-9]]");
-
     // Fields and methods to support scanning primitive types
 
     /**
@@ -2238,9 +2234,11 @@ public final class Scanner implements Iterator<String>, Closeable {
      * be processed before the token is passed to parseFloat.
      */
     private String processFloatToken(String token) {
-        String result = token.replaceAll(groupSeparator, "");
+        // The separators are single characters quoted with a backslash,
+        // so they are removed and replaced without compiling a pattern
+        String result = removeChar(token, groupSeparator.charAt(1));
         if (!decimalSeparator.equals("\\."))
-            result = result.replaceAll(decimalSeparator, ".");
+            result = result.replace(decimalSeparator.charAt(1), '.');
         boolean isNegative = false;
         int preLen = negativePrefix.length();
         if ((preLen > 0) && result.startsWith(negativePrefix)) {
@@ -2261,8 +2259,7 @@ public final class Scanner implements Iterator<String>, Closeable {
             result = "-" + result;
 
         // Translate non-ASCII digits
-        Matcher m = NON_ASCII_DIGIT.matcher(result);
-        if (m.find()) {
+        if (hasNonASCIIDigit(result)) {
             StringBuilder inASCII = new StringBuilder();
             for (int i=0; i<result.length(); i++) {
                 char nextChar = result.charAt(i);
@@ -2282,6 +2279,36 @@ public final class Scanner implements Iterator<String>, Closeable {
         return result;
     }
 
+    /**
+     * Returns the string with every occurrence of the character c
+     * removed, or the string itself if it does not contain c.
+     */
+    private static String removeChar(String s, char c) {
+        int i = s.indexOf(c);
+        if (i < 0)
+            return s;
+        StringBuilder sb = new StringBuilder(s.length() - 1);
+        int start = 0;
+        do {
+            sb.append(s, start, i);
+            start = i + 1;
+        } while ((i = s.indexOf(c, start)) >= 0);
+        return sb.append(s, start, s.length()).toString();
+    }
+
+    /**
+     * Returns true if the string contains a digit other than the ASCII
+     * digits, that is a character of the class [\p{javaDigit}&&[^0-9]].
+     */
+    private static boolean hasNonASCIIDigit(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c >= '\u0080' && Character.isDigit(c))
+                return true;
+        }
+        return false;
+    }
+
     /**
      * Returns true if the next token in this scanner's input can be
      * interpreted as a float value using the {@link #nextFloat}
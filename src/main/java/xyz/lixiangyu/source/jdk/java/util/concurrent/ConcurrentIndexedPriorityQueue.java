@@ -0,0 +1,351 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util.concurrent;
+
+import java.util.AbstractQueue;
+import java.util.Comparator;
+import java.util.IndexedPriorityQueue;
+import java.util.IndexedPriorityQueue.Handle;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An unbounded thread-safe priority {@linkplain Queue queue} whose
+ * elements can be removed or reprioritized through the {@linkplain
+ * Handle handles} returned when inserting them, the concurrent
+ * counterpart of {@link IndexedPriorityQueue}.  Unlike {@link
+ * PriorityBlockingQueue}, which guards a binary heap with a single
+ * lock, this queue is non-blocking: insertions, removals and updates
+ * by different threads proceed concurrently.
+ *
+ * <p>The elements of the queue are ordered according to their
+ * {@linkplain Comparable natural ordering}, or by a {@link Comparator}
+ * provided at queue construction time.  Elements that are tied for
+ * least value are retrieved in the order they were inserted.  This
+ * class does not permit the use of {@code null} elements.
+ *
+ * <p>Since the elements are kept in a concurrent ordered structure, the
+ * ordering of a queued element must never change.  To change the
+ * priority of an element, {@linkplain #update(Handle, Object) replace}
+ * it with a new element with the desired priority; the update atomically
+ * fails if another thread has removed the element in the meantime.
+ *
+ * <p>Iterators are <i>weakly consistent</i>, and return the elements in
+ * ascending order.  Beware that, unlike in most collections, the
+ * {@code size} method is <em>not</em> a constant-time operation.
+ *
+ * <p>Implementation note: this implementation is backed by a {@link
+ * ConcurrentSkipListMap} whose keys are the handles, ordered by element
+ * and then by insertion sequence number, and provides expected average
+ * O(log(n)) time for the {@code insert}, {@code offer}, {@code poll},
+ * {@code remove(Handle)} and {@code update} operations, and expected
+ * constant time for {@code peek}.
+ *
+ * @param <E> the type of elements held in this collection
+ */
+public class ConcurrentIndexedPriorityQueue<E> extends AbstractQueue<E> {
+
+    /**
+     * A queued element with its insertion sequence number, which is
+     * also its handle.
+     */
+    static final class Node<E> implements Handle<E> {
+        final E item;
+        final long seq;
+
+        Node(E item, long seq) {
+            this.item = item;
+            this.seq = seq;
+        }
+
+        public E get() {
+            return item;
+        }
+
+        public String toString() {
+            return String.valueOf(item);
+        }
+    }
+
+    /**
+     * The queued nodes, each mapped to itself so that removals can be
+     * performed by identity.
+     */
+    private final ConcurrentSkipListMap<Node<E>, Node<E>> map;
+
+    /**
+     * The sequence number of the next insertion.
+     */
+    private final AtomicLong sequence = new AtomicLong();
+
+    /**
+     * The comparator, or null if the queue uses elements' natural
+     * ordering.
+     */
+    private final Comparator<? super E> comparator;
+
+    /**
+     * Creates a {@code ConcurrentIndexedPriorityQueue} that orders its
+     * elements according to their {@linkplain Comparable natural
+     * ordering}.
+     */
+    public ConcurrentIndexedPriorityQueue() {
+        this(null);
+    }
+
+    /**
+     * Creates a {@code ConcurrentIndexedPriorityQueue} whose elements are
+     * ordered according to the specified comparator.
+     *
+     * @param  comparator the comparator that will be used to order this
+     *         priority queue.  If {@code null}, the {@linkplain Comparable
+     *         natural ordering} of the elements will be used.
+     */
+    @SuppressWarnings("unchecked")
+    public ConcurrentIndexedPriorityQueue(Comparator<? super E> comparator) {
+        this.comparator = comparator;
+        this.map = new ConcurrentSkipListMap<>((a, b) -> {
+            int c = (comparator != null) ?
+                comparator.compare(a.item, b.item) :
+                ((Comparable<? super E>) a.item).compareTo(b.item);
+            return (c != 0) ? c : Long.compare(a.seq, b.seq);
+        });
+    }
+
+    /**
+     * Inserts the specified element into this priority queue, and
+     * returns a handle to it.
+     *
+     * @param e the element to add
+     * @return a handle to the inserted element
+     * @throws ClassCastException if the specified element cannot be
+     *         compared with elements currently in this priority queue
+     *         according to the priority queue's ordering
+     * @throws NullPointerException if the specified element is null
+     */
+    public Handle<E> insert(E e) {
+        if (e == null)
+            throw new NullPointerException();
+        Node<E> node = new Node<>(e, sequence.getAndIncrement());
+        map.put(node, node);
+        return node;
+    }
+
+    /**
+     * Inserts the specified element into this priority queue.
+     * As the queue is unbounded, this method will never return
+     * {@code false}.
+     *
+     * @return {@code true} (as specified by {@link Queue#offer})
+     * @throws ClassCastException if the specified element cannot be
+     *         compared with elements currently in this priority queue
+     *         according to the priority queue's ordering
+     * @throws NullPointerException if the specified element is null
+     */
+    public boolean offer(E e) {
+        insert(e);
+        return true;
+    }
+
+    public E poll() {
+        Map.Entry<Node<E>, Node<E>> e = map.pollFirstEntry();
+        return (e == null) ? null : e.getKey().item;
+    }
+
+    public E peek() {
+        Map.Entry<Node<E>, Node<E>> e = map.firstEntry();
+        return (e == null) ? null : e.getKey().item;
+    }
+
+    /**
+     * Retrieves, but does not remove, the handle of the head of this
+     * queue, or returns {@code null} if this queue is empty.
+     *
+     * @return the handle of the head of this queue, or {@code null} if
+     *         this queue is empty
+     */
+    public Handle<E> peekHandle() {
+        Map.Entry<Node<E>, Node<E>> e = map.firstEntry();
+        return (e == null) ? null : e.getKey();
+    }
+
+    /**
+     * Returns {@code true} if the element of the specified handle is
+     * queued in this queue.
+     *
+     * @param handle a handle
+     * @return {@code true} if the element of the handle is in this queue
+     */
+    public boolean contains(Handle<E> handle) {
+        return (handle instanceof Node) && map.get(handle) == handle;
+    }
+
+    /**
+     * Removes the element of the specified handle from this queue, if it
+     * is present.  Of several threads attempting to remove the same
+     * element, only one succeeds.
+     *
+     * @param handle the handle of the element to be removed
+     * @return {@code true} if the element was removed from this queue
+     */
+    public boolean remove(Handle<E> handle) {
+        return (handle instanceof Node) && map.remove(handle, handle);
+    }
+
+    /**
+     * Atomically replaces the element of the specified handle with the
+     * specified element, if the former is still queued.  The new element
+     * is queued under a new handle, which must be used thereafter.
+     *
+     * <p>The removal of the old element and the insertion of the new one
+     * are each atomic, but not together: other threads may momentarily
+     * observe the queue without either element.
+     *
+     * @param handle the handle of the element to be replaced
+     * @param e the new element
+     * @return the handle of the new element, or {@code null} if the
+     *         element of the handle was not in this queue, in which case
+     *         the queue is unchanged
+     * @throws ClassCastException if the specified element cannot be
+     *         compared with elements currently in this priority queue
+     *         according to the priority queue's ordering
+     * @throws NullPointerException if the specified element is null
+     */
+    public Handle<E> update(Handle<E> handle, E e) {
+        if (e == null)
+            throw new NullPointerException();
+        return remove(handle) ? insert(e) : null;
+    }
+
+    /**
+     * Removes a single instance of the specified element from this queue,
+     * if it is present.  More formally, removes an element {@code e} such
+     * that {@code o.equals(e)}, if this queue contains one or more such
+     * elements.
+     *
+     * @param o element to be removed from this queue, if present
+     * @return {@code true} if this queue changed as a result of the call
+     */
+    public boolean remove(Object o) {
+        if (o == null)
+            return false;
+        for (Node<E> node : map.keySet()) {
+            if (o.equals(node.item) && map.remove(node, node))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns {@code true} if this queue contains the specified element.
+     * More formally, returns {@code true} if and only if this queue contains
+     * at least one element {@code e} such that {@code o.equals(e)}.
+     *
+     * @param o object to be checked for containment in this queue
+     * @return {@code true} if this queue contains the specified element
+     */
+    public boolean contains(Object o) {
+        if (o == null)
+            return false;
+        for (Node<E> node : map.keySet()) {
+            if (o.equals(node.item))
+                return true;
+        }
+        return false;
+    }
+
+    public boolean isEmpty() {
+        return map.isEmpty();
+    }
+
+    /**
+     * Returns the number of elements in this queue.  If this queue
+     * contains more than {@code Integer.MAX_VALUE} elements, returns
+     * {@code Integer.MAX_VALUE}.
+     *
+     * <p>Beware that, unlike in most collections, this method is
+     * <em>NOT</em> a constant-time operation. Because of the
+     * asynchronous nature of these queues, determining the current
+     * number of elements requires an O(n) traversal.
+     *
+     * @return the number of elements in this queue
+     */
+    public int size() {
+        return map.size();
+    }
+
+    /**
+     * Removes all of the elements from this queue.
+     *
+     * <p>This operation is <em>not</em> guaranteed to be performed
+     * atomically: elements inserted concurrently with this call may
+     * remain in the queue after it returns.
+     */
+    public void clear() {
+        map.clear();
+    }
+
+    /**
+     * Returns the comparator used to order the elements in this
+     * queue, or {@code null} if this queue uses the {@linkplain
+     * Comparable natural ordering} of its elements.
+     *
+     * @return the comparator used to order the elements in this queue,
+     *         or {@code null} if this queue uses the natural
+     *         ordering of its elements
+     */
+    public Comparator<? super E> comparator() {
+        return comparator;
+    }
+
+    /**
+     * Returns an iterator over the elements in this queue, in ascending
+     * order.
+     *
+     * <p>The returned iterator is
+     * <a href="package-summary.html#Weakly"><i>weakly consistent</i></a>.
+     *
+     * @return an iterator over the elements in this queue
+     */
+    public Iterator<E> iterator() {
+        final Iterator<Node<E>> it = map.keySet().iterator();
+        return new Iterator<E>() {
+            public boolean hasNext() {
+                return it.hasNext();
+            }
+
+            public E next() {
+                return it.next().item;
+            }
+
+            public void remove() {
+                it.remove();
+            }
+        };
+    }
+}
@@ -0,0 +1,766 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util.regex;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A lazily constructed DFA that matches a pattern in linear time, for
+ * patterns without back references, lookaround, boundaries, independent
+ * groups and possessive quantifiers.
+ * <p>
+ * The node tree of the pattern is translated into an NFA of the classic
+ * Thompson form, counted repetitions being unrolled.  The states of the
+ * DFA are the NFA instructions reached after each character; they are
+ * built the first time they are needed and shared by all the matchers of
+ * the pattern, and the table of the states is discarded and restarted
+ * when it reaches {@link #MAX_STATES}, so that memory stays bounded and
+ * the time stays linear in the length of the input.
+ * <p>
+ * The backtracking engine chooses its match by the order in which it
+ * tries the alternatives.  The splits of the NFA keep that order, and
+ * {@link #end} keeps the instructions of its states in the same order,
+ * dropping those after one that accepts, so that it finds where the
+ * match of the backtracking engine ends.  {@link #start} then runs the
+ * reversed NFA back from there to find the leftmost index where a match
+ * ending there starts, which is where the backtracking engine starts it.
+ * This needs the order of the threads to be that of the backtracking
+ * engine, which is not so when a repeated atom can match the empty string
+ * (see {@link #ordered}); {@link #run} only decides whether there is a
+ * match.
+ */
+final class LazyDFA {
+
+    /** The results of {@link #run}. */
+    static final int NO_MATCH = 0;
+    static final int MATCH = 1;
+    static final int UNKNOWN = 2;
+
+    /** The maximum number of NFA instructions of a pattern. */
+    private static final int MAX_INSTRUCTIONS = 4096;
+
+    /** The number of states kept before the table of states is restarted. */
+    private static final int MAX_STATES = 1024;
+
+    /** The characters whose transitions are kept in the states. */
+    private static final int TABLE_SIZE = 128;
+
+    // the NFA instructions
+    private static final int CHAR = 0;          // the character arg
+    private static final int CHAR_I = 1;        // as SliceI
+    private static final int CHAR_U = 2;        // as SliceU
+    private static final int PROPERTY = 3;      // the character property arg
+    private static final int SPLIT = 4;         // to each of splits[pc]
+    private static final int ASSERT = 5;        // the position context arg
+    private static final int ACCEPT = 6;
+
+    // the position contexts, for the assertions
+    private static final int BEGIN = 1;         // Begin
+    private static final int END = 2;           // End
+    private static final int DOLLAR = 4;        // Dollar, not multiline
+    private static final int UNIX_DOLLAR = 8;   // UnixDollar, not multiline
+
+    private int[] ops = new int[16];
+    private int[] args = new int[16];
+    private int[] outs = new int[16];
+    private int[][] splits = new int[16][];
+    private Pattern.CharProperty[] properties = new Pattern.CharProperty[4];
+    private int size;
+    private int propertyCount;
+
+    /** The number of the edges of the NFA, which bounds the closure stack. */
+    private int edges;
+
+    /** The first instruction. */
+    private int start;
+
+    /** The position contexts tested by the pattern. */
+    private int contexts;
+
+    /**
+     * Whether the order of the threads gives the match of the backtracking
+     * engine, so that {@link #end} and {@link #start} can be used.
+     */
+    boolean ordered = true;
+
+    /** The instructions that reach each one without a character. */
+    private int[][] preds;
+
+    /** The instructions that reach each one with a character. */
+    private int[][] consumers;
+
+    private volatile Cache cache = new Cache();
+
+    private LazyDFA() {
+    }
+
+    /**
+     * Returns the DFA of a node tree, or null if it has nodes that cannot
+     * be matched by a DFA or it is too large.
+     */
+    static LazyDFA of(Pattern.Node matchRoot) {
+        LazyDFA dfa = new LazyDFA();
+        int pc = dfa.compile(matchRoot, new IdentityHashMap<>());
+        if (pc < 0) {
+            return null;
+        }
+        dfa.start = pc;
+        dfa.edges += dfa.size + 1;
+        dfa.reverse();
+        return dfa;
+    }
+
+    /**
+     * Computes the edges of the reversed NFA.
+     */
+    private void reverse() {
+        int[] npreds = new int[size];
+        int[] nconsumers = new int[size];
+        for (int pc = 0; pc < size; pc++) {
+            if (ops[pc] == SPLIT) {
+                for (int target : splits[pc]) {
+                    npreds[target]++;
+                }
+            } else if (ops[pc] == ASSERT) {
+                npreds[outs[pc]]++;
+            } else if (ops[pc] != ACCEPT) {
+                nconsumers[outs[pc]]++;
+            }
+        }
+        preds = new int[size][];
+        consumers = new int[size][];
+        for (int pc = 0; pc < size; pc++) {
+            preds[pc] = new int[npreds[pc]];
+            consumers[pc] = new int[nconsumers[pc]];
+        }
+        for (int pc = 0; pc < size; pc++) {
+            if (ops[pc] == SPLIT) {
+                for (int target : splits[pc]) {
+                    preds[target][--npreds[target]] = pc;
+                }
+            } else if (ops[pc] == ASSERT) {
+                preds[outs[pc]][--npreds[outs[pc]]] = pc;
+            } else if (ops[pc] != ACCEPT) {
+                consumers[outs[pc]][--nconsumers[outs[pc]]] = pc;
+            }
+        }
+    }
+
+    //-----------------------------------------------------------------------
+    // Translation of the node tree
+
+    /**
+     * Compiles a node and the nodes after it, with the given targets for
+     * the terminal nodes of the atom being compiled, and returns the first
+     * instruction, or -1 if the node is not supported.
+     */
+    private int compile(Pattern.Node node, IdentityHashMap<Pattern.Node, Integer> targets) {
+        Integer target = targets.get(node);
+        if (target != null) {
+            return target;
+        }
+        if (size > MAX_INSTRUCTIONS) {
+            return -1;
+        }
+        Class<?> type = node.getClass();
+        if (node instanceof Pattern.LastNode) {
+            return emit(ACCEPT, 0, -1);
+        } else if (node instanceof Pattern.CharProperty) {
+            int next = compile(node.next, targets);
+            if (next < 0) {
+                return -1;
+            }
+            if (propertyCount == properties.length) {
+                properties = Arrays.copyOf(properties, propertyCount * 2);
+            }
+            properties[propertyCount] = (Pattern.CharProperty) node;
+            return emit(PROPERTY, propertyCount++, next);
+        } else if (type == Pattern.Slice.class || type == Pattern.SliceI.class
+                   || type == Pattern.SliceU.class) {
+            int next = compile(node.next, targets);
+            if (next < 0) {
+                return -1;
+            }
+            int op = (type == Pattern.Slice.class) ? CHAR :
+                     (type == Pattern.SliceI.class) ? CHAR_I : CHAR_U;
+            int[] buf = ((Pattern.SliceNode) node).buffer;
+            for (int j = buf.length - 1; j >= 0; j--) {
+                next = emit(op, buf[j], next);
+            }
+            return next;
+        } else if (type == Pattern.GroupHead.class || type == Pattern.GroupTail.class) {
+            return compile(node.next, targets);
+        } else if (type == Pattern.BranchConn.class) {
+            // the alternatives of a branch meet here
+            int next = compile(node.next, targets);
+            targets.put(node, next);
+            return next;
+        } else if (type == Pattern.Branch.class) {
+            Pattern.Branch branch = (Pattern.Branch) node;
+            int[] alternatives = new int[branch.size];
+            for (int n = 0; n < branch.size; n++) {
+                Pattern.Node atom = branch.atoms[n];
+                alternatives[n] = compile(atom == null ? branch.conn : atom, targets);
+                if (alternatives[n] < 0) {
+                    return -1;
+                }
+            }
+            return emitSplit(alternatives);
+        } else if (type == Pattern.Ques.class) {
+            Pattern.Ques ques = (Pattern.Ques) node;
+            if (ques.type != Pattern.GREEDY && ques.type != Pattern.LAZY) {
+                return -1;
+            }
+            int next = compile(node.next, targets);
+            int atom = (next < 0) ? -1 : compileAtom(ques.atom, Pattern.accept, next);
+            return (atom < 0) ? -1 :
+                emitSplit(choice(atom, next, ques.type == Pattern.LAZY));
+        } else if (type == Pattern.Curly.class) {
+            Pattern.Curly curly = (Pattern.Curly) node;
+            if (curly.type != Pattern.GREEDY && curly.type != Pattern.LAZY) {
+                return -1;
+            }
+            int next = compile(node.next, targets);
+            return (next < 0) ? -1 :
+                repeat(curly.atom, Pattern.accept, curly.cmin, curly.cmax,
+                       curly.type == Pattern.LAZY, next);
+        } else if (type == Pattern.GroupCurly.class) {
+            Pattern.GroupCurly curly = (Pattern.GroupCurly) node;
+            if (curly.type != Pattern.GREEDY && curly.type != Pattern.LAZY) {
+                return -1;
+            }
+            int next = compile(node.next, targets);
+            return (next < 0) ? -1 :
+                repeat(curly.atom, Pattern.accept, curly.cmin, curly.cmax,
+                       curly.type == Pattern.LAZY, next);
+        } else if (type == Pattern.Prolog.class) {
+            // the body of a loop ends at the loop node
+            Pattern.Loop loop = ((Pattern.Prolog) node).loop;
+            int next = compile(loop.next, targets);
+            return (next < 0) ? -1 :
+                repeat(loop.body, loop, loop.cmin, loop.cmax,
+                       loop instanceof Pattern.LazyLoop, next);
+        } else if (type == Pattern.Begin.class) {
+            return assertion(BEGIN, node, targets);
+        } else if (type == Pattern.End.class) {
+            return assertion(END, node, targets);
+        } else if (type == Pattern.Dollar.class && !((Pattern.Dollar) node).multiline) {
+            return assertion(DOLLAR, node, targets);
+        } else if (type == Pattern.UnixDollar.class && !((Pattern.UnixDollar) node).multiline) {
+            return assertion(UNIX_DOLLAR, node, targets);
+        }
+        return -1;
+    }
+
+    private int assertion(int context, Pattern.Node node,
+                          IdentityHashMap<Pattern.Node, Integer> targets) {
+        int next = compile(node.next, targets);
+        if (next < 0) {
+            return -1;
+        }
+        contexts |= context;
+        return emit(ASSERT, context, next);
+    }
+
+    /**
+     * Compiles a copy of an atom whose terminal node continues to the given
+     * instruction.
+     */
+    private int compileAtom(Pattern.Node atom, Pattern.Node terminal, int next) {
+        IdentityHashMap<Pattern.Node, Integer> targets = new IdentityHashMap<>();
+        targets.put(terminal, next);
+        return compile(atom, targets);
+    }
+
+    /**
+     * Compiles an atom repeated from cmin to cmax times, the mandatory
+     * copies followed by nested optional ones, or by a loop.
+     */
+    private int repeat(Pattern.Node atom, Pattern.Node terminal, int cmin, int cmax,
+                       boolean lazy, int next) {
+        if (cmin > MAX_INSTRUCTIONS || (cmax != Pattern.MAX_REPS && cmax > MAX_INSTRUCTIONS)) {
+            return -1;
+        }
+        int pc = next;
+        if (cmax == Pattern.MAX_REPS) {
+            pc = emitSplit(null);
+            int first = size;
+            int body = compileAtom(atom, terminal, pc);
+            if (body < 0 || !checkEmpty(first, body, pc)) {
+                return -1;
+            }
+            splits[pc] = choice(body, next, lazy);
+            edges += 2;
+        } else {
+            for (int k = cmax - cmin; k > 0; k--) {
+                int first = size;
+                int body = compileAtom(atom, terminal, pc);
+                if (body < 0 || !checkEmpty(first, body, pc)) {
+                    return -1;
+                }
+                pc = emitSplit(choice(body, next, lazy));
+            }
+        }
+        for (int k = cmin; k > 0; k--) {
+            int first = size;
+            int body = compileAtom(atom, terminal, pc);
+            if (body < 0 || !checkEmpty(first, body, pc)) {
+                return -1;
+            }
+            pc = body;
+        }
+        return pc;
+    }
+
+    /**
+     * Returns the targets of a split between an atom and the instruction
+     * after it, in the order in which the backtracking engine tries them.
+     */
+    private static int[] choice(int atom, int next, boolean lazy) {
+        return lazy ? new int[] { next, atom } : new int[] { atom, next };
+    }
+
+    /**
+     * Checks a copy of a repeated atom, whose instructions are those from
+     * first on, and which continues to next.  The backtracking engine
+     * leaves a repetition after an iteration that matches the empty
+     * string, so that the following iterations are never tried.  This
+     * does not change the inputs that match, unless the atom tests the
+     * position, but the order of the threads no longer gives the match of
+     * the backtracking engine.
+     *
+     * @return false if the atom can match the empty string and tests the
+     *         position, which the DFA does not support
+     */
+    private boolean checkEmpty(int first, int body, int next) {
+        boolean[] seen = new boolean[size];
+        int[] stack = new int[size];
+        int sp = 0;
+        stack[sp++] = body;
+        seen[body] = true;
+        boolean empty = false;
+        while (sp > 0 && !empty) {
+            int pc = stack[--sp];
+            if (pc == next) {
+                empty = true;
+            } else if (ops[pc] == SPLIT && splits[pc] != null) {
+                for (int target : splits[pc]) {
+                    if (!seen[target]) {
+                        seen[target] = true;
+                        stack[sp++] = target;
+                    }
+                }
+            } else if (ops[pc] == ASSERT && !seen[outs[pc]]) {
+                seen[outs[pc]] = true;
+                stack[sp++] = outs[pc];
+            }
+        }
+        if (empty) {
+            for (int pc = first; pc < size; pc++) {
+                if (ops[pc] == ASSERT) {
+                    return false;
+                }
+            }
+            ordered = false;
+        }
+        return true;
+    }
+
+    private int emitSplit(int[] targets) {
+        int pc = emit(SPLIT, 0, -1);
+        splits[pc] = targets;
+        if (targets != null) {
+            edges += targets.length;
+        }
+        return pc;
+    }
+
+    private int emit(int op, int arg, int out) {
+        if (size == ops.length) {
+            int n = size * 2;
+            ops = Arrays.copyOf(ops, n);
+            args = Arrays.copyOf(args, n);
+            outs = Arrays.copyOf(outs, n);
+            splits = Arrays.copyOf(splits, n);
+        }
+        ops[size] = op;
+        args[size] = arg;
+        outs[size] = out;
+        return size++;
+    }
+
+    //-----------------------------------------------------------------------
+    // Matching
+
+    // the modes of the runs, whose states differ
+    private static final int UNANCHORED = 1;    // a match may start at any index
+    private static final int FIRST = 2;         // the threads kept in order
+    private static final int REVERSE = 4;       // back from the end of a match
+
+    /**
+     * A state of the DFA: the instructions that consume a character,
+     * in the order of their priority in the {@link #FIRST} mode and in
+     * increasing order otherwise, whether the pattern matched, and, in
+     * the {@link #FIRST} mode, whether it matched before.
+     */
+    private static final class State {
+        final int[] pcs;
+        final boolean accept;
+        final boolean matched;
+        final int mode;
+        final int hash;
+        /** The states after the characters below TABLE_SIZE, if known. */
+        final State[] next = new State[TABLE_SIZE];
+
+        State(int[] pcs, boolean accept, boolean matched, int mode) {
+            this.pcs = pcs;
+            this.accept = accept;
+            this.matched = matched;
+            this.mode = mode;
+            this.hash = ((Arrays.hashCode(pcs) * 8 + mode) * 2 + (accept ? 1 : 0)) * 2
+                + (matched ? 1 : 0);
+        }
+
+        public int hashCode() {
+            return hash;
+        }
+
+        public boolean equals(Object obj) {
+            if (!(obj instanceof State)) {
+                return false;
+            }
+            State other = (State) obj;
+            return accept == other.accept && matched == other.matched
+                && mode == other.mode && Arrays.equals(pcs, other.pcs);
+        }
+    }
+
+    /**
+     * The table of states, and the initial states for each mode and
+     * context.
+     */
+    private static final class Cache {
+        final ConcurrentHashMap<State, State> states = new ConcurrentHashMap<>();
+        final State[] initial = new State[128];
+    }
+
+    /**
+     * Runs the DFA over a region of the input.
+     *
+     * @param seq the input
+     * @param i the index to start at
+     * @param from the start of the region, where Begin matches
+     * @param to the end of the region
+     * @param unanchored true if the match may start at any index from i
+     * @param endAnchor true if the match must end at the end of the region
+     * @return {@link #MATCH} if there is a match, {@link #NO_MATCH} if not,
+     *         or {@link #UNKNOWN} if the input has surrogates
+     */
+    int run(CharSequence seq, int i, int from, int to,
+            boolean unanchored, boolean endAnchor) {
+        int mode = unanchored ? UNANCHORED : 0;
+        State state = initial(mode, context(seq, i, from, to));
+        while (true) {
+            if (state.accept && (!endAnchor || i == to)) {
+                return MATCH;
+            }
+            if (i >= to || (state.pcs.length == 0 && !unanchored)) {
+                return NO_MATCH;
+            }
+            char c = seq.charAt(i++);
+            if (Character.isSurrogate(c)) {
+                return UNKNOWN;
+            }
+            state = step(state, c, context(seq, i, from, to));
+        }
+    }
+
+    /**
+     * Finds where the match of the backtracking engine ends, if the
+     * threads are {@link #ordered}.
+     *
+     * @param seq the input
+     * @param i the index to start at
+     * @param from the start of the region, where Begin matches
+     * @param to the end of the region
+     * @param unanchored true if the match may start at any index from i
+     * @return the end of the match, -1 if there is no match, or -2 if the
+     *         input has surrogates
+     */
+    int end(CharSequence seq, int i, int from, int to, boolean unanchored) {
+        int mode = FIRST | (unanchored ? UNANCHORED : 0);
+        State state = initial(mode, context(seq, i, from, to));
+        int end = -1;
+        while (true) {
+            if (state.accept) {
+                end = i;
+            }
+            if (i >= to || (state.pcs.length == 0
+                            && (!unanchored || state.accept || state.matched))) {
+                return end;
+            }
+            char c = seq.charAt(i++);
+            if (Character.isSurrogate(c)) {
+                return -2;
+            }
+            state = step(state, c, context(seq, i, from, to));
+        }
+    }
+
+    /**
+     * Finds the leftmost index from lo where a match ending at the given
+     * index starts, by running the reversed NFA back from it.
+     *
+     * @param seq the input
+     * @param end the end of the match
+     * @param lo the lowest index where the match may start
+     * @param from the start of the region, where Begin matches
+     * @param to the end of the region
+     * @return the start of the match, -1 if there is no match, or -2 if
+     *         the input has surrogates
+     */
+    int start(CharSequence seq, int end, int lo, int from, int to) {
+        State state = initial(REVERSE, context(seq, end, from, to));
+        int start = -1;
+        int i = end;
+        while (true) {
+            if (state.accept) {
+                start = i;
+            }
+            if (i <= lo || state.pcs.length == 0) {
+                return start;
+            }
+            char c = seq.charAt(--i);
+            if (Character.isSurrogate(c)) {
+                return -2;
+            }
+            state = step(state, c, context(seq, i, from, to));
+        }
+    }
+
+    /**
+     * Returns the initial state of a mode in a context.
+     */
+    private State initial(int mode, int context) {
+        Cache cache = this.cache;
+        int index = mode * 16 + context;
+        State state = cache.initial[index];
+        if (state == null) {
+            state = closure(cache, null, 0, context, mode);
+            cache.initial[index] = state;
+        }
+        return state;
+    }
+
+    /**
+     * Returns the state after a character, followed by an index in the
+     * given context, keeping the transitions out of any context.
+     */
+    private State step(State state, char c, int context) {
+        if (context != 0) {
+            return closure(this.cache, state, c, context, state.mode);
+        }
+        State next = (c < TABLE_SIZE) ? state.next[c] : null;
+        if (next == null) {
+            next = closure(this.cache, state, c, 0, state.mode);
+            if (c < TABLE_SIZE) {
+                state.next[c] = next;
+            }
+        }
+        return next;
+    }
+
+    /**
+     * Returns the context of an index for the assertions of the pattern.
+     */
+    private int context(CharSequence seq, int i, int from, int to) {
+        int context = 0;
+        if (i == from) {
+            context |= BEGIN;
+        }
+        if (i == to) {
+            context |= END | DOLLAR | UNIX_DOLLAR;
+        } else if (i == to - 1) {
+            char ch = seq.charAt(i);
+            if (ch == '\n') {
+                context |= UNIX_DOLLAR;
+                // no match between \r\n
+                if (i == 0 || seq.charAt(i - 1) != '\r') {
+                    context |= DOLLAR;
+                }
+            } else if (ch == '\r' || ch == '\u0085' || (ch|1) == '\u2029') {
+                context |= DOLLAR;
+            }
+        } else if (i == to - 2) {
+            if (seq.charAt(i) == '\r' && seq.charAt(i + 1) == '\n') {
+                context |= DOLLAR;
+            }
+        }
+        return context & contexts;
+    }
+
+    /**
+     * Returns the state after a character, or the initial state if the
+     * state is null: the instructions reached from those that match the
+     * character, and from the start if the run is unanchored, following
+     * the splits and the assertions that hold in the context.  In the
+     * {@link #FIRST} mode the instructions are kept in the order in which
+     * they are reached, and those after one that accepts are dropped, as
+     * are the new starts once a match was found.
+     */
+    private State closure(Cache cache, State state, int c, int context, int mode) {
+        if (mode == REVERSE) {
+            return reverseClosure(cache, state, c, context);
+        }
+        boolean first = (mode & FIRST) != 0;
+        boolean matched = first && (mode & UNANCHORED) != 0
+            && state != null && (state.accept || state.matched);
+        int[] stack = new int[edges];
+        boolean[] visited = new boolean[size];
+        int[] pcs = new int[size];
+        int count = 0;
+        int sp = 0;
+        boolean accept = false;
+        if (state == null || ((mode & UNANCHORED) != 0 && !matched)) {
+            stack[sp++] = start;
+        }
+        if (state != null) {
+            int[] from = state.pcs;
+            for (int n = from.length - 1; n >= 0; n--) {
+                int pc = from[n];
+                if (matches(pc, c)) {
+                    stack[sp++] = outs[pc];
+                }
+            }
+        }
+        while (sp > 0) {
+            int pc = stack[--sp];
+            if (visited[pc]) {
+                continue;
+            }
+            visited[pc] = true;
+            switch (ops[pc]) {
+            case SPLIT:
+                int[] targets = splits[pc];
+                for (int n = targets.length - 1; n >= 0; n--) {
+                    if (!visited[targets[n]])
+                        stack[sp++] = targets[n];
+                }
+                break;
+            case ASSERT:
+                if ((context & args[pc]) != 0 && !visited[outs[pc]])
+                    stack[sp++] = outs[pc];
+                break;
+            case ACCEPT:
+                accept = true;
+                if (first) {
+                    sp = 0;
+                }
+                break;
+            default:
+                pcs[count++] = pc;
+            }
+        }
+        pcs = Arrays.copyOf(pcs, count);
+        if (!first) {
+            Arrays.sort(pcs);
+        }
+        return intern(cache, new State(pcs, accept, matched, mode));
+    }
+
+    /**
+     * Returns the state of the reversed NFA before a character, or at the
+     * end of a match if the state is null: the instructions that consume
+     * a character and continue to those from which the pattern accepts
+     * with the input after them, and whether the start is one of these.
+     */
+    private State reverseClosure(Cache cache, State state, int c, int context) {
+        int[] stack = new int[edges + size];
+        boolean[] visited = new boolean[size];
+        int[] pcs = new int[size];
+        int count = 0;
+        int sp = 0;
+        if (state == null) {
+            for (int pc = 0; pc < size; pc++) {
+                if (ops[pc] == ACCEPT) {
+                    stack[sp++] = pc;
+                }
+            }
+        } else {
+            for (int pc : state.pcs) {
+                if (matches(pc, c)) {
+                    stack[sp++] = pc;
+                }
+            }
+        }
+        while (sp > 0) {
+            int pc = stack[--sp];
+            if (visited[pc]) {
+                continue;
+            }
+            visited[pc] = true;
+            for (int consumer : consumers[pc]) {
+                pcs[count++] = consumer;
+            }
+            for (int pred : preds[pc]) {
+                if (!visited[pred]
+                    && (ops[pred] != ASSERT || (context & args[pred]) != 0))
+                    stack[sp++] = pred;
+            }
+        }
+        pcs = Arrays.copyOf(pcs, count);
+        Arrays.sort(pcs);
+        return intern(cache, new State(pcs, visited[start], false, REVERSE));
+    }
+
+    private State intern(Cache cache, State probe) {
+        State interned = cache.states.putIfAbsent(probe, probe);
+        if (interned != null) {
+            return interned;
+        }
+        if (cache.states.size() >= MAX_STATES) {
+            // start over; the states in use stay valid
+            this.cache = new Cache();
+        }
+        return probe;
+    }
+
+    private boolean matches(int pc, int c) {
+        int arg = args[pc];
+        switch (ops[pc]) {
+        case CHAR:
+            return c == arg;
+        case CHAR_I:
+            return c == arg || ASCII.toLower(c) == arg;
+        case CHAR_U:
+            return c == arg || Character.toLowerCase(Character.toUpperCase(c)) == arg;
+        default:
+            return properties[arg].isSatisfiedBy(c);
+        }
+    }
+}
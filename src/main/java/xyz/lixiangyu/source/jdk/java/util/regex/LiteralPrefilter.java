@@ -0,0 +1,220 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util.regex;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * The literal strings one of which occurs in every match of a pattern.
+ * <p>
+ * The strings are found in the node tree: the runs of case sensitive
+ * characters that every match consumes in sequence, and the alternatives
+ * of a branch when each of them has such a run.  Of the candidates the one
+ * whose shortest string is the longest is kept.  A matcher looks for the
+ * strings before it runs the pattern, the search for a literal string
+ * being much faster than the match of the pattern at each index; a
+ * {@link PatternSet} looks for the strings of all its patterns at once.
+ */
+final class LiteralPrefilter {
+
+    /** The maximum number of alternatives of a prefilter. */
+    private static final int MAX_LITERALS = 16;
+
+    /** The maximum number of alternatives looked for by a matcher. */
+    private static final int MAX_SEARCHED = 3;
+
+    /** The strings, one of which occurs in every match. */
+    final String[] literals;
+
+    /** Whether a matcher looks for the strings before it runs the pattern. */
+    final boolean searched;
+
+    private LiteralPrefilter(String[] literals) {
+        this.literals = literals;
+        this.searched = literals.length <= MAX_SEARCHED;
+    }
+
+    /**
+     * Returns the prefilter of the node tree of a pattern, or null if there
+     * is no literal string that a match must contain.
+     */
+    static LiteralPrefilter of(Pattern.Node matchRoot) {
+        String[] literals = required(matchRoot, null);
+        return (literals == null) ? null : new LiteralPrefilter(literals);
+    }
+
+    /**
+     * Returns whether one of the strings occurs in the given range of the
+     * input; if not, there is no match in the range.
+     */
+    boolean mayMatch(CharSequence seq, int from, int to) {
+        for (String literal : literals) {
+            if (indexOf(seq, literal, from, to) >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int indexOf(CharSequence seq, String literal, int from, int to) {
+        int len = literal.length();
+        if (seq instanceof String) {
+            int i = ((String) seq).indexOf(literal, from);
+            return (i >= 0 && i + len <= to) ? i : -1;
+        }
+        char first = literal.charAt(0);
+        int max = to - len;
+        for (int i = from; i <= max; i++) {
+            if (seq.charAt(i) != first) {
+                continue;
+            }
+            int j = 1;
+            while (j < len && seq.charAt(i + j) == literal.charAt(j)) {
+                j++;
+            }
+            if (j == len) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Extraction from the node tree
+
+    /**
+     * Returns the best alternatives of literal strings, one of which is
+     * consumed by every match of the nodes from the given node to the end
+     * node, or to the terminal node of the tree, or null if there are none.
+     */
+    private static String[] required(Pattern.Node node, Pattern.Node end) {
+        StringBuilder run = new StringBuilder();
+        String[] best = null;
+        while (node != null && node != end && node != Pattern.accept
+               && !(node instanceof Pattern.LastNode)) {
+            Class<?> type = node.getClass();
+            if (type == Pattern.Slice.class) {
+                for (int c : ((Pattern.SliceNode) node).buffer) {
+                    run.append((char) c);
+                }
+                node = node.next;
+                continue;
+            } else if (type == Pattern.Single.class
+                       && ((Pattern.Single) node).c < Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+                run.append((char) ((Pattern.Single) node).c);
+                node = node.next;
+                continue;
+            } else if (type == Pattern.GroupHead.class || type == Pattern.GroupTail.class) {
+                // groups consume nothing
+                node = node.next;
+                continue;
+            }
+            // any other node ends the run of consumed characters
+            best = better(best, flush(run));
+            if (type == Pattern.Branch.class) {
+                Pattern.Branch branch = (Pattern.Branch) node;
+                best = better(best, alternatives(branch));
+                node = branch.conn.next;
+            } else if (type == Pattern.Curly.class) {
+                Pattern.Curly curly = (Pattern.Curly) node;
+                if (curly.cmin > 0) {
+                    best = better(best, required(curly.atom, null));
+                }
+                node = node.next;
+            } else if (type == Pattern.GroupCurly.class) {
+                Pattern.GroupCurly curly = (Pattern.GroupCurly) node;
+                if (curly.cmin > 0) {
+                    best = better(best, required(curly.atom, null));
+                }
+                node = node.next;
+            } else if (type == Pattern.Prolog.class) {
+                Pattern.Loop loop = ((Pattern.Prolog) node).loop;
+                if (loop.cmin > 0) {
+                    best = better(best, required(loop.body, loop));
+                }
+                node = loop.next;
+            } else {
+                // the atoms of optional and zero width nodes are not required
+                node = node.next;
+            }
+        }
+        return better(best, flush(run));
+    }
+
+    /**
+     * Returns the union of the literal strings of the alternatives of a
+     * branch, or null if one of them has none.
+     */
+    private static String[] alternatives(Pattern.Branch branch) {
+        Set<String> union = new LinkedHashSet<>();
+        for (int n = 0; n < branch.size; n++) {
+            Pattern.Node atom = branch.atoms[n];
+            String[] literals = (atom == null) ? null : required(atom, branch.conn);
+            if (literals == null) {
+                return null;
+            }
+            union.addAll(Arrays.asList(literals));
+            if (union.size() > MAX_LITERALS) {
+                return null;
+            }
+        }
+        return union.toArray(new String[union.size()]);
+    }
+
+    private static String[] flush(StringBuilder run) {
+        if (run.length() == 0) {
+            return null;
+        }
+        String[] literals = { run.toString() };
+        run.setLength(0);
+        return literals;
+    }
+
+    /**
+     * Returns the more selective of two alternatives of literal strings:
+     * the one whose shortest string is longer, or that has fewer strings.
+     */
+    private static String[] better(String[] a, String[] b) {
+        if (a == null || b == null) {
+            return (a == null) ? b : a;
+        }
+        int lengthA = shortest(a);
+        int lengthB = shortest(b);
+        if (lengthA != lengthB) {
+            return (lengthA > lengthB) ? a : b;
+        }
+        return (b.length < a.length) ? b : a;
+    }
+
+    private static int shortest(String[] literals) {
+        int min = Integer.MAX_VALUE;
+        for (String literal : literals) {
+            min = Math.min(min, literal.length());
+        }
+        return min;
+    }
+}
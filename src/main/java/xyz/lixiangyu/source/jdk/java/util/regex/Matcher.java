@@ -194,6 +194,21 @@ public final class Matcher implements MatchResult {
      */
     boolean requireEnd;
 
+    /**
+     * The start index of the last match operation if it was decided by
+     * the literal prefilter or the lazy DFA of the pattern, or -1. They do
+     * not compute hitEnd and requireEnd; the operation is repeated with
+     * the object tree when they are queried.
+     */
+    int dfaFrom = -1;
+
+    /**
+     * The last match operation decided without the object tree: SEARCH,
+     * or the acceptMode of a match.
+     */
+    int dfaOp;
+    static final int SEARCH = -1;
+
     /**
      * If transparentBounds is true then the boundaries of this
      * matcher's region are transparent to lookahead, lookbehind,
@@ -283,6 +298,7 @@ public final class Matcher implements MatchResult {
             groups[i] = -1;
         for (int i = 0; i < locals.length; i++)
             locals[i] = -1;
+        dfaFrom = -1;
         return this;
     }
 
@@ -304,6 +320,7 @@ public final class Matcher implements MatchResult {
             groups[i] = -1;
         for(int i=0; i<locals.length; i++)
             locals[i] = -1;
+        dfaFrom = -1;
         lastAppendPosition = 0;
         from = 0;
         to = getTextLength();
@@ -591,6 +608,34 @@ public final class Matcher implements MatchResult {
         return parentPattern.capturingGroupCount - 1;
     }
 
+    /**
+     * Copies the start and end indices of the groups captured during the
+     * previous match operation into the given array.
+     *
+     * <p> The start index of group <i>g</i> is stored at index
+     * <tt>2*</tt><i>g</i> of the array and its end index at index
+     * <tt>2*</tt><i>g</i><tt>+1</tt>, group zero denoting the entire
+     * pattern, for as many groups as the array holds.  Both indices are
+     * <tt>-1</tt> for a group that did not match anything.  The subsequences
+     * may then be read from the input without creating strings. </p>
+     *
+     * @param  offsets
+     *         The array into which the indices are stored
+     *
+     * @return  The number of groups whose indices were stored
+     *
+     * @throws  IllegalStateException
+     *          If no match has yet been attempted,
+     *          or if the previous match operation failed
+     */
+    public int groupOffsets(int[] offsets) {
+        if (first < 0)
+            throw new IllegalStateException("No match available");
+        int count = Math.min(groupCount() + 1, offsets.length / 2);
+        System.arraycopy(groups, 0, offsets, 0, count * 2);
+        return count;
+    }
+
     /**
      * Attempts to match the entire region against the pattern.
      *
@@ -1202,6 +1247,8 @@ public final class Matcher implements MatchResult {
      * @since 1.5
      */
     public boolean hitEnd() {
+        if (dfaFrom >= 0)
+            replay();
         return hitEnd;
     }
 
@@ -1220,6 +1267,8 @@ public final class Matcher implements MatchResult {
      * @since 1.5
      */
     public boolean requireEnd() {
+        if (dfaFrom >= 0)
+            replay();
         return requireEnd;
     }
 
@@ -1245,7 +1294,30 @@ public final class Matcher implements MatchResult {
         for (int i = 0; i < groups.length; i++)
             groups[i] = -1;
         acceptMode = NOANCHOR;
-        boolean result = parentPattern.root.match(this, from, text);
+        dfaFrom = -1;
+        Pattern p = parentPattern;
+        int decided = LazyDFA.UNKNOWN;
+        if (!(p.root instanceof Pattern.BnM)) {
+            boolean unanchored = p.root != p.matchRoot;
+            if (p.prefilter != null && p.prefilter.searched
+                && !p.prefilter.mayMatch(text, from, to)) {
+                decided = LazyDFA.NO_MATCH;
+            } else if (p.dfa != null && anchoringBounds && p.dfa.ordered) {
+                decided = matchDFA(p, from, unanchored);
+            } else if (p.dfa != null && anchoringBounds
+                       && p.dfa.run(text, from, this.from, to, unanchored, false)
+                          == LazyDFA.NO_MATCH) {
+                decided = LazyDFA.NO_MATCH;
+            }
+        }
+        boolean result;
+        if (decided == LazyDFA.UNKNOWN) {
+            result = p.root.match(this, from, text);
+        } else {
+            dfaFrom = from;
+            dfaOp = SEARCH;
+            result = (decided == LazyDFA.MATCH);
+        }
         if (!result)
             this.first = -1;
         this.oldLast = this.last;
@@ -1267,13 +1339,100 @@ public final class Matcher implements MatchResult {
         for (int i = 0; i < groups.length; i++)
             groups[i] = -1;
         acceptMode = anchor;
-        boolean result = parentPattern.matchRoot.match(this, from, text);
+        dfaFrom = -1;
+        Pattern p = parentPattern;
+        int decided = LazyDFA.UNKNOWN;
+        if (p.dfa != null && anchoringBounds) {
+            if (anchor == NOANCHOR && p.dfa.ordered) {
+                decided = matchDFA(p, from, false);
+            } else {
+                decided = p.dfa.run(text, from, this.from, to, false, anchor == ENDANCHOR);
+                // a match of the whole region has no other groups to find
+                if (decided == LazyDFA.MATCH
+                    && (anchor != ENDANCHOR || p.capturingGroupCount > 1))
+                    decided = LazyDFA.UNKNOWN;
+                if (decided == LazyDFA.MATCH) {
+                    this.last = to;
+                    groups[0] = from;
+                    groups[1] = to;
+                }
+            }
+        }
+        boolean result;
+        if (decided == LazyDFA.UNKNOWN) {
+            result = p.matchRoot.match(this, from, text);
+        } else {
+            dfaFrom = from;
+            dfaOp = anchor;
+            result = (decided == LazyDFA.MATCH);
+        }
         if (!result)
             this.first = -1;
         this.oldLast = this.last;
         return result;
     }
 
+    /**
+     * Finds the match from an index with the lazy DFA of the pattern, the
+     * match starting at that index unless unanchored is true.  The groups
+     * of a pattern with capturing groups are found with the object tree
+     * from the start of the match, where it finds the same match.
+     *
+     * @return {@link LazyDFA#MATCH}, {@link LazyDFA#NO_MATCH}, or
+     *         {@link LazyDFA#UNKNOWN} if the input has surrogates
+     */
+    private int matchDFA(Pattern p, int from, boolean unanchored) {
+        int end = p.dfa.end(text, from, this.from, to, unanchored);
+        if (end == -1)
+            return LazyDFA.NO_MATCH;
+        int start = from;
+        if (end >= 0 && unanchored)
+            start = p.dfa.start(text, end, from, this.from, to);
+        if (end < 0 || start < 0)
+            return LazyDFA.UNKNOWN;
+        this.first = start;
+        if (p.capturingGroupCount > 1) {
+            if (!p.matchRoot.match(this, start, text)) {
+                // not expected; the search is repeated from the start
+                this.hitEnd = false;
+                this.requireEnd = false;
+                this.first = from;
+                for (int i = 0; i < groups.length; i++)
+                    groups[i] = -1;
+                return LazyDFA.UNKNOWN;
+            }
+        } else {
+            this.last = end;
+            groups[0] = start;
+            groups[1] = end;
+        }
+        return LazyDFA.MATCH;
+    }
+
+    /**
+     * Repeats the last match operation, decided without the object tree,
+     * with the object tree of the pattern to compute hitEnd and requireEnd.
+     * The result and the groups are the same.
+     */
+    private void replay() {
+        int from = dfaFrom;
+        dfaFrom = -1;
+        Pattern.Node root;
+        if (dfaOp == SEARCH) {
+            acceptMode = NOANCHOR;
+            root = parentPattern.root;
+        } else {
+            acceptMode = dfaOp;
+            root = parentPattern.matchRoot;
+        }
+        this.hitEnd = false;
+        this.requireEnd = false;
+        this.first = from;
+        if (!root.match(this, from, text))
+            this.first = -1;
+        this.oldLast = this.last;
+    }
+
     /**
      * Returns the end index of the text.
      *
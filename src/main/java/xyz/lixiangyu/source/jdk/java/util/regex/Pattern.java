@@ -33,8 +33,11 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Arrays;
 import java.util.NoSuchElementException;
+import java.util.Objects;
 import java.util.Spliterator;
 import java.util.Spliterators;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.function.Consumer;
 import java.util.function.Predicate;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
@@ -963,6 +966,27 @@ public final class Pattern
      */
     transient Node matchRoot;
 
+    /**
+     * The lazy DFA that finds the matches without the object tree, or
+     * null if the pattern is matched by the object tree alone.
+     */
+    transient LazyDFA dfa;
+
+    /**
+     * The literal strings one of which occurs in every match, or null if
+     * there are none.
+     */
+    transient LiteralPrefilter prefilter;
+
+    /**
+     * A matcher of this pattern not in use, reused by the split methods,
+     * or null.
+     */
+    private transient volatile Matcher idleMatcher;
+
+    private static final AtomicReferenceFieldUpdater<Pattern, Matcher> IDLE_MATCHER =
+        AtomicReferenceFieldUpdater.newUpdater(Pattern.class, Matcher.class, "idleMatcher");
+
     /**
      * Temporary storage used by parsing pattern slice.
      */
@@ -1094,6 +1118,28 @@ public final class Pattern
         return m;
     }
 
+    /**
+     * Returns a matcher of this pattern for the given input, reusing the
+     * one last released if it is not in use.  The caller does not let the
+     * matcher escape, and releases it when done.
+     */
+    Matcher acquireMatcher(CharSequence input) {
+        Matcher m = idleMatcher;
+        if (m != null && IDLE_MATCHER.compareAndSet(this, m, null))
+            return m.reset(input);
+        return matcher(input);
+    }
+
+    /**
+     * Releases a matcher obtained from {@link #acquireMatcher}, to be
+     * reused by the next caller.  The matcher no longer refers to its
+     * input.
+     */
+    void releaseMatcher(Matcher m) {
+        m.reset("");
+        idleMatcher = m;
+    }
+
     /**
      * Returns this pattern's match flags.
      *
@@ -1103,6 +1149,70 @@ public final class Pattern
         return flags;
     }
 
+    /**
+     * The engines that match patterns.
+     *
+     * @see #engine()
+     */
+    public enum Engine {
+        /**
+         * The backtracking engine, which tries the alternatives of the
+         * pattern in turn.  Its time may be exponential in the length of
+         * the input.
+         */
+        BACKTRACKING,
+
+        /**
+         * A lazily constructed DFA, which finds in linear time the match
+         * that the backtracking engine would find, and decides whether the
+         * whole region matches.  The backtracking engine is only used to
+         * find the groups of a pattern with capturing groups, from the
+         * start of the match, and for the {@link Matcher#hitEnd hitEnd}
+         * and {@link Matcher#requireEnd requireEnd} of a match.
+         */
+        LAZY_DFA
+    }
+
+    /**
+     * Returns the engine chosen to match this pattern.
+     *
+     * <p> The lazy DFA is chosen for patterns without back references,
+     * lookahead, lookbehind, boundary matchers, multiline anchors, the
+     * <tt>\G</tt> and <tt>\R</tt> constructs, independent groups and
+     * possessive quantifiers, which do not repeat too many times, and
+     * which do not repeat a group that tests the beginning or the end of
+     * the input and can match the empty string.  It is used when the
+     * region of a matcher has anchoring bounds and no surrogate
+     * characters.  When a repeated group can match the empty string, the
+     * lazy DFA only finds when there is no match, and when the whole
+     * region matches a pattern without capturing groups.
+     *
+     * @return  The engine of this pattern
+     */
+    public Engine engine() {
+        if (!compiled) {
+            synchronized(this) {
+                if (!compiled)
+                    compile();
+            }
+        }
+        return (dfa != null) ? Engine.LAZY_DFA : Engine.BACKTRACKING;
+    }
+
+    /**
+     * Returns the literal prefilter of this pattern, or null if there is
+     * no literal string that a match must contain.
+     */
+    LiteralPrefilter prefilter() {
+        if (!compiled) {
+            synchronized(this) {
+                if (!compiled)
+                    compile();
+            }
+        }
+        return prefilter;
+    }
+
     /**
      * Compiles the given regular expression and attempts to match the given
      * input against it.
@@ -1200,45 +1310,87 @@ public final class Pattern
      *          around matches of this pattern
      */
     public String[] split(CharSequence input, int limit) {
-        int index = 0;
-        boolean matchLimited = limit > 0;
         ArrayList<String> matchList = new ArrayList<>();
-        Matcher m = matcher(input);
+        split(input, limit, matchList::add);
+        return matchList.toArray(new String[matchList.size()]);
+    }
 
-        // Add segments before each match found
-        while(m.find()) {
-            if (!matchLimited || matchList.size() < limit - 1) {
-                if (index == 0 && index == m.start() && m.start() == m.end()) {
+    /**
+     * Splits the given input sequence around matches of this pattern,
+     * passing the substrings to the given action instead of returning
+     * them.
+     *
+     * <p> The action is given the strings of the array that {@link
+     * #split(java.lang.CharSequence, int) split(input, limit)} would
+     * return, in order, as each of them is found; the strings are neither
+     * kept nor collected.  When the limit is zero an empty string is passed
+     * only once a nonempty string follows it, so that trailing empty
+     * strings are discarded. </p>
+     *
+     * @param  input
+     *         The character sequence to be split
+     *
+     * @param  limit
+     *         The result threshold, as described for {@link
+     *         #split(java.lang.CharSequence, int) split}
+     *
+     * @param  action
+     *         The action to be performed for each substring
+     *
+     * @return  The number of substrings passed to the action
+     *
+     * @throws  NullPointerException
+     *          If the action is null
+     */
+    public int split(CharSequence input, int limit, Consumer<? super String> action) {
+        Objects.requireNonNull(action);
+        int index = 0;
+        int count = 0;
+        int empty = 0;
+        boolean matchLimited = limit > 0;
+        Matcher m = acquireMatcher(input);
+        try {
+            // Pass segments before each match found
+            while (m.find()) {
+                int start = m.start();
+                if (index == 0 && start == 0 && m.end() == 0) {
                     // no empty leading substring included for zero-width match
                     // at the beginning of the input char sequence.
                     continue;
                 }
-                String match = input.subSequence(index, m.start()).toString();
-                matchList.add(match);
-                index = m.end();
-            } else if (matchList.size() == limit - 1) { // last one
-                String match = input.subSequence(index,
-                                                 input.length()).toString();
-                matchList.add(match);
+                if (matchLimited && count == limit - 1) {
+                    // the last one is the remaining segment
+                    break;
+                }
+                if (start == index && limit == 0) {
+                    // held back until a nonempty segment follows
+                    empty++;
+                } else {
+                    for (; empty > 0; empty--, count++)
+                        action.accept("");
+                    action.accept(input.subSequence(index, start).toString());
+                    count++;
+                }
                 index = m.end();
             }
+        } finally {
+            releaseMatcher(m);
         }
 
-        // If no match was found, return this
-        if (index == 0)
-            return new String[] {input.toString()};
-
-        // Add remaining segment
-        if (!matchLimited || matchList.size() < limit)
-            matchList.add(input.subSequence(index, input.length()).toString());
+        // If no match was found, pass this
+        if (index == 0) {
+            action.accept(input.toString());
+            return 1;
+        }
 
-        // Construct result
-        int resultSize = matchList.size();
-        if (limit == 0)
-            while (resultSize > 0 && matchList.get(resultSize-1).equals(""))
-                resultSize--;
-        String[] result = new String[resultSize];
-        return matchList.subList(0, resultSize).toArray(result);
+        // Pass remaining segment
+        if (index < input.length() || limit != 0) {
+            for (; empty > 0; empty--, count++)
+                action.accept("");
+            action.accept(input.subSequence(index, input.length()).toString());
+            count++;
+        }
+        return count;
     }
 
     /**
@@ -1718,6 +1870,9 @@ loop:   for(int x=0, offset=0; x<nCodePoints; x++, offset+=len) {
             root = hasSupplementary ? new StartS(matchRoot) : new Start(matchRoot);
         }
 
+        dfa = LazyDFA.of(matchRoot);
+        prefilter = LiteralPrefilter.of(matchRoot);
+
         // Release temporary storage
         temp = null;
         buffer = null;
@@ -3765,7 +3920,7 @@ loop:   for(int x=0, offset=0; x<nCodePoints; x++, offset+=len) {
      * Abstract node class to match one character satisfying some
      * boolean property.
      */
-    private static abstract class CharProperty extends Node {
+    static abstract class CharProperty extends Node {
         abstract boolean isSatisfiedBy(int ch);
         CharProperty complement() {
             return new CharProperty() {
@@ -0,0 +1,352 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util.regex;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A set of patterns matched against an input together.
+ *
+ * <p> A pattern set finds which of its patterns are found in an input, as
+ * by the {@link Matcher#find() find} method of a matcher of each pattern.
+ * Every match of most patterns contains one of a few literal strings; the
+ * strings of all the patterns are looked for in a single pass over the
+ * input with an Aho-Corasick automaton, and only the patterns whose
+ * strings occur, and those that have none, are matched.  When an input is
+ * matched against many patterns, few of which are found, the cost is close
+ * to the cost of that single pass.
+ *
+ * <p> A typical invocation sequence is thus
+ *
+ * <blockquote><pre>
+ * PatternSet s = PatternSet.compile("ERROR .*timeout", "WARN .*retry");
+ * int[] found = s.find(line);</pre></blockquote>
+ *
+ * <p> Instances of this class are immutable and are safe for use by
+ * multiple concurrent threads.
+ *
+ * @see Pattern
+ */
+public final class PatternSet {
+
+    /** The patterns of this set. */
+    private final Pattern[] patterns;
+
+    /** The indexes of the patterns matched whatever the input. */
+    private final int[] unfiltered;
+
+    // The Aho-Corasick automaton, state 0 being the root. The transitions
+    // of a state are the characters of keys[state], in ascending order,
+    // to the states of targets[state]; those of the root for the ASCII
+    // characters are also in rootTargets.
+
+    private final char[][] keys;
+    private final int[][] targets;
+    private final int[] rootTargets;
+
+    /** The longest proper suffix of each state that is also a state. */
+    private final int[] failure;
+
+    /** The patterns whose strings end at each state, or null. */
+    private final int[][] outputs;
+
+    /** The next suffix of each state that has outputs, or 0. */
+    private final int[] outputLinks;
+
+    private PatternSet(Pattern[] patterns) {
+        this.patterns = patterns;
+
+        // the trie of the literal strings
+        List<Map<Character, Integer>> trie = new ArrayList<>();
+        List<int[]> ends = new ArrayList<>();
+        trie.add(new HashMap<Character, Integer>());
+        ends.add(null);
+        int[] unfiltered = new int[patterns.length];
+        int unfilteredCount = 0;
+        for (int index = 0; index < patterns.length; index++) {
+            LiteralPrefilter prefilter = patterns[index].prefilter();
+            if (prefilter == null) {
+                unfiltered[unfilteredCount++] = index;
+                continue;
+            }
+            for (String literal : prefilter.literals) {
+                int state = 0;
+                for (int i = 0; i < literal.length(); i++) {
+                    Integer next = trie.get(state).get(literal.charAt(i));
+                    if (next == null) {
+                        next = trie.size();
+                        trie.add(new HashMap<Character, Integer>());
+                        ends.add(null);
+                        trie.get(state).put(literal.charAt(i), next);
+                    }
+                    state = next;
+                }
+                int[] end = ends.get(state);
+                if (end == null) {
+                    ends.set(state, new int[] { index });
+                } else if (end[end.length - 1] != index) {
+                    end = Arrays.copyOf(end, end.length + 1);
+                    end[end.length - 1] = index;
+                    ends.set(state, end);
+                }
+            }
+        }
+        this.unfiltered = Arrays.copyOf(unfiltered, unfilteredCount);
+
+        int size = trie.size();
+        keys = new char[size][];
+        targets = new int[size][];
+        for (int state = 0; state < size; state++) {
+            Map<Character, Integer> edges = trie.get(state);
+            char[] k = new char[edges.size()];
+            int n = 0;
+            for (char c : edges.keySet()) {
+                k[n++] = c;
+            }
+            Arrays.sort(k);
+            int[] t = new int[k.length];
+            for (n = 0; n < k.length; n++) {
+                t[n] = edges.get(k[n]);
+            }
+            keys[state] = k;
+            targets[state] = t;
+        }
+        rootTargets = new int[128];
+        for (int n = 0; n < keys[0].length && keys[0][n] < 128; n++) {
+            rootTargets[keys[0][n]] = targets[0][n];
+        }
+
+        // the failure and output links, breadth first
+        failure = new int[size];
+        outputs = ends.toArray(new int[size][]);
+        outputLinks = new int[size];
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int child : targets[0]) {
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            for (int n = 0; n < keys[state].length; n++) {
+                char c = keys[state][n];
+                int child = targets[state][n];
+                int f = failure[state];
+                int next;
+                while ((next = transition(f, c)) < 0 && f != 0) {
+                    f = failure[f];
+                }
+                failure[child] = (next < 0) ? 0 : next;
+                int link = failure[child];
+                outputLinks[child] = (outputs[link] != null) ? link : outputLinks[link];
+                queue.add(child);
+            }
+        }
+    }
+
+    /**
+     * Compiles the given regular expressions into a pattern set.
+     *
+     * @param  regexes
+     *         The expressions to be compiled
+     *
+     * @return  The given regular expressions compiled into a pattern set
+     *
+     * @throws  PatternSyntaxException
+     *          If the syntax of an expression is invalid
+     */
+    public static PatternSet compile(String... regexes) {
+        Pattern[] patterns = new Pattern[regexes.length];
+        for (int i = 0; i < regexes.length; i++) {
+            patterns[i] = Pattern.compile(regexes[i]);
+        }
+        return new PatternSet(patterns);
+    }
+
+    /**
+     * Returns a pattern set of the given patterns, in the given order.
+     *
+     * @param  patterns
+     *         The patterns of the set
+     *
+     * @return  A pattern set of the given patterns
+     *
+     * @throws  NullPointerException
+     *          If a pattern is null
+     */
+    public static PatternSet of(Pattern... patterns) {
+        Pattern[] copy = patterns.clone();
+        for (Pattern p : copy) {
+            if (p == null)
+                throw new NullPointerException();
+        }
+        return new PatternSet(copy);
+    }
+
+    /**
+     * Returns the number of patterns in this set.
+     *
+     * @return  The number of patterns in this set
+     */
+    public int size() {
+        return patterns.length;
+    }
+
+    /**
+     * Returns the pattern of this set at the given index.
+     *
+     * @param  index
+     *         The index of the pattern
+     *
+     * @return  The pattern at the given index
+     *
+     * @throws  IndexOutOfBoundsException
+     *          If the index is negative or not less than {@link #size()}
+     */
+    public Pattern pattern(int index) {
+        return patterns[index];
+    }
+
+    /**
+     * Returns the indexes of the patterns of this set that are found in
+     * the given input.
+     *
+     * <p> A pattern is found if the {@link Matcher#find() find} method of
+     * a matcher of the pattern for the input returns true.
+     *
+     * @param  input
+     *         The character sequence to be matched
+     *
+     * @return  The indexes of the patterns found, in ascending order
+     */
+    public int[] find(CharSequence input) {
+        boolean[] candidates = candidates(input);
+        int[] found = new int[patterns.length];
+        int count = 0;
+        for (int index = 0; index < patterns.length; index++) {
+            if (candidates[index] && patterns[index].matcher(input).find())
+                found[count++] = index;
+        }
+        return Arrays.copyOf(found, count);
+    }
+
+    /**
+     * Returns the index of the first pattern of this set that is found in
+     * the given input, or -1 if none is found.
+     *
+     * @param  input
+     *         The character sequence to be matched
+     *
+     * @return  The lowest index of a pattern found, or -1
+     *
+     * @see #find(CharSequence)
+     */
+    public int findFirst(CharSequence input) {
+        boolean[] candidates = candidates(input);
+        for (int index = 0; index < patterns.length; index++) {
+            if (candidates[index] && patterns[index].matcher(input).find())
+                return index;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns whether some pattern of this set is found in the given input.
+     *
+     * @param  input
+     *         The character sequence to be matched
+     *
+     * @return  true if, and only if, a pattern of this set is found
+     */
+    public boolean findAny(CharSequence input) {
+        return findFirst(input) >= 0;
+    }
+
+    /**
+     * Returns the patterns that may be found in the input: those that
+     * have no literal strings, and those one of whose strings occurs.
+     */
+    private boolean[] candidates(CharSequence input) {
+        boolean[] candidates = new boolean[patterns.length];
+        for (int index : unfiltered) {
+            candidates[index] = true;
+        }
+        if (keys[0].length == 0) {
+            return candidates;
+        }
+        int state = 0;
+        int len = input.length();
+        for (int i = 0; i < len; i++) {
+            char c = input.charAt(i);
+            if (state == 0) {
+                state = (c < 128) ? rootTargets[c] : Math.max(transition(0, c), 0);
+                if (state == 0)
+                    continue;
+            } else {
+                int next;
+                while ((next = transition(state, c)) < 0 && state != 0) {
+                    state = failure[state];
+                }
+                state = (next < 0) ? 0 : next;
+            }
+            for (int s = (outputs[state] != null) ? state : outputLinks[state];
+                 s != 0; s = outputLinks[s]) {
+                for (int index : outputs[s]) {
+                    candidates[index] = true;
+                }
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * Returns the target of the transition of a state for a character,
+     * or -1 if there is none.
+     */
+    private int transition(int state, char c) {
+        int n = Arrays.binarySearch(keys[state], c);
+        return (n < 0) ? -1 : targets[state][n];
+    }
+
+    /**
+     * Returns the string representation of this pattern set, the
+     * patterns separated by new lines.
+     *
+     * @return  The string representation of this pattern set
+     */
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (Pattern p : patterns) {
+            if (sb.length() > 0)
+                sb.append('\n');
+            sb.append(p.pattern());
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util.zip;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * A class that can be used to compute the CRC-32C of a data stream.
+ *
+ * <p> The CRC-32C is the CRC-32 of the Castagnoli polynomial, as defined
+ * by RFC 3720 section 12.1.  It is computed eight bytes at a time, with a
+ * table for each of the eight bytes (the slicing-by-8 algorithm).
+ *
+ * <p> Passing a {@code null} argument to a method in this class will cause
+ * a {@link NullPointerException} to be thrown.
+ *
+ * @see         Checksum
+ */
+public final
+class CRC32C implements Checksum {
+
+    /*
+     * The reflected Castagnoli polynomial.
+     */
+    private static final int CRC32C_POLY = 0x82F63B78;
+
+    /*
+     * The tables of the eight bytes, of 256 entries each; the first is
+     * the table of the byte at a time algorithm.
+     */
+    private static final int[] TABLE = new int[8 * 256];
+
+    static {
+        for (int i = 0; i < 256; i++) {
+            int c = i;
+            for (int k = 0; k < 8; k++) {
+                c = ((c & 1) != 0) ? (c >>> 1) ^ CRC32C_POLY : c >>> 1;
+            }
+            TABLE[i] = c;
+        }
+        for (int i = 0; i < 256; i++) {
+            for (int k = 1; k < 8; k++) {
+                int c = TABLE[(k - 1) * 256 + i];
+                TABLE[k * 256 + i] = (c >>> 8) ^ TABLE[c & 0xff];
+            }
+        }
+    }
+
+    private int crc = 0xFFFFFFFF;
+
+    /**
+     * Creates a new CRC32C object.
+     */
+    public CRC32C() {
+    }
+
+    /**
+     * Updates the CRC-32C checksum with the specified byte (the low
+     * eight bits of the argument b).
+     *
+     * @param b the byte to update the checksum with
+     */
+    public void update(int b) {
+        crc = (crc >>> 8) ^ TABLE[(crc ^ b) & 0xff];
+    }
+
+    /**
+     * Updates the CRC-32C checksum with the specified array of bytes.
+     *
+     * @throws  ArrayIndexOutOfBoundsException
+     *          if {@code off} is negative, or {@code len} is negative,
+     *          or {@code off+len} is greater than the length of the
+     *          array {@code b}
+     */
+    public void update(byte[] b, int off, int len) {
+        if (b == null) {
+            throw new NullPointerException();
+        }
+        if (off < 0 || len < 0 || off > b.length - len) {
+            throw new ArrayIndexOutOfBoundsException();
+        }
+        crc = updateBytes(crc, b, off, off + len);
+    }
+
+    /**
+     * Updates the CRC-32C checksum with the specified array of bytes.
+     *
+     * @param b the array of bytes to update the checksum with
+     */
+    public void update(byte[] b) {
+        crc = updateBytes(crc, b, 0, b.length);
+    }
+
+    /**
+     * Updates the CRC-32C checksum with the bytes from the specified
+     * buffer.
+     *
+     * The checksum is updated using
+     * buffer.{@link java.nio.Buffer#remaining() remaining()}
+     * bytes starting at
+     * buffer.{@link java.nio.Buffer#position() position()}
+     * Upon return, the buffer's position will
+     * be updated to its limit; its limit will not have been changed.
+     * The bytes of a direct buffer are read in place.
+     *
+     * @param buffer the ByteBuffer to update the checksum with
+     */
+    public void update(ByteBuffer buffer) {
+        int pos = buffer.position();
+        int limit = buffer.limit();
+        if (pos >= limit)
+            return;
+        if (buffer.hasArray()) {
+            int off = buffer.arrayOffset();
+            crc = updateBytes(crc, buffer.array(), off + pos, off + limit);
+        } else {
+            // a view with absolute reads of eight bytes in little endian
+            ByteBuffer b = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+            int crc = this.crc;
+            int i = pos;
+            for (; i <= limit - 8; i += 8) {
+                long v = b.getLong(i);
+                crc = update8(crc, (int)v, (int)(v >>> 32));
+            }
+            for (; i < limit; i++) {
+                crc = (crc >>> 8) ^ TABLE[(crc ^ b.get(i)) & 0xff];
+            }
+            this.crc = crc;
+        }
+        buffer.position(limit);
+    }
+
+    /**
+     * Resets CRC-32C to initial value.
+     */
+    public void reset() {
+        crc = 0xFFFFFFFF;
+    }
+
+    /**
+     * Returns CRC-32C value.
+     */
+    public long getValue() {
+        return (long)~crc & 0xffffffffL;
+    }
+
+    private static int updateBytes(int crc, byte[] b, int off, int end) {
+        for (; off <= end - 8; off += 8) {
+            int lo = (b[off] & 0xff) | (b[off + 1] & 0xff) << 8
+                     | (b[off + 2] & 0xff) << 16 | b[off + 3] << 24;
+            int hi = (b[off + 4] & 0xff) | (b[off + 5] & 0xff) << 8
+                     | (b[off + 6] & 0xff) << 16 | b[off + 7] << 24;
+            crc = update8(crc, lo, hi);
+        }
+        for (; off < end; off++) {
+            crc = (crc >>> 8) ^ TABLE[(crc ^ b[off]) & 0xff];
+        }
+        return crc;
+    }
+
+    /*
+     * Updates the CRC with eight bytes, the first four in lo and the last
+     * four in hi, in little endian order.
+     */
+    private static int update8(int crc, int lo, int hi) {
+        lo ^= crc;
+        return TABLE[7 * 256 + (lo & 0xff)]
+             ^ TABLE[6 * 256 + ((lo >>> 8) & 0xff)]
+             ^ TABLE[5 * 256 + ((lo >>> 16) & 0xff)]
+             ^ TABLE[4 * 256 + (lo >>> 24)]
+             ^ TABLE[3 * 256 + (hi & 0xff)]
+             ^ TABLE[2 * 256 + ((hi >>> 8) & 0xff)]
+             ^ TABLE[1 * 256 + ((hi >>> 16) & 0xff)]
+             ^ TABLE[hi >>> 24];
+    }
+}
@@ -25,6 +25,8 @@
 
 package java.util.zip;
 
+import java.nio.ByteBuffer;
+
 /**
  * An interface representing a data checksum.
  *
@@ -47,6 +49,49 @@ interface Checksum {
      */
     public void update(byte[] b, int off, int len);
 
+    /**
+     * Updates the current checksum with the specified array of bytes.
+     *
+     * @implSpec This default implementation is equal to calling
+     * {@code update(b, 0, b.length)}.
+     *
+     * @param b the byte array to update the checksum with
+     */
+    default public void update(byte[] b) {
+        update(b, 0, b.length);
+    }
+
+    /**
+     * Updates the current checksum with the bytes from the specified
+     * buffer, from its position to its limit.  Upon return, the position
+     * of the buffer is its limit; its limit is not changed.
+     *
+     * @implSpec This default implementation updates the checksum with
+     * the array of the buffer if it has one, and otherwise with a copy of
+     * the remaining bytes, made a part at a time.
+     *
+     * @param buffer the ByteBuffer to update the checksum with
+     */
+    default public void update(ByteBuffer buffer) {
+        int pos = buffer.position();
+        int limit = buffer.limit();
+        int rem = limit - pos;
+        if (rem <= 0) {
+            return;
+        }
+        if (buffer.hasArray()) {
+            update(buffer.array(), pos + buffer.arrayOffset(), rem);
+        } else {
+            byte[] b = new byte[Math.min(rem, 4096)];
+            while (buffer.hasRemaining()) {
+                int len = Math.min(buffer.remaining(), b.length);
+                buffer.get(b, 0, len);
+                update(b, 0, len);
+            }
+        }
+        buffer.position(limit);
+    }
+
     /**
      * Returns the current checksum value.
      * @return the current checksum value
@@ -25,6 +25,9 @@
 
 package java.util.zip;
 
+import java.nio.ByteBuffer;
+import java.nio.ReadOnlyBufferException;
+
 /**
  * This class provides support for general purpose compression using the
  * popular ZLIB compression library. The ZLIB compression library was
@@ -67,6 +70,11 @@ package java.util.zip;
  * }
  * </pre></blockquote>
  *
+ * <p>The input and output may also be given as {@link ByteBuffer byte
+ * buffers}.  The array of a buffer that has one is used in place; the
+ * contents of a direct buffer are copied, a part at a time, through an
+ * internal array of the deflater.
+ *
  * @see         Inflater
  * @author      David Connelly
  */
@@ -81,6 +89,14 @@ class Deflater {
     private boolean finish, finished;
     private long bytesRead;
     private long bytesWritten;
+    private ByteBuffer input;   // the input buffer, or null
+    private byte[] inputCopy;   // the part of a direct input buffer in buf
+    private byte[] outputCopy;
+
+    /*
+     * The size of the arrays the contents of direct buffers are copied to.
+     */
+    private static final int COPY_SIZE = 32 * 1024;
 
     /**
      * Compression method for the deflate algorithm (the only one currently
@@ -207,6 +223,7 @@ class Deflater {
             this.buf = b;
             this.off = off;
             this.len = len;
+            this.input = null;
         }
     }
 
@@ -220,6 +237,36 @@ class Deflater {
         setInput(b, 0, b.length);
     }
 
+    /**
+     * Sets input data for compression. This should be called whenever
+     * needsInput() returns true indicating that more input data is required.
+     * <p>
+     * The input data are the remaining bytes of the buffer, from its
+     * position to its limit.  The position of the buffer is advanced as
+     * the input is consumed by the deflate methods; the buffer should not
+     * be modified until all of it is consumed, or until other input is
+     * set.
+     *
+     * @param input the input data buffer
+     * @see Deflater#needsInput
+     */
+    public void setInput(ByteBuffer input) {
+        if (input == null) {
+            throw new NullPointerException();
+        }
+        synchronized (zsRef) {
+            this.input = input;
+            if (input.hasArray()) {
+                this.buf = input.array();
+                this.off = input.arrayOffset() + input.position();
+                this.len = input.remaining();
+            } else {
+                // copied by fillInput as it is consumed
+                this.off = this.len = 0;
+            }
+        }
+    }
+
     /**
      * Sets preset dictionary for compression. A preset dictionary is used
      * when the history buffer can be predetermined. When the data is later
@@ -259,6 +306,28 @@ class Deflater {
         setDictionary(b, 0, b.length);
     }
 
+    /**
+     * Sets preset dictionary for compression to the remaining bytes of
+     * the given buffer, and advances the position of the buffer to its
+     * limit. A preset dictionary is used when the history buffer can be
+     * predetermined.
+     * @param dictionary the dictionary data buffer
+     * @see Inflater#inflate
+     * @see Inflater#getAdler
+     */
+    public void setDictionary(ByteBuffer dictionary) {
+        int pos = dictionary.position();
+        int rem = Math.max(dictionary.limit() - pos, 0);
+        if (dictionary.hasArray()) {
+            setDictionary(dictionary.array(), dictionary.arrayOffset() + pos, rem);
+        } else {
+            byte[] b = new byte[rem];
+            dictionary.get(b);
+            setDictionary(b, 0, rem);
+        }
+        dictionary.position(pos + rem);
+    }
+
     /**
      * Sets the compression strategy to the specified value.
      *
@@ -319,7 +388,7 @@ class Deflater {
      */
     public boolean needsInput() {
         synchronized (zsRef) {
-            return len <= 0;
+            return (input != null) ? !input.hasRemaining() : len <= 0;
         }
     }
 
@@ -440,16 +509,137 @@ class Deflater {
             ensureOpen();
             if (flush == NO_FLUSH || flush == SYNC_FLUSH ||
                 flush == FULL_FLUSH) {
-                int thisLen = this.len;
-                int n = deflateBytes(zsRef.address(), b, off, len, flush);
-                bytesWritten += n;
-                bytesRead += (thisLen - this.len);
-                return n;
+                return deflate0(b, off, len, flush);
             }
             throw new IllegalArgumentException();
         }
     }
 
+    /**
+     * Compresses the input data into the specified buffer, from its
+     * position up to its limit, and advances its position by the number
+     * of bytes of compressed data. Returns actual number of bytes of
+     * compressed data. A return value of 0 indicates that
+     * {@link #needsInput() needsInput} should be called in order to
+     * determine if more input data is required.
+     *
+     * <p>This method uses {@link #NO_FLUSH} as its compression flush mode.
+     *
+     * @param output the buffer for the compressed data
+     * @return the actual number of bytes of compressed data written to the
+     *         output buffer
+     * @throws ReadOnlyBufferException if the buffer is read-only
+     */
+    public int deflate(ByteBuffer output) {
+        return deflate(output, NO_FLUSH);
+    }
+
+    /**
+     * Compresses the input data into the specified buffer, from its
+     * position up to its limit, and advances its position by the number
+     * of bytes of compressed data. Returns actual number of bytes of
+     * compressed data.
+     *
+     * <p>The flush modes are those of {@link #deflate(byte[], int, int, int)};
+     * in the case of {@link #FULL_FLUSH} or {@link #SYNC_FLUSH}, if the
+     * return value is the space that remained in the buffer, this method
+     * should be invoked again with the same {@code flush} parameter and
+     * more output space.
+     *
+     * @param output the buffer for the compressed data
+     * @param flush the compression flush mode
+     * @return the actual number of bytes of compressed data written to
+     *         the output buffer
+     *
+     * @throws IllegalArgumentException if the flush mode is invalid
+     * @throws ReadOnlyBufferException if the buffer is read-only
+     */
+    public int deflate(ByteBuffer output, int flush) {
+        if (output.isReadOnly()) {
+            throw new ReadOnlyBufferException();
+        }
+        synchronized (zsRef) {
+            ensureOpen();
+            if (flush != NO_FLUSH && flush != SYNC_FLUSH &&
+                flush != FULL_FLUSH) {
+                throw new IllegalArgumentException();
+            }
+            int pos = output.position();
+            int rem = Math.max(output.limit() - pos, 0);
+            if (output.hasArray()) {
+                int n = deflate0(output.array(), output.arrayOffset() + pos,
+                                 rem, flush);
+                output.position(pos + n);
+                return n;
+            }
+            if (outputCopy == null) {
+                outputCopy = new byte[COPY_SIZE];
+            }
+            int n = 0;
+            while (n < rem) {
+                int len = Math.min(rem - n, outputCopy.length);
+                int k = deflate0(outputCopy, 0, len, flush);
+                output.put(outputCopy, 0, k);
+                n += k;
+                if (k < len) {
+                    break;
+                }
+            }
+            return n;
+        }
+    }
+
+    /*
+     * Compresses into the array, taking the parts of a direct input buffer
+     * in turn while there is room for the output.  The flush mode, and the
+     * finishing of the stream, apply to the last part only.
+     */
+    private int deflate0(byte[] b, int off, int len, int flush) {
+        int n = 0;
+        do {
+            fillInput();
+            int thisLen = this.len;
+            boolean last = (input == null || input.remaining() == thisLen);
+            boolean finish = this.finish;
+            int k;
+            try {
+                this.finish = finish && last;
+                k = deflateBytes(zsRef.address(), b, off + n, len - n,
+                                 last ? flush : NO_FLUSH);
+            } finally {
+                this.finish = finish;
+            }
+            n += k;
+            bytesWritten += k;
+            bytesRead += (thisLen - this.len);
+            if (input != null) {
+                input.position(input.position() + (thisLen - this.len));
+            }
+        } while (n < len && this.len == 0 && input != null
+                 && input.hasRemaining() && !finished);
+        return n;
+    }
+
+    /*
+     * Copies the next part of a direct input buffer, once the part before
+     * it is consumed; the position of the buffer is that of the part.
+     */
+    private void fillInput() {
+        if (this.len == 0 && input != null && input.hasRemaining()
+            && !input.hasArray()) {
+            if (inputCopy == null) {
+                inputCopy = new byte[COPY_SIZE];
+            }
+            int pos = input.position();
+            int n = Math.min(input.remaining(), inputCopy.length);
+            input.get(inputCopy, 0, n);
+            input.position(pos);
+            this.buf = inputCopy;
+            this.off = 0;
+            this.len = n;
+        }
+    }
+
     /**
      * Returns the ADLER-32 value of the uncompressed data.
      * @return the ADLER-32 value of the uncompressed data
@@ -524,6 +714,7 @@ class Deflater {
             finish = false;
             finished = false;
             off = len = 0;
+            input = null;
             bytesRead = bytesWritten = 0;
         }
     }
@@ -542,6 +733,7 @@ class Deflater {
             if (addr != 0) {
                 end(addr);
                 buf = null;
+                input = null;
             }
         }
     }
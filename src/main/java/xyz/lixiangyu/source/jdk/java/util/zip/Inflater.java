@@ -25,6 +25,9 @@
 
 package java.util.zip;
 
+import java.nio.ByteBuffer;
+import java.nio.ReadOnlyBufferException;
+
 /**
  * This class provides support for general purpose decompression using the
  * popular ZLIB compression library. The ZLIB compression library was
@@ -66,6 +69,11 @@ package java.util.zip;
  * }
  * </pre></blockquote>
  *
+ * <p>The input and output may also be given as {@link ByteBuffer byte
+ * buffers}.  The array of a buffer that has one is used in place; the
+ * contents of a direct buffer are copied, a part at a time, through an
+ * internal array of the inflater.
+ *
  * @see         Deflater
  * @author      David Connelly
  *
@@ -81,8 +89,17 @@ class Inflater {
     private long bytesRead;
     private long bytesWritten;
 
+    private ByteBuffer input;   // the input buffer, or null
+    private byte[] inputCopy;   // the part of a direct input buffer in buf
+    private byte[] outputCopy;
+
     private static final byte[] defaultBuf = new byte[0];
 
+    /*
+     * The size of the arrays the contents of direct buffers are copied to.
+     */
+    private static final int COPY_SIZE = 32 * 1024;
+
     static {
         /* Zip library is loaded from System.initializeSystemClass */
         initIDs();
@@ -130,6 +147,7 @@ class Inflater {
             this.buf = b;
             this.off = off;
             this.len = len;
+            this.input = null;
         }
     }
 
@@ -144,6 +162,38 @@ class Inflater {
         setInput(b, 0, b.length);
     }
 
+    /**
+     * Sets input data for decompression. Should be called whenever
+     * needsInput() returns true indicating that more input data is
+     * required.
+     * <p>
+     * The input data are the remaining bytes of the buffer, from its
+     * position to its limit.  The position of the buffer is advanced as
+     * the input is consumed by the inflate methods; the buffer should not
+     * be modified until all of it is consumed, or until other input is
+     * set.
+     *
+     * @param input the input data buffer
+     * @see Inflater#needsInput
+     */
+    public void setInput(ByteBuffer input) {
+        if (input == null) {
+            throw new NullPointerException();
+        }
+        synchronized (zsRef) {
+            this.input = input;
+            if (input.hasArray()) {
+                this.buf = input.array();
+                this.off = input.arrayOffset() + input.position();
+                this.len = input.remaining();
+            } else {
+                // copied by fillInput as it is consumed
+                this.buf = defaultBuf;
+                this.off = this.len = 0;
+            }
+        }
+    }
+
     /**
      * Sets the preset dictionary to the given array of bytes. Should be
      * called when inflate() returns 0 and needsDictionary() returns true
@@ -182,6 +232,28 @@ class Inflater {
         setDictionary(b, 0, b.length);
     }
 
+    /**
+     * Sets the preset dictionary to the remaining bytes of the given
+     * buffer, and advances the position of the buffer to its limit.
+     * Should be called when inflate() returns 0 and needsDictionary()
+     * returns true indicating that a preset dictionary is required.
+     * @param dictionary the dictionary data buffer
+     * @see Inflater#needsDictionary
+     * @see Inflater#getAdler
+     */
+    public void setDictionary(ByteBuffer dictionary) {
+        int pos = dictionary.position();
+        int rem = Math.max(dictionary.limit() - pos, 0);
+        if (dictionary.hasArray()) {
+            setDictionary(dictionary.array(), dictionary.arrayOffset() + pos, rem);
+        } else {
+            byte[] b = new byte[rem];
+            dictionary.get(b);
+            setDictionary(b, 0, rem);
+        }
+        dictionary.position(pos + rem);
+    }
+
     /**
      * Returns the total number of bytes remaining in the input buffer.
      * This can be used to find out what bytes still remain in the input
@@ -190,7 +262,7 @@ class Inflater {
      */
     public int getRemaining() {
         synchronized (zsRef) {
-            return len;
+            return (input != null) ? input.remaining() : len;
         }
     }
 
@@ -202,7 +274,7 @@ class Inflater {
      */
     public boolean needsInput() {
         synchronized (zsRef) {
-            return len <= 0;
+            return (input != null) ? !input.hasRemaining() : len <= 0;
         }
     }
 
@@ -255,11 +327,7 @@ class Inflater {
         }
         synchronized (zsRef) {
             ensureOpen();
-            int thisLen = this.len;
-            int n = inflateBytes(zsRef.address(), b, off, len);
-            bytesWritten += n;
-            bytesRead += (thisLen - this.len);
-            return n;
+            return inflate0(b, off, len);
         }
     }
 
@@ -280,6 +348,93 @@ class Inflater {
         return inflate(b, 0, b.length);
     }
 
+    /**
+     * Uncompresses bytes into the specified buffer, from its position up
+     * to its limit, and advances its position by the number of bytes
+     * uncompressed. Returns actual number of bytes uncompressed. A return
+     * value of 0 indicates that needsInput() or needsDictionary() should
+     * be called in order to determine if more input data or a preset
+     * dictionary is required.
+     * @param output the buffer for the uncompressed data
+     * @return the actual number of uncompressed bytes
+     * @exception DataFormatException if the compressed data format is invalid
+     * @exception ReadOnlyBufferException if the buffer is read-only
+     * @see Inflater#needsInput
+     * @see Inflater#needsDictionary
+     */
+    public int inflate(ByteBuffer output) throws DataFormatException {
+        if (output.isReadOnly()) {
+            throw new ReadOnlyBufferException();
+        }
+        synchronized (zsRef) {
+            ensureOpen();
+            int pos = output.position();
+            int rem = Math.max(output.limit() - pos, 0);
+            if (output.hasArray()) {
+                int n = inflate0(output.array(), output.arrayOffset() + pos, rem);
+                output.position(pos + n);
+                return n;
+            }
+            if (outputCopy == null) {
+                outputCopy = new byte[COPY_SIZE];
+            }
+            int n = 0;
+            while (n < rem) {
+                int len = Math.min(rem - n, outputCopy.length);
+                int k = inflate0(outputCopy, 0, len);
+                output.put(outputCopy, 0, k);
+                n += k;
+                if (k < len) {
+                    break;
+                }
+            }
+            return n;
+        }
+    }
+
+    /*
+     * Uncompresses into the array, taking the parts of a direct input
+     * buffer in turn while there is room for the output.
+     */
+    private int inflate0(byte[] b, int off, int len)
+        throws DataFormatException
+    {
+        int n = 0;
+        do {
+            fillInput();
+            int thisLen = this.len;
+            int k = inflateBytes(zsRef.address(), b, off + n, len - n);
+            n += k;
+            bytesWritten += k;
+            bytesRead += (thisLen - this.len);
+            if (input != null) {
+                input.position(input.position() + (thisLen - this.len));
+            }
+        } while (n < len && this.len == 0 && input != null
+                 && input.hasRemaining() && !finished && !needDict);
+        return n;
+    }
+
+    /*
+     * Copies the next part of a direct input buffer, once the part before
+     * it is consumed; the position of the buffer is that of the part.
+     */
+    private void fillInput() {
+        if (this.len == 0 && input != null && input.hasRemaining()
+            && !input.hasArray()) {
+            if (inputCopy == null) {
+                inputCopy = new byte[COPY_SIZE];
+            }
+            int pos = input.position();
+            int n = Math.min(input.remaining(), inputCopy.length);
+            input.get(inputCopy, 0, n);
+            input.position(pos);
+            this.buf = inputCopy;
+            this.off = 0;
+            this.len = n;
+        }
+    }
+
     /**
      * Returns the ADLER-32 value of the uncompressed data.
      * @return the ADLER-32 value of the uncompressed data
@@ -351,6 +506,7 @@ class Inflater {
             ensureOpen();
             reset(zsRef.address());
             buf = defaultBuf;
+            input = null;
             finished = false;
             needDict = false;
             off = len = 0;
@@ -372,6 +528,7 @@ class Inflater {
             if (addr != 0) {
                 end(addr);
                 buf = null;
+                input = null;
             }
         }
     }
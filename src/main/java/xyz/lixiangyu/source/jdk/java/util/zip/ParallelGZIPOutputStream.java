@@ -0,0 +1,400 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util.zip;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * This class implements a stream filter for writing compressed data in
+ * the GZIP file format, compressing the data on several threads.
+ *
+ * <p> The data written is split into blocks, which are compressed
+ * concurrently by the tasks of a {@link ForkJoinPool}.  Each block but
+ * the first is compressed with the last 32K bytes of the block before it
+ * as a preset dictionary, and each block but the last is ended with a
+ * {@link Deflater#SYNC_FLUSH sync flush}, so that the compressed blocks,
+ * written in order, form a single deflate stream, whose CRC-32 is combined
+ * from the CRC-32 of each block.  The output is a standard GZIP member,
+ * which is read by {@link GZIPInputStream}; it is slightly larger than the
+ * output of {@link GZIPOutputStream}, by a few bytes per block.
+ *
+ * <p> At most twice as many blocks as the parallelism of the pool are
+ * compressed, or waiting to be written, at a time; a write waits for the
+ * oldest of them when there are more.
+ *
+ * @see GZIPOutputStream
+ */
+public
+class ParallelGZIPOutputStream extends FilterOutputStream {
+    /*
+     * GZIP header magic number.
+     */
+    private final static int GZIP_MAGIC = 0x8b1f;
+
+    /*
+     * Trailer size in bytes.
+     */
+    private final static int TRAILER_SIZE = 8;
+
+    /*
+     * The size of the deflate window, and of the preset dictionaries.
+     */
+    private final static int DICTIONARY_SIZE = 32 * 1024;
+
+    /*
+     * The default size of the blocks.
+     */
+    private final static int DEFAULT_BLOCK_SIZE = 128 * 1024;
+
+    private final ForkJoinPool pool;
+    private final int level;
+    private final int blockSize;
+    private final int maxPending;
+
+    /*
+     * The blocks being compressed or not yet written, in order.
+     */
+    private final ArrayDeque<Block> pending = new ArrayDeque<>();
+
+    /*
+     * The deflaters not in use by a block.
+     */
+    private final Queue<Deflater> deflaters = new ConcurrentLinkedQueue<>();
+
+    private byte[] buf;         // the data of the current block
+    private int count;          // the length of the current block
+    private byte[] dict;        // the data of the previous block, or null
+    private int dictLen;        // the length of the previous block
+    private long crc;           // the CRC-32 of the blocks written
+    private long size;          // the number of bytes of the blocks written
+    // volatile as the compressing threads read it in releaseDeflater
+    private volatile boolean finished;
+    private boolean closed;
+
+    /**
+     * Creates a new output stream with the default compression level and
+     * block size, compressing on the {@link ForkJoinPool#commonPool()
+     * common pool}.
+     *
+     * @param out the output stream
+     * @exception IOException If an I/O error has occurred.
+     */
+    public ParallelGZIPOutputStream(OutputStream out) throws IOException {
+        this(out, Deflater.DEFAULT_COMPRESSION, DEFAULT_BLOCK_SIZE,
+             ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a new output stream with the specified compression level and
+     * block size, compressing on the specified pool.
+     *
+     * @param out the output stream
+     * @param level the compression level (0-9), or
+     *        {@link Deflater#DEFAULT_COMPRESSION}
+     * @param blockSize the number of bytes compressed by a task
+     * @param pool the pool the blocks are compressed on
+     * @exception IOException If an I/O error has occurred.
+     * @exception IllegalArgumentException if the compression level is
+     *            invalid, or if {@code blockSize <= 0}
+     */
+    public ParallelGZIPOutputStream(OutputStream out, int level, int blockSize,
+                                    ForkJoinPool pool)
+        throws IOException
+    {
+        super(out);
+        if (out == null || pool == null) {
+            throw new NullPointerException();
+        }
+        if ((level < 0 || level > 9) && level != Deflater.DEFAULT_COMPRESSION) {
+            throw new IllegalArgumentException("invalid compression level");
+        }
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("blockSize <= 0");
+        }
+        this.pool = pool;
+        this.level = level;
+        this.blockSize = blockSize;
+        this.maxPending = 2 * pool.getParallelism();
+        this.buf = new byte[blockSize];
+        writeHeader();
+    }
+
+    /**
+     * Writes a byte to the compressed output stream.
+     *
+     * @param b the byte to be written
+     * @exception IOException if an I/O error has occurred
+     */
+    public void write(int b) throws IOException {
+        byte[] buf = new byte[1];
+        buf[0] = (byte)(b & 0xff);
+        write(buf, 0, 1);
+    }
+
+    /**
+     * Writes an array of bytes to the compressed output stream.  The
+     * method blocks while the blocks compressed, or waiting to be
+     * written, are too many.
+     *
+     * @param b the data to be written
+     * @param off the start offset of the data
+     * @param len the length of the data
+     * @exception IOException if an I/O error has occurred
+     */
+    public synchronized void write(byte[] b, int off, int len)
+        throws IOException
+    {
+        if (finished) {
+            throw new IOException("write beyond end of stream");
+        }
+        if ((off | len | (off + len) | (b.length - (off + len))) < 0) {
+            throw new IndexOutOfBoundsException();
+        }
+        while (len > 0) {
+            int n = Math.min(len, blockSize - count);
+            System.arraycopy(b, off, buf, count, n);
+            count += n;
+            off += n;
+            len -= n;
+            if (count == blockSize) {
+                submit(false);
+            }
+        }
+    }
+
+    /**
+     * Flushes the compressed output stream.  The data written so far is
+     * compressed, and written to the output stream before it is flushed,
+     * so that all of it can be decompressed.
+     *
+     * @exception IOException if an I/O error has occurred
+     */
+    public synchronized void flush() throws IOException {
+        if (!finished) {
+            if (count > 0) {
+                submit(false);
+            }
+            while (!pending.isEmpty()) {
+                writeBlock(pending.poll());
+            }
+        }
+        out.flush();
+    }
+
+    /**
+     * Finishes writing compressed data to the output stream without closing
+     * the underlying stream. Use this method when applying multiple filters
+     * in succession to the same output stream.
+     *
+     * @exception IOException if an I/O error has occurred
+     */
+    public synchronized void finish() throws IOException {
+        if (!finished) {
+            finished = true;
+            try {
+                submit(true);
+                while (!pending.isEmpty()) {
+                    writeBlock(pending.poll());
+                }
+                writeTrailer();
+            } finally {
+                buf = null;
+                dict = null;
+                endDeflaters();
+            }
+        }
+    }
+
+    /**
+     * Writes remaining compressed data to the output stream and closes the
+     * underlying stream.
+     *
+     * @exception IOException if an I/O error has occurred
+     */
+    public void close() throws IOException {
+        if (!closed) {
+            finish();
+            out.close();
+            closed = true;
+        }
+    }
+
+    /*
+     * Hands the current block to the pool, and writes the oldest blocks
+     * if they are compressed, or if there are too many of them.
+     */
+    private void submit(boolean last) throws IOException {
+        Block block = new Block(buf, count, dict, dictLen, last);
+        dict = buf;
+        dictLen = count;
+        buf = last ? null : new byte[blockSize];
+        count = 0;
+        pending.add(block);
+        pool.execute(block);
+        while (!pending.isEmpty()
+               && (pending.size() > maxPending || pending.peek().isDone())) {
+            writeBlock(pending.poll());
+        }
+    }
+
+    /*
+     * Waits for a block to be compressed and writes it.
+     */
+    private void writeBlock(Block block) throws IOException {
+        block.join();
+        out.write(block.output, 0, block.outputLen);
+        crc = CRC32.combine(crc, block.crc, block.len);
+        size += block.len;
+    }
+
+    private Deflater getDeflater() {
+        Deflater def = deflaters.poll();
+        return (def != null) ? def : new Deflater(level, true);
+    }
+
+    private void releaseDeflater(Deflater def) {
+        def.reset();
+        deflaters.add(def);
+        if (finished) {
+            endDeflaters();
+        }
+    }
+
+    private void endDeflaters() {
+        Deflater def;
+        while (null != (def = deflaters.poll())) {
+            def.end();
+        }
+    }
+
+    /*
+     * The task that compresses a block.
+     */
+    private final class Block extends RecursiveAction {
+        private static final long serialVersionUID = 7375016409622349165L;
+
+        final byte[] input;
+        final int len;
+        final byte[] dict;
+        final int dictLen;
+        final boolean last;
+        byte[] output;
+        int outputLen;
+        long crc;
+
+        Block(byte[] input, int len, byte[] dict, int dictLen, boolean last) {
+            this.input = input;
+            this.len = len;
+            this.dict = dict;
+            this.dictLen = dictLen;
+            this.last = last;
+        }
+
+        protected void compute() {
+            CRC32 checksum = new CRC32();
+            checksum.update(input, 0, len);
+            crc = checksum.getValue();
+
+            Deflater def = getDeflater();
+            try {
+                if (dict != null) {
+                    int n = Math.min(dictLen, DICTIONARY_SIZE);
+                    def.setDictionary(dict, dictLen - n, n);
+                }
+                def.setInput(input, 0, len);
+                if (last) {
+                    def.finish();
+                }
+                byte[] b = new byte[len + (len >> 12) + (len >> 14) + 64];
+                int off = 0;
+                while (true) {
+                    if (off == b.length) {
+                        b = Arrays.copyOf(b, b.length * 2);
+                    }
+                    int space = b.length - off;
+                    int n = def.deflate(b, off, space,
+                                        last ? Deflater.NO_FLUSH
+                                             : Deflater.SYNC_FLUSH);
+                    off += n;
+                    if (last ? def.finished() : n < space) {
+                        break;
+                    }
+                }
+                output = b;
+                outputLen = off;
+            } finally {
+                releaseDeflater(def);
+            }
+        }
+    }
+
+    /*
+     * Writes GZIP member header.
+     */
+    private void writeHeader() throws IOException {
+        out.write(new byte[] {
+                      (byte) GZIP_MAGIC,        // Magic number (short)
+                      (byte)(GZIP_MAGIC >> 8),  // Magic number (short)
+                      Deflater.DEFLATED,        // Compression method (CM)
+                      0,                        // Flags (FLG)
+                      0,                        // Modification time MTIME (int)
+                      0,                        // Modification time MTIME (int)
+                      0,                        // Modification time MTIME (int)
+                      0,                        // Modification time MTIME (int)
+                      0,                        // Extra flags (XFLG)
+                      0                         // Operating system (OS)
+                  });
+    }
+
+    /*
+     * Writes GZIP member trailer.
+     */
+    private void writeTrailer() throws IOException {
+        byte[] trailer = new byte[TRAILER_SIZE];
+        writeInt((int)crc, trailer, 0); // CRC-32 of uncompr. data
+        writeInt((int)size, trailer, 4); // Number of uncompr. bytes
+        out.write(trailer);
+    }
+
+    /*
+     * Writes integer in Intel byte order to a byte array, starting at a
+     * given offset.
+     */
+    private void writeInt(int i, byte[] buf, int offset) {
+        buf[offset] = (byte)(i & 0xff);
+        buf[offset + 1] = (byte)((i >> 8) & 0xff);
+        buf[offset + 2] = (byte)((i >> 16) & 0xff);
+        buf[offset + 3] = (byte)((i >> 24) & 0xff);
+    }
+}
@@ -38,12 +38,30 @@ import sun.nio.cs.ArrayDecoder;
 import sun.nio.cs.ArrayEncoder;
 
 /**
- * Utility class for zipfile name and comment decoding and encoding
+ * Utility class for zipfile name and comment decoding and encoding.
+ * A coder may be used by several threads: the names in ASCII, as most
+ * are, are coded without the decoder and encoder of the charset, and the
+ * other ones with them under the lock of the coder.
  */
 
 final class ZipCoder {
 
     String toString(byte[] ba, int length) {
+        if (isUTF8) {
+            int i = 0;
+            while (i < length && ba[i] >= 0)
+                i++;
+            if (i == length) {
+                char[] ca = new char[length];
+                for (i = 0; i < length; i++)
+                    ca[i] = (char) ba[i];
+                return new String(ca);
+            }
+        }
+        return decode(ba, length);
+    }
+
+    private synchronized String decode(byte[] ba, int length) {
         CharsetDecoder cd = decoder().reset();
         int len = (int)(length * cd.maxCharsPerByte());
         char[] ca = new char[len];
@@ -74,6 +92,20 @@ final class ZipCoder {
     }
 
     byte[] getBytes(String s) {
+        if (isUTF8) {
+            int n = s.length();
+            byte[] ba = new byte[n];
+            int i = 0;
+            char c;
+            while (i < n && (c = s.charAt(i)) < 0x80)
+                ba[i++] = (byte) c;
+            if (i == n)
+                return ba;
+        }
+        return encode(s);
+    }
+
+    private synchronized byte[] encode(String s) {
         CharsetEncoder ce = encoder().reset();
         char[] ca = s.toCharArray();
         int len = (int)(ca.length * ce.maxBytesPerChar());
@@ -124,11 +156,11 @@ final class ZipCoder {
         return isUTF8;
     }
 
-    private Charset cs;
-    private CharsetDecoder dec;
-    private CharsetEncoder enc;
-    private boolean isUTF8;
-    private ZipCoder utf8;
+    private final Charset cs;
+    private CharsetDecoder dec;         // guarded by this
+    private CharsetEncoder enc;         // guarded by this
+    private final boolean isUTF8;
+    private volatile ZipCoder utf8;
 
     private ZipCoder(Charset cs) {
         this.cs = cs;
@@ -54,6 +54,8 @@ class ZipEntry implements ZipConstants, Cloneable {
     int flag = 0;       // general purpose flag
     byte[] extra;       // optional extra field data for entry
     String comment;     // optional comment string for entry
+    int cenpos = -1;    // position of the CEN header in the zip file the
+                        // entry was read from, or -1
 
     /**
      * Compression method for uncompressed entries.
@@ -128,6 +130,7 @@ class ZipEntry implements ZipConstants, Cloneable {
         flag = e.flag;
         extra = e.extra;
         comment = e.comment;
+        cenpos = e.cenpos;
     }
 
     /**
@@ -32,16 +32,16 @@ import java.io.EOFException;
 import java.io.File;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
-import java.util.ArrayDeque;
-import java.util.Deque;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Queue;
 import java.util.Spliterator;
 import java.util.Spliterators;
 import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
@@ -54,11 +54,17 @@ import static java.util.zip.ZipConstants64.*;
  * or method in this class will cause a {@link NullPointerException} to be
  * thrown.
  *
+ * <p> The central directory of the zip file is memory mapped and indexed by
+ * entry name when the file is opened, and is shared by the instances that
+ * open the same file.  Entries are looked up, and their contents read,
+ * concurrently by several threads without locking.
+ *
  * @author      David Connelly
  */
 public
 class ZipFile implements ZipConstants, Closeable {
-    private long jzfile;  // address of jzfile data
+    private final ZipSource zsrc;  // the central directory and file channel
+    private boolean released;      // whether zsrc was released, guarded by this
     private final String name;     // zip file name
     private final int total;       // total number of entries
     private final boolean locsig;  // if zip file starts with LOCSIG (usually true)
@@ -81,13 +87,6 @@ class ZipFile implements ZipConstants, Closeable {
      */
     public static final int OPEN_DELETE = 0x4;
 
-    static {
-        /* Zip library is loaded from System.initializeSystemClass */
-        initIDs();
-    }
-
-    private static native void initIDs();
-
     private static final boolean usemmap;
 
     private static final boolean ensuretrailingslash;
@@ -222,12 +221,12 @@ class ZipFile implements ZipConstants, Closeable {
             throw new NullPointerException("charset is null");
         this.zc = ZipCoder.get(charset);
         long t0 = System.nanoTime();
-        jzfile = open(name, mode, file.lastModified(), usemmap);
+        zsrc = ZipSource.get(file, (mode & OPEN_DELETE) != 0, usemmap);
         sun.misc.PerfCounter.getZipFileOpenTime().addElapsedTimeFrom(t0);
         sun.misc.PerfCounter.getZipFileCount().increment();
         this.name = name;
-        this.total = getTotal(jzfile);
-        this.locsig = startsWithLOC(jzfile);
+        this.total = zsrc.total;
+        this.locsig = zsrc.locsig;
     }
 
     /**
@@ -289,13 +288,11 @@ class ZipFile implements ZipConstants, Closeable {
      * Since 1.7
      */
     public String getComment() {
-        synchronized (this) {
-            ensureOpen();
-            byte[] bcomm = getCommentBytes(jzfile);
-            if (bcomm == null)
-                return null;
-            return zc.toString(bcomm, bcomm.length);
-        }
+        ensureOpen();
+        byte[] bcomm = zsrc.comment;
+        if (bcomm == null)
+            return null;
+        return zc.toString(bcomm, bcomm.length);
     }
 
     /**
@@ -310,34 +307,23 @@ class ZipFile implements ZipConstants, Closeable {
         if (name == null) {
             throw new NullPointerException("name");
         }
-        long jzentry = 0;
-        synchronized (this) {
-            ensureOpen();
-            jzentry = getEntry(jzfile, zc.getBytes(name), true);
-            if (jzentry != 0) {
-                // If no entry is found for the specified 'name' and
-                // the 'name' does not end with a forward slash '/',
-                // the implementation tries to find the entry with a
-                // slash '/' appended to the end of the 'name', before
-                // returning null. When such entry is found, the name
-                // that actually is found (with a slash '/' attached)
-                // is used
-                // (disabled if jdk.util.zip.ensureTrailingSlash=false)
-                ZipEntry ze = ensuretrailingslash ? getZipEntry(null, jzentry)
-                                                  : getZipEntry(name, jzentry);
-                freeEntry(jzfile, jzentry);
-                return ze;
-            }
+        ensureOpen();
+        int pos = zsrc.getEntryPos(zc.getBytes(name), true);
+        if (pos != -1) {
+            // If no entry is found for the specified 'name' and
+            // the 'name' does not end with a forward slash '/',
+            // the implementation tries to find the entry with a
+            // slash '/' appended to the end of the 'name', before
+            // returning null. When such entry is found, the name
+            // that actually is found (with a slash '/' attached)
+            // is used
+            // (disabled if jdk.util.zip.ensureTrailingSlash=false)
+            return ensuretrailingslash ? getZipEntry(null, pos)
+                                       : getZipEntry(name, pos);
         }
         return null;
     }
 
-    private static native long getEntry(long jzfile, byte[] name,
-                                        boolean addSlash);
-
-    // freeEntry releases the C jzentry struct.
-    private static native void freeEntry(long jzfile, long jzentry);
-
     // the outstanding inputstreams that need to be closed,
     // mapped to the inflater objects they use.
     private final Map<InputStream, Inflater> streams = new WeakHashMap<>();
@@ -360,41 +346,46 @@ class ZipFile implements ZipConstants, Closeable {
         if (entry == null) {
             throw new NullPointerException("entry");
         }
-        long jzentry = 0;
+        int pos;
+        byte[] name;
         ZipFileInputStream in = null;
-        synchronized (this) {
-            ensureOpen();
-            if (!zc.isUTF8() && (entry.flag & EFS) != 0) {
-                jzentry = getEntry(jzfile, zc.getBytesUTF8(entry.name), false);
-            } else {
-                jzentry = getEntry(jzfile, zc.getBytes(entry.name), false);
-            }
-            if (jzentry == 0) {
-                return null;
-            }
-            in = new ZipFileInputStream(jzentry);
+        ensureOpen();
+        if (!zc.isUTF8() && (entry.flag & EFS) != 0) {
+            name = zc.getBytesUTF8(entry.name);
+        } else {
+            name = zc.getBytes(entry.name);
+        }
+        // an entry read from this file is opened at its own CEN header,
+        // which a lookup by name would miss if the name is duplicated
+        pos = entry.cenpos;
+        if (pos < 0 || !zsrc.isEntryPos(pos, name)) {
+            pos = zsrc.getEntryPos(name, false);
+        }
+        if (pos == -1) {
+            return null;
+        }
+        in = new ZipFileInputStream(pos);
 
-            switch (getEntryMethod(jzentry)) {
-            case STORED:
-                synchronized (streams) {
-                    streams.put(in, null);
-                }
-                return in;
-            case DEFLATED:
-                // MORE: Compute good size for inflater stream:
-                long size = getEntrySize(jzentry) + 2; // Inflater likes a bit of slack
-                if (size > 65536) size = 8192;
-                if (size <= 0) size = 4096;
-                Inflater inf = getInflater();
-                InputStream is =
-                    new ZipFileInflaterInputStream(in, inf, (int)size);
-                synchronized (streams) {
-                    streams.put(is, inf);
-                }
-                return is;
-            default:
-                throw new ZipException("invalid compression method");
+        switch (zsrc.cenShort(pos + CENHOW)) {
+        case STORED:
+            synchronized (streams) {
+                streams.put(in, null);
+            }
+            return in;
+        case DEFLATED:
+            // MORE: Compute good size for inflater stream:
+            long size = zsrc.entrySize(pos) + 2; // Inflater likes a bit of slack
+            if (size > 65536) size = 8192;
+            if (size <= 0) size = 4096;
+            Inflater inf = getInflater();
+            InputStream is =
+                new ZipFileInflaterInputStream(in, inf, (int)size);
+            synchronized (streams) {
+                streams.put(is, inf);
             }
+            return is;
+        default:
+            throw new ZipException("invalid compression method");
         }
     }
 
@@ -459,11 +450,9 @@ class ZipFile implements ZipConstants, Closeable {
      */
     private Inflater getInflater() {
         Inflater inf;
-        synchronized (inflaterCache) {
-            while (null != (inf = inflaterCache.poll())) {
-                if (false == inf.ended()) {
-                    return inf;
-                }
+        while (null != (inf = inflaterCache.poll())) {
+            if (false == inf.ended()) {
+                return inf;
             }
         }
         return new Inflater(true);
@@ -475,14 +464,24 @@ class ZipFile implements ZipConstants, Closeable {
     private void releaseInflater(Inflater inf) {
         if (false == inf.ended()) {
             inf.reset();
-            synchronized (inflaterCache) {
-                inflaterCache.add(inf);
+            inflaterCache.add(inf);
+            // the inflaters released as the file is closed are ended
+            // either here or by close
+            if (closeRequested) {
+                endInflaters();
             }
         }
     }
 
+    private void endInflaters() {
+        Inflater inf;
+        while (null != (inf = inflaterCache.poll())) {
+            inf.end();
+        }
+    }
+
     // List of available Inflater objects for decompression
-    private Deque<Inflater> inflaterCache = new ArrayDeque<>();
+    private final Queue<Inflater> inflaterCache = new ConcurrentLinkedQueue<>();
 
     /**
      * Returns the path name of the ZIP file.
@@ -504,10 +503,8 @@ class ZipFile implements ZipConstants, Closeable {
         }
 
         public boolean hasNext() {
-            synchronized (ZipFile.this) {
-                ensureOpen();
-                return i < total;
-            }
+            ensureOpen();
+            return i < total;
         }
 
         public ZipEntry nextElement() {
@@ -515,31 +512,11 @@ class ZipFile implements ZipConstants, Closeable {
         }
 
         public ZipEntry next() {
-            synchronized (ZipFile.this) {
-                ensureOpen();
-                if (i >= total) {
-                    throw new NoSuchElementException();
-                }
-                long jzentry = getNextEntry(jzfile, i++);
-                if (jzentry == 0) {
-                    String message;
-                    if (closeRequested) {
-                        message = "ZipFile concurrently closed";
-                    } else {
-                        message = getZipMessage(ZipFile.this.jzfile);
-                    }
-                    throw new ZipError("jzentry == 0" +
-                                       ",\n jzfile = " + ZipFile.this.jzfile +
-                                       ",\n total = " + ZipFile.this.total +
-                                       ",\n name = " + ZipFile.this.name +
-                                       ",\n i = " + i +
-                                       ",\n message = " + message
-                        );
-                }
-                ZipEntry ze = getZipEntry(null, jzentry);
-                freeEntry(jzfile, jzentry);
-                return ze;
+            ensureOpen();
+            if (i >= total) {
+                throw new NoSuchElementException();
             }
+            return getZipEntry(null, zsrc.entryPos(i++));
         }
     }
 
@@ -568,41 +545,49 @@ class ZipFile implements ZipConstants, Closeable {
                         Spliterator.IMMUTABLE | Spliterator.NONNULL), false);
     }
 
-    private ZipEntry getZipEntry(String name, long jzentry) {
+    private ZipEntry getZipEntry(String name, int pos) {
+        ZipSource zsrc = this.zsrc;
+        int nlen = zsrc.cenShort(pos + CENNAM);
+        int elen = zsrc.cenShort(pos + CENEXT);
+        int clen = zsrc.cenShort(pos + CENCOM);
         ZipEntry e = new ZipEntry();
-        e.flag = getEntryFlag(jzentry);  // get the flag first
+        e.flag = zsrc.cenShort(pos + CENFLG);  // get the flag first
         if (name != null) {
             e.name = name;
         } else {
-            byte[] bname = getEntryBytes(jzentry, JZENTRY_NAME);
-            if (bname == null) {
-                e.name = "";             // length 0 empty name
-            } else if (!zc.isUTF8() && (e.flag & EFS) != 0) {
-                e.name = zc.toStringUTF8(bname, bname.length);
-            } else {
-                e.name = zc.toString(bname, bname.length);
-            }
-        }
-        e.xdostime = getEntryTime(jzentry);
-        e.crc = getEntryCrc(jzentry);
-        e.size = getEntrySize(jzentry);
-        e.csize = getEntryCSize(jzentry);
-        e.method = getEntryMethod(jzentry);
-        e.setExtra0(getEntryBytes(jzentry, JZENTRY_EXTRA), false);
-        byte[] bcomm = getEntryBytes(jzentry, JZENTRY_COMMENT);
-        if (bcomm == null) {
+            e.name = toString(e.flag, pos + CENHDR, nlen);
+        }
+        e.xdostime = zsrc.cenInt(pos + CENTIM);
+        e.crc = zsrc.cenInt(pos + CENCRC);
+        e.size = zsrc.entrySize(pos);
+        e.csize = zsrc.entryCSize(pos);
+        e.method = zsrc.cenShort(pos + CENHOW);
+        e.cenpos = pos;
+        e.setExtra0((elen == 0) ? null : zsrc.cenBytes(pos + CENHDR + nlen, elen),
+                    false);
+        if (clen == 0) {
             e.comment = null;
         } else {
-            if (!zc.isUTF8() && (e.flag & EFS) != 0) {
-                e.comment = zc.toStringUTF8(bcomm, bcomm.length);
-            } else {
-                e.comment = zc.toString(bcomm, bcomm.length);
-            }
+            e.comment = toString(e.flag, pos + CENHDR + nlen + elen, clen);
         }
         return e;
     }
 
-    private static native long getNextEntry(long jzfile, int i);
+    /*
+     * Decodes a name or comment of the central directory, in UTF-8 if the
+     * language encoding bit of the flag is set.
+     */
+    private String toString(int flag, int off, int len) {
+        if (len == 0) {
+            return "";                   // length 0 empty name
+        }
+        byte[] b = zsrc.cenBytes(off, len);
+        if (!zc.isUTF8() && (flag & EFS) != 0) {
+            return zc.toStringUTF8(b, len);
+        } else {
+            return zc.toString(b, len);
+        }
+    }
 
     /**
      * Returns the number of entries in the ZIP file.
@@ -644,19 +629,12 @@ class ZipFile implements ZipConstants, Closeable {
             }
 
             // Release cached inflaters
-            Inflater inf;
-            synchronized (inflaterCache) {
-                while (null != (inf = inflaterCache.poll())) {
-                    inf.end();
-                }
-            }
-
-            if (jzfile != 0) {
-                // Close the zip file
-                long zf = this.jzfile;
-                jzfile = 0;
+            endInflaters();
 
-                close(zf);
+            if (zsrc != null && !released) {
+                // Close the zip file, if no other instance shares it
+                released = true;
+                zsrc.release();
             }
         }
     }
@@ -679,14 +657,12 @@ class ZipFile implements ZipConstants, Closeable {
         close();
     }
 
-    private static native void close(long jzfile);
-
     private void ensureOpen() {
         if (closeRequested) {
             throw new IllegalStateException("zip file closed");
         }
 
-        if (jzfile == 0) {
+        if (zsrc == null) {
             throw new IllegalStateException("The object is not initialized.");
         }
     }
@@ -703,22 +679,38 @@ class ZipFile implements ZipConstants, Closeable {
      */
    private class ZipFileInputStream extends InputStream {
         private volatile boolean zfisCloseRequested = false;
-        protected long jzentry; // address of jzentry data
-        private   long pos;     // current position within entry data
+        private   final int cenpos; // position of the CEN header in zsrc.cen
+        private   long pos;     // current position within the file, or -1
         protected long rem;     // number of remaining bytes within entry
         protected long size;    // uncompressed size of this entry
 
-        ZipFileInputStream(long jzentry) {
-            pos = 0;
-            rem = getEntryCSize(jzentry);
-            size = getEntrySize(jzentry);
-            this.jzentry = jzentry;
+        ZipFileInputStream(int cenpos) {
+            this.cenpos = cenpos;
+            pos = -1;
+            rem = zsrc.entryCSize(cenpos);
+            size = zsrc.entrySize(cenpos);
+        }
+
+        /*
+         * Finds the position of the data of the entry, which follows its
+         * LOC header, on the first read.
+         */
+        private void initDataOffset() throws IOException {
+            if (pos == -1) {
+                byte[] loc = new byte[LOCHDR];
+                long locpos = zsrc.entryLocPos(cenpos);
+                zsrc.readFullyAt(loc, 0, LOCHDR, locpos);
+                if (ZipUtils.get32(loc, 0) != LOCSIG) {
+                    throw new ZipException("invalid LOC header (bad signature)");
+                }
+                pos = locpos + LOCHDR + ZipUtils.get16(loc, LOCNAM)
+                    + ZipUtils.get16(loc, LOCEXT);
+            }
         }
 
         public int read(byte b[], int off, int len) throws IOException {
-            synchronized (ZipFile.this) {
+            synchronized (this) {
                 long rem = this.rem;
-                long pos = this.pos;
                 if (rem == 0) {
                     return -1;
                 }
@@ -731,8 +723,8 @@ class ZipFile implements ZipConstants, Closeable {
 
                 // Check if ZipFile open
                 ensureOpenOrZipException();
-                len = ZipFile.read(ZipFile.this.jzfile, jzentry, pos, b,
-                                   off, len);
+                initDataOffset();
+                len = zsrc.readAt(b, off, len, pos);
                 if (len > 0) {
                     this.pos = (pos + len);
                     this.rem = (rem - len);
@@ -753,11 +745,15 @@ class ZipFile implements ZipConstants, Closeable {
             }
         }
 
-        public long skip(long n) {
-            if (n > rem)
-                n = rem;
-            pos += n;
-            rem -= n;
+        public long skip(long n) throws IOException {
+            synchronized (this) {
+                ensureOpenOrZipException();
+                initDataOffset();
+                if (n > rem)
+                    n = rem;
+                pos += n;
+                rem -= n;
+            }
             if (rem == 0) {
                 close();
             }
@@ -778,12 +774,6 @@ class ZipFile implements ZipConstants, Closeable {
             zfisCloseRequested = true;
 
             rem = 0;
-            synchronized (ZipFile.this) {
-                if (jzentry != 0 && ZipFile.this.jzfile != 0) {
-                    freeEntry(ZipFile.this.jzfile, jzentry);
-                    jzentry = 0;
-                }
-            }
             synchronized (streams) {
                 streams.remove(this);
             }
@@ -800,6 +790,9 @@ class ZipFile implements ZipConstants, Closeable {
                 public boolean startsWithLocHeader(ZipFile zip) {
                     return zip.startsWithLocHeader();
                 }
+                public String[] getMetaInfEntryNames(ZipFile zip) {
+                    return zip.getMetaInfEntryNames();
+                }
              }
         );
     }
@@ -812,26 +805,22 @@ class ZipFile implements ZipConstants, Closeable {
         return locsig;
     }
 
-    private static native long open(String name, int mode, long lastModified,
-                                    boolean usemmap) throws IOException;
-    private static native int getTotal(long jzfile);
-    private static native boolean startsWithLOC(long jzfile);
-    private static native int read(long jzfile, long jzentry,
-                                   long pos, byte[] b, int off, int len);
-
-    // access to the native zentry object
-    private static native long getEntryTime(long jzentry);
-    private static native long getEntryCrc(long jzentry);
-    private static native long getEntryCSize(long jzentry);
-    private static native long getEntrySize(long jzentry);
-    private static native int getEntryMethod(long jzentry);
-    private static native int getEntryFlag(long jzentry);
-    private static native byte[] getCommentBytes(long jzfile);
-
-    private static final int JZENTRY_NAME = 0;
-    private static final int JZENTRY_EXTRA = 1;
-    private static final int JZENTRY_COMMENT = 2;
-    private static native byte[] getEntryBytes(long jzentry, int type);
-
-    private static native String getZipMessage(long jzfile);
+    /**
+     * Returns the names of the entries whose names start with "META-INF/",
+     * ignoring case, or null if there are none.
+     */
+    private String[] getMetaInfEntryNames() {
+        ensureOpen();
+        int[] positions = zsrc.metaNamePositions();
+        if (positions == null) {
+            return null;
+        }
+        String[] names = new String[positions.length];
+        for (int i = 0; i < positions.length; i++) {
+            int pos = positions[i];
+            names[i] = toString(zsrc.cenShort(pos + CENFLG), pos + CENHDR,
+                                zsrc.cenShort(pos + CENNAM));
+        }
+        return names;
+    }
 }
@@ -0,0 +1,588 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util.zip;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.HashMap;
+
+import static java.util.zip.ZipConstants.*;
+import static java.util.zip.ZipConstants64.*;
+import static java.util.zip.ZipUtils.*;
+
+/**
+ * The central directory of a zip file, indexed by entry name, and the
+ * channel the data of the entries is read from.
+ * <p>
+ * The central directory is memory mapped, or read into the heap when
+ * mapping is disabled, and the names of the entries are indexed in an
+ * open addressed hash table, so that entries are looked up and decoded
+ * without locking.  The data of the entries is read with the positional
+ * reads of a {@code FileChannel}, which do not move a shared file pointer
+ * and may run concurrently.  A source is shared by the {@code ZipFile}
+ * instances that open the same file, unmodified, and is closed when the
+ * last of them is closed.
+ */
+final class ZipSource {
+
+    /** The open sources that may be shared, guarded by itself. */
+    private static final HashMap<Key, ZipSource> files = new HashMap<>();
+
+    private final Key key;              // null if not shared
+    private int refs = 1;               // guarded by files
+    private final File file;
+    private volatile FileChannel ch;
+    private volatile boolean closed;
+
+    /** The central directory, in little endian order. */
+    final ByteBuffer cen;
+
+    /** The number of entries. */
+    final int total;
+
+    /** Whether the file starts with a LOC header. */
+    final boolean locsig;
+
+    /** The comment of the zip file, or null. */
+    final byte[] comment;
+
+    /** The position in the file of the offsets of the central directory. */
+    private final long locpos;
+
+    /**
+     * The positions in cen of the CEN headers of the entries, in order, in
+     * the first total elements.
+     */
+    private final int[] entries;
+
+    /** The hashes of the names of the entries. */
+    private final int[] hashes;
+
+    /**
+     * The hash table of the entry names: the index of an entry plus one,
+     * or 0 for an empty slot, probed linearly.
+     */
+    private final int[] table;
+
+    /** The indexes of the entries under META-INF/, in order. */
+    private final int[] metanames;
+
+    private ZipSource(Key key, File file, boolean toDelete, boolean usemmap)
+        throws IOException
+    {
+        this.key = key;
+        this.file = file;
+        RandomAccessFile zfile = new RandomAccessFile(file, "r");
+        try {
+            if (toDelete && !file.delete()) {
+                file.deleteOnExit();
+            }
+            ch = zfile.getChannel();
+            long len = ch.size();
+            if (len == 0) {
+                throw new ZipException("zip file is empty");
+            }
+
+            // the END header, and the ZIP64 END header if needed
+            int max = (int) Math.min(len, ENDHDR + 0xFFFF);
+            byte[] buf = new byte[max];
+            readFullyAt(buf, 0, max, len - max);
+            int end = findEND(buf, len - max, len);
+            long endpos = len - max + end;
+            long cenlen = get32(buf, end + ENDSIZ);
+            long cenoff = get32(buf, end + ENDOFF);
+            long endtot = get16(buf, end + ENDTOT);
+            int comlen = get16(buf, end + ENDCOM);
+            comment = (comlen == 0) ? null :
+                Arrays.copyOfRange(buf, end + ENDHDR,
+                                   Math.min(end + ENDHDR + comlen, max));
+            if (cenlen == ZIP64_MAGICVAL || cenoff == ZIP64_MAGICVAL ||
+                endtot == ZIP64_MAGICCOUNT) {
+                byte[] loc = new byte[ZIP64_LOCHDR];
+                byte[] end64 = new byte[ZIP64_ENDHDR];
+                if (endpos >= ZIP64_LOCHDR) {
+                    readFullyAt(loc, 0, ZIP64_LOCHDR, endpos - ZIP64_LOCHDR);
+                    if (get32(loc, 0) == ZIP64_LOCSIG) {
+                        long end64pos = get64(loc, ZIP64_LOCOFF);
+                        readFullyAt(end64, 0, ZIP64_ENDHDR, end64pos);
+                        if (get32(end64, 0) != ZIP64_ENDSIG) {
+                            throw new ZipException("invalid zip64 END header");
+                        }
+                        cenlen = get64(end64, ZIP64_ENDSIZ);
+                        cenoff = get64(end64, ZIP64_ENDOFF);
+                        endtot = get64(end64, ZIP64_ENDTOT);
+                        endpos = end64pos;
+                    }
+                }
+            }
+            long cenpos = endpos - cenlen;
+            locpos = cenpos - cenoff;
+            if (cenpos < 0 || locpos < 0) {
+                throw new ZipException("invalid END header (bad central directory offset)");
+            }
+            if (cenlen > Integer.MAX_VALUE) {
+                throw new ZipException("invalid END header (central directory size too large)");
+            }
+
+            byte[] head = new byte[4];
+            locsig = len >= 4 && readAt(head, 0, 4, 0) == 4 && get32(head, 0) == LOCSIG;
+
+            ByteBuffer cen;
+            if (usemmap) {
+                cen = ch.map(FileChannel.MapMode.READ_ONLY, cenpos, cenlen);
+            } else {
+                byte[] b = new byte[(int) cenlen];
+                readFullyAt(b, 0, b.length, cenpos);
+                cen = ByteBuffer.wrap(b);
+            }
+            this.cen = cen.order(ByteOrder.LITTLE_ENDIAN);
+
+            // the entries, counted as the END header may be wrong
+            int[] entries = new int[(int) Math.max(0, Math.min(endtot, cenlen / CENHDR))];
+            int[] metanames = new int[0];
+            int count = 0;
+            int metacount = 0;
+            int limit = (int) cenlen;
+            int pos = 0;
+            while (pos + CENHDR <= limit) {
+                if (cenInt(pos) != CENSIG) {
+                    throw new ZipException("invalid CEN header (bad signature)");
+                }
+                if ((cenShort(pos + CENFLG) & 1) != 0) {
+                    throw new ZipException("invalid CEN header (encrypted entry)");
+                }
+                int method = cenShort(pos + CENHOW);
+                if (method != ZipEntry.STORED && method != ZipEntry.DEFLATED) {
+                    throw new ZipException("invalid CEN header (bad compression method)");
+                }
+                int nlen = cenShort(pos + CENNAM);
+                int next = pos + CENHDR + nlen + cenShort(pos + CENEXT)
+                    + cenShort(pos + CENCOM);
+                if (next > limit) {
+                    throw new ZipException("invalid CEN header (bad header size)");
+                }
+                if (count == entries.length) {
+                    entries = Arrays.copyOf(entries, Math.max(16, count * 2));
+                }
+                if (isMetaName(pos + CENHDR, nlen)) {
+                    if (metacount == metanames.length) {
+                        metanames = Arrays.copyOf(metanames, Math.max(4, metacount * 2));
+                    }
+                    metanames[metacount++] = count;
+                }
+                entries[count++] = pos;
+                pos = next;
+            }
+            this.total = count;
+            this.entries = entries;
+            this.metanames = Arrays.copyOf(metanames, metacount);
+
+            // the hash table, at most half full
+            int size = Integer.highestOneBit(Math.max(count, 1) * 2 + 1) << 1;
+            int mask = size - 1;
+            int[] hashes = new int[count];
+            int[] table = new int[size];
+            for (int index = 0; index < count; index++) {
+                int p = entries[index];
+                int nlen = cenShort(p + CENNAM);
+                int h = hash(p + CENHDR, nlen);
+                hashes[index] = h;
+                int slot = h & mask;
+                while (table[slot] != 0) {
+                    int other = table[slot] - 1;
+                    // of entries with the same name, the last one is found
+                    if (hashes[other] == h &&
+                        cenShort(entries[other] + CENNAM) == nlen &&
+                        nameEquals(entries[other] + CENHDR, p + CENHDR, nlen)) {
+                        break;
+                    }
+                    slot = (slot + 1) & mask;
+                }
+                table[slot] = index + 1;
+            }
+            this.hashes = hashes;
+            this.table = table;
+        } catch (IOException | RuntimeException x) {
+            zfile.close();
+            throw x;
+        }
+    }
+
+    /**
+     * Returns the source of the given file, sharing the open source of
+     * the same file if it has not been modified since it was opened.
+     */
+    static ZipSource get(File file, boolean toDelete, boolean usemmap)
+        throws IOException
+    {
+        if (toDelete) {
+            return new ZipSource(null, file, true, usemmap);
+        }
+        Key key = new Key(file.getPath(), file.lastModified());
+        synchronized (files) {
+            ZipSource src = files.get(key);
+            if (src != null) {
+                src.refs++;
+                return src;
+            }
+        }
+        ZipSource src = new ZipSource(key, file, false, usemmap);
+        synchronized (files) {
+            ZipSource prev = files.get(key);
+            if (prev != null) {
+                // opened concurrently
+                prev.refs++;
+                src.close0();
+                return prev;
+            }
+            files.put(key, src);
+            return src;
+        }
+    }
+
+    /**
+     * Releases a reference to this source, closing it if it was the last.
+     */
+    void release() throws IOException {
+        synchronized (files) {
+            if (--refs > 0) {
+                return;
+            }
+            if (key != null) {
+                files.remove(key);
+            }
+        }
+        close0();
+    }
+
+    private void close0() throws IOException {
+        closed = true;
+        // the mapped central directory is unmapped when it is collected,
+        // as readers may still be looking at it
+        ch.close();
+    }
+
+    // The central directory
+
+    /**
+     * Returns the position in cen of the CEN header of the entry with the
+     * given name, or -1 if there is none.  If addSlash is true and the
+     * name does not end with a slash, an entry whose name is the given
+     * name followed by a slash is found if there is no exact match.
+     */
+    int getEntryPos(byte[] name, boolean addSlash) {
+        int nlen = name.length;
+        if (nlen > 0 && name[nlen - 1] == '/') {
+            addSlash = false;
+        }
+        int h = hash(name, nlen);
+        int mask = table.length - 1;
+        int slashed = -1;
+        for (int slot = h & mask; table[slot] != 0; slot = (slot + 1) & mask) {
+            int index = table[slot] - 1;
+            if (hashes[index] != h) {
+                continue;
+            }
+            int pos = entries[index];
+            int len = cenShort(pos + CENNAM);
+            if (len == nlen && nameEquals(pos + CENHDR, name)) {
+                return pos;
+            }
+            if (addSlash && slashed < 0 && len == nlen + 1
+                && cen.get(pos + CENHDR + nlen) == '/'
+                && nameEquals(pos + CENHDR, name)) {
+                slashed = pos;
+            }
+        }
+        return slashed;
+    }
+
+    /**
+     * Returns whether pos is the position in cen of the CEN header of an
+     * entry with the given name.
+     */
+    boolean isEntryPos(int pos, byte[] name) {
+        return Arrays.binarySearch(entries, 0, total, pos) >= 0
+            && cenShort(pos + CENNAM) == name.length
+            && nameEquals(pos + CENHDR, name);
+    }
+
+    /** Returns the position in cen of the CEN header of the i-th entry. */
+    int entryPos(int i) {
+        return entries[i];
+    }
+
+    /** Returns the positions of the entries under META-INF/, or null. */
+    int[] metaNamePositions() {
+        if (metanames.length == 0) {
+            return null;
+        }
+        int[] positions = new int[metanames.length];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = entries[metanames[i]];
+        }
+        return positions;
+    }
+
+    int cenShort(int pos) {
+        return cen.getShort(pos) & 0xffff;
+    }
+
+    long cenInt(int pos) {
+        return cen.getInt(pos) & 0xffffffffL;
+    }
+
+    /** Returns a copy of the bytes of the central directory at pos. */
+    byte[] cenBytes(int pos, int len) {
+        byte[] b = new byte[len];
+        for (int i = 0; i < len; i++) {
+            b[i] = cen.get(pos + i);
+        }
+        return b;
+    }
+
+    /** Returns the uncompressed size of the entry at pos. */
+    long entrySize(int pos) {
+        long size = cenInt(pos + CENLEN);
+        return (size == ZIP64_MAGICVAL) ? zip64Field(pos, 0) : size;
+    }
+
+    /** Returns the compressed size of the entry at pos. */
+    long entryCSize(int pos) {
+        long csize = cenInt(pos + CENSIZ);
+        return (csize == ZIP64_MAGICVAL) ? zip64Field(pos, 1) : csize;
+    }
+
+    /** Returns the position in the file of the LOC header of the entry. */
+    long entryLocPos(int pos) {
+        long off = cenInt(pos + CENOFF);
+        return locpos + ((off == ZIP64_MAGICVAL) ? zip64Field(pos, 2) : off);
+    }
+
+    /**
+     * Returns a field of the ZIP64 extra field of an entry, which holds
+     * those of the size (0), the compressed size (1) and the offset of
+     * the LOC header (2) that are too large for the CEN header, in order.
+     */
+    private long zip64Field(int pos, int field) {
+        int off = pos + CENHDR + cenShort(pos + CENNAM);
+        int end = off + cenShort(pos + CENEXT);
+        while (off + 4 <= end) {
+            int tag = cenShort(off);
+            int sz = cenShort(off + 2);
+            off += 4;
+            if (off + sz > end) {
+                break;
+            }
+            if (tag == ZIP64_EXTID) {
+                long[] magic = { cenInt(pos + CENLEN), cenInt(pos + CENSIZ),
+                                 cenInt(pos + CENOFF) };
+                int at = off;
+                for (int f = 0; f < field; f++) {
+                    if (magic[f] == ZIP64_MAGICVAL) {
+                        at += 8;
+                    }
+                }
+                if (at + 8 <= off + sz) {
+                    return cen.getLong(at);
+                }
+                break;
+            }
+            off += sz;
+        }
+        // the CEN value, as the native implementation left it
+        return ZIP64_MAGICVAL;
+    }
+
+    private int hash(int pos, int len) {
+        if (len > 0 && cen.get(pos + len - 1) == '/') {
+            len--;
+        }
+        int h = 0;
+        for (int i = 0; i < len; i++) {
+            h = 31 * h + cen.get(pos + i);
+        }
+        return h ^ (h >>> 16);
+    }
+
+    /** The hash of a name, a trailing slash excluded. */
+    private static int hash(byte[] name, int len) {
+        if (len > 0 && name[len - 1] == '/') {
+            len--;
+        }
+        int h = 0;
+        for (int i = 0; i < len; i++) {
+            h = 31 * h + name[i];
+        }
+        return h ^ (h >>> 16);
+    }
+
+    private boolean nameEquals(int pos, byte[] name) {
+        for (int i = 0; i < name.length; i++) {
+            if (cen.get(pos + i) != name[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean nameEquals(int pos1, int pos2, int len) {
+        for (int i = 0; i < len; i++) {
+            if (cen.get(pos1 + i) != cen.get(pos2 + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Returns whether a name starts with META-INF/, in any case. */
+    private boolean isMetaName(int pos, int len) {
+        final String meta = "META-INF/";
+        if (len < meta.length()) {
+            return false;
+        }
+        for (int i = 0; i < meta.length(); i++) {
+            int c = cen.get(pos + i);
+            // Avoid toUpperCase; it's locale-dependent
+            if (c >= 'a' && c <= 'z') {
+                c += 'A' - 'a';
+            }
+            if (c != meta.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the position in buf of the END header, whose comment
+     * reaches the end of the file, or that points at a CEN header.
+     */
+    private int findEND(byte[] buf, long off, long len) throws IOException {
+        for (int i = buf.length - ENDHDR; i >= 0; i--) {
+            if (get32(buf, i) != ENDSIG) {
+                continue;
+            }
+            long endpos = off + i;
+            if (endpos + ENDHDR + get16(buf, i + ENDCOM) == len) {
+                return i;
+            }
+            // the comment length is wrong: accept the header if the
+            // central directory is where it says
+            long cenpos = endpos - get32(buf, i + ENDSIZ);
+            if (cenpos >= 0 && cenpos < endpos) {
+                byte[] sig = new byte[4];
+                if (readAt(sig, 0, 4, cenpos) == 4 && get32(sig, 0) == CENSIG) {
+                    return i;
+                }
+            }
+        }
+        // no END header; the native implementation had no better message
+        throw new ZipException("error in opening zip file");
+    }
+
+    // The data of the entries
+
+    /**
+     * Reads up to len bytes at the given position of the file, and returns
+     * the number of bytes read, or -1 at the end of the file.
+     * <p>
+     * A channel is closed when a thread blocked in it is interrupted.  The
+     * interrupt status of the thread is cleared during the read and set
+     * again after it, and the file is reopened if the channel was closed
+     * under a read, so that an interrupt never breaks the other users of a
+     * shared source.
+     */
+    int readAt(byte[] b, int off, int len, long pos) throws IOException {
+        boolean interrupted = Thread.interrupted();
+        try {
+            while (true) {
+                FileChannel ch = this.ch;
+                try {
+                    return ch.read(ByteBuffer.wrap(b, off, len), pos);
+                } catch (ClosedChannelException x) {
+                    interrupted |= Thread.interrupted();
+                    reopen(ch);
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    void readFullyAt(byte[] b, int off, int len, long pos) throws IOException {
+        while (len > 0) {
+            int n = readAt(b, off, len, pos);
+            if (n < 0) {
+                throw new EOFException();
+            }
+            off += n;
+            len -= n;
+            pos += n;
+        }
+    }
+
+    private synchronized void reopen(FileChannel old) throws IOException {
+        if (closed) {
+            throw new ZipException("ZipFile closed");
+        }
+        if (ch == old) {
+            ch = new RandomAccessFile(file, "r").getChannel();
+        }
+    }
+
+    /** The key of a source that may be shared, as for the native cache. */
+    private static final class Key {
+        final String name;
+        final long lastModified;
+
+        Key(String name, long lastModified) {
+            this.name = name;
+            this.lastModified = lastModified;
+        }
+
+        public int hashCode() {
+            return name.hashCode() + (int) (lastModified ^ (lastModified >>> 32));
+        }
+
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) obj;
+            return name.equals(key.name) && lastModified == key.lastModified;
+        }
+    }
+}
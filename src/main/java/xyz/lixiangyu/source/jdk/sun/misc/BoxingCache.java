@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package sun.misc;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The configuration and statistics of the caches of boxed values kept by
+ * {@code Integer}, {@code Long}, {@code Short} and {@code Character}.
+ *
+ * <p>The range of each cache is read from saved system properties, such
+ * as {@code java.lang.Long.LongCache.high}.  The counts of hits and
+ * allocations are only kept if the {@code java.lang.BoxingCache.statistics}
+ * property is {@code true}, so that {@code valueOf} is not slowed down
+ * otherwise; they are exposed by {@code java.lang.management.BoxingCacheMXBean}.
+ *
+ * <p>Beyond an eagerly filled range, boxes are cached as they are first
+ * needed, without locking.  Racing threads may box the same value twice,
+ * which is harmless as the identity of these boxes is not specified.
+ */
+public final class BoxingCache {
+
+    /**
+     * Whether hits and allocations are counted.
+     */
+    public static final boolean STATISTICS =
+        Boolean.parseBoolean(VM.getSavedProperty("java.lang.BoxingCache.statistics"));
+
+    private static final List<BoxingCache> caches = new ArrayList<>();
+
+    private final String name;
+    private final long low;
+    private final long high;
+    private final Object[] cache;
+    private final LongAdder hits;
+    private final LongAdder allocations;
+
+    private BoxingCache(String name, long low, long high, Object[] cache) {
+        this.name = name;
+        this.low = low;
+        this.high = high;
+        this.cache = cache;
+        if (STATISTICS) {
+            hits = new LongAdder();
+            allocations = new LongAdder();
+        } else {
+            hits = null;
+            allocations = null;
+        }
+    }
+
+    /**
+     * Registers a cache of boxes of values {@code low} to {@code high}.
+     *
+     * @param name the name of the cache, such as {@code "Integer"}
+     * @param low the least cached value
+     * @param high the greatest cached value
+     * @param cache the array holding the cached boxes
+     * @return the record of the cache
+     */
+    public static BoxingCache register(String name, long low, long high,
+                                       Object[] cache) {
+        BoxingCache bc = new BoxingCache(name, low, high, cache);
+        synchronized (caches) {
+            caches.add(bc);
+        }
+        return bc;
+    }
+
+    /**
+     * Returns the registered caches.
+     *
+     * @return the list of caches
+     */
+    public static List<BoxingCache> getCaches() {
+        synchronized (caches) {
+            return Collections.unmodifiableList(new ArrayList<>(caches));
+        }
+    }
+
+    /**
+     * Returns the value of a saved system property as a long, clamped to
+     * the given bounds, or {@code def} if it is absent or malformed.
+     *
+     * @param key the name of the property
+     * @param def the default value
+     * @param min the least value
+     * @param max the greatest value
+     * @return the value of the property
+     */
+    public static long getLongProperty(String key, long def, long min,
+                                       long max) {
+        String value = VM.getSavedProperty(key);
+        if (value != null) {
+            try {
+                long l = Long.parseLong(value.trim());
+                return Math.max(min, Math.min(l, max));
+            } catch (NumberFormatException nfe) {
+                // If the property cannot be parsed into a long, ignore it.
+            }
+        }
+        return def;
+    }
+
+    /**
+     * Records that a cached box was returned; only to be called if
+     * {@link #STATISTICS} is {@code true}.
+     */
+    public void hit() {
+        hits.increment();
+    }
+
+    /**
+     * Records that a box was allocated; only to be called if
+     * {@link #STATISTICS} is {@code true}.
+     */
+    public void allocation() {
+        allocations.increment();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getLow() {
+        return low;
+    }
+
+    public long getHigh() {
+        return high;
+    }
+
+    /**
+     * Returns the number of boxes the cache can hold.
+     */
+    public int getCapacity() {
+        return cache.length;
+    }
+
+    /**
+     * Returns the number of boxes the cache holds.
+     */
+    public int getCachedCount() {
+        int n = 0;
+        for (Object o : cache) {
+            if (o != null)
+                n++;
+        }
+        return n;
+    }
+
+    /**
+     * Returns the number of cached boxes returned, or {@code -1} if not
+     * counted.
+     */
+    public long getHitCount() {
+        return STATISTICS ? hits.sum() : -1L;
+    }
+
+    /**
+     * Returns the number of boxes allocated, or {@code -1} if not
+     * counted.
+     */
+    public long getAllocationCount() {
+        return STATISTICS ? allocations.sum() : -1L;
+    }
+}
@@ -0,0 +1,462 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package sun.misc;
+
+import static sun.misc.MathUtils.POW10_MIN;
+import static sun.misc.MathUtils.pow10Hi;
+import static sun.misc.MathUtils.pow10Lo;
+import static sun.misc.MathUtils.unsignedMultiplyHigh;
+
+/**
+ * Conversion of decimal strings to {@code double} and {@code float}
+ * values, correctly rounded, as {@link Double#parseDouble} and
+ * {@link Float#parseFloat}, from a {@code CharSequence} or a range of a
+ * {@code char} array as well as from a string.
+ *
+ * <p>Decimal strings of at most 19 significant digits are converted
+ * without allocation, by the algorithm of Clinger when the significand
+ * and the power of ten are both exact, and by the algorithm of Eisel and
+ * Lemire otherwise, which multiplies the significand by a 128-bit
+ * approximation of the power of ten and detects the rare cases in which
+ * that is not precise enough to decide the rounding.  Those cases, and
+ * longer significands that cannot be decided from their first 19 digits,
+ * hexadecimal strings, {@code "NaN"}, {@code "Infinity"}, subnormal and
+ * overflowing values, and malformed strings, are left to {@code
+ * FloatingDecimal}.
+ *
+ * See:  Lemire, D., "Number Parsing at a Gigabyte per Second",
+ *       Software: Practice and Experience 51 (2021), pp. 1700-1727.
+ *
+ * @see DoubleToDecimal
+ */
+public final class DecimalToDouble {
+
+    // This class cannot be instantiated.
+    private DecimalToDouble() {}
+
+    /** The result of parse when the string is left to FloatingDecimal. */
+    private static final long FALLBACK = -1L;   // the bits of a NaN
+
+    /** The greatest significant digits kept in a long. */
+    private static final int MAX_DIGITS = 19;
+
+    /** Exponents beyond this are kept at it, as they overflow anyway. */
+    private static final int MAX_EXPONENT = 999_999;
+
+    /** The greatest power of ten for Eisel-Lemire. */
+    private static final int POW10_MAX = 308;
+
+    /** The powers of ten exactly representable as doubles. */
+    private static final double[] DOUBLE_POW10 = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    /** The powers of ten exactly representable as floats. */
+    private static final float[] FLOAT_POW10 = {
+        1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f
+    };
+
+    /**
+     * Returns the {@code double} value of a string, as
+     * {@link Double#parseDouble(String)}.
+     *
+     * @param s the string
+     * @return the {@code double} value of {@code s}
+     * @throws NullPointerException if {@code s} is null
+     * @throws NumberFormatException if {@code s} is not a parsable number
+     */
+    public static double parseDouble(String s) throws NumberFormatException {
+        long bits = parse(s, null, 0, s.length(), false);
+        if (bits != FALLBACK)
+            return Double.longBitsToDouble(bits);
+        return FloatingDecimal.parseDouble(s);
+    }
+
+    /**
+     * Returns the {@code double} value of the characters of {@code s}
+     * from {@code beginIndex} to {@code endIndex - 1}, as
+     * {@link Double#parseDouble(String)}.
+     *
+     * @param s the characters
+     * @param beginIndex the index of the first character
+     * @param endIndex the index after the last character
+     * @return the {@code double} value of the characters
+     * @throws NullPointerException if {@code s} is null
+     * @throws IndexOutOfBoundsException if {@code beginIndex} is negative,
+     *         or greater than {@code endIndex}, or {@code endIndex} is
+     *         greater than {@code s.length()}
+     * @throws NumberFormatException if the characters are not a parsable
+     *         number
+     */
+    public static double parseDouble(CharSequence s, int beginIndex, int endIndex)
+            throws NumberFormatException {
+        checkRange(beginIndex, endIndex, s.length());
+        long bits = parse(s, null, beginIndex, endIndex, false);
+        if (bits != FALLBACK)
+            return Double.longBitsToDouble(bits);
+        return FloatingDecimal.parseDouble(s.subSequence(beginIndex, endIndex).toString());
+    }
+
+    /**
+     * Returns the {@code double} value of the characters of {@code a}
+     * from {@code offset} to {@code offset + count - 1}, as
+     * {@link Double#parseDouble(String)}.
+     *
+     * @param a the characters
+     * @param offset the index of the first character
+     * @param count the number of characters
+     * @return the {@code double} value of the characters
+     * @throws NullPointerException if {@code a} is null
+     * @throws IndexOutOfBoundsException if {@code offset} or {@code count}
+     *         is negative, or {@code offset + count} is greater than
+     *         {@code a.length}
+     * @throws NumberFormatException if the characters are not a parsable
+     *         number
+     */
+    public static double parseDouble(char[] a, int offset, int count)
+            throws NumberFormatException {
+        checkRange(offset, count, a);
+        long bits = parse(null, a, offset, offset + count, false);
+        if (bits != FALLBACK)
+            return Double.longBitsToDouble(bits);
+        return FloatingDecimal.parseDouble(new String(a, offset, count));
+    }
+
+    /**
+     * Returns the {@code float} value of a string, as
+     * {@link Float#parseFloat(String)}.
+     *
+     * @param s the string
+     * @return the {@code float} value of {@code s}
+     * @throws NullPointerException if {@code s} is null
+     * @throws NumberFormatException if {@code s} is not a parsable number
+     */
+    public static float parseFloat(String s) throws NumberFormatException {
+        long bits = parse(s, null, 0, s.length(), true);
+        if (bits != FALLBACK)
+            return Float.intBitsToFloat((int) bits);
+        return FloatingDecimal.parseFloat(s);
+    }
+
+    /**
+     * Returns the {@code float} value of the characters of {@code s}
+     * from {@code beginIndex} to {@code endIndex - 1}, as
+     * {@link Float#parseFloat(String)}.
+     *
+     * @param s the characters
+     * @param beginIndex the index of the first character
+     * @param endIndex the index after the last character
+     * @return the {@code float} value of the characters
+     * @throws NullPointerException if {@code s} is null
+     * @throws IndexOutOfBoundsException if {@code beginIndex} is negative,
+     *         or greater than {@code endIndex}, or {@code endIndex} is
+     *         greater than {@code s.length()}
+     * @throws NumberFormatException if the characters are not a parsable
+     *         number
+     */
+    public static float parseFloat(CharSequence s, int beginIndex, int endIndex)
+            throws NumberFormatException {
+        checkRange(beginIndex, endIndex, s.length());
+        long bits = parse(s, null, beginIndex, endIndex, true);
+        if (bits != FALLBACK)
+            return Float.intBitsToFloat((int) bits);
+        return FloatingDecimal.parseFloat(s.subSequence(beginIndex, endIndex).toString());
+    }
+
+    /**
+     * Returns the {@code float} value of the characters of {@code a}
+     * from {@code offset} to {@code offset + count - 1}, as
+     * {@link Float#parseFloat(String)}.
+     *
+     * @param a the characters
+     * @param offset the index of the first character
+     * @param count the number of characters
+     * @return the {@code float} value of the characters
+     * @throws NullPointerException if {@code a} is null
+     * @throws IndexOutOfBoundsException if {@code offset} or {@code count}
+     *         is negative, or {@code offset + count} is greater than
+     *         {@code a.length}
+     * @throws NumberFormatException if the characters are not a parsable
+     *         number
+     */
+    public static float parseFloat(char[] a, int offset, int count)
+            throws NumberFormatException {
+        checkRange(offset, count, a);
+        long bits = parse(null, a, offset, offset + count, true);
+        if (bits != FALLBACK)
+            return Float.intBitsToFloat((int) bits);
+        return FloatingDecimal.parseFloat(new String(a, offset, count));
+    }
+
+    private static void checkRange(int beginIndex, int endIndex, int length) {
+        if (beginIndex < 0 || beginIndex > endIndex || endIndex > length)
+            throw new IndexOutOfBoundsException(
+                "begin " + beginIndex + ", end " + endIndex + ", length " + length);
+    }
+
+    private static void checkRange(int offset, int count, char[] a) {
+        if (offset < 0 || count < 0 || offset > a.length - count)
+            throw new IndexOutOfBoundsException(
+                "offset " + offset + ", count " + count + ", length " + a.length);
+    }
+
+    /*
+     * Returns the character at index i of either s or a.
+     */
+    private static char charAt(CharSequence s, char[] a, int i) {
+        return (a != null) ? a[i] : s.charAt(i);
+    }
+
+    /*
+     * Returns the bits of the double, or float, value of the decimal
+     * string in the characters start to end - 1 of either s or a, or
+     * FALLBACK if it is to be converted by FloatingDecimal.
+     */
+    private static long parse(CharSequence s, char[] a, int start, int end,
+                              boolean isFloat) {
+        // leading and trailing whitespace, as String.trim
+        while (start < end && charAt(s, a, start) <= ' ')
+            start++;
+        while (end > start && charAt(s, a, end - 1) <= ' ')
+            end--;
+        int i = start;
+        boolean neg = false;
+        if (i < end) {
+            char c = charAt(s, a, i);
+            if (c == '-' || c == '+') {
+                neg = (c == '-');
+                i++;
+            }
+        }
+
+        // The significand w of at most 19 significant digits, and the
+        // exponent q such that the value is w 10^q, the digits beyond
+        // the 19th aside
+        long w = 0;
+        int nDigits = 0;            // significant digits in w
+        int dropped = 0;            // integral digits beyond the 19th
+        int fraction = 0;           // fractional digits in w
+        boolean truncated = false;  // whether a nonzero digit was dropped
+        boolean seenDigit = false;
+        boolean seenPoint = false;
+        for (; i < end; i++) {
+            char c = charAt(s, a, i);
+            if (c >= '0' && c <= '9') {
+                seenDigit = true;
+                int d = c - '0';
+                if (nDigits < MAX_DIGITS) {
+                    if (nDigits > 0 || d != 0) {
+                        w = 10 * w + d;
+                        nDigits++;
+                    }
+                    if (seenPoint)
+                        fraction++;
+                } else {
+                    truncated |= (d != 0);
+                    if (!seenPoint)
+                        dropped++;
+                }
+            } else if (c == '.' && !seenPoint) {
+                seenPoint = true;
+            } else {
+                break;
+            }
+        }
+        if (!seenDigit)
+            return FALLBACK;        // "NaN", "Infinity", "." or malformed
+
+        int exp = 0;
+        if (i < end) {
+            char c = charAt(s, a, i);
+            if (c == 'e' || c == 'E') {
+                i++;
+                boolean negExp = false;
+                if (i < end) {
+                    c = charAt(s, a, i);
+                    if (c == '-' || c == '+') {
+                        negExp = (c == '-');
+                        i++;
+                    }
+                }
+                int expStart = i;
+                for (; i < end; i++) {
+                    c = charAt(s, a, i);
+                    if (c < '0' || c > '9')
+                        break;
+                    if (exp < MAX_EXPONENT)
+                        exp = 10 * exp + (c - '0');
+                }
+                if (i == expStart)
+                    return FALLBACK;
+                if (negExp)
+                    exp = -exp;
+            }
+        }
+        if (i < end) {
+            char c = charAt(s, a, i);
+            if (c == 'f' || c == 'F' || c == 'd' || c == 'D')
+                i++;
+        }
+        if (i != end)
+            return FALLBACK;        // hexadecimal or malformed
+
+        if (w == 0) {
+            if (isFloat)
+                return neg ? Float.floatToRawIntBits(-0.0f) : 0;
+            return neg ? Double.doubleToRawLongBits(-0.0) : 0;
+        }
+        int q = exp + dropped - fraction;
+
+        if (isFloat) {
+            if (!truncated && 0 < w && w <= (1L << 24) && -10 <= q && q <= 10) {
+                // w and 10^|q| are exact floats, so that the quotient
+                // or product is correctly rounded
+                float v = (q < 0) ? (float) w / FLOAT_POW10[-q] : (float) w * FLOAT_POW10[q];
+                return Float.floatToRawIntBits(neg ? -v : v);
+            }
+            long bits = eiselLemire32(w, q, neg);
+            if (truncated && bits != FALLBACK && bits != eiselLemire32(w + 1, q, neg))
+                return FALLBACK;
+            return bits;
+        }
+        if (!truncated && 0 < w && w <= (1L << 53) && -22 <= q && q <= 22) {
+            double v = (q < 0) ? (double) w / DOUBLE_POW10[-q] : (double) w * DOUBLE_POW10[q];
+            return Double.doubleToRawLongBits(neg ? -v : v);
+        }
+        long bits = eiselLemire64(w, q, neg);
+        if (truncated && bits != FALLBACK && bits != eiselLemire64(w + 1, q, neg))
+            return FALLBACK;
+        return bits;
+    }
+
+    /*
+     * Returns the bits of the double nearest to man 10^exp10, for a
+     * nonzero man taken as unsigned, or FALLBACK if it cannot be decided
+     * from the 128-bit approximation of 10^exp10, or is subnormal or
+     * infinite.
+     */
+    private static long eiselLemire64(long man, int exp10, boolean neg) {
+        if (exp10 < POW10_MIN || exp10 > POW10_MAX)
+            return FALLBACK;
+        // Normalization
+        int clz = Long.numberOfLeadingZeros(man);
+        man <<= clz;
+        // 217706 exp10 >> 16 = floor(log2(10^exp10))
+        long retExp2 = (217706L * exp10 >> 16) + 64 + 1023 - clz;
+
+        // Multiplication
+        long pHi = pow10Hi(exp10);
+        long xHi = unsignedMultiplyHigh(man, pHi);
+        long xLo = man * pHi;
+
+        // Wider approximation, if the low bits of xHi are all ones
+        if ((xHi & 0x1FF) == 0x1FF && Long.compareUnsigned(xLo + man, man) < 0) {
+            long pLo = pow10Lo(exp10);
+            long yHi = unsignedMultiplyHigh(man, pLo);
+            long yLo = man * pLo;
+            long mergedHi = xHi;
+            long mergedLo = xLo + yHi;
+            if (Long.compareUnsigned(mergedLo, xLo) < 0)
+                mergedHi++;
+            if ((mergedHi & 0x1FF) == 0x1FF && mergedLo + 1 == 0 &&
+                Long.compareUnsigned(yLo + man, man) < 0)
+                return FALLBACK;
+            xHi = mergedHi;
+            xLo = mergedLo;
+        }
+
+        // Shifting to 54 bits
+        long msb = xHi >>> 63;
+        long retMantissa = xHi >>> (msb + 9);
+        retExp2 -= 1 ^ msb;
+
+        // Half-way ambiguity
+        if (xLo == 0 && (xHi & 0x1FF) == 0 && (retMantissa & 3) == 1)
+            return FALLBACK;
+
+        // From 54 to 53 bits
+        retMantissa += retMantissa & 1;
+        retMantissa >>>= 1;
+        if ((retMantissa >>> 53) > 0) {
+            retMantissa >>>= 1;
+            retExp2 += 1;
+        }
+        // subnormal, or infinite
+        if (retExp2 <= 0 || retExp2 >= 0x7FF)
+            return FALLBACK;
+        long retBits = retExp2 << 52 | retMantissa & 0x000FFFFFFFFFFFFFL;
+        return neg ? retBits | 0x8000000000000000L : retBits;
+    }
+
+    /*
+     * As eiselLemire64, for a float.
+     */
+    private static long eiselLemire32(long man, int exp10, boolean neg) {
+        if (exp10 < POW10_MIN || exp10 > POW10_MAX)
+            return FALLBACK;
+        int clz = Long.numberOfLeadingZeros(man);
+        man <<= clz;
+        long retExp2 = (217706L * exp10 >> 16) + 64 + 127 - clz;
+
+        long pHi = pow10Hi(exp10);
+        long xHi = unsignedMultiplyHigh(man, pHi);
+        long xLo = man * pHi;
+
+        if ((xHi & 0x3FFFFFFFFFL) == 0x3FFFFFFFFFL && Long.compareUnsigned(xLo + man, man) < 0) {
+            long pLo = pow10Lo(exp10);
+            long yHi = unsignedMultiplyHigh(man, pLo);
+            long yLo = man * pLo;
+            long mergedHi = xHi;
+            long mergedLo = xLo + yHi;
+            if (Long.compareUnsigned(mergedLo, xLo) < 0)
+                mergedHi++;
+            if ((mergedHi & 0x3FFFFFFFFFL) == 0x3FFFFFFFFFL && mergedLo + 1 == 0 &&
+                Long.compareUnsigned(yLo + man, man) < 0)
+                return FALLBACK;
+            xHi = mergedHi;
+            xLo = mergedLo;
+        }
+
+        long msb = xHi >>> 63;
+        long retMantissa = xHi >>> (msb + 38);
+        retExp2 -= 1 ^ msb;
+
+        if (xLo == 0 && (xHi & 0x3FFFFFFFFFL) == 0 && (retMantissa & 3) == 1)
+            return FALLBACK;
+
+        retMantissa += retMantissa & 1;
+        retMantissa >>>= 1;
+        if ((retMantissa >>> 24) > 0) {
+            retMantissa >>>= 1;
+            retExp2 += 1;
+        }
+        if (retExp2 <= 0 || retExp2 >= 0xFF)
+            return FALLBACK;
+        int retBits = (int) (retExp2 << 23 | retMantissa & 0x007FFFFF);
+        return neg ? retBits | 0x80000000 : retBits;
+    }
+}
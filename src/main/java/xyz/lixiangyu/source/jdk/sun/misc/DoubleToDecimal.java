@@ -0,0 +1,535 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package sun.misc;
+
+import static sun.misc.MathUtils.MASK_63;
+import static sun.misc.MathUtils.flog10pow2;
+import static sun.misc.MathUtils.flog10threeQuartersPow2;
+import static sun.misc.MathUtils.flog2pow10;
+import static sun.misc.MathUtils.g0;
+import static sun.misc.MathUtils.g1;
+import static sun.misc.MathUtils.multiplyHigh;
+import static sun.misc.MathUtils.pow10;
+
+/**
+ * Conversion of {@code double} and {@code float} values to the shortest
+ * decimal that rounds to them, in the format of {@link Double#toString}
+ * and {@link Float#toString}.
+ *
+ * <p>Among the decimals of the fewest digits that round to the value,
+ * the one closest to the value is chosen, or the one with an even last
+ * digit if two are equally close.  The decimal is computed with the
+ * Schubfach algorithm, by 64- and 128-bit integer arithmetic only,
+ * without the multiple-precision arithmetic that some values need with
+ * {@code FloatingDecimal}.
+ *
+ * See:  Giulietti, R., "The Schubfach way to render doubles" (2020).
+ *
+ * @see DecimalToDouble
+ */
+public final class DoubleToDecimal {
+
+    // Parameters of double: precision, exponent range, ...
+    private static final int P = 53;
+    private static final int Q_MIN = -1074;
+    private static final int C_TINY = 3;
+    private static final int H = 17;
+    private static final long C_MIN = 1L << (P - 1);
+    private static final int BQ_MASK = (1 << 11) - 1;
+    private static final long T_MASK = (1L << (P - 1)) - 1;
+
+    // ... and of float
+    private static final int FLOAT_P = 24;
+    private static final int FLOAT_Q_MIN = -149;
+    private static final int FLOAT_C_TINY = 8;
+    private static final int FLOAT_H = 9;
+    private static final int FLOAT_C_MIN = 1 << (FLOAT_P - 1);
+    private static final int FLOAT_BQ_MASK = (1 << 8) - 1;
+    private static final int FLOAT_T_MASK = (1 << (FLOAT_P - 1)) - 1;
+
+    private static final long MASK_32 = (1L << 32) - 1;
+    private static final int MASK_28 = (1 << 28) - 1;
+
+    // The kinds of values, as returned by split
+    static final int NON_SPECIAL = 0;
+    static final int PLUS_ZERO = 1;
+    static final int MINUS_ZERO = 2;
+    static final int PLUS_INF = 3;
+    static final int MINUS_INF = 4;
+    static final int NAN = 5;
+
+    /**
+     * The longest string: a sign, 17 digits, a point, an 'E', a sign
+     * and 3 digits of exponent.
+     */
+    private static final int MAX_CHARS = 24;
+
+    /**
+     * The significand f and exponent e of the decimal f 10^e computed
+     * by split, with 10^(H-1) <= f < 10^H for a double.
+     */
+    private long f;
+    private int e;
+
+    private final char[] chars = new char[MAX_CHARS];
+    private int index;
+
+    DoubleToDecimal() {
+    }
+
+    /**
+     * Returns the string of a {@code double}, as {@link Double#toString}.
+     *
+     * @param v the value
+     * @return the string representation of {@code v}
+     */
+    public static String toJavaFormatString(double v) {
+        DoubleToDecimal fd = new DoubleToDecimal();
+        fd.toChars(fd.split(v), H);
+        return new String(fd.chars, 0, fd.index);
+    }
+
+    /**
+     * Returns the string of a {@code float}, as {@link Float#toString}.
+     *
+     * @param v the value
+     * @return the string representation of {@code v}
+     */
+    public static String toJavaFormatString(float v) {
+        DoubleToDecimal fd = new DoubleToDecimal();
+        fd.toChars(fd.split(v), FLOAT_H);
+        return new String(fd.chars, 0, fd.index);
+    }
+
+    /**
+     * Appends the string of a {@code double}, as {@link Double#toString},
+     * to a {@code StringBuilder} or {@code StringBuffer}, without
+     * creating a string.
+     *
+     * @param v the value
+     * @param buf the {@code StringBuilder} or {@code StringBuffer}
+     */
+    public static void appendTo(double v, Appendable buf) {
+        DoubleToDecimal fd = new DoubleToDecimal();
+        fd.toChars(fd.split(v), H);
+        fd.appendTo(buf);
+    }
+
+    /**
+     * Appends the string of a {@code float}, as {@link Float#toString},
+     * to a {@code StringBuilder} or {@code StringBuffer}, without
+     * creating a string.
+     *
+     * @param v the value
+     * @param buf the {@code StringBuilder} or {@code StringBuffer}
+     */
+    public static void appendTo(float v, Appendable buf) {
+        DoubleToDecimal fd = new DoubleToDecimal();
+        fd.toChars(fd.split(v), FLOAT_H);
+        fd.appendTo(buf);
+    }
+
+    private void appendTo(Appendable buf) {
+        if (buf instanceof StringBuilder) {
+            ((StringBuilder) buf).append(chars, 0, index);
+        } else if (buf instanceof StringBuffer) {
+            ((StringBuffer) buf).append(chars, 0, index);
+        } else {
+            throw new AssertionError("Unexpected Appendable " + buf.getClass());
+        }
+    }
+
+    /**
+     * Returns the decimal significand computed by the last call of split,
+     * of exactly 17 digits for a double and 9 for a float, possibly with
+     * trailing zeros.
+     */
+    long significand() {
+        return f;
+    }
+
+    /**
+     * Returns the decimal exponent computed by the last call of split.
+     */
+    int exponent() {
+        return e;
+    }
+
+    /**
+     * Computes the shortest decimal of a double, leaving its significand
+     * and exponent in f and e if it is finite and nonzero, and returns
+     * the kind of value: NON_SPECIAL, or one of the zeros, infinities
+     * or NaN.  The sign of a finite value is appended to the chars.
+     */
+    int split(double v) {
+        index = 0;
+        long bits = Double.doubleToRawLongBits(v);
+        long t = bits & T_MASK;
+        int bq = (int) (bits >>> (P - 1)) & BQ_MASK;
+        if (bq < BQ_MASK) {
+            if (bits < 0)
+                chars[index++] = '-';
+            if (bq != 0) {
+                // normal value; here mq = -q
+                int mq = -Q_MIN + 1 - bq;
+                long c = C_MIN | t;
+                // integer values of up to 53 bits need no rounding
+                if (0 < mq & mq < P) {
+                    long fi = c >> mq;
+                    if (fi << mq == c) {
+                        normalize(fi, 0, H);
+                        return NON_SPECIAL;
+                    }
+                }
+                toDecimal(-mq, c, 0);
+                return NON_SPECIAL;
+            }
+            if (t != 0) {
+                // subnormal value
+                if (t < C_TINY)
+                    toDecimal(Q_MIN, 10 * t, -1);
+                else
+                    toDecimal(Q_MIN, t, 0);
+                return NON_SPECIAL;
+            }
+            return (bits == 0) ? PLUS_ZERO : MINUS_ZERO;
+        }
+        if (t != 0)
+            return NAN;
+        return (bits > 0) ? PLUS_INF : MINUS_INF;
+    }
+
+    /**
+     * As split(double), for a float, leaving a significand of 9 digits.
+     */
+    int split(float v) {
+        index = 0;
+        int bits = Float.floatToRawIntBits(v);
+        int t = bits & FLOAT_T_MASK;
+        int bq = (bits >>> (FLOAT_P - 1)) & FLOAT_BQ_MASK;
+        if (bq < FLOAT_BQ_MASK) {
+            if (bits < 0)
+                chars[index++] = '-';
+            if (bq != 0) {
+                int mq = -FLOAT_Q_MIN + 1 - bq;
+                int c = FLOAT_C_MIN | t;
+                if (0 < mq & mq < FLOAT_P) {
+                    int fi = c >> mq;
+                    if (fi << mq == c) {
+                        normalize(fi, 0, FLOAT_H);
+                        return NON_SPECIAL;
+                    }
+                }
+                toDecimal(-mq, c, 0);
+                return NON_SPECIAL;
+            }
+            if (t != 0) {
+                if (t < FLOAT_C_TINY)
+                    toDecimal(FLOAT_Q_MIN, 10 * t, -1);
+                else
+                    toDecimal(FLOAT_Q_MIN, t, 0);
+                return NON_SPECIAL;
+            }
+            return (bits == 0) ? PLUS_ZERO : MINUS_ZERO;
+        }
+        if (t != 0)
+            return NAN;
+        return (bits > 0) ? PLUS_INF : MINUS_INF;
+    }
+
+    /*
+     * Computes the decimal of c 2^q, a double, as in figure 7 of the
+     * paper, with the computations summarized in its figure 9.  The names
+     * cb, cbl and cbr stand for c-bar, c-bar-l and c-bar-r, and vb, vbl
+     * and vbr for v-bar, v-bar-l and v-bar-r.
+     */
+    private void toDecimal(int q, long c, int dk) {
+        int out = (int) c & 0x1;
+        long cb = c << 2;
+        long cbr = cb + 2;
+        long cbl;
+        int k;
+        if (c != C_MIN | q == Q_MIN) {
+            // regular spacing
+            cbl = cb - 2;
+            k = flog10pow2(q);
+        } else {
+            // irregular spacing
+            cbl = cb - 1;
+            k = flog10threeQuartersPow2(q);
+        }
+        int h = q + flog2pow10(-k) + 2;
+
+        long g1 = g1(k);
+        long g0 = g0(k);
+
+        long vb = rop(g1, g0, cb << h);
+        long vbl = rop(g1, g0, cbl << h);
+        long vbr = rop(g1, g0, cbr << h);
+
+        long s = vb >> 2;
+        if (s >= 100) {
+            // sp10 = 10 floor(s / 10); upin and wpin tell whether the
+            // decimals of one digit less, sp10 10^k and tp10 10^k, round
+            // to the value
+            long sp10 = 10 * multiplyHigh(s, 115_292_150_460_684_698L << 4);
+            long tp10 = sp10 + 10;
+            boolean upin = vbl + out <= sp10 << 2;
+            boolean wpin = (tp10 << 2) + out <= vbr;
+            if (upin != wpin) {
+                normalize(upin ? sp10 : tp10, k, H);
+                return;
+            }
+        }
+
+        // uin and win tell whether s 10^k and (s + 1) 10^k round to v
+        long t = s + 1;
+        boolean uin = vbl + out <= s << 2;
+        boolean win = (t << 2) + out <= vbr;
+        if (uin != win) {
+            normalize(uin ? s : t, k + dk, H);
+            return;
+        }
+        // both do: take the closest, or the even one on a tie
+        long cmp = vb - (s + t << 1);
+        normalize(cmp < 0 || cmp == 0 && (s & 0x1) == 0 ? s : t, k + dk, H);
+    }
+
+    /*
+     * As toDecimal(int, long, int), for c 2^q a float.
+     */
+    private void toDecimal(int q, int c, int dk) {
+        int out = c & 0x1;
+        long cb = (long) c << 2;
+        long cbr = cb + 2;
+        long cbl;
+        int k;
+        if (c != FLOAT_C_MIN | q == FLOAT_Q_MIN) {
+            cbl = cb - 2;
+            k = flog10pow2(q);
+        } else {
+            cbl = cb - 1;
+            k = flog10threeQuartersPow2(q);
+        }
+        int h = q + flog2pow10(-k) + 33;
+
+        long g = g1(k) + 1;
+
+        int vb = rop(g, cb << h);
+        int vbl = rop(g, cbl << h);
+        int vbr = rop(g, cbr << h);
+
+        int s = vb >> 2;
+        if (s >= 100) {
+            int sp10 = 10 * (int) (s * 1_717_986_919L >>> 34);
+            int tp10 = sp10 + 10;
+            boolean upin = vbl + out <= sp10 << 2;
+            boolean wpin = (tp10 << 2) + out <= vbr;
+            if (upin != wpin) {
+                normalize(upin ? sp10 : tp10, k, FLOAT_H);
+                return;
+            }
+        }
+
+        int t = s + 1;
+        boolean uin = vbl + out <= s << 2;
+        boolean win = (t << 2) + out <= vbr;
+        if (uin != win) {
+            normalize(uin ? s : t, k + dk, FLOAT_H);
+            return;
+        }
+        int cmp = vb - (s + t << 1);
+        normalize(cmp < 0 || cmp == 0 && (s & 0x1) == 0 ? s : t, k + dk, FLOAT_H);
+    }
+
+    /*
+     * Computes rop(cp g 2^(-127)), where g = g1 2^63 + g0; see section 9.9
+     * and figure 8 of the paper.
+     */
+    private static long rop(long g1, long g0, long cp) {
+        long x1 = multiplyHigh(g0, cp);
+        long y0 = g1 * cp;
+        long y1 = multiplyHigh(g1, cp);
+        long z = (y0 >>> 1) + x1;
+        long vbp = y1 + (z >>> 63);
+        return vbp | (z & MASK_63) + MASK_63 >>> 63;
+    }
+
+    /*
+     * Computes rop(cp g 2^(-95)), for a float.
+     */
+    private static int rop(long g, long cp) {
+        long x1 = multiplyHigh(g, cp);
+        long vbp = x1 >>> 31;
+        return (int) (vbp | (x1 & MASK_32) + MASK_32 >>> 32);
+    }
+
+    /*
+     * Sets f and e to the decimal fp 10^ep, with f of exactly n digits:
+     * fp 10^ep = f 10^(e-n) = 0.f 10^e.
+     */
+    private void normalize(long fp, int ep, int n) {
+        // 10^(len-1) <= fp < 10^len
+        int len = flog10pow2(Long.SIZE - Long.numberOfLeadingZeros(fp));
+        if (fp >= pow10(len))
+            len += 1;
+        f = fp * pow10(n - len);
+        e = ep + len;
+    }
+
+    /*
+     * Appends the string of the value of the given kind, with the decimal
+     * f and e of n digits if it is NON_SPECIAL: in plain notation if
+     * 10^-3 <= v < 10^7, and in computerized scientific notation
+     * otherwise.
+     */
+    private void toChars(int kind, int n) {
+        if (kind != NON_SPECIAL)
+            index = 0;
+        switch (kind) {
+        case PLUS_ZERO:  append("0.0"); return;
+        case MINUS_ZERO: append("-0.0"); return;
+        case PLUS_INF:   append("Infinity"); return;
+        case MINUS_INF:  append("-Infinity"); return;
+        case NAN:        append("NaN"); return;
+        }
+        // Split the n digits of f into h, the most significant digit,
+        // and m and l, of 8 digits each, the latter being zero for floats
+        int h, m, l;
+        if (n == H) {
+            // floor(f / 10^8) = floor(193_428_131_138_340_668 f / 2^84)
+            // and floor(hm / 10^8) = floor(1_441_151_881 hm / 2^57)
+            long hm = multiplyHigh(f, 193_428_131_138_340_668L) >>> 20;
+            l = (int) (f - 100_000_000L * hm);
+            h = (int) (hm * 1_441_151_881L >>> 57);
+            m = (int) (hm - 100_000_000 * h);
+        } else {
+            h = (int) (f * 1_441_151_881L >>> 57);
+            m = (int) (f - 100_000_000 * h);
+            l = 0;
+        }
+        if (0 < e && e <= 7) {
+            // plain format without leading zeros
+            appendDigit(h);
+            int y = y(m);
+            int i = 1;
+            for (; i < e; ++i) {
+                int t = 10 * y;
+                appendDigit(t >>> 28);
+                y = t & MASK_28;
+            }
+            chars[index++] = '.';
+            for (; i <= 8; ++i) {
+                int t = 10 * y;
+                appendDigit(t >>> 28);
+                y = t & MASK_28;
+            }
+            lowDigits(l);
+        } else if (-3 < e && e <= 0) {
+            // plain format with leading zeros
+            appendDigit(0);
+            chars[index++] = '.';
+            for (int i = e; i < 0; ++i)
+                appendDigit(0);
+            appendDigit(h);
+            append8Digits(m);
+            lowDigits(l);
+        } else {
+            // computerized scientific notation
+            appendDigit(h);
+            chars[index++] = '.';
+            append8Digits(m);
+            lowDigits(l);
+            exponent(e - 1);
+        }
+    }
+
+    private void lowDigits(int l) {
+        if (l != 0)
+            append8Digits(l);
+        removeTrailingZeros();
+    }
+
+    /*
+     * Appends the 8 digits of m, from left to right, by algorithm 1 of
+     * Bouvier and Zimmermann, "Division-free binary-to-decimal conversion"
+     * (2014), with b = 10, k = 8, n = 28.
+     */
+    private void append8Digits(int m) {
+        int y = y(m);
+        for (int i = 0; i < 8; ++i) {
+            int t = 10 * y;
+            appendDigit(t >>> 28);
+            y = t & MASK_28;
+        }
+    }
+
+    private void removeTrailingZeros() {
+        while (chars[index - 1] == '0')
+            --index;
+        // ... but keep the one directly to the right of the point
+        if (chars[index - 1] == '.')
+            ++index;
+    }
+
+    /*
+     * Returns floor((a + 1) 2^28 / 10^8) - 1, for a < 10^8.
+     */
+    private static int y(int a) {
+        return (int) (multiplyHigh((long) (a + 1) << 28,
+                                   193_428_131_138_340_668L) >>> 20) - 1;
+    }
+
+    private void exponent(int e) {
+        chars[index++] = 'E';
+        if (e < 0) {
+            chars[index++] = '-';
+            e = -e;
+        }
+        if (e < 10) {
+            appendDigit(e);
+            return;
+        }
+        int d;
+        if (e >= 100) {
+            d = e * 1_311 >>> 17;   // e / 100
+            appendDigit(d);
+            e -= 100 * d;
+        }
+        d = e * 103 >>> 10;         // e / 10
+        appendDigit(d);
+        appendDigit(e - 10 * d);
+    }
+
+    private void appendDigit(int d) {
+        chars[index++] = (char) ('0' + d);
+    }
+
+    private void append(String s) {
+        for (int i = 0; i < s.length(); i++)
+            chars[index++] = s.charAt(i);
+    }
+}
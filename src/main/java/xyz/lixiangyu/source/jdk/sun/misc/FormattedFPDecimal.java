@@ -0,0 +1,263 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package sun.misc;
+
+import java.util.Arrays;
+
+/**
+ * The digits of a {@code double} rounded to a precision, for the
+ * {@code 'e'}, {@code 'f'} and {@code 'g'} conversions of {@link
+ * java.util.Formatter}.  As with {@code FormattedFloatingDecimal}, the
+ * shortest decimal that rounds to the value, the digits of {@link
+ * Double#toString}, is rounded half up to the precision; the decimal is
+ * computed by {@link DoubleToDecimal}.
+ */
+public final class FormattedFPDecimal {
+
+    public enum Form { SCIENTIFIC, DECIMAL_FLOAT, GENERAL };
+
+    private int decExponentRounded;
+    private char[] mantissa;
+    private char[] exponent;
+
+    /**
+     * Returns the digits of a finite, nonnegative value rounded to the
+     * given precision, in the given form.
+     *
+     * @param d the value
+     * @param precision the number of digits after the point, or the
+     *        number of significant digits for {@code GENERAL}
+     * @param form the form
+     * @return the rounded digits
+     */
+    public static FormattedFPDecimal valueOf(double d, int precision, Form form) {
+        return new FormattedFPDecimal(d, precision, form);
+    }
+
+    private FormattedFPDecimal(double d, int precision, Form form) {
+        DoubleToDecimal fd = new DoubleToDecimal();
+        int kind = fd.split(d);
+        boolean isNegative = d < 0;
+        char[] digits = new char[17];
+        int nDigits;
+        int decExp;
+        if (kind == DoubleToDecimal.NON_SPECIAL) {
+            long f = fd.significand();
+            decExp = fd.exponent();
+            for (int i = digits.length - 1; i >= 0; i--) {
+                digits[i] = (char) ('0' + f % 10);
+                f /= 10;
+            }
+            nDigits = digits.length;
+            while (nDigits > 1 && digits[nDigits - 1] == '0')
+                nDigits--;
+        } else if (kind == DoubleToDecimal.PLUS_ZERO || kind == DoubleToDecimal.MINUS_ZERO) {
+            digits[0] = '0';
+            nDigits = 1;
+            decExp = 0;
+            isNegative = (kind == DoubleToDecimal.MINUS_ZERO);
+        } else {
+            mantissa = DoubleToDecimal.toJavaFormatString(d).toCharArray();
+            exponent = null;
+            return;
+        }
+        int exp;
+        switch (form) {
+            case DECIMAL_FLOAT:
+                exp = applyPrecision(decExp, digits, nDigits, decExp + precision);
+                fillDecimal(precision, digits, nDigits, exp, isNegative);
+                this.decExponentRounded = exp;
+                break;
+            case SCIENTIFIC:
+                exp = applyPrecision(decExp, digits, nDigits, precision + 1);
+                fillScientific(precision, digits, nDigits, exp, isNegative);
+                this.decExponentRounded = exp;
+                break;
+            case GENERAL:
+                exp = applyPrecision(decExp, digits, nDigits, precision);
+                // adjust precision to be the number of digits to right of decimal
+                // the real exponent to be output is actually exp - 1, not exp
+                if (exp - 1 < -4 || exp - 1 >= precision) {
+                    precision--;
+                    fillScientific(precision, digits, nDigits, exp, isNegative);
+                } else {
+                    precision = precision - exp;
+                    fillDecimal(precision, digits, nDigits, exp, isNegative);
+                }
+                this.decExponentRounded = exp;
+                break;
+            default:
+                assert false;
+        }
+    }
+
+    /**
+     * Returns the exponent after rounding has been done by applyPrecision.
+     */
+    public int getExponentRounded() {
+        return decExponentRounded - 1;
+    }
+
+    public char[] getMantissa() {
+        return mantissa;
+    }
+
+    public char[] getExponent() {
+        return exponent;
+    }
+
+    /**
+     * Rounds the digits half up to prec digits, and returns the new
+     * decimal exponent, which is greater on a carry out.
+     */
+    private static int applyPrecision(int decExp, char[] digits, int nDigits, int prec) {
+        if (prec >= nDigits || prec < 0) {
+            // no rounding necessary
+            return decExp;
+        }
+        if (prec == 0) {
+            // only one digit (0 or 1) is returned because of rounding
+            if (digits[0] >= '5') {
+                digits[0] = '1';
+                Arrays.fill(digits, 1, nDigits, '0');
+                return decExp + 1;
+            } else {
+                Arrays.fill(digits, 0, nDigits, '0');
+                return decExp;
+            }
+        }
+        int q = digits[prec];
+        if (q >= '5') {
+            int i = prec;
+            q = digits[--i];
+            if (q == '9') {
+                while (q == '9' && i > 0) {
+                    q = digits[--i];
+                }
+                if (q == '9') {
+                    // carryout! High-order 1, rest 0s, larger exp.
+                    digits[0] = '1';
+                    Arrays.fill(digits, 1, nDigits, '0');
+                    return decExp + 1;
+                }
+            }
+            digits[i] = (char) (q + 1);
+            Arrays.fill(digits, i + 1, nDigits, '0');
+        } else {
+            Arrays.fill(digits, prec, nDigits, '0');
+        }
+        return decExp;
+    }
+
+    /**
+     * Fills mantissa with the digits in plain notation, without a point
+     * if there is no fraction, as the Formatter adds it as necessary.
+     */
+    private void fillDecimal(int precision, char[] digits, int nDigits, int exp, boolean isNegative) {
+        int startIndex = isNegative ? 1 : 0;
+        if (exp > 0) {
+            if (nDigits < exp) {
+                mantissa = create(isNegative, exp);
+                System.arraycopy(digits, 0, mantissa, startIndex, nDigits);
+                Arrays.fill(mantissa, startIndex + nDigits, startIndex + exp, '0');
+            } else {
+                int t = Math.min(nDigits - exp, precision);
+                mantissa = create(isNegative, exp + (t > 0 ? (t + 1) : 0));
+                System.arraycopy(digits, 0, mantissa, startIndex, exp);
+                if (t > 0) {
+                    mantissa[startIndex + exp] = '.';
+                    System.arraycopy(digits, exp, mantissa, startIndex + exp + 1, t);
+                }
+            }
+        } else {
+            int zeros = Math.max(0, Math.min(-exp, precision));
+            int t = Math.max(0, Math.min(nDigits, precision + exp));
+            if (zeros > 0) {
+                // '0's before the significant digits
+                mantissa = create(isNegative, zeros + 2 + t);
+                mantissa[startIndex] = '0';
+                mantissa[startIndex + 1] = '.';
+                Arrays.fill(mantissa, startIndex + 2, startIndex + 2 + zeros, '0');
+                if (t > 0)
+                    System.arraycopy(digits, 0, mantissa, startIndex + 2 + zeros, t);
+            } else if (t > 0) {
+                mantissa = create(isNegative, zeros + 2 + t);
+                mantissa[startIndex] = '0';
+                mantissa[startIndex + 1] = '.';
+                System.arraycopy(digits, 0, mantissa, startIndex + 2, t);
+            } else {
+                this.mantissa = create(isNegative, 1);
+                this.mantissa[startIndex] = '0';
+            }
+        }
+    }
+
+    /**
+     * Fills mantissa and exponent with the digits in scientific notation.
+     */
+    private void fillScientific(int precision, char[] digits, int nDigits, int exp, boolean isNegative) {
+        int startIndex = isNegative ? 1 : 0;
+        int t = Math.max(0, Math.min(nDigits - 1, precision));
+        if (t > 0) {
+            mantissa = create(isNegative, t + 2);
+            mantissa[startIndex] = digits[0];
+            mantissa[startIndex + 1] = '.';
+            System.arraycopy(digits, 1, mantissa, startIndex + 2, t);
+        } else {
+            mantissa = create(isNegative, 1);
+            mantissa[startIndex] = digits[0];
+        }
+        char expSign;
+        int e;
+        if (exp <= 0) {
+            expSign = '-';
+            e = -exp + 1;
+        } else {
+            expSign = '+';
+            e = exp - 1;
+        }
+        // the exponent has 1, 2, or 3 digits
+        if (e <= 9) {
+            exponent = new char[] { expSign, '0', (char) (e + '0') };
+        } else if (e <= 99) {
+            exponent = new char[] { expSign, (char) (e / 10 + '0'), (char) (e % 10 + '0') };
+        } else {
+            char hiExpChar = (char) (e / 100 + '0');
+            e %= 100;
+            exponent = new char[] { expSign, hiExpChar, (char) (e / 10 + '0'), (char) (e % 10 + '0') };
+        }
+    }
+
+    private static char[] create(boolean isNegative, int size) {
+        if (isNegative) {
+            char[] r = new char[size + 1];
+            r[0] = '-';
+            return r;
+        } else {
+            return new char[size];
+        }
+    }
+}
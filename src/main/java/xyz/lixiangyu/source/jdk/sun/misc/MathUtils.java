@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package sun.misc;
+
+import java.math.BigInteger;
+
+/**
+ * Arithmetic shared by the conversions between binary floating-point
+ * numbers and decimal strings: logarithms of powers, high products, and
+ * a table of 128-bit approximations of the powers of ten.
+ *
+ * @see DoubleToDecimal
+ * @see DecimalToDouble
+ */
+final class MathUtils {
+
+    // This class cannot be instantiated.
+    private MathUtils() {}
+
+    /** The least exponent of the powers of ten in the table. */
+    static final int POW10_MIN = -342;
+
+    /** The greatest exponent of the powers of ten in the table. */
+    static final int POW10_MAX = 324;
+
+    static final long MASK_63 = (1L << 63) - 1;
+
+    /**
+     * For POW10_MIN <= q <= POW10_MAX, the entries 2 (q - POW10_MIN) and
+     * 2 (q - POW10_MIN) + 1 are the high and low halves of the 128-bit
+     * significand of 10^q, rounded down, with its most significant bit
+     * set: that is floor(10^q 2^(127 - flog2pow10(q))).
+     */
+    private static final long[] POW10_128 = new long[2 * (POW10_MAX - POW10_MIN + 1)];
+
+    /** 10^e as a long, for 0 <= e <= 18. */
+    private static final long[] POW10 = new long[19];
+
+    static {
+        BigInteger mask = BigInteger.ONE.shiftLeft(64).subtract(BigInteger.ONE);
+        BigInteger p = BigInteger.ONE;
+        for (int q = 0; q <= -POW10_MIN; q++) {
+            int bl = p.bitLength();
+            if (q <= POW10_MAX) {
+                // 10^q shifted to 128 bits, truncated
+                BigInteger s = (bl > 128) ? p.shiftRight(bl - 128) : p.shiftLeft(128 - bl);
+                set(q, s, mask);
+            }
+            if (q > 0) {
+                // 2^(bl + 127) / 10^q is between 2^127 and 2^128
+                set(-q, BigInteger.ONE.shiftLeft(bl + 127).divide(p), mask);
+            }
+            if (q < POW10.length)
+                POW10[q] = p.longValue();
+            p = p.multiply(BigInteger.TEN);
+        }
+    }
+
+    private static void set(int q, BigInteger s, BigInteger mask) {
+        int i = 2 * (q - POW10_MIN);
+        POW10_128[i] = s.shiftRight(64).longValue();
+        POW10_128[i + 1] = s.and(mask).longValue();
+    }
+
+    /**
+     * Returns the high 64 bits of the significand of 10^q.
+     */
+    static long pow10Hi(int q) {
+        return POW10_128[2 * (q - POW10_MIN)];
+    }
+
+    /**
+     * Returns the low 64 bits of the significand of 10^q.
+     */
+    static long pow10Lo(int q) {
+        return POW10_128[2 * (q - POW10_MIN) + 1];
+    }
+
+    /**
+     * Returns 10^e, for 0 <= e <= 18.
+     */
+    static long pow10(int e) {
+        return POW10[e];
+    }
+
+    /*
+     * Let 10^-k = b 2^r, for the unique integer r and real b meeting
+     * 2^125 <= b < 2^126, and let g = floor(b) + 1 = g1 2^63 + g0, where
+     * 0 <= g0 < 2^63.  As b is the significand of 10^-k shifted by two
+     * bits, g is derived from the table.
+     */
+
+    /**
+     * Returns g1, the high 63 bits of g, for the given k.
+     */
+    static long g1(int k) {
+        long hi = pow10Hi(-k) >>> 2;
+        long lo = ((pow10Lo(-k) >>> 2) | (pow10Hi(-k) << 62)) + 1;
+        return (hi << 1) | (lo >>> 63);     // lo + 1 cannot carry
+    }
+
+    /**
+     * Returns g0, the low 63 bits of g, for the given k.
+     */
+    static long g0(int k) {
+        return (((pow10Lo(-k) >>> 2) | (pow10Hi(-k) << 62)) + 1) & MASK_63;
+    }
+
+    /**
+     * Returns floor(log10(2^e)), for |e| <= 5_456_721.
+     */
+    static int flog10pow2(int e) {
+        return (int) (e * 661_971_961_083L >> 41);
+    }
+
+    /**
+     * Returns floor(log10(3/4 2^e)), for |e| <= 1_700_000.
+     */
+    static int flog10threeQuartersPow2(int e) {
+        return (int) (e * 661_971_961_083L + -274_743_187_321L >> 41);
+    }
+
+    /**
+     * Returns floor(log2(10^e)), for |e| <= 1_233_436.
+     */
+    static int flog2pow10(int e) {
+        return (int) (e * 913_124_641_741L >> 38);
+    }
+
+    /**
+     * Returns the most significant 64 bits of the 128-bit product of two
+     * signed longs (Hacker's Delight, section 8-2).
+     */
+    static long multiplyHigh(long x, long y) {
+        long x1 = x >> 32;
+        long x2 = x & 0xFFFFFFFFL;
+        long y1 = y >> 32;
+        long y2 = y & 0xFFFFFFFFL;
+        long z2 = x2 * y2;
+        long t = x1 * y2 + (z2 >>> 32);
+        long z1 = t & 0xFFFFFFFFL;
+        long z0 = t >> 32;
+        z1 += x2 * y1;
+        return x1 * y1 + z0 + (z1 >> 32);
+    }
+
+    /**
+     * Returns the most significant 64 bits of the 128-bit product of two
+     * unsigned longs.
+     */
+    static long unsignedMultiplyHigh(long x, long y) {
+        return multiplyHigh(x, y) + ((x >> 63) & y) + ((y >> 63) & x);
+    }
+}
@@ -0,0 +1,99 @@
+package xyz.lixiangyu.source.jdk.java.util.regex;
+
+import org.junit.Test;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the matches found with the lazy DFA against those of the
+ * backtracking engine.
+ */
+public class LazyDFATest {
+    private static String repeat(char c, int n) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < n; i++) {
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+
+    private static void assertNoMatch(String regex, String input) {
+        Matcher matcher = Pattern.compile(regex).matcher(input);
+        assertFalse(regex, matcher.matches());
+        matcher.hitEnd();
+        assertFalse(regex, matcher.find(0) && matcher.start() == 0 && matcher.end() == input.length());
+    }
+
+    private static void assertFind(String regex, String input, int... spans) {
+        Matcher matcher = Pattern.compile(regex).matcher(input);
+        for (int n = 0; n < spans.length; n += 2) {
+            assertTrue(regex, matcher.find());
+            assertEquals(regex, spans[n], matcher.start());
+            assertEquals(regex, spans[n + 1], matcher.end());
+        }
+        assertFalse(regex, matcher.find());
+    }
+
+    @Test
+    public void emptyIterationTest() {
+        // the backtracking engine leaves a loop after an empty iteration
+        assertNoMatch("(?:^.*?){2}$", "a");
+        assertNoMatch("(?:^.*?){2}$", "axBA1");
+        assertNoMatch("(?:^a|^.*){2}", "a");
+        assertNoMatch("x?(?:^.*?){2}$", "a");
+        assertEquals(Pattern.Engine.BACKTRACKING, Pattern.compile("(?:^.*?){2}$").engine());
+
+        Matcher matcher = Pattern.compile("(?:|a)*").matcher("aa");
+        assertTrue(matcher.lookingAt());
+        assertEquals(0, matcher.end());
+    }
+
+    @Test
+    public void matchStateTest() {
+        Matcher matcher = Pattern.compile("a+").matcher("xaay");
+        assertTrue(matcher.find());
+        assertFalse(matcher.hitEnd());
+        assertEquals(1, matcher.start());
+        assertEquals(3, matcher.end());
+        assertEquals("aa", matcher.group());
+    }
+
+    @Test
+    public void leftmostFirstTest() {
+        assertFind("a|ab", "abab", 0, 1, 2, 3);
+        assertFind("ab|a", "abab", 0, 2, 2, 4);
+        assertFind("a*?b", "aab ab", 0, 3, 4, 6);
+        assertFind("(?:a|b)+?", "ab", 0, 1, 1, 2);
+        assertFind("x?a{2,3}", "aaaaxaa", 0, 3, 4, 7);
+        assertFind("^a|b$", "aab", 0, 1, 2, 3);
+
+        Matcher matcher = Pattern.compile("(a|ab)(c|bcd)(d*)").matcher("xabcd");
+        assertTrue(matcher.find());
+        assertEquals(1, matcher.start());
+        assertEquals(5, matcher.end());
+        assertEquals("a", matcher.group(1));
+        assertEquals("bcd", matcher.group(2));
+        assertEquals("", matcher.group(3));
+
+        matcher = Pattern.compile("a+?").matcher("aaa");
+        assertTrue(matcher.lookingAt());
+        assertEquals(1, matcher.end());
+    }
+
+    @Test(timeout = 10000)
+    public void linearTimeTest() {
+        assertFind("(?:x+x+)+y", repeat('x', 30) + "z xxy", 32, 35);
+        assertFind("(?:a|a)*c", repeat('a', 30) + "c", 0, 31);
+        assertFind("(?:a|a)*c", repeat('a', 30));
+        assertFind("(a+)+b", repeat('a', 30));
+
+        Matcher matcher = Pattern.compile("((?:x+x+)+y)").matcher(repeat('x', 30) + "z xxy");
+        assertTrue(matcher.find());
+        assertEquals("xxy", matcher.group(1));
+    }
+}
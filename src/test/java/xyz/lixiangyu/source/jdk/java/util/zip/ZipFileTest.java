@@ -0,0 +1,100 @@
+package xyz.lixiangyu.source.jdk.java.util.zip;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks that the entries of a zip file with duplicate names are read at
+ * their own headers.
+ */
+public class ZipFileTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Writes the entries "c", "a" and "b", renames "b" to "a" in its LOC and
+     * CEN headers, and sets the totals of the END header to the given value.
+     */
+    private File duplicates(int total) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream out = new ZipOutputStream(bytes)) {
+            for (String name : new String[] { "c", "a", "b" }) {
+                out.putNextEntry(new ZipEntry(name));
+                out.write(("data-" + name).getBytes("US-ASCII"));
+                out.closeEntry();
+            }
+        }
+        byte[] b = bytes.toByteArray();
+        for (int i = 0; i + 4 <= b.length; i++) {
+            int sig = (b[i] & 0xff) | (b[i + 1] & 0xff) << 8
+                | (b[i + 2] & 0xff) << 16 | (b[i + 3] & 0xff) << 24;
+            if (sig == 0x04034b50 && b[i + 30] == 'b') {
+                b[i + 30] = 'a';
+            } else if (sig == 0x02014b50 && b[i + 46] == 'b') {
+                b[i + 46] = 'a';
+            } else if (sig == 0x06054b50) {
+                b[i + 8] = b[i + 10] = (byte) total;
+                b[i + 9] = b[i + 11] = 0;
+            }
+        }
+        File file = folder.newFile();
+        try (OutputStream out = new FileOutputStream(file)) {
+            out.write(b);
+        }
+        return file;
+    }
+
+    private static String read(ZipFile zip, ZipEntry entry) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InputStream in = zip.getInputStream(entry)) {
+            int c;
+            while ((c = in.read()) >= 0) {
+                out.write(c);
+            }
+        }
+        return out.toString("US-ASCII");
+    }
+
+    private void checkDuplicates(int total) throws IOException {
+        try (ZipFile zip = new ZipFile(duplicates(total))) {
+            List<String> data = new ArrayList<>();
+            for (ZipEntry entry : Collections.list(zip.entries())) {
+                data.add(entry.getName() + "=" + read(zip, entry));
+                data.add(entry.getName() + "=" + read(zip, new ZipEntry(entry)));
+            }
+            assertEquals(6, data.size());
+            assertEquals("c=data-c", data.get(0));
+            assertEquals("c=data-c", data.get(1));
+            assertEquals("a=data-a", data.get(2));
+            assertEquals("a=data-a", data.get(3));
+            assertEquals("a=data-b", data.get(4));
+            assertEquals("a=data-b", data.get(5));
+        }
+    }
+
+    @Test
+    public void duplicateNameTest() throws IOException {
+        checkDuplicates(2);
+    }
+
+    @Test
+    public void wrongTotalTest() throws IOException {
+        checkDuplicates(1);
+    }
+}